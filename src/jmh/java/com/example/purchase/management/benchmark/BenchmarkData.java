@@ -0,0 +1,80 @@
+package com.example.purchase.management.benchmark;
+
+import com.example.purchase.management.entity.Customer;
+import com.example.purchase.management.entity.Product;
+import com.example.purchase.management.entity.Purchase;
+import com.example.purchase.management.entity.Refund;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Detached entities shaped like the seeded data, for benchmarks that don't need a database.
+ */
+final class BenchmarkData {
+
+    private static final LocalDateTime Start = LocalDateTime.of(2024, 3, 1, 0, 0);
+
+    private BenchmarkData() {
+    }
+
+    static Customer customer(long id) {
+        Customer customer = new Customer();
+        customer.setId(id);
+        customer.setFirstName("Ahmad");
+        customer.setLastName("Saad");
+        customer.setPhone("0912345678");
+        customer.setEmail("ahmad.saad@example.com");
+        return customer;
+    }
+
+    static Product product(long id) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Laptop");
+        product.setPrice(1200.0);
+        return product;
+    }
+
+    static Purchase purchase(long id, Customer customer, Product product) {
+        Purchase purchase = new Purchase();
+        purchase.setId(id);
+        purchase.setCustomer(customer);
+        purchase.setProduct(product);
+        purchase.setAmount(100.0 + id % 1000 / 100.0);
+        purchase.setDate(Start.plusSeconds(id));
+        return purchase;
+    }
+
+    static Refund refund(long id, Purchase purchase) {
+        Refund refund = new Refund();
+        refund.setId(id);
+        refund.setPurchase(purchase);
+        refund.setCustomer(purchase.getCustomer());
+        refund.setProduct(purchase.getProduct());
+        refund.setAmount(purchase.getAmount() / 2);
+        refund.setDate(purchase.getDate().plusHours(1));
+        return refund;
+    }
+
+    // Customers and products are shared between rows, as they are in a persistence context
+    static List<Purchase> purchases(int count) {
+        Customer[] customers = { customer(1), customer(2), customer(3) };
+        Product[] products = { product(1), product(2) };
+        List<Purchase> purchases = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            purchases.add(purchase(i + 1, customers[i % customers.length], products[i % products.length]));
+        }
+        return purchases;
+    }
+
+    // One refund for every tenth purchase
+    static List<Refund> refunds(List<Purchase> purchases) {
+        List<Refund> refunds = new ArrayList<>(purchases.size() / 10);
+        for (int i = 0; i < purchases.size(); i += 10) {
+            refunds.add(refund(refunds.size() + 1, purchases.get(i)));
+        }
+        return refunds;
+    }
+}
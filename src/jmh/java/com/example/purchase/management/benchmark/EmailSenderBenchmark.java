@@ -0,0 +1,70 @@
+package com.example.purchase.management.benchmark;
+
+import com.example.purchase.management.config.EmailProperties;
+import com.example.purchase.management.exception.ContentSizeExceededException;
+import com.example.purchase.management.report.ReportContent;
+import com.example.purchase.management.service.impl.EmailSenderService;
+import jakarta.mail.internet.MimeMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how the sender sizes up a report: spooling and counting it, and above 25 MB
+ * compressing it for an attachment. Nothing is sent.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmailSenderBenchmark {
+
+    // Inline below the 25 MB limit, attached compressed above it
+    @Param({ "1", "30" })
+    private int megabytes;
+
+    private EmailSenderService sender;
+    private ReportContent report;
+
+    @Setup
+    public void setUp() {
+        EmailProperties emailProperties = new EmailProperties();
+        emailProperties.setFrom("reports@example.com");
+        emailProperties.setTo("team@example.com");
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl() {
+            @Override
+            protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) {
+                // measure everything up to the SMTP conversation
+            }
+        };
+        sender = new EmailSenderService(mailSender, emailProperties);
+
+        byte[] row = ("<tr style='background-color: #f9f9f9;'><td style='padding: 12px; border: 1px solid #ddd;'>1</td>"
+                + "<td style='padding: 12px; border: 1px solid #ddd;'>Ahmad</td></tr>").getBytes(StandardCharsets.UTF_8);
+        long size = megabytes * 1024L * 1024L;
+        report = out -> {
+            for (long written = 0; written < size; written += row.length) {
+                out.write(row);
+            }
+        };
+    }
+
+    @Benchmark
+    public void send() throws ContentSizeExceededException {
+        sender.send("Daily report", report);
+    }
+}
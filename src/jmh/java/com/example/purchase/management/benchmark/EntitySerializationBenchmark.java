@@ -0,0 +1,54 @@
+package com.example.purchase.management.benchmark;
+
+import com.example.purchase.management.entity.Purchase;
+import com.example.purchase.management.entity.Refund;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes single entities to JSON as the controllers return them, nested customer and
+ * product included.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EntitySerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private Purchase purchase;
+    private Refund refund;
+
+    @Setup
+    public void setUp() {
+        // same defaults as the application's mapper, java.time support included
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        purchase = BenchmarkData.purchase(1, BenchmarkData.customer(1), BenchmarkData.product(1));
+        refund = BenchmarkData.refund(1, purchase);
+    }
+
+    @Benchmark
+    public byte[] serializePurchase() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(purchase);
+    }
+
+    @Benchmark
+    public byte[] serializeRefund() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(refund);
+    }
+}
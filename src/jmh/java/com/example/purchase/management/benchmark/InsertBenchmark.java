@@ -0,0 +1,170 @@
+package com.example.purchase.management.benchmark;
+
+import com.example.purchase.management.entity.PooledLoSequenceGenerator;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Inserts purchase-shaped rows one per transaction and a thousand per transaction, with the
+ * IDENTITY ids the entities used to have and the pooled-lo sequence they use now; the scores are
+ * per row. Runs on H2 unless {@code BENCHMARK_DATASOURCE_URL} (with {@code _USERNAME} and
+ * {@code _PASSWORD}) points it elsewhere, e.g. at PostgreSQL:
+ * <pre>
+ * BENCHMARK_DATASOURCE_URL='jdbc:postgresql://localhost:5432/taskdb?reWriteBatchedInserts=true' \
+ * BENCHMARK_DATASOURCE_USERNAME=task BENCHMARK_DATASOURCE_PASSWORD=... \
+ * ./mvnw -Pjmh test-compile exec:exec -Djmh.include=InsertBenchmark
+ * </pre>
+ * The benchmark creates and drops its own two tables.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+// Five forks of ten iterations after a long warmup: a single-row insert is a round trip and a commit,
+// whose jitter swamps the difference between id strategies in fewer samples, and on one core the
+// persist path is still being compiled for the first twenty seconds or so
+@Warmup(iterations = 15, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(5)
+@State(Scope.Benchmark)
+public class InsertBenchmark {
+
+    private static final int BULK_ROWS = 1000;
+
+    // Same as hibernate.jdbc.batch_size in application.yml
+    private static final int FLUSH_INTERVAL = 500;
+
+    @Param({ "identity", "pooled-lo" })
+    public String ids;
+
+    private ConfigurableApplicationContext context;
+    private EntityManager entityManager;
+    private TransactionTemplate transaction;
+    private Supplier<Object> newRow;
+
+    @Setup
+    public void setUp() {
+        String url = environment("BENCHMARK_DATASOURCE_URL", "jdbc:h2:mem:insert;DB_CLOSE_DELAY=-1");
+        boolean h2 = url.startsWith("jdbc:h2:");
+        // command-line arguments, so they win over application.yml
+        context = new SpringApplicationBuilder(Config.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + url,
+                        "--spring.datasource.driver-class-name=" + (h2 ? "org.h2.Driver" : "org.postgresql.Driver"),
+                        "--spring.datasource.username=" + environment("BENCHMARK_DATASOURCE_USERNAME", "sa"),
+                        "--spring.datasource.password=" + environment("BENCHMARK_DATASOURCE_PASSWORD", ""),
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect."
+                                + (h2 ? "H2Dialect" : "PostgreSQLDialect"),
+                        "--spring.jpa.show-sql=false",
+                        "--spring.sql.init.mode=never",
+                        "--spring.devtools.restart.enabled=false",
+                        "--logging.level.root=WARN");
+        entityManager = context.getBean(EntityManager.class);
+        transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        newRow = "identity".equals(ids) ? IdentityRow::new : SequenceRow::new;
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object insertOne() {
+        return transaction.execute(status -> {
+            Object row = newRow.get();
+            entityManager.persist(row);
+            return row;
+        });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BULK_ROWS)
+    public void insertBulk() {
+        transaction.executeWithoutResult(status -> {
+            for (int i = 1; i <= BULK_ROWS; i++) {
+                entityManager.persist(newRow.get());
+                if (i % FLUSH_INTERVAL == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+        });
+    }
+
+    private static String environment(String name, String fallback) {
+        String value = System.getenv(name);
+        return value != null ? value : fallback;
+    }
+
+    @Entity
+    @Table(name = "insert_benchmark_identity")
+    @Getter
+    @Setter
+    public static class IdentityRow {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        private Long id;
+
+        private Long customerId = 1L;
+        private Long productId = 1L;
+        private Double amount = 1200.0;
+        private LocalDateTime date = LocalDateTime.now();
+    }
+
+    @Entity
+    @Table(name = "insert_benchmark_sequence")
+    @Getter
+    @Setter
+    public static class SequenceRow {
+
+        @Id
+        @GeneratedValue(generator = "insert_benchmark_seq")
+        @GenericGenerator(name = "insert_benchmark_seq", type = PooledLoSequenceGenerator.class)
+        private Long id;
+
+        private Long customerId = 1L;
+        private Long productId = 1L;
+        private Double amount = 1200.0;
+        private LocalDateTime date = LocalDateTime.now();
+    }
+
+    // Just the persistence layer and the two benchmark tables
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @EntityScan(basePackageClasses = InsertBenchmark.class)
+    static class Config {
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.purchase.management.benchmark;
+
+import com.example.purchase.management.entity.Customer;
+import com.example.purchase.management.entity.Product;
+import com.example.purchase.management.entity.Purchase;
+import com.example.purchase.management.model.BatchResult;
+import com.example.purchase.management.repository.CustomerRepository;
+import com.example.purchase.management.repository.ProductRepository;
+import com.example.purchase.management.repository.PurchaseRepository;
+import com.example.purchase.management.service.PurchaseService;
+import com.example.purchase.management.service.impl.PurchaseServiceImpl;
+import com.example.purchase.management.service.impl.RollupServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates purchases one at a time through the service, as POST /purchase does, against an
+ * embedded H2 database: two lookups, the insert and the rollup update, each in one transaction.
+ * {@code createPurchases} does the same through POST /purchase/batch, and reports the time per purchase.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PurchaseServiceBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private ConfigurableApplicationContext context;
+    private PurchaseService purchaseService;
+    private Long customerId;
+    private Long productId;
+
+    @Setup
+    public void setUp() {
+        // command-line arguments, so they win over application.yml
+        context = new SpringApplicationBuilder(Config.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.jdbc.batch_size=500",
+                        "--spring.sql.init.mode=never",
+                        "--spring.devtools.restart.enabled=false",
+                        "--logging.level.root=WARN");
+        purchaseService = context.getBean(PurchaseService.class);
+
+        Customer customer = BenchmarkData.customer(1);
+        customer.setId(null);
+        customerId = context.getBean(CustomerRepository.class).save(customer).getId();
+        Product product = BenchmarkData.product(1);
+        product.setId(null);
+        productId = context.getBean(ProductRepository.class).save(product).getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Purchase createPurchase() {
+        return purchaseService.createPurchase(newPurchase());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public BatchResult createPurchases() {
+        List<Purchase> purchases = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            purchases.add(newPurchase());
+        }
+        return purchaseService.createPurchases(purchases);
+    }
+
+    private Purchase newPurchase() {
+        Customer customer = new Customer();
+        customer.setId(customerId);
+        Product product = new Product();
+        product.setId(productId);
+
+        Purchase purchase = new Purchase();
+        purchase.setCustomer(customer);
+        purchase.setProduct(product);
+        purchase.setAmount(1200.0);
+        return purchase;
+    }
+
+    // Just the persistence layer and the purchase service, not the whole application
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @EntityScan(basePackageClasses = Purchase.class)
+    @EnableJpaRepositories(basePackageClasses = PurchaseRepository.class)
+    @Import({ PurchaseServiceImpl.class, RollupServiceImpl.class })
+    static class Config {
+    }
+}
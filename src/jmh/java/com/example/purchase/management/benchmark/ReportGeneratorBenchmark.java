@@ -0,0 +1,71 @@
+package com.example.purchase.management.benchmark;
+
+import com.example.purchase.management.entity.Purchase;
+import com.example.purchase.management.entity.Refund;
+import com.example.purchase.management.report.CompactHtmlReportGenerator;
+import com.example.purchase.management.report.CountingOutputStream;
+import com.example.purchase.management.report.HtmlReportGenerator;
+import com.example.purchase.management.report.ReportGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders a report of {@code rows} purchases plus one refund per ten purchases. Divide the
+ * score by {@code rows} for the time per row; the bytes per row are printed during setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ReportGeneratorBenchmark {
+
+    @Param({ "1000", "100000", "1000000" })
+    private int rows;
+
+    @Param({ "html", "compact" })
+    private String renderer;
+
+    private ReportGenerator generator;
+    private List<Purchase> purchases;
+    private List<Refund> refunds;
+
+    @Setup
+    public void setUp() throws IOException {
+        generator = renderer.equals("compact") ? new CompactHtmlReportGenerator() : new HtmlReportGenerator();
+        purchases = BenchmarkData.purchases(rows);
+        refunds = BenchmarkData.refunds(purchases);
+
+        long bytes = writeReport();
+        System.out.printf("%n%s: %d bytes, %.1f bytes per row%n", renderer, bytes,
+                (double) bytes / (purchases.size() + refunds.size()));
+    }
+
+    // The path every report takes: streamed to a sink, never held whole
+    @Benchmark
+    public long writeReport() throws IOException {
+        CountingOutputStream out = new CountingOutputStream(OutputStream.nullOutputStream());
+        generator.generateReport(purchases.stream(), refunds.stream(), out);
+        return out.getCount();
+    }
+
+    @Benchmark
+    public String generateReport() {
+        return generator.generateReport(purchases, refunds);
+    }
+}
@@ -4,15 +4,18 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
-//import com.example.purchase.management.config.ReportProperties;
+import com.example.purchase.management.config.ReportProperties;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
+import com.example.purchase.management.config.CatalogProperties;
 import com.example.purchase.management.config.EmailProperties;
+import com.example.purchase.management.config.ImportProperties;
 
 @EntityScan("com.example.purchase.management.entity")
 @SpringBootApplication
 @EnableScheduling
-@EnableConfigurationProperties(EmailProperties.class)
+@EnableConfigurationProperties({EmailProperties.class, ReportProperties.class, ImportProperties.class,
+        CatalogProperties.class})
 
 
 public class PurchaseManagementApplication {
@@ -0,0 +1,77 @@
+package com.example.purchase.management.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.springframework.boot.convert.DurationStyle;
+
+import javax.cache.Cache;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Second-level cache regions held in Caffeine, sized from Hibernate settings rather than a
+ * separate cache configuration file, so they are tuned under {@code spring.jpa.properties} next
+ * to everything else:
+ * <pre>
+ * purchase-management.cache.&lt;region&gt;.max-entries   (default {@value #DEFAULT_MAX_ENTRIES})
+ * purchase-management.cache.&lt;region&gt;.ttl           (default 1h)
+ * purchase-management.cache.statistics               (default true)
+ * </pre>
+ * The update timestamps region ignores both: it must never lose an entry while query results
+ * that depend on it are cached, and it holds one entry per table.
+ * <p>
+ * Each session factory gets its own cache manager, so several application contexts in one JVM,
+ * as in tests, never share regions.
+ */
+public class CaffeineRegionFactory extends JCacheRegionFactory {
+
+    public static final String SETTINGS_PREFIX = "purchase-management.cache.";
+
+    public static final String STATISTICS = SETTINGS_PREFIX + "statistics";
+
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+    private static final Duration DEFAULT_TTL = Duration.ofHours(1);
+
+    private volatile Map<String, Object> settings = Map.of();
+
+    @Override
+    protected void prepareForUse(SessionFactoryOptions options, Map<String, Object> configValues) {
+        settings = configValues;
+        super.prepareForUse(options, configValues);
+    }
+
+    @Override
+    protected CachingProvider getCachingProvider(Map<String, Object> configValues) {
+        return Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+    }
+
+    @Override
+    protected URI getUri(SessionFactoryOptions options, Map<String, Object> configValues) {
+        URI configured = super.getUri(options, configValues);
+        return configured != null ? configured : URI.create("purchase-management:" + UUID.randomUUID());
+    }
+
+    @Override
+    protected Cache<Object, Object> createCache(String regionName) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setNativeStatisticsEnabled(ConfigurationHelper.getBoolean(STATISTICS, settings, true));
+        if (!RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME.equals(regionName)) {
+            configuration.setMaximumSize(OptionalLong.of(
+                    ConfigurationHelper.getLong(SETTINGS_PREFIX + regionName + ".max-entries", settings, DEFAULT_MAX_ENTRIES)));
+            String ttl = ConfigurationHelper.getString(SETTINGS_PREFIX + regionName + ".ttl", settings);
+            Duration expiry = ttl != null ? DurationStyle.detectAndParse(ttl) : DEFAULT_TTL;
+            configuration.setExpireAfterWrite(OptionalLong.of(expiry.toNanos()));
+        }
+        return getCacheManager().createCache(regionName, configuration);
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.purchase.management.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "catalog")
+@Getter
+@Setter
+public class CatalogProperties {
+
+    private final Cache cache = new Cache();
+
+    @Getter
+    @Setter
+    public static class Cache {
+
+        // Longest the product catalog is served from memory; bounds how long a change made by
+        // another instance, or straight in the database, goes unseen
+        private Duration ttl = Duration.ofMinutes(10);
+    }
+}
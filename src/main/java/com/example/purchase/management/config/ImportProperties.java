@@ -0,0 +1,18 @@
+package com.example.purchase.management.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "import")
+@Getter
+@Setter
+public class ImportProperties {
+
+    // Rows inserted and committed per transaction by the CSV imports
+    private int chunkSize = 1000;
+
+    // Rejected rows described in an import's result; any beyond are only counted
+    private int maxRejectedRows = 1000;
+
+}
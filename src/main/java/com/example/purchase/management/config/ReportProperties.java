@@ -0,0 +1,144 @@
+package com.example.purchase.management.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "report")
+@Getter
+@Setter
+public class ReportProperties {
+
+    // Longest a single report section (one query + its table) may take
+    private Duration sectionTimeout = Duration.ofMinutes(2);
+
+    // Longest the whole report may take, whatever the individual section timeouts
+    private Duration deadline = Duration.ofMinutes(5);
+
+    // "html" for inline-styled markup, or "compact" for one shared style block (several times smaller)
+    private String renderer = "html";
+
+    private final Cache cache = new Cache();
+
+    private final Outbox outbox = new Outbox();
+
+    private final Statements statements = new Statements();
+
+    private final Lease lease = new Lease();
+
+    private final Backfill backfill = new Backfill();
+
+    private final Intraday intraday = new Intraday();
+
+    private final Export export = new Export();
+
+    private final Jobs jobs = new Jobs();
+
+    @Getter
+    @Setter
+    public static class Cache {
+
+        // Total size of the rendered reports kept for closed date ranges
+        private DataSize maxSize = DataSize.ofMegabytes(64);
+    }
+
+    @Getter
+    @Setter
+    public static class Outbox {
+
+        // Emails being delivered at once; also the most messages claimed per poll
+        private int workers = 2;
+
+        // How often the outbox is checked for due messages
+        private Duration pollInterval = Duration.ofSeconds(10);
+
+        // Delivery attempts before a message is moved to DEAD
+        private int maxAttempts = 8;
+
+        // Delay before the first retry, doubled after every further failure up to maxBackoff
+        private Duration initialBackoff = Duration.ofMinutes(1);
+        private Duration maxBackoff = Duration.ofHours(1);
+
+        // A message claimed longer ago than this is assumed lost with its worker and retried
+        private Duration claimTimeout = Duration.ofMinutes(15);
+    }
+
+    @Getter
+    @Setter
+    public static class Statements {
+
+        // Statements rendered at the same time
+        private int concurrency = 4;
+
+        // Statements sent over one SMTP connection
+        private int batchSize = 50;
+    }
+
+    @Getter
+    @Setter
+    public static class Lease {
+
+        // How long a scheduled job's lease lasts without a heartbeat; must exceed the clock skew between instances
+        private Duration ttl = Duration.ofMinutes(1);
+
+        // How long other instances keep watching a held lease, ready to take over if its holder dies
+        private Duration standby = Duration.ofMinutes(30);
+    }
+
+    @Getter
+    @Setter
+    public static class Backfill {
+
+        // Days rendered and queued at the same time
+        private int parallelism = 4;
+
+        // Consecutive days loaded with one scan; bounds how many days' rows are held at once
+        private int windowDays = 7;
+
+        // How far back missed days are looked for on startup; 0 turns the catch-up off
+        private int catchUpDays = 7;
+    }
+
+    @Getter
+    @Setter
+    public static class Intraday {
+
+        // Rows dated this long before the previous refresh are fetched again, in case their
+        // transaction committed after rows with higher ids had already been read
+        private Duration overlap = Duration.ofMinutes(2);
+
+        // Today's rows are read afresh this often, for rows the watermark cannot see: a lower id
+        // than one already read and a date before the overlap, such as another instance's id
+        // block or a backdated batch row
+        private Duration rebuildInterval = Duration.ofMinutes(15);
+    }
+
+    @Getter
+    @Setter
+    public static class Export {
+
+        // Rows written between flushes to the client
+        private int flushRows = 1000;
+    }
+
+    @Getter
+    @Setter
+    public static class Jobs {
+
+        // Reports rendered at the same time, and how many more may wait for a worker
+        private int workers = 2;
+        private int queueCapacity = 20;
+
+        // Where finished reports are kept; files here are cleared on startup
+        private String directory = System.getProperty("java.io.tmpdir") + "/report-jobs";
+
+        // How long a finished report is kept after it was last downloaded (or finished)
+        private Duration ttl = Duration.ofHours(24);
+
+        // Total size of kept reports; the least recently used go first once it is exceeded
+        private DataSize maxSize = DataSize.ofGigabytes(2);
+    }
+}
@@ -54,10 +54,17 @@ public class CustomerController {
         }
     }
 
-     // Get all customers
+     // Get customers a page at a time, by id; the next page's cursor comes back in the X-Next-Cursor and Link headers
+     // Without cursor or limit, all of them, or the first PageResponses.UNPAGED_MAX and the next page's cursor
      @GetMapping
-     public ResponseEntity<List<Customer>> getAllCustomers() {
-         return ResponseEntity.ok(customerService.getAllCustomers());
+     public ResponseEntity<List<Customer>> getAllCustomers(
+             @RequestParam(required = false) String cursor,
+             @RequestParam(required = false) Integer limit) {
+         try {
+             return PageResponses.list(cursor, limit, customerService::getCustomers);
+         } catch (IllegalArgumentException e) {
+             return ResponseEntity.badRequest().build();
+         }
      }
 
      
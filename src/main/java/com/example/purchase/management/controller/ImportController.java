@@ -0,0 +1,70 @@
+package com.example.purchase.management.controller;
+
+import com.example.purchase.management.model.ImportResult;
+import com.example.purchase.management.service.ImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * CSV imports of customers and products. The file can be uploaded as the {@code file} part of a
+ * multipart form, which the container spools to disk past {@code spring.servlet.multipart.file-size-threshold},
+ * or as a {@code text/csv} body, which is read straight off the connection.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/import")
+@RequiredArgsConstructor
+public class ImportController {
+
+    private final ImportService importService;
+
+    @PostMapping(value = "/customers", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportResult> importCustomers(@RequestParam("file") MultipartFile file) throws IOException {
+        try (InputStream csv = file.getInputStream()) {
+            return importCustomers(csv);
+        }
+    }
+
+    @PostMapping(value = "/customers", consumes = "text/csv")
+    public ResponseEntity<ImportResult> importCustomers(HttpServletRequest request) throws IOException {
+        return importCustomers(request.getInputStream());
+    }
+
+    @PostMapping(value = "/products", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportResult> importProducts(@RequestParam("file") MultipartFile file) throws IOException {
+        try (InputStream csv = file.getInputStream()) {
+            return importProducts(csv);
+        }
+    }
+
+    @PostMapping(value = "/products", consumes = "text/csv")
+    public ResponseEntity<ImportResult> importProducts(HttpServletRequest request) throws IOException {
+        return importProducts(request.getInputStream());
+    }
+
+    private ResponseEntity<ImportResult> importCustomers(InputStream csv) {
+        log.info("Received request to import customers");
+        try {
+            return ResponseEntity.ok(importService.importCustomers(csv));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    private ResponseEntity<ImportResult> importProducts(InputStream csv) {
+        log.info("Received request to import products");
+        try {
+            return ResponseEntity.ok(importService.importProducts(csv));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.purchase.management.controller;
+
+import com.example.purchase.management.model.CursorPage;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Keyset-paginated list responses: the body stays a plain JSON array of the page's items, and
+ * while there are more the next page's cursor is sent as {@code X-Next-Cursor}, plus a
+ * {@code Link: <...>; rel="next"} URL with the request's other parameters kept. A request with
+ * neither {@code cursor} nor {@code limit} gets the whole list, as before paging, as long as it
+ * is no longer than {@link #UNPAGED_MAX}; of a longer one it gets the first {@code UNPAGED_MAX}
+ * rows and the same next-page headers, whose link keeps that page size.
+ */
+final class PageResponses {
+
+    static final String NEXT_CURSOR = "X-Next-Cursor";
+
+    // Page size when the client gives none
+    static final String DEFAULT_LIMIT = "100";
+
+    // Most rows a request without cursor or limit gets at once; the largest page a client can ask for
+    static final int UNPAGED_MAX = 1000;
+
+    private PageResponses() {
+    }
+
+    static <T> ResponseEntity<List<T>> ok(CursorPage<T> page) {
+        return ok(page, null);
+    }
+
+    // limit, when given, goes into the next page's link in place of the request's own
+    private static <T> ResponseEntity<List<T>> ok(CursorPage<T> page, Integer limit) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            ServletUriComponentsBuilder next = ServletUriComponentsBuilder.fromCurrentRequest();
+            if (limit != null) {
+                next.replaceQueryParam("limit", limit);
+            }
+            next.replaceQueryParam("cursor", page.getNextCursor());
+            response.header(NEXT_CURSOR, page.getNextCursor())
+                    .header(HttpHeaders.LINK, "<" + next.toUriString() + ">; rel=\"next\"");
+        }
+        return response.body(page.getItems());
+    }
+
+    /**
+     * A page when the client gave a cursor or limit, otherwise the whole list, read as one page of
+     * {@link #UNPAGED_MAX} rows; should that not be the last page, it is sent with the next one's
+     * cursor and link like any other.
+     */
+    static <T> ResponseEntity<List<T>> list(String cursor, Integer limit,
+                                            BiFunction<String, Integer, CursorPage<T>> pages) {
+        if (cursor != null || limit != null) {
+            return ok(pages.apply(cursor, limit != null ? limit : Integer.parseInt(DEFAULT_LIMIT)));
+        }
+        return ok(pages.apply(null, UNPAGED_MAX), UNPAGED_MAX);
+    }
+}
@@ -2,12 +2,13 @@ package com.example.purchase.management.controller;
 
 
 import com.example.purchase.management.entity.Product;
+import com.example.purchase.management.model.ProductCatalog;
 import com.example.purchase.management.service.ProductService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
-import java.util.List;
 
 @RestController
 @RequestMapping("/product")
@@ -50,10 +51,25 @@ public class ProductController {
         }
     }
 
-    //Get all Product
+    //Get all Product, as JSON serialized once per catalog change; Spring answers 304 itself when If-None-Match carries the ETag.
+    //With a cursor or limit, or once the catalog outgrows PageResponses.UNPAGED_MAX, a page by id instead, as for /customer
     @GetMapping
-    public ResponseEntity<List<Product>> getAllProducts() {
-        return ResponseEntity.ok(productService.getAllProducts());
+    public ResponseEntity<?> getAllProducts(@RequestParam(required = false) String cursor,
+                                            @RequestParam(required = false) Integer limit) {
+        if (cursor == null && limit == null) {
+            ProductCatalog catalog = productService.getProductCatalog();
+            if (catalog.getSize() <= PageResponses.UNPAGED_MAX) {
+                return ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .eTag(catalog.getEtag())
+                        .body(catalog.getJson());
+            }
+        }
+        try {
+            return PageResponses.list(cursor, limit, productService::getProducts);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
 }
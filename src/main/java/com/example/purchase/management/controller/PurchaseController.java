@@ -2,11 +2,15 @@ package com.example.purchase.management.controller;
 
 import com.example.purchase.management.entity.Product;
 import com.example.purchase.management.entity.Purchase;
+import com.example.purchase.management.model.BatchResult;
+import com.example.purchase.management.model.TransactionFilter;
 import com.example.purchase.management.service.PurchaseService;
 import com.example.purchase.management.service.impl.PurchaseServiceImpl;
 
+import java.time.LocalDate;
 import java.util.List;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import jakarta.persistence.EntityNotFoundException;
@@ -31,9 +35,31 @@ public class PurchaseController {
         }
     }
 
-    //Get all Purchase
+    //Create many Purchases at once; invalid ones are reported per item instead of failing the batch
+    @PostMapping("/batch")
+    public ResponseEntity<BatchResult> createPurchases(@RequestBody List<Purchase> purchases) {
+        try {
+            return ResponseEntity.ok(purchaseService.createPurchases(purchases));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    //Get Purchases a page at a time, oldest first; the next page's cursor comes back in the X-Next-Cursor and Link headers
+    //Without cursor or limit, all matching ones, or the first PageResponses.UNPAGED_MAX and the next page's cursor
     @GetMapping
-    public ResponseEntity<List<Purchase>> getAllPurchases() {
-        return ResponseEntity.ok(purchaseService.getAllPurchases());
+    public ResponseEntity<List<Purchase>> getAllPurchases(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long customerId,
+            @RequestParam(required = false) Long productId) {
+        try {
+            TransactionFilter filter = new TransactionFilter(from, to, customerId, productId);
+            return PageResponses.list(cursor, limit, (c, l) -> purchaseService.getPurchases(filter, c, l));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 }
@@ -1,11 +1,15 @@
 package com.example.purchase.management.controller;
 
 import com.example.purchase.management.entity.Refund;
+import com.example.purchase.management.model.BatchResult;
+import com.example.purchase.management.model.TransactionFilter;
 import com.example.purchase.management.service.RefundService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -26,8 +30,29 @@ public class RefundController {
         }
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<BatchResult> createRefunds(@RequestBody List<Refund> refunds) {
+        try {
+            return ResponseEntity.ok(refundService.createRefunds(refunds));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // A page at a time, oldest first, or all of them without cursor or limit, like /purchase
     @GetMapping
-    public ResponseEntity<List<Refund>> getAllRefunds() {
-        return ResponseEntity.ok(refundService.getAllRefunds());
+    public ResponseEntity<List<Refund>> getAllRefunds(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long customerId,
+            @RequestParam(required = false) Long productId) {
+        try {
+            TransactionFilter filter = new TransactionFilter(from, to, customerId, productId);
+            return PageResponses.list(cursor, limit, (c, l) -> refundService.getRefunds(filter, c, l));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 }
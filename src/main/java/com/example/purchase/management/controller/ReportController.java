@@ -1,13 +1,25 @@
 package com.example.purchase.management.controller;
 
+import com.example.purchase.management.entity.ReportRun;
+import com.example.purchase.management.report.ExportFormat;
+import com.example.purchase.management.service.ExportService;
+import com.example.purchase.management.service.IntradayReportService;
+import com.example.purchase.management.service.ReportRunService;
 import com.example.purchase.management.service.ReportService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import lombok.extern.slf4j.Slf4j;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.GZIPOutputStream;
 
 @Slf4j
 @RestController
@@ -16,6 +28,74 @@ import java.time.LocalDateTime;
 public class ReportController {
 
     private final ReportService reportService;
+    private final ReportRunService reportRunService;
+    private final IntradayReportService intradayReportService;
+    private final ExportService exportService;
+
+    // Streams purchases and refunds dated from..to (inclusive) as CSV or NDJSON, gzipped if the client accepts it
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.of(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (from.isAfter(to)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        StreamingResponseBody body = out -> {
+            if (!gzip) {
+                exportService.exportTransactions(from, to, exportFormat, out);
+                return;
+            }
+            // sync flush, so every chunk flushed by the export reaches the client compressed
+            GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024, true);
+            exportService.exportTransactions(from, to, exportFormat, compressed);
+            compressed.finish();
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"transactions-" + from + "-" + to
+                        + "." + exportFormat.getExtension() + "\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    // Today's report so far; cheap enough to poll every few minutes
+    @GetMapping("/intraday")
+    public ResponseEntity<String> getIntradayReport() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.TEXT_HTML)
+                .body(intradayReportService.generateIntradayReport());
+    }
+
+    // Starts queueing the daily reports of every day in from..to (inclusive) that was never reported;
+    // the backfill runs in the background and logs its outcome
+    @PostMapping("/backfill")
+    public ResponseEntity<Void> backfill(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                         @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        log.info("Received request to backfill reports from {} to {}", from, to);
+        try {
+            reportRunService.submitBackfill(from, to, ReportRun.Trigger.BACKFILL);
+            return ResponseEntity.accepted().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (RejectedExecutionException e) {
+            log.warn("A backfill is already running, rejecting backfill from {} to {}", from, to);
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
 
 //    @PostMapping("/send")
 //    public ResponseEntity<String> sendReport() {
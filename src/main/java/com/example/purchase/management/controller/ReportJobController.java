@@ -0,0 +1,133 @@
+package com.example.purchase.management.controller;
+
+import com.example.purchase.management.model.ReportJobStatus;
+import com.example.purchase.management.service.ReportJobService;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+@Slf4j
+@RestController
+@RequestMapping("/report/jobs")
+@RequiredArgsConstructor
+public class ReportJobController {
+
+    // Set by Tomcat when the connector can hand a file to the kernel itself
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final ReportJobService reportJobService;
+
+    // Queues the report of from..to (inclusive); poll the returned location for progress
+    @PostMapping
+    public ResponseEntity<ReportJobStatus> submitJob(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                     @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        log.info("Received request for a report job from {} to {}", from, to);
+        try {
+            ReportJobStatus status = reportJobService.submit(from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+            return ResponseEntity.accepted()
+                    .location(URI.create("/report/jobs/" + status.getId()))
+                    .body(status);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (RejectedExecutionException e) {
+            log.warn("Report job queue is full, rejecting job from {} to {}", from, to);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ReportJobStatus> getJob(@PathVariable String id) {
+        try {
+            return ResponseEntity.ok(reportJobService.getStatus(id));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Sends the finished report straight from its file, whole or as a single byte range, so a
+     * broken download can resume. Under Tomcat the file is handed to sendfile and never passes
+     * through the JVM; elsewhere it is copied with {@link FileChannel#transferTo}.
+     */
+    @GetMapping("/{id}/result")
+    public void getResult(@PathVariable String id, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        Path file;
+        long length;
+        try {
+            file = reportJobService.getResult(id);
+            length = Files.size(file);
+        } catch (EntityNotFoundException | NoSuchFileException e) {
+            // a report can be evicted between the lookup and the read
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        } catch (IllegalStateException e) {
+            response.setStatus(HttpStatus.CONFLICT.value());
+            return;
+        }
+
+        long first = 0;
+        long last = length - 1;
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(range);
+                // several ranges would need a multipart body; sending the whole file is also a valid answer
+                if (ranges.size() == 1) {
+                    first = ranges.get(0).getRangeStart(length);
+                    last = ranges.get(0).getRangeEnd(length);
+                    response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + first + "-" + last + "/" + length);
+                }
+            } catch (IllegalArgumentException e) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return;
+            }
+        }
+
+        response.setContentType(MediaType.TEXT_HTML_VALUE + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"report-" + id + ".html\"");
+        response.setContentLengthLong(last - first + 1);
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, first);
+            request.setAttribute(SENDFILE_END, last + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            for (long position = first; position <= last; ) {
+                position += channel.transferTo(position, last - position + 1, target);
+            }
+        }
+    }
+}
@@ -1,22 +1,34 @@
 package com.example.purchase.management.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.NoArgsConstructor;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "customers")
 @Getter
 @Setter
 @NoArgsConstructor
 @Table(name = "customers" , schema = "public")
 public class Customer {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "customers_seq")
+    @GenericGenerator(name = "customers_seq", type = PooledLoSequenceGenerator.class,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "customers_seq"))
     private Long id;
     
     private String firstName;
     private String lastName; 
     private String phone;
 
+    // Where daily statements go; customers without one get none
+    private String email;
+
 }
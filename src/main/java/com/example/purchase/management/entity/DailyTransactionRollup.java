@@ -0,0 +1,52 @@
+package com.example.purchase.management.entity;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Running totals of one customer's transactions on one product for one day.
+ * Kept up to date in the same transaction as every purchase and refund, and
+ * rebuilt from the raw tables by {@code RollupService.rebuild}.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "daily_transaction_rollups", schema = "public",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"rollup_date", "product_id", "customer_id"}))
+public class DailyTransactionRollup {
+
+    @Id
+    @GeneratedValue(generator = "daily_transaction_rollups_seq")
+    @GenericGenerator(name = "daily_transaction_rollups_seq", type = PooledLoSequenceGenerator.class,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "daily_transaction_rollups_seq"))
+    private Long id;
+
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate day;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_id")
+    private Product product;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "customer_id")
+    private Customer customer;
+
+    private long purchaseCount;
+    private double grossAmount;
+
+    private long refundCount;
+    private double refundedAmount;
+
+    // gross minus refunded
+    private double netAmount;
+
+}
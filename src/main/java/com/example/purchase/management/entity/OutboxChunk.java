@@ -0,0 +1,42 @@
+package com.example.purchase.management.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.NoArgsConstructor;
+
+/**
+ * One slice of an outbox message's gzipped report, in order of {@code seq}. Plain byte columns
+ * keep the content portable and get removed with their message, unlike large objects, which is
+ * why {@code data} is sized rather than {@code @Lob}: bytea on PostgreSQL, varbinary elsewhere.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "email_outbox_chunks", schema = "public",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"message_id", "seq"}))
+public class OutboxChunk {
+
+    // Most bytes a chunk holds; the data column is declared this wide
+    public static final int MAX_DATA_LENGTH = 1024 * 1024;
+
+    @Id
+    @GeneratedValue(generator = "email_outbox_chunks_seq")
+    @GenericGenerator(name = "email_outbox_chunks_seq", type = PooledLoSequenceGenerator.class,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "email_outbox_chunks_seq"))
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "message_id")
+    private OutboxMessage message;
+
+    private int seq;
+
+    @Column(nullable = false, length = MAX_DATA_LENGTH)
+    private byte[] data;
+
+}
@@ -0,0 +1,79 @@
+package com.example.purchase.management.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.NoArgsConstructor;
+
+/**
+ * An email waiting in, or delivered from, the outbox. The report itself is stored gzipped in
+ * {@link OutboxChunk}s, so neither enqueueing nor delivery has to hold it in memory.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "email_outbox", schema = "public",
+        indexes = @Index(name = "idx_email_outbox_due", columnList = "status, next_attempt_at"))
+public class OutboxMessage {
+
+    public enum Status {
+        PENDING,
+        SENDING,
+        SENT,
+        // gave up after the last attempt, or the content can never be sent
+        DEAD
+    }
+
+    @Id
+    @GeneratedValue(generator = "email_outbox_seq")
+    @GenericGenerator(name = "email_outbox_seq", type = PooledLoSequenceGenerator.class,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "email_outbox_seq"))
+    private Long id;
+
+    // Enqueueing the same key again is a no-op, so reruns never send a report twice
+    @Column(name = "idempotency_key", nullable = false, unique = true)
+    private String idempotencyKey;
+
+    @Column(nullable = false)
+    private String subject;
+
+    // gzipped report size, spread over the chunks
+    @Column(name = "content_length", nullable = false)
+    private long contentLength;
+
+    // inline part of the email; capped at 256 KB when enqueued
+    @Column(length = 256 * 1024)
+    private String summary;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status = Status.PENDING;
+
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+
+    // New with every claim; a worker only records its delivery's outcome while its claim is the current one
+    @Column(name = "claim_token", length = 36)
+    private String claimToken;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_date", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "sent_date")
+    private LocalDateTime sentAt;
+
+}
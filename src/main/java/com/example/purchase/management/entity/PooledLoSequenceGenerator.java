@@ -0,0 +1,40 @@
+package com.example.purchase.management.entity;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * Sequence id generator shared by every entity. Each sequence call reserves
+ * {@value #ALLOCATION_SIZE} ids (default {@value #DEFAULT_ALLOCATION_SIZE}) that are then handed
+ * out in memory, so inserts need neither a round trip per id nor the id read back, and can be
+ * sent as JDBC batches.
+ * <p>
+ * The pooled-lo optimizer treats the sequence value as the first id of the block, so the
+ * sequence can be shared with other writers as long as it increments by the allocation size.
+ * The allocation size is a Hibernate setting rather than annotation values, so it is changed in
+ * one place ({@code spring.jpa.properties}); the sequences' increment must be changed with it.
+ */
+public class PooledLoSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String ALLOCATION_SIZE = "purchase-management.id.allocation-size";
+
+    public static final int DEFAULT_ALLOCATION_SIZE = 50;
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) throws MappingException {
+        int allocationSize = ConfigurationHelper.getInt(ALLOCATION_SIZE,
+                serviceRegistry.requireService(ConfigurationService.class).getSettings(), DEFAULT_ALLOCATION_SIZE);
+        if (allocationSize < 1) {
+            throw new MappingException(ALLOCATION_SIZE + " must be at least 1, was " + allocationSize);
+        }
+        parameters.put(INCREMENT_PARAM, String.valueOf(allocationSize));
+        parameters.put(OPT_PARAM, "pooled-lo");
+        super.configure(type, parameters, serviceRegistry);
+    }
+}
@@ -3,6 +3,9 @@ package com.example.purchase.management.entity;
 import java.time.LocalDateTime;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.NoArgsConstructor;
@@ -11,19 +14,27 @@ import lombok.NoArgsConstructor;
 @Getter
 @Setter
 @NoArgsConstructor
-@Table(name = "purchases", schema = "public")
+@Table(name = "purchases", schema = "public",
+        indexes = {
+                // keyset pages walk (created_date, id), unfiltered or for one customer or product
+                @Index(name = "idx_purchases_created_date_id", columnList = "created_date, id"),
+                @Index(name = "idx_purchases_customer_created_date_id", columnList = "customer_id, created_date, id"),
+                @Index(name = "idx_purchases_product_created_date_id", columnList = "product_id, created_date, id")
+        })
 public class Purchase {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "purchases_seq")
+    @GenericGenerator(name = "purchases_seq", type = PooledLoSequenceGenerator.class,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "purchases_seq"))
     private Long id;
     
     @ManyToOne
-    @JoinColumn(name = "customer_id")
+    @JoinColumn(name = "customer_id", foreignKey = @ForeignKey(name = "fk_purchases_customer"))
     private Customer customer;
     
     @ManyToOne
-    @JoinColumn(name = "product_id")
+    @JoinColumn(name = "product_id", foreignKey = @ForeignKey(name = "fk_purchases_product"))
     private Product product;
     
     private Double amount;
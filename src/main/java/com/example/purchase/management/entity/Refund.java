@@ -3,6 +3,9 @@ package com.example.purchase.management.entity;
 import java.time.LocalDateTime;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.NoArgsConstructor;
@@ -11,11 +14,19 @@ import lombok.NoArgsConstructor;
 @Getter
 @Setter
 @NoArgsConstructor
-@Table(name = "refunds", schema = "public")
+@Table(name = "refunds", schema = "public",
+        indexes = {
+                // keyset pages walk (created_date, id), unfiltered or for one customer or product
+                @Index(name = "idx_refunds_created_date_id", columnList = "created_date, id"),
+                @Index(name = "idx_refunds_customer_created_date_id", columnList = "customer_id, created_date, id"),
+                @Index(name = "idx_refunds_product_created_date_id", columnList = "product_id, created_date, id")
+        })
 public class Refund {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "refunds_seq")
+    @GenericGenerator(name = "refunds_seq", type = PooledLoSequenceGenerator.class,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "refunds_seq"))
     private Long id;
     
     @OneToOne
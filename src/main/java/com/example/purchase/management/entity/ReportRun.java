@@ -0,0 +1,54 @@
+package com.example.purchase.management.entity;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Ledger entry for a day whose daily report has been queued, so days the scheduler missed can be
+ * found and backfilled.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "report_runs", schema = "public")
+public class ReportRun {
+
+    public enum Trigger {
+        SCHEDULED,
+        // found missing when the application started
+        CATCH_UP,
+        // asked for by an admin
+        BACKFILL
+    }
+
+    @Id
+    @GeneratedValue(generator = "report_runs_seq")
+    @GenericGenerator(name = "report_runs_seq", type = PooledLoSequenceGenerator.class,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "report_runs_seq"))
+    private Long id;
+
+    @Column(name = "report_day", nullable = false, unique = true)
+    private LocalDate day;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "triggered_by", nullable = false)
+    private Trigger trigger;
+
+    @Column(name = "created_date", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    public ReportRun(LocalDate day, Trigger trigger) {
+        this.day = day;
+        this.trigger = trigger;
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.example.purchase.management.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.NoArgsConstructor;
+
+/**
+ * A named lease that lets one instance of the cluster run a scheduled job. Taken with a
+ * conditional update, so there is never more than one holder; every take-over bumps the
+ * fencing token, so work done under a lease that has since passed on can be told apart.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "scheduler_leases", schema = "public")
+public class SchedulerLease {
+
+    @Id
+    private String name;
+
+    // instance holding, or that last held, the lease
+    private String owner;
+
+    @Column(name = "fencing_token", nullable = false)
+    private long fencingToken;
+
+    // null once released; a holder that stops renewing loses the lease after this
+    @Column(name = "locked_until")
+    private LocalDateTime lockedUntil;
+
+    @Column(name = "acquired_date")
+    private LocalDateTime acquiredAt;
+
+    // run key of the last run that finished, so other instances don't repeat it
+    @Column(name = "last_run")
+    private String lastRun;
+
+    public SchedulerLease(String name) {
+        this.name = name;
+    }
+
+}
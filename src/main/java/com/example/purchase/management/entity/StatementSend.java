@@ -0,0 +1,49 @@
+package com.example.purchase.management.entity;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Ledger entry for a customer's statement that the mail server accepted, so a rerun of the same
+ * day, after a lease take-over or a partial send, skips the customers already sent.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "statement_sends", schema = "public",
+        uniqueConstraints = @UniqueConstraint(name = "uk_statement_sends_day_customer",
+                columnNames = {"statement_day", "customer_id"}))
+public class StatementSend {
+
+    @Id
+    @GeneratedValue(generator = "statement_sends_seq")
+    @GenericGenerator(name = "statement_sends_seq", type = PooledLoSequenceGenerator.class,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "statement_sends_seq"))
+    private Long id;
+
+    // first day of the statement's period
+    @Column(name = "statement_day", nullable = false)
+    private LocalDate day;
+
+    // the id only: the fan-out never needs the customer row back
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+
+    @Column(name = "created_date", nullable = false)
+    private LocalDateTime sentAt = LocalDateTime.now();
+
+    public StatementSend(LocalDate day, Long customerId) {
+        this.day = day;
+        this.customerId = customerId;
+    }
+
+}
@@ -0,0 +1,8 @@
+package com.example.purchase.management.event;
+
+/**
+ * Published when products are written other than through {@code ProductService}, such as by the
+ * CSV import, so the cached product catalog is read again.
+ */
+public record ProductsChangedEvent() {
+}
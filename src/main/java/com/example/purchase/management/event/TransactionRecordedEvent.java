@@ -0,0 +1,41 @@
+package com.example.purchase.management.event;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Published when purchases or refunds are saved, carrying the span of dates they were recorded
+ * under, {@code from} to {@code to} inclusive; a single transaction's span is just its date.
+ */
+public record TransactionRecordedEvent(LocalDateTime from, LocalDateTime to) {
+
+    public TransactionRecordedEvent(LocalDateTime date) {
+        this(date, date);
+    }
+
+    /**
+     * One event per day among the given dates, spanning that day's earliest to its latest, so a
+     * batch touching a few days does not mark the days between them as changed.
+     */
+    public static List<TransactionRecordedEvent> perDay(Collection<LocalDateTime> dates) {
+        Map<LocalDate, TransactionRecordedEvent> days = new TreeMap<>();
+        for (LocalDateTime date : dates) {
+            days.merge(date.toLocalDate(), new TransactionRecordedEvent(date), (span, one) ->
+                    new TransactionRecordedEvent(min(span.from(), date), max(span.to(), date)));
+        }
+        return new ArrayList<>(days.values());
+    }
+
+    private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
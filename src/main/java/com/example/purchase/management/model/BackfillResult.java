@@ -0,0 +1,18 @@
+package com.example.purchase.management.model;
+
+import lombok.Value;
+
+
+/**
+ * Outcome of a backfill: days in the range, and how many of them were queued now, had already
+ * been reported, or failed.
+ */
+@Value
+public class BackfillResult {
+
+    int days;
+    int queued;
+    int skipped;
+    int failed;
+
+}
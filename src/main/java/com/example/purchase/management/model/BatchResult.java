@@ -0,0 +1,43 @@
+package com.example.purchase.management.model;
+
+import java.util.List;
+import lombok.Value;
+
+
+/**
+ * Outcome of a bulk request: how many items were received, created and rejected, and one
+ * result per item in request order.
+ */
+@Value
+public class BatchResult {
+
+    int received;
+    int created;
+    int rejected;
+    List<Item> items;
+
+    /**
+     * An item's position in the request, with the id it was created under or why it was rejected.
+     */
+    @Value
+    public static class Item {
+
+        int index;
+        Long id;
+        String error;
+
+        public static Item created(int index, Long id) {
+            return new Item(index, id, null);
+        }
+
+        public static Item rejected(int index, String error) {
+            return new Item(index, null, error);
+        }
+    }
+
+    public static BatchResult of(List<Item> items) {
+        int rejected = (int) items.stream().filter(item -> item.getError() != null).count();
+        return new BatchResult(items.size(), items.size() - rejected, rejected, items);
+    }
+
+}
@@ -0,0 +1,16 @@
+package com.example.purchase.management.model;
+
+import java.util.List;
+import lombok.Value;
+
+
+/**
+ * One page of a keyset-paginated list, with the cursor of the page after it, or null on the last page.
+ */
+@Value
+public class CursorPage<T> {
+
+    List<T> items;
+    String nextCursor;
+
+}
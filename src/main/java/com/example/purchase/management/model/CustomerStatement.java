@@ -0,0 +1,25 @@
+package com.example.purchase.management.model;
+
+import com.example.purchase.management.entity.Customer;
+import com.example.purchase.management.entity.Purchase;
+import com.example.purchase.management.entity.Refund;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+
+/**
+ * One customer's purchases and refunds for a statement period, fully loaded so it can be
+ * rendered away from the session that read it.
+ */
+@Value
+public class CustomerStatement {
+
+    Customer customer;
+    LocalDateTime start;
+    LocalDateTime end;
+    List<Purchase> purchases;
+    List<Refund> refunds;
+
+}
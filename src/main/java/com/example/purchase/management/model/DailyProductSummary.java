@@ -0,0 +1,21 @@
+package com.example.purchase.management.model;
+
+import java.time.LocalDate;
+import lombok.Value;
+
+
+/**
+ * One row of the report summary: a product's totals for a day, across all customers.
+ */
+@Value
+public class DailyProductSummary {
+
+    LocalDate day;
+    String productName;
+    Long purchaseCount;
+    Double grossAmount;
+    Long refundCount;
+    Double refundedAmount;
+    Double netAmount;
+
+}
@@ -0,0 +1,20 @@
+package com.example.purchase.management.model;
+
+import java.time.LocalDate;
+import lombok.Value;
+
+
+/**
+ * Count and sum of one day's purchases or refunds for a product and customer,
+ * as aggregated from the raw tables when rollups are rebuilt.
+ */
+@Value
+public class DailyTotals {
+
+    LocalDate day;
+    Long productId;
+    Long customerId;
+    Long count;
+    Double amount;
+
+}
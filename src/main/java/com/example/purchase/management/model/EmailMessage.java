@@ -0,0 +1,13 @@
+package com.example.purchase.management.model;
+
+import lombok.Value;
+
+
+@Value
+public class EmailMessage {
+
+    String to;
+    String subject;
+    String html;
+
+}
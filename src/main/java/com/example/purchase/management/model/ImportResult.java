@@ -0,0 +1,27 @@
+package com.example.purchase.management.model;
+
+import java.util.List;
+import lombok.Value;
+
+
+/**
+ * Outcome of a CSV import: data rows read, imported and rejected, the chunks committed, and the
+ * first rejected rows with their line in the file and why they were rejected.
+ */
+@Value
+public class ImportResult {
+
+    long rows;
+    long imported;
+    long rejected;
+    int chunks;
+    List<RejectedRow> rejectedRows;
+
+    @Value
+    public static class RejectedRow {
+
+        long line;
+        String error;
+    }
+
+}
@@ -0,0 +1,17 @@
+package com.example.purchase.management.model;
+
+import lombok.Value;
+
+
+/**
+ * A scheduler lease as taken by this instance. The fencing token grows with every take-over,
+ * so a holder that stalled past its expiry can find out it has been replaced.
+ */
+@Value
+public class Lease {
+
+    String name;
+    String owner;
+    long fencingToken;
+
+}
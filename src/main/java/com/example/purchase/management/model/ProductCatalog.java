@@ -0,0 +1,21 @@
+package com.example.purchase.management.model;
+
+import lombok.Value;
+
+
+/**
+ * The full product list as served to clients: its JSON, serialized once per change, and the
+ * entity tag clients send back in {@code If-None-Match}.
+ */
+@Value
+public class ProductCatalog {
+
+    // catalog version the list was read at; moves on every product create, update and delete made on this instance
+    long version;
+    // products in the list
+    int size;
+    // digest of the JSON, so it is the same on every instance serving the same products
+    String etag;
+    byte[] json;
+
+}
@@ -0,0 +1,33 @@
+package com.example.purchase.management.model;
+
+import java.time.LocalDateTime;
+import lombok.Value;
+
+
+/**
+ * Snapshot of an asynchronous report job, as returned to clients.
+ */
+@Value
+public class ReportJobStatus {
+
+    public enum State {
+        QUEUED,
+        RUNNING,
+        // the report can be downloaded
+        COMPLETED,
+        FAILED
+    }
+
+    String id;
+    State state;
+    LocalDateTime start;
+    LocalDateTime end;
+    // percent of the report's row ranges rendered so far
+    int progress;
+    // bytes written so far, or the report's size once completed
+    long size;
+    LocalDateTime createdAt;
+    LocalDateTime completedAt;
+    String error;
+
+}
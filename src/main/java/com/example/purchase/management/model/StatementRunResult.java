@@ -0,0 +1,20 @@
+package com.example.purchase.management.model;
+
+import lombok.Value;
+
+
+/**
+ * Outcome of one statement fan-out: customers with activity in the period, and how many
+ * of their statements were sent, failed, skipped for lack of an email address, or skipped
+ * as already sent by an earlier run.
+ */
+@Value
+public class StatementRunResult {
+
+    int customers;
+    int sent;
+    int failed;
+    int skipped;
+    int alreadySent;
+
+}
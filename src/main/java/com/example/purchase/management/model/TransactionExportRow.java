@@ -0,0 +1,26 @@
+package com.example.purchase.management.model;
+
+import java.time.LocalDateTime;
+import lombok.Value;
+
+
+/**
+ * One exported purchase or refund, read as a projection so that exporting doesn't build
+ * managed entities.
+ */
+@Value
+public class TransactionExportRow {
+
+    // "purchase" or "refund"
+    String type;
+    Long id;
+    LocalDateTime date;
+    Long customerId;
+    String firstName;
+    String lastName;
+    String product;
+    Double amount;
+    // the refunded purchase; null for purchases
+    Long purchaseId;
+
+}
@@ -0,0 +1,22 @@
+package com.example.purchase.management.model;
+
+import java.time.LocalDate;
+import lombok.Value;
+
+
+/**
+ * Optional filters for listing purchases or refunds; null means unfiltered. Dates are inclusive.
+ */
+@Value
+public class TransactionFilter {
+
+    LocalDate from;
+    LocalDate to;
+    Long customerId;
+    Long productId;
+
+    public static TransactionFilter none() {
+        return new TransactionFilter(null, null, null, null);
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.example.purchase.management.report;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Counts the bytes passing through to the delegate and fails fast once a limit is crossed,
+ * so a report's size can be enforced while it is being written.
+ */
+public class CountingOutputStream extends FilterOutputStream {
+
+    private final long limit;
+    private long count;
+
+    public CountingOutputStream(OutputStream out) {
+        this(out, Long.MAX_VALUE);
+    }
+
+    public CountingOutputStream(OutputStream out, long limit) {
+        super(out);
+        this.limit = limit;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureCapacity(1);
+        out.write(b);
+        count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureCapacity(len);
+        out.write(b, off, len);
+        count += len;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    private void ensureCapacity(int len) throws LimitExceededException {
+        if (count + len > limit) {
+            throw new LimitExceededException(limit);
+        }
+    }
+
+    public static class LimitExceededException extends IOException {
+
+        public LimitExceededException(long limit) {
+            super("Content exceeds the limit of " + limit + " bytes");
+        }
+    }
+}
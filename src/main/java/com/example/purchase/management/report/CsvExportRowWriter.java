@@ -0,0 +1,74 @@
+package com.example.purchase.management.report;
+
+import com.example.purchase.management.model.TransactionExportRow;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+
+// RFC 4180: comma separated, CRLF line ends, fields quoted only when they need it
+public class CsvExportRowWriter implements ExportRowWriter {
+
+    private static final DateTimeFormatter Date_Format = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    private final Writer csv;
+
+    public CsvExportRowWriter(OutputStream out) {
+        this.csv = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    @Override
+    public void writeHeader() throws IOException {
+        csv.write("type,id,date,customer_id,first_name,last_name,product,amount,purchase_id\r\n");
+    }
+
+    @Override
+    public void write(TransactionExportRow row) throws IOException {
+        csv.write(row.getType());
+        csv.write(',');
+        writeValue(row.getId());
+        csv.write(',');
+        csv.write(row.getDate() != null ? row.getDate().format(Date_Format) : "");
+        csv.write(',');
+        writeValue(row.getCustomerId());
+        csv.write(',');
+        writeText(row.getFirstName());
+        csv.write(',');
+        writeText(row.getLastName());
+        csv.write(',');
+        writeText(row.getProduct());
+        csv.write(',');
+        writeValue(row.getAmount());
+        csv.write(',');
+        writeValue(row.getPurchaseId());
+        csv.write("\r\n");
+    }
+
+    @Override
+    public void flush() throws IOException {
+        csv.flush();
+    }
+
+    private void writeValue(Object value) throws IOException {
+        if (value != null) {
+            csv.write(String.valueOf(value));
+        }
+    }
+
+    private void writeText(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            csv.write(value);
+            return;
+        }
+        csv.write('"');
+        csv.write(value.replace("\"", "\"\""));
+        csv.write('"');
+    }
+}
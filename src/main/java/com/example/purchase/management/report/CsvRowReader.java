@@ -0,0 +1,124 @@
+package com.example.purchase.management.report;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads CSV records one at a time, the counterpart of {@link CsvExportRowWriter}: comma separated,
+ * fields optionally double-quoted with {@code ""} for a quote, so quoted fields may hold commas and
+ * line breaks. Lines may end in CRLF or LF; blank lines and a leading byte order mark are skipped.
+ * Only the current record is held in memory, however long the input.
+ */
+public class CsvRowReader {
+
+    private static final int None = -2;
+
+    private final Reader in;
+    private int pushedBack = None;
+    private boolean started;
+
+    // The line the next character is on, and the one the last record started on
+    private long line = 1;
+    private long recordLine;
+
+    public CsvRowReader(Reader in) {
+        this.in = in instanceof BufferedReader ? in : new BufferedReader(in, 64 * 1024);
+    }
+
+    /**
+     * Returns the next record's fields, or null at the end of the input.
+     *
+     * @throws IllegalArgumentException if the input ends inside a quoted field
+     */
+    public List<String> next() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean inQuotes = false;
+        boolean empty = true;
+        recordLine = line;
+
+        while (true) {
+            int c = read();
+            if (inQuotes) {
+                if (c == -1) {
+                    throw new IllegalArgumentException("Unterminated quoted field starting on line " + recordLine);
+                }
+                if (c == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        inQuotes = false;
+                        unread(next);
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+                continue;
+            }
+
+            if (c == '\r') {
+                int next = read();
+                if (next != '\n') {
+                    unread(next);
+                }
+                c = '\n';
+            }
+            if (c == -1 || c == '\n') {
+                if (c == '\n') {
+                    line++;
+                }
+                if (!empty) {
+                    fields.add(field.toString());
+                    return fields;
+                }
+                if (c == -1) {
+                    return null;
+                }
+                recordLine = line;
+                continue;
+            }
+
+            empty = false;
+            if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '"' && field.isEmpty()) {
+                inQuotes = true;
+            } else {
+                field.append((char) c);
+            }
+        }
+    }
+
+    // The line the record last returned by next() started on, counting from 1
+    public long getLine() {
+        return recordLine;
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != None) {
+            int c = pushedBack;
+            pushedBack = None;
+            return c;
+        }
+        int c = in.read();
+        if (!started) {
+            started = true;
+            if (c == '\uFEFF') {
+                c = in.read();
+            }
+        }
+        return c;
+    }
+
+    private void unread(int c) {
+        pushedBack = c;
+    }
+}
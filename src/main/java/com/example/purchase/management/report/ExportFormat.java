@@ -0,0 +1,37 @@
+package com.example.purchase.management.report;
+
+import java.io.OutputStream;
+
+public enum ExportFormat {
+
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public ExportRowWriter newWriter(OutputStream out) {
+        return switch (this) {
+            case CSV -> new CsvExportRowWriter(out);
+            case NDJSON -> new NdjsonExportRowWriter(out);
+        };
+    }
+
+    // Case-insensitive; throws IllegalArgumentException for unknown formats
+    public static ExportFormat of(String name) {
+        return valueOf(name.toUpperCase());
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.purchase.management.report;
+
+import com.example.purchase.management.model.TransactionExportRow;
+
+import java.io.IOException;
+
+/**
+ * Writes exported rows to a sink through a buffer; {@link #flush()} pushes everything written so far
+ * through to the client. The sink is never closed.
+ */
+public interface ExportRowWriter {
+
+    void writeHeader() throws IOException;
+
+    void write(TransactionExportRow row) throws IOException;
+
+    void flush() throws IOException;
+}
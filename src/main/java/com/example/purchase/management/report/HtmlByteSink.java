@@ -0,0 +1,214 @@
+package com.example.purchase.management.report;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Buffered UTF-8 writer for HTML that formats text, numbers and dates straight into its byte
+ * buffer, so writing a row allocates nothing. Text is HTML-escaped. Flushing is left to the caller.
+ */
+final class HtmlByteSink {
+
+    private static final byte[] Null = bytes("null");
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[8 * 1024];
+    private int position;
+
+    HtmlByteSink(OutputStream out) {
+        this.out = out;
+    }
+
+    static byte[] bytes(String fragment) {
+        return fragment.getBytes(StandardCharsets.UTF_8);
+    }
+
+    void write(byte[] fragment) throws IOException {
+        if (fragment.length > buffer.length - position) {
+            drain();
+            if (fragment.length > buffer.length) {
+                out.write(fragment);
+                return;
+            }
+        }
+        System.arraycopy(fragment, 0, buffer, position, fragment.length);
+        position += fragment.length;
+    }
+
+    void text(String value) throws IOException {
+        if (value == null) {
+            write(Null);
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<' -> ascii("&lt;");
+                case '>' -> ascii("&gt;");
+                case '&' -> ascii("&amp;");
+                case '"' -> ascii("&quot;");
+                case '\'' -> ascii("&#39;");
+                default -> {
+                    if (c < 0x80) {
+                        ensure(1);
+                        buffer[position++] = (byte) c;
+                    } else if (c < 0x800) {
+                        ensure(2);
+                        buffer[position++] = (byte) (0xC0 | c >> 6);
+                        buffer[position++] = (byte) (0x80 | c & 0x3F);
+                    } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                            && Character.isLowSurrogate(value.charAt(i + 1))) {
+                        int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                        ensure(4);
+                        buffer[position++] = (byte) (0xF0 | codePoint >> 18);
+                        buffer[position++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                        buffer[position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                        buffer[position++] = (byte) (0x80 | codePoint & 0x3F);
+                    } else if (Character.isSurrogate(c)) {
+                        // unpaired, as String.getBytes would encode it
+                        ensure(1);
+                        buffer[position++] = '?';
+                    } else {
+                        ensure(3);
+                        buffer[position++] = (byte) (0xE0 | c >> 12);
+                        buffer[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+                        buffer[position++] = (byte) (0x80 | c & 0x3F);
+                    }
+                }
+            }
+        }
+    }
+
+    void number(Long value) throws IOException {
+        if (value == null) {
+            write(Null);
+            return;
+        }
+        number(value.longValue());
+    }
+
+    void number(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            ascii(Long.toString(value));
+            return;
+        }
+        ensure(20);
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position += digits;
+    }
+
+    /**
+     * Writes the amount as {@link Double#toString} would. Amounts with at most two decimals,
+     * which is every amount in practice, are formatted from their cents without allocating.
+     */
+    void amount(Double value) throws IOException {
+        if (value == null) {
+            write(Null);
+            return;
+        }
+        double amount = value;
+        long cents = Math.round(amount * 100);
+        // Double.toString switches to exponent notation from 10^7 up; -0.0 keeps its sign
+        if (Math.abs(amount) >= 1e7 || (double) cents / 100 != amount || (amount == 0 && 1 / amount < 0)) {
+            ascii(Double.toString(amount));
+            return;
+        }
+
+        if (cents < 0) {
+            ensure(1);
+            buffer[position++] = '-';
+            cents = -cents;
+        }
+        number(cents / 100);
+        ensure(3);
+        buffer[position++] = '.';
+        int fraction = (int) (cents % 100);
+        buffer[position++] = (byte) ('0' + fraction / 10);
+        if (fraction % 10 != 0) {
+            buffer[position++] = (byte) ('0' + fraction % 10);
+        }
+    }
+
+    // yyyy-MM-dd
+    void date(LocalDate value) throws IOException {
+        if (value == null) {
+            write(Null);
+            return;
+        }
+        if (value.getYear() < 0 || value.getYear() > 9999) {
+            ascii(value.toString());
+            return;
+        }
+        ensure(10);
+        digits(value.getYear(), 4);
+        buffer[position++] = '-';
+        digits(value.getMonthValue(), 2);
+        buffer[position++] = '-';
+        digits(value.getDayOfMonth(), 2);
+    }
+
+    // yyyy-MM-dd HH:mm:ss
+    void dateTime(LocalDateTime value) throws IOException {
+        if (value == null) {
+            write(Null);
+            return;
+        }
+        date(value.toLocalDate());
+        ensure(9);
+        buffer[position++] = ' ';
+        digits(value.getHour(), 2);
+        buffer[position++] = ':';
+        digits(value.getMinute(), 2);
+        buffer[position++] = ':';
+        digits(value.getSecond(), 2);
+    }
+
+    // Empties the buffer into the stream, without flushing the stream itself
+    void drain() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    private void digits(int value, int width) {
+        for (int i = position + width - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position += width;
+    }
+
+    // Only for short ASCII strings: entities and the rare fallbacks
+    private void ascii(String value) throws IOException {
+        ensure(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            buffer[position++] = (byte) value.charAt(i);
+        }
+    }
+
+    private void ensure(int length) throws IOException {
+        if (buffer.length - position < length) {
+            drain();
+        }
+    }
+}
@@ -2,79 +2,232 @@ package com.example.purchase.management.report;
 
 import com.example.purchase.management.entity.Purchase;
 import com.example.purchase.management.entity.Refund;
+import com.example.purchase.management.model.DailyProductSummary;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 import java.time.format.DateTimeFormatter;
 
+// The default renderer; report.renderer=compact selects CompactHtmlReportGenerator instead
 @Component
+@ConditionalOnProperty(name = "report.renderer", havingValue = "html", matchIfMissing = true)
 public class HtmlReportGenerator implements ReportGenerator {
 
     @Override
     public String generateReport(List<Purchase> purchases, List<Refund> refunds) {
-        StringBuilder html = new StringBuilder();
-        html.append("<html><header><h1 style='color: #000000; text-align: center; font-family: Arial, sans-serif;'>Transactions Report</h1></header>");
-        html.append("<body style='font-family: Arial, sans-serif;'>");
-        
+        StringWriter html = new StringWriter();
+        try {
+            writeReport(html, purchases.stream(), refunds.stream());
+        } catch (IOException e) {
+            // StringWriter never throws
+            throw new UncheckedIOException(e);
+        }
+        return html.toString();
+    }
+
+    @Override
+    public void writeHeader(OutputStream out) throws IOException {
+        Writer html = writer(out);
+        writeHeader(html);
+        html.flush();
+    }
+
+    @Override
+    public void writeSummary(List<DailyProductSummary> summary, OutputStream out) throws IOException {
+        Writer html = writer(out);
+        generateSummaryTable(html, summary);
+        html.flush();
+    }
+
+    @Override
+    public void writePurchases(Stream<Purchase> purchases, OutputStream out) throws IOException {
+        Writer html = writer(out);
         generatePurchasesTable(html, purchases);
+        html.flush();
+    }
+
+    @Override
+    public void writeRefunds(Stream<Refund> refunds, OutputStream out) throws IOException {
+        Writer html = writer(out);
         generateRefundsTable(html, refunds);
-        
-        html.append("</body></html>");
-        return html.toString();
+        html.flush();
     }
 
-    private void generatePurchasesTable(StringBuilder html, List<Purchase> purchases) {
-        html.append("<h2 style='color: #006838;'>Purchases</h2>");
-        html.append("<table style='border-collapse: collapse; width: 100%; margin-bottom: 20px;'>");
-        html.append("<tr style='background-color: #006838; color: white;'>");
-        html.append("<th style='padding: 12px; border: 1px solid #ddd;'>ID</th>");
-        html.append("<th style='padding: 12px; border: 1px solid #ddd;'>First Name</th>");
-        html.append("<th style='padding: 12px; border: 1px solid #ddd;'>Last Name</th>");
-        html.append("<th style='padding: 12px; border: 1px solid #ddd;'>Phone</th>");
-        html.append("<th style='padding: 12px; border: 1px solid #ddd;'>Product</th>");
-        html.append("<th style='padding: 12px; border: 1px solid #ddd;'>Amount</th>");
-        html.append("<th style='padding: 12px; border: 1px solid #ddd;'>Created Date</th></tr>");
-        
+    @Override
+    public void writePurchasesStart(OutputStream out) throws IOException {
+        Writer html = writer(out);
+        writePurchasesHeading(html);
+        html.flush();
+    }
+
+    @Override
+    public void writePurchaseRows(Stream<Purchase> purchases, OutputStream out) throws IOException {
+        Writer html = writer(out);
+        writePurchaseRows(html, purchases);
+        html.flush();
+    }
+
+    @Override
+    public void writeRefundsStart(OutputStream out) throws IOException {
+        Writer html = writer(out);
+        writeRefundsHeading(html);
+        html.flush();
+    }
+
+    @Override
+    public void writeRefundRows(Stream<Refund> refunds, OutputStream out) throws IOException {
+        Writer html = writer(out);
+        writeRefundRows(html, refunds);
+        html.flush();
+    }
+
+    @Override
+    public void writeTableEnd(OutputStream out) throws IOException {
+        Writer html = writer(out);
+        html.write("</table>");
+        html.flush();
+    }
+
+    @Override
+    public void writeFooter(OutputStream out) throws IOException {
+        Writer html = writer(out);
+        writeFooter(html);
+        html.flush();
+    }
+
+    private Writer writer(OutputStream out) {
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    private void writeReport(Writer html, Stream<Purchase> purchases, Stream<Refund> refunds) throws IOException {
+        writeHeader(html);
+
+        generatePurchasesTable(html, purchases);
+        generateRefundsTable(html, refunds);
+
+        writeFooter(html);
+    }
+
+    private void writeHeader(Writer html) throws IOException {
+        html.write("<html><header><h1 style='color: #000000; text-align: center; font-family: Arial, sans-serif;'>Transactions Report</h1></header>");
+        html.write("<body style='font-family: Arial, sans-serif;'>");
+    }
+
+    private void writeFooter(Writer html) throws IOException {
+        html.write("</body></html>");
+    }
+
+    private void generateSummaryTable(Writer html, List<DailyProductSummary> summary) throws IOException {
+        html.write("<h2 style='color: #006838;'>Daily Summary</h2>");
+        html.write("<table style='border-collapse: collapse; width: 100%; margin-bottom: 20px;'>");
+        html.write("<tr style='background-color: #006838; color: white;'>");
+        html.write("<th style='padding: 12px; border: 1px solid #ddd;'>Date</th>");
+        html.write("<th style='padding: 12px; border: 1px solid #ddd;'>Product</th>");
+        html.write("<th style='padding: 12px; border: 1px solid #ddd;'>Purchases</th>");
+        html.write("<th style='padding: 12px; border: 1px solid #ddd;'>Gross Amount</th>");
+        html.write("<th style='padding: 12px; border: 1px solid #ddd;'>Refunds</th>");
+        html.write("<th style='padding: 12px; border: 1px solid #ddd;'>Refunded Amount</th>");
+        html.write("<th style='padding: 12px; border: 1px solid #ddd;'>Net Amount</th></tr>");
+
+        for (DailyProductSummary row : summary) {
+            html.write("<tr style='background-color: #f9f9f9;'>");
+            writeCell(html, row.getDay());
+            writeCell(html, row.getProductName());
+            writeCell(html, row.getPurchaseCount());
+            writeCell(html, row.getGrossAmount());
+            writeCell(html, row.getRefundCount());
+            writeCell(html, row.getRefundedAmount());
+            writeCell(html, row.getNetAmount());
+            html.write("</tr>");
+        }
+
+        html.write("</table>");
+    }
+
+    private void generatePurchasesTable(Writer html, Stream<Purchase> purchases) throws IOException {
+        writePurchasesHeading(html);
+        writePurchaseRows(html, purchases);
+        html.write("</table>");
+    }
+
+    private void writePurchasesHeading(Writer html) throws IOException {
+        html.write("<h2 style='color: #006838;'>Purchases</h2>");
+        html.write("<table style='border-collapse: collapse; width: 100%; margin-bottom: 20px;'>");
+        html.write("<tr style='background-color: #006838; color: white;'>");
+        html.write("<th style='padding: 12px; border: 1px solid #ddd;'>ID</th>");
+        html.write("<th style='padding: 12px; border: 1px solid #ddd;'>First Name</th>");
+        html.write("<th style='padding: 12px; border: 1px solid #ddd;'>Last Name</th>");
+        html.write("<th style='padding: 12px; border: 1px solid #ddd;'>Phone</th>");
+        html.write("<th style='padding: 12px; border: 1px solid #ddd;'>Product</th>");
+        html.write("<th style='padding: 12px; border: 1px solid #ddd;'>Amount</th>");
+        html.write("<th style='padding: 12px; border: 1px solid #ddd;'>Created Date</th></tr>");
+    }
+
+    private void writePurchaseRows(Writer html, Stream<Purchase> purchases) throws IOException {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-        for (Purchase purchase : purchases) {
-            html.append("<tr style='background-color: #f9f9f9;'>");
-            html.append("<td style='padding: 12px; border: 1px solid #ddd;'>").append(purchase.getId()).append("</td>");
-            html.append("<td style='padding: 12px; border: 1px solid #ddd;'>").append(purchase.getCustomer().getFirstName()).append("</td>");
-            html.append("<td style='padding: 12px; border: 1px solid #ddd;'>").append(purchase.getCustomer().getLastName()).append("</td>");
-            html.append("<td style='padding: 12px; border: 1px solid #ddd;'>").append(purchase.getCustomer().getPhone()).append("</td>");
-            html.append("<td style='padding: 12px; border: 1px solid #ddd;'>").append(purchase.getProduct().getName()).append("</td>");
-            html.append("<td style='padding: 12px; border: 1px solid #ddd;'>").append(purchase.getAmount()).append("</td>");
-            html.append("<td style='padding: 12px; border: 1px solid #ddd;'>").append(purchase.getDate().format(formatter)).append("</td>");
-            html.append("</tr>");
+        for (Iterator<Purchase> rows = purchases.iterator(); rows.hasNext(); ) {
+            Purchase purchase = rows.next();
+            html.write("<tr style='background-color: #f9f9f9;'>");
+            writeCell(html, purchase.getId());
+            writeCell(html, purchase.getCustomer().getFirstName());
+            writeCell(html, purchase.getCustomer().getLastName());
+            writeCell(html, purchase.getCustomer().getPhone());
+            writeCell(html, purchase.getProduct().getName());
+            writeCell(html, purchase.getAmount());
+            writeCell(html, purchase.getDate().format(formatter));
+            html.write("</tr>");
         }
-        
-        html.append("</table>");
-    }
-
-    private void generateRefundsTable(StringBuilder html, List<Refund> refunds) {
-        html.append("<h2 style='color: #006838;'>Refunds</h2>");
-        html.append("<table style='border-collapse: collapse; width: 100%;'>");
-        html.append("<tr style='background-color: #006838; color: white;'>");
-        html.append("<th style='padding: 12px; border: 1px solid #ddd;'>ID</th>");
-        html.append("<th style='padding: 12px; border: 1px solid #ddd;'>First Name</th>");
-        html.append("<th style='padding: 12px; border: 1px solid #ddd;'>Last Name</th>");
-        html.append("<th style='padding: 12px; border: 1px solid #ddd;'>Phone</th>");
-        html.append("<th style='padding: 12px; border: 1px solid #ddd;'>Purchase ID</th>");
-        html.append("<th style='padding: 12px; border: 1px solid #ddd;'>Amount</th>");
-        html.append("<th style='padding: 12px; border: 1px solid #ddd;'>Created Date</th></tr>");
-        
+    }
+
+    private void generateRefundsTable(Writer html, Stream<Refund> refunds) throws IOException {
+        writeRefundsHeading(html);
+        writeRefundRows(html, refunds);
+        html.write("</table>");
+    }
+
+    private void writeRefundsHeading(Writer html) throws IOException {
+        html.write("<h2 style='color: #006838;'>Refunds</h2>");
+        html.write("<table style='border-collapse: collapse; width: 100%;'>");
+        html.write("<tr style='background-color: #006838; color: white;'>");
+        html.write("<th style='padding: 12px; border: 1px solid #ddd;'>ID</th>");
+        html.write("<th style='padding: 12px; border: 1px solid #ddd;'>First Name</th>");
+        html.write("<th style='padding: 12px; border: 1px solid #ddd;'>Last Name</th>");
+        html.write("<th style='padding: 12px; border: 1px solid #ddd;'>Phone</th>");
+        html.write("<th style='padding: 12px; border: 1px solid #ddd;'>Purchase ID</th>");
+        html.write("<th style='padding: 12px; border: 1px solid #ddd;'>Amount</th>");
+        html.write("<th style='padding: 12px; border: 1px solid #ddd;'>Created Date</th></tr>");
+    }
+
+    private void writeRefundRows(Writer html, Stream<Refund> refunds) throws IOException {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-        for (Refund refund : refunds) {
-            html.append("<tr style='background-color: #f9f9f9;'>");
-            html.append("<td style='padding: 12px; border: 1px solid #ddd;'>").append(refund.getId()).append("</td>");
-            html.append("<td style='padding: 12px; border: 1px solid #ddd;'>").append(refund.getCustomer().getFirstName()).append("</td>");
-            html.append("<td style='padding: 12px; border: 1px solid #ddd;'>").append(refund.getCustomer().getLastName()).append("</td>");
-            html.append("<td style='padding: 12px; border: 1px solid #ddd;'>").append(refund.getCustomer().getPhone()).append("</td>");
-            html.append("<td style='padding: 12px; border: 1px solid #ddd;'>").append(refund.getPurchase().getId()).append("</td>");
-            html.append("<td style='padding: 12px; border: 1px solid #ddd;'>").append(refund.getAmount()).append("</td>");
-            html.append("<td style='padding: 12px; border: 1px solid #ddd;'>").append(refund.getDate().format(formatter)).append("</td>");
-            html.append("</tr>");
+        for (Iterator<Refund> rows = refunds.iterator(); rows.hasNext(); ) {
+            Refund refund = rows.next();
+            html.write("<tr style='background-color: #f9f9f9;'>");
+            writeCell(html, refund.getId());
+            writeCell(html, refund.getCustomer().getFirstName());
+            writeCell(html, refund.getCustomer().getLastName());
+            writeCell(html, refund.getCustomer().getPhone());
+            writeCell(html, refund.getPurchase().getId());
+            writeCell(html, refund.getAmount());
+            writeCell(html, refund.getDate().format(formatter));
+            html.write("</tr>");
         }
-        
-        html.append("</table>");
     }
-}
\ No newline at end of file
+
+    private void writeCell(Writer html, Object value) throws IOException {
+        html.write("<td style='padding: 12px; border: 1px solid #ddd;'>");
+        html.write(String.valueOf(value));
+        html.write("</td>");
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.purchase.management.report;
+
+import com.example.purchase.management.entity.Purchase;
+import com.example.purchase.management.entity.Refund;
+import com.example.purchase.management.model.CustomerStatement;
+import org.springframework.stereotype.Component;
+
+import java.time.format.DateTimeFormatter;
+
+@Component
+public class HtmlStatementGenerator implements StatementGenerator {
+
+    private static final DateTimeFormatter Date_Format = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    @Override
+    public String generateStatement(CustomerStatement statement) {
+        StringBuilder html = new StringBuilder();
+        html.append("<html><header><h1 style='color: #000000; text-align: center; font-family: Arial, sans-serif;'>Account Statement</h1></header>");
+        html.append("<body style='font-family: Arial, sans-serif;'>");
+        html.append("<p>Dear ").append(statement.getCustomer().getFirstName()).append(' ')
+                .append(statement.getCustomer().getLastName()).append(",</p>");
+        html.append("<p>Here is your activity from ").append(statement.getStart().format(Date_Format))
+                .append(" to ").append(statement.getEnd().format(Date_Format)).append(".</p>");
+
+        double purchased = 0;
+        html.append("<h2 style='color: #006838;'>Purchases</h2>");
+        html.append("<table style='border-collapse: collapse; width: 100%; margin-bottom: 20px;'>");
+        html.append("<tr style='background-color: #006838; color: white;'>");
+        html.append("<th style='padding: 12px; border: 1px solid #ddd;'>ID</th>");
+        html.append("<th style='padding: 12px; border: 1px solid #ddd;'>Product</th>");
+        html.append("<th style='padding: 12px; border: 1px solid #ddd;'>Amount</th>");
+        html.append("<th style='padding: 12px; border: 1px solid #ddd;'>Created Date</th></tr>");
+        for (Purchase purchase : statement.getPurchases()) {
+            html.append("<tr style='background-color: #f9f9f9;'>");
+            appendCell(html, purchase.getId());
+            appendCell(html, purchase.getProduct() != null ? purchase.getProduct().getName() : "");
+            appendCell(html, purchase.getAmount());
+            appendCell(html, purchase.getDate().format(Date_Format));
+            html.append("</tr>");
+            purchased += purchase.getAmount();
+        }
+        html.append("</table>");
+
+        double refunded = 0;
+        html.append("<h2 style='color: #006838;'>Refunds</h2>");
+        html.append("<table style='border-collapse: collapse; width: 100%; margin-bottom: 20px;'>");
+        html.append("<tr style='background-color: #006838; color: white;'>");
+        html.append("<th style='padding: 12px; border: 1px solid #ddd;'>ID</th>");
+        html.append("<th style='padding: 12px; border: 1px solid #ddd;'>Purchase ID</th>");
+        html.append("<th style='padding: 12px; border: 1px solid #ddd;'>Amount</th>");
+        html.append("<th style='padding: 12px; border: 1px solid #ddd;'>Created Date</th></tr>");
+        for (Refund refund : statement.getRefunds()) {
+            html.append("<tr style='background-color: #f9f9f9;'>");
+            appendCell(html, refund.getId());
+            appendCell(html, refund.getPurchase() != null ? refund.getPurchase().getId() : "");
+            appendCell(html, refund.getAmount());
+            appendCell(html, refund.getDate().format(Date_Format));
+            html.append("</tr>");
+            refunded += refund.getAmount();
+        }
+        html.append("</table>");
+
+        html.append("<p><strong>Net amount: ").append(purchased - refunded).append("</strong></p>");
+        html.append("</body></html>");
+        return html.toString();
+    }
+
+    private void appendCell(StringBuilder html, Object value) {
+        html.append("<td style='padding: 12px; border: 1px solid #ddd;'>");
+        html.append(value);
+        html.append("</td>");
+    }
+}
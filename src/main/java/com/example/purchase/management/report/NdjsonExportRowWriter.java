@@ -0,0 +1,70 @@
+package com.example.purchase.management.report;
+
+import com.example.purchase.management.model.TransactionExportRow;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.format.DateTimeFormatter;
+
+// One JSON object per line, written with the streaming generator so no row objects are built
+public class NdjsonExportRowWriter implements ExportRowWriter {
+
+    private static final JsonFactory Json = JsonFactory.builder().build();
+    private static final DateTimeFormatter Date_Format = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    private final JsonGenerator json;
+
+    public NdjsonExportRowWriter(OutputStream out) {
+        try {
+            this.json = Json.createGenerator(out, JsonEncoding.UTF8)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+            this.json.setRootValueSeparator(null);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to create JSON generator", e);
+        }
+    }
+
+    // NDJSON has no header line
+    @Override
+    public void writeHeader() {
+    }
+
+    @Override
+    public void write(TransactionExportRow row) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("type", row.getType());
+        writeNumber("id", row.getId());
+        json.writeStringField("date", row.getDate() != null ? row.getDate().format(Date_Format) : null);
+        writeNumber("customerId", row.getCustomerId());
+        json.writeStringField("firstName", row.getFirstName());
+        json.writeStringField("lastName", row.getLastName());
+        json.writeStringField("product", row.getProduct());
+        if (row.getAmount() != null) {
+            json.writeNumberField("amount", row.getAmount());
+        } else {
+            json.writeNullField("amount");
+        }
+        writeNumber("purchaseId", row.getPurchaseId());
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        json.flush();
+        // the generator keeps FLUSH_PASSED_TO_STREAM off so a row never flushes the sink by itself
+        ((OutputStream) json.getOutputTarget()).flush();
+    }
+
+    private void writeNumber(String name, Long value) throws IOException {
+        if (value != null) {
+            json.writeNumberField(name, value);
+        } else {
+            json.writeNullField(name);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.purchase.management.report;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Report body that is rendered on demand into a sink rather than handed around as a String.
+ */
+@FunctionalInterface
+public interface ReportContent {
+    void writeTo(OutputStream out) throws IOException;
+}
@@ -2,8 +2,50 @@ package com.example.purchase.management.report;
 
 import com.example.purchase.management.entity.Purchase;
 import com.example.purchase.management.entity.Refund;
+import com.example.purchase.management.model.DailyProductSummary;
+
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface ReportGenerator {
     String generateReport(List<Purchase> purchases, List<Refund> refunds);
+
+    /**
+     * Writes the report straight to the given sink as UTF-8 instead of building it in memory,
+     * consuming each stream once, row by row. The sink is flushed but not closed.
+     */
+    default void generateReport(Stream<Purchase> purchases, Stream<Refund> refunds, OutputStream out) throws IOException {
+        writeHeader(out);
+        writePurchases(purchases, out);
+        writeRefunds(refunds, out);
+        writeFooter(out);
+    }
+
+    // Section writers, so sections can be rendered independently and stitched together in order.
+    // Each one flushes but does not close the sink.
+
+    void writeHeader(OutputStream out) throws IOException;
+
+    void writeSummary(List<DailyProductSummary> summary, OutputStream out) throws IOException;
+
+    void writePurchases(Stream<Purchase> purchases, OutputStream out) throws IOException;
+
+    void writeRefunds(Stream<Refund> refunds, OutputStream out) throws IOException;
+
+    void writeFooter(OutputStream out) throws IOException;
+
+    // Table pieces, so a section's rows can be rendered over several calls and stitched together later:
+    // writePurchasesStart, any number of writePurchaseRows, then writeTableEnd (likewise for refunds).
+
+    void writePurchasesStart(OutputStream out) throws IOException;
+
+    void writePurchaseRows(Stream<Purchase> purchases, OutputStream out) throws IOException;
+
+    void writeRefundsStart(OutputStream out) throws IOException;
+
+    void writeRefundRows(Stream<Refund> refunds, OutputStream out) throws IOException;
+
+    void writeTableEnd(OutputStream out) throws IOException;
 }
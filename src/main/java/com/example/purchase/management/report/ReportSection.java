@@ -0,0 +1,7 @@
+package com.example.purchase.management.report;
+
+/**
+ * One independently loadable part of a report, e.g. the purchases table.
+ */
+public record ReportSection(String name, ReportContent content) {
+}
@@ -0,0 +1,9 @@
+package com.example.purchase.management.report;
+
+import com.example.purchase.management.model.CustomerStatement;
+
+public interface StatementGenerator {
+
+    // Statements cover a single customer's day, so they are small enough to build in memory
+    String generateStatement(CustomerStatement statement);
+}
@@ -1,8 +1,14 @@
 package com.example.purchase.management.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import com.example.purchase.management.entity.Customer;
 
+import java.util.List;
+
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
 
+    // A keyset page: the customers after the previous page's last id, walked along the primary key
+    List<Customer> findByIdGreaterThanOrderById(long id, Limit limit);
+
 }
@@ -0,0 +1,61 @@
+package com.example.purchase.management.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.purchase.management.entity.DailyTransactionRollup;
+import com.example.purchase.management.model.DailyProductSummary;
+
+public interface DailyTransactionRollupRepository extends JpaRepository<DailyTransactionRollup, Long>,
+        DailyTransactionRollupRepositoryCustom {
+
+    // Increments happen in the database so concurrent writers never overwrite each other's totals.
+    // Both return the number of rows updated: 0 means the rollup row doesn't exist yet, and the caller
+    // inserts it with insertIfAbsent.
+    @Modifying
+    @Query("update DailyTransactionRollup r set r.purchaseCount = r.purchaseCount + 1, "
+            + "r.grossAmount = r.grossAmount + :amount, r.netAmount = r.netAmount + :amount "
+            + "where r.day = :day and r.product.id = :productId and r.customer.id = :customerId")
+    int addPurchase(@Param("day") LocalDate day, @Param("productId") Long productId,
+                    @Param("customerId") Long customerId, @Param("amount") double amount);
+
+    // Same as addPurchase, for several purchases of one rollup at once
+    @Modifying
+    @Query("update DailyTransactionRollup r set r.purchaseCount = r.purchaseCount + :count, "
+            + "r.grossAmount = r.grossAmount + :amount, r.netAmount = r.netAmount + :amount "
+            + "where r.day = :day and r.product.id = :productId and r.customer.id = :customerId")
+    int addPurchases(@Param("day") LocalDate day, @Param("productId") Long productId,
+                     @Param("customerId") Long customerId, @Param("count") long count, @Param("amount") double amount);
+
+    @Modifying
+    @Query("update DailyTransactionRollup r set r.refundCount = r.refundCount + 1, "
+            + "r.refundedAmount = r.refundedAmount + :amount, r.netAmount = r.netAmount - :amount "
+            + "where r.day = :day and r.product.id = :productId and r.customer.id = :customerId")
+    int addRefund(@Param("day") LocalDate day, @Param("productId") Long productId,
+                  @Param("customerId") Long customerId, @Param("amount") double amount);
+
+    // Same as addRefund, for several refunds of one rollup at once
+    @Modifying
+    @Query("update DailyTransactionRollup r set r.refundCount = r.refundCount + :count, "
+            + "r.refundedAmount = r.refundedAmount + :amount, r.netAmount = r.netAmount - :amount "
+            + "where r.day = :day and r.product.id = :productId and r.customer.id = :customerId")
+    int addRefunds(@Param("day") LocalDate day, @Param("productId") Long productId,
+                   @Param("customerId") Long customerId, @Param("count") long count, @Param("amount") double amount);
+
+    @Modifying
+    @Query("delete from DailyTransactionRollup r where r.day between :from and :to")
+    int deleteByDayBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("select new com.example.purchase.management.model.DailyProductSummary(r.day, p.name, "
+            + "sum(r.purchaseCount), sum(r.grossAmount), sum(r.refundCount), sum(r.refundedAmount), sum(r.netAmount)) "
+            + "from DailyTransactionRollup r join r.product p "
+            + "where r.day between :from and :to "
+            + "group by r.day, p.id, p.name order by r.day, p.name")
+    List<DailyProductSummary> summarizeByDayAndProduct(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+}
@@ -0,0 +1,13 @@
+package com.example.purchase.management.repository;
+
+import com.example.purchase.management.entity.DailyTransactionRollup;
+
+public interface DailyTransactionRollupRepositoryCustom {
+
+    /**
+     * Inserts the rollup unless its day, product and customer already have one, as when another
+     * transaction created it since the caller's increment found nothing. Returns whether it inserted;
+     * if not, the caller's transaction is still usable and the increment can simply be repeated.
+     */
+    boolean insertIfAbsent(DailyTransactionRollup rollup);
+}
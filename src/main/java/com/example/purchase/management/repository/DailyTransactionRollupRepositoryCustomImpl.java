@@ -0,0 +1,47 @@
+package com.example.purchase.management.repository;
+
+import com.example.purchase.management.entity.DailyTransactionRollup;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.hibernate.StatelessSession;
+import org.hibernate.exception.ConstraintViolationException;
+
+import java.sql.Savepoint;
+
+/**
+ * The insert runs under a savepoint, on the transaction's own connection, so losing the race on
+ * the unique (day, product, customer) key rolls back only the insert, never the purchase or refund
+ * being recorded. It goes through a stateless session so that a failed insert leaves nothing
+ * behind in the caller's persistence context.
+ */
+@RequiredArgsConstructor
+public class DailyTransactionRollupRepositoryCustomImpl implements DailyTransactionRollupRepositoryCustom {
+
+    // Same code on PostgreSQL and H2
+    private static final String Unique_Violation = "23505";
+
+    private final EntityManager entityManager;
+
+    @Override
+    public boolean insertIfAbsent(DailyTransactionRollup rollup) {
+        Session session = entityManager.unwrap(Session.class);
+        // the customer, product and transaction may not have reached the database yet
+        session.flush();
+        return session.doReturningWork(connection -> {
+            Savepoint savepoint = connection.setSavepoint();
+            try (StatelessSession insert = session.getSessionFactory().withStatelessOptions()
+                    .connection(connection).openStatelessSession()) {
+                insert.insert(rollup);
+            } catch (ConstraintViolationException e) {
+                connection.rollback(savepoint);
+                if (Unique_Violation.equals(e.getSQLState())) {
+                    return false;
+                }
+                throw e;
+            }
+            connection.releaseSavepoint(savepoint);
+            return true;
+        });
+    }
+}
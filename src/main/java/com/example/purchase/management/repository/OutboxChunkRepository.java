@@ -0,0 +1,27 @@
+package com.example.purchase.management.repository;
+
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import com.example.purchase.management.entity.OutboxChunk;
+
+import jakarta.persistence.QueryHint;
+
+public interface OutboxChunkRepository extends JpaRepository<OutboxChunk, Long> {
+
+    // Cursor-backed, one chunk at a time; must be consumed and closed inside a transaction
+    @Query("select c.data from OutboxChunk c where c.message.id = :messageId order by c.seq")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1"))
+    Stream<byte[]> streamData(@Param("messageId") Long messageId);
+
+    @Modifying
+    @Query("delete from OutboxChunk c where c.message.id = :messageId")
+    int deleteByMessageId(@Param("messageId") Long messageId);
+
+}
@@ -0,0 +1,60 @@
+package com.example.purchase.management.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.purchase.management.entity.OutboxMessage;
+import com.example.purchase.management.entity.OutboxMessage.Status;
+
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    boolean existsByIdempotencyKey(String idempotencyKey);
+
+    long countByStatus(Status status);
+
+    @Query("select m.id from OutboxMessage m where m.status = :status and m.nextAttemptAt <= :now order by m.nextAttemptAt")
+    List<Long> findDueIds(@Param("status") Status status, @Param("now") LocalDateTime now, Pageable page);
+
+    // Conditional so that only one worker, on any instance, wins a message
+    @Modifying
+    @Query("update OutboxMessage m set m.status = :claimed, m.claimedUntil = :claimedUntil, m.claimToken = :token "
+            + "where m.id = :id and m.status = :expected")
+    int claim(@Param("id") Long id, @Param("expected") Status expected, @Param("claimed") Status claimed,
+              @Param("claimedUntil") LocalDateTime claimedUntil, @Param("token") String token);
+
+    // Both outcomes match nothing once the claim expired and the message was claimed again, so a late worker
+    // cannot overwrite what the current one records
+    @Modifying
+    @Query("update OutboxMessage m set m.status = :sent, m.attempts = m.attempts + 1, m.sentAt = :now, "
+            + "m.claimedUntil = null, m.claimToken = null, m.lastError = null "
+            + "where m.id = :id and m.status = :sending and m.claimToken = :token")
+    int markSent(@Param("id") Long id, @Param("token") String token, @Param("sending") Status sending,
+                 @Param("sent") Status sent, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update OutboxMessage m set m.status = :status, m.attempts = m.attempts + 1, "
+            + "m.nextAttemptAt = :nextAttemptAt, m.lastError = :error, m.claimedUntil = null, m.claimToken = null "
+            + "where m.id = :id and m.status = :sending and m.claimToken = :token")
+    int markFailed(@Param("id") Long id, @Param("token") String token, @Param("sending") Status sending,
+                   @Param("status") Status status, @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                   @Param("error") String error);
+
+    // Messages whose worker died mid-delivery; counted as a failed attempt, so one that takes down its worker
+    // every time is parked as dead after the last attempt like any other failure
+    @Modifying
+    @Query("update OutboxMessage m set "
+            + "m.status = case when m.attempts + 1 >= :maxAttempts then :dead else :pending end, "
+            + "m.attempts = m.attempts + 1, m.nextAttemptAt = :now, m.claimedUntil = null, m.claimToken = null, "
+            + "m.lastError = 'Delivery did not finish before the claim expired' "
+            + "where m.status = :sending and m.claimedUntil < :now")
+    int releaseExpiredClaims(@Param("sending") Status sending, @Param("pending") Status pending,
+                             @Param("dead") Status dead, @Param("maxAttempts") int maxAttempts,
+                             @Param("now") LocalDateTime now);
+
+}
@@ -1,8 +1,21 @@
 package com.example.purchase.management.repository;
 
 import com.example.purchase.management.entity.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.List;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
 
+    // The product catalog; kept in the query cache until a product is written, the rows themselves in the products region
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+    List<Product> findAllByOrderByIdAsc();
+
+    // A keyset page: the products after the previous page's last id, walked along the primary key
+    List<Product> findByIdGreaterThanOrderById(long id, Limit limit);
+
 }
@@ -1,13 +1,78 @@
 package com.example.purchase.management.repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import com.example.purchase.management.entity.Purchase;
+import com.example.purchase.management.model.DailyTotals;
+import com.example.purchase.management.model.TransactionExportRow;
 
-public interface PurchaseRepository extends JpaRepository<Purchase, Long> {
+import jakarta.persistence.QueryHint;
+
+public interface PurchaseRepository extends JpaRepository<Purchase, Long>, JpaSpecificationExecutor<Purchase> {
     List<Purchase> findAllByDateBetween(LocalDateTime start, LocalDateTime end);
 
+    // The purchases of a bulk refund chunk, with what a refund copies from them in the same statement
+    @Query("select p from Purchase p left join fetch p.customer left join fetch p.product where p.id in :ids")
+    List<Purchase> findAllWithCustomerAndProductByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Cursor-backed: rows are fetched from the database in batches as the stream is consumed.
+    // Must be consumed and closed inside a transaction.
+    // Customer and product are fetch-joined so the whole report is one statement, and the
+    // entities are loaded read-only so Hibernate keeps no snapshots for dirty checking.
+    @Query("select p from Purchase p left join fetch p.customer left join fetch p.product "
+            + "where p.date between :start and :end order by p.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Purchase> streamReportRowsByDateBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    // Report rows recorded after the watermark: a higher id, or a date inside the overlap that
+    // catches rows committed after a higher id was already seen
+    @Query("select p from Purchase p left join fetch p.customer left join fetch p.product "
+            + "where p.date between :start and :end and (p.id > :afterId or p.date >= :since) order by p.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Purchase> streamReportRowsAfter(@Param("afterId") long afterId, @Param("since") LocalDateTime since,
+                                           @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    // Export rows as projections, in date order so the date index serves the cursor without a sort
+    @Query("select new com.example.purchase.management.model.TransactionExportRow("
+            + "'purchase', p.id, p.date, c.id, c.firstName, c.lastName, pr.name, p.amount, cast(null as Long)) "
+            + "from Purchase p left join p.customer c left join p.product pr "
+            + "where p.date >= :start and p.date < :end order by p.date, p.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<TransactionExportRow> streamExportRows(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    // Same as the report rows, but grouped by customer for statements
+    @Query("select p from Purchase p join fetch p.customer c left join fetch p.product "
+            + "where p.date between :start and :end order by c.id, p.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Purchase> streamStatementRowsByDateBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    // Raw per-day totals used to rebuild rollups; end is exclusive.
+    @Query("select new com.example.purchase.management.model.DailyTotals(cast(p.date as LocalDate), "
+            + "p.product.id, p.customer.id, count(p), sum(p.amount)) "
+            + "from Purchase p where p.date >= :start and p.date < :end "
+            + "group by cast(p.date as LocalDate), p.product.id, p.customer.id")
+    List<DailyTotals> sumDailyTotalsBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
 }
@@ -2,14 +2,84 @@ package com.example.purchase.management.repository;
 
 import java.time.LocalDateTime;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 import com.example.purchase.management.entity.Refund;
+import com.example.purchase.management.model.DailyTotals;
+import com.example.purchase.management.model.TransactionExportRow;
+
+import jakarta.persistence.QueryHint;
 
-public interface RefundRepository extends JpaRepository<Refund, Long> {
+public interface RefundRepository extends JpaRepository<Refund, Long>, JpaSpecificationExecutor<Refund> {
     List<Refund> findAllByDateBetween(LocalDateTime start, LocalDateTime end);
 
+    // Which of these purchases already have a refund
+    @Query("select r.purchase.id from Refund r where r.purchase.id in :purchaseIds")
+    List<Long> findRefundedPurchaseIds(@Param("purchaseIds") Collection<Long> purchaseIds);
+
+    // Cursor-backed: rows are fetched from the database in batches as the stream is consumed.
+    // Must be consumed and closed inside a transaction.
+    // Every eager association, including the refunded purchase's own customer and product,
+    // is fetch-joined so the whole report is one statement; entities are loaded read-only.
+    @Query("select r from Refund r left join fetch r.customer left join fetch r.product "
+            + "left join fetch r.purchase rp left join fetch rp.customer left join fetch rp.product "
+            + "where r.date between :start and :end order by r.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Refund> streamReportRowsByDateBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    // Report rows recorded after the watermark: a higher id, or a date inside the overlap that
+    // catches rows committed after a higher id was already seen
+    @Query("select r from Refund r left join fetch r.customer left join fetch r.product "
+            + "left join fetch r.purchase rp left join fetch rp.customer left join fetch rp.product "
+            + "where r.date between :start and :end and (r.id > :afterId or r.date >= :since) order by r.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Refund> streamReportRowsAfter(@Param("afterId") long afterId, @Param("since") LocalDateTime since,
+                                         @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    // Export rows as projections, in date order so the date index serves the cursor without a sort
+    @Query("select new com.example.purchase.management.model.TransactionExportRow("
+            + "'refund', r.id, r.date, c.id, c.firstName, c.lastName, pr.name, r.amount, rp.id) "
+            + "from Refund r left join r.customer c left join r.product pr left join r.purchase rp "
+            + "where r.date >= :start and r.date < :end order by r.date, r.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<TransactionExportRow> streamExportRows(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    // Same as the report rows, but grouped by customer for statements; every eager association
+    // is fetch-joined as above, so none is loaded a row at a time while the stream is read
+    @Query("select r from Refund r join fetch r.customer c left join fetch r.product "
+            + "left join fetch r.purchase rp left join fetch rp.customer left join fetch rp.product "
+            + "where r.date between :start and :end order by c.id, r.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Refund> streamStatementRowsByDateBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    // Raw per-day totals used to rebuild rollups; end is exclusive. Product and customer are
+    // taken from the refunded purchase, the same way createRefund fills them in.
+    @Query("select new com.example.purchase.management.model.DailyTotals(cast(r.date as LocalDate), "
+            + "rp.product.id, rp.customer.id, count(r), sum(r.amount)) "
+            + "from Refund r join r.purchase rp where r.date >= :start and r.date < :end "
+            + "group by cast(r.date as LocalDate), rp.product.id, rp.customer.id")
+    List<DailyTotals> sumDailyTotalsBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
 
 
 
@@ -0,0 +1,19 @@
+package com.example.purchase.management.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.purchase.management.entity.ReportRun;
+
+public interface ReportRunRepository extends JpaRepository<ReportRun, Long> {
+
+    boolean existsByDay(LocalDate day);
+
+    @Query("select r.day from ReportRun r where r.day between :from and :to")
+    List<LocalDate> findDaysBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+}
@@ -0,0 +1,45 @@
+package com.example.purchase.management.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.purchase.management.entity.SchedulerLease;
+
+public interface SchedulerLeaseRepository extends JpaRepository<SchedulerLease, String> {
+
+    // Conditional so that only one instance wins a free or expired lease, and only for a run not done yet
+    @Modifying(clearAutomatically = true)
+    @Query("update SchedulerLease l set l.owner = :owner, l.fencingToken = l.fencingToken + 1, "
+            + "l.lockedUntil = :until, l.acquiredAt = :now "
+            + "where l.name = :name and (l.lockedUntil is null or l.lockedUntil < :now) "
+            + "and (l.lastRun is null or l.lastRun <> :run)")
+    int acquire(@Param("name") String name, @Param("run") String run, @Param("owner") String owner,
+                @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+
+    // Matches nothing once another instance has taken the lease over, whatever this one's clock says
+    @Modifying
+    @Query("update SchedulerLease l set l.lockedUntil = :until "
+            + "where l.name = :name and l.owner = :owner and l.fencingToken = :token")
+    int extend(@Param("name") String name, @Param("owner") String owner, @Param("token") long token,
+               @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Query("update SchedulerLease l set l.lockedUntil = null, l.lastRun = :run "
+            + "where l.name = :name and l.owner = :owner and l.fencingToken = :token")
+    int release(@Param("name") String name, @Param("owner") String owner, @Param("token") long token,
+                @Param("run") String run);
+
+    // Frees the lease after a failed run, leaving the last completed run as it was
+    @Modifying
+    @Query("update SchedulerLease l set l.lockedUntil = null "
+            + "where l.name = :name and l.owner = :owner and l.fencingToken = :token")
+    int abandon(@Param("name") String name, @Param("owner") String owner, @Param("token") long token);
+
+    boolean existsByNameAndOwnerAndFencingTokenAndLockedUntilAfter(String name, String owner, long fencingToken,
+                                                                  LocalDateTime now);
+
+}
@@ -0,0 +1,24 @@
+package com.example.purchase.management.repository;
+
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import com.example.purchase.management.entity.StatementSend;
+
+import jakarta.persistence.QueryHint;
+
+public interface StatementSendRepository extends JpaRepository<StatementSend, Long> {
+
+    // Customers already sent the statement for this day, in id order like the statement rows, so
+    // the fan-out merges them in the same pass. Must be consumed and closed inside a transaction.
+    @Query("select s.customerId from StatementSend s where s.day = :day order by s.customerId")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<Long> streamCustomerIdsByDay(@Param("day") LocalDate day);
+
+}
@@ -0,0 +1,38 @@
+package com.example.purchase.management.scheduler;
+
+import com.example.purchase.management.config.ReportProperties;
+import com.example.purchase.management.service.OutboxService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OutboxDispatchScheduler implements SchedulingConfigurer {
+
+    private final OutboxService outboxService;
+    private final ReportProperties reportProperties;
+
+    // Registered here rather than with @Scheduled so the interval can be a Duration (report.outbox.poll-interval)
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.addFixedDelayTask(this::dispatchDueMessages, reportProperties.getOutbox().getPollInterval());
+    }
+
+    // Only claims and hands off; the sending itself runs on the outbox's worker pool
+    public void dispatchDueMessages() {
+        try {
+            int claimed = outboxService.dispatchDue();
+            if (claimed > 0) {
+                log.debug("Dispatched {} outbox message(s)", claimed);
+            }
+        } catch (Exception e) {
+            log.error("Failed to dispatch outbox messages: ", e);
+        }
+    }
+
+}
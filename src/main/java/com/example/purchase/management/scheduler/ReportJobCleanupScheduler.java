@@ -0,0 +1,30 @@
+package com.example.purchase.management.scheduler;
+
+import com.example.purchase.management.service.ReportJobService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReportJobCleanupScheduler {
+
+    private final ReportJobService reportJobService;
+
+    // Every instance cleans its own store; job results are local files
+    @Scheduled(cron = "0 */10 * * * *") // Runs every 10 minutes
+    public void removeExpiredReports() {
+        try {
+            int removed = reportJobService.cleanUp();
+            if (removed > 0) {
+                log.info("Removed {} expired report job(s)", removed);
+            }
+        } catch (Exception e) {
+            log.error("Failed to clean up report jobs: ", e);
+        }
+    }
+
+}
@@ -1,13 +1,20 @@
 package com.example.purchase.management.scheduler;
 
-import com.example.purchase.management.service.ReportService;
-import com.example.purchase.management.service.SenderService;
+import com.example.purchase.management.config.ReportProperties;
+import com.example.purchase.management.entity.ReportRun;
+import com.example.purchase.management.model.BackfillResult;
+import com.example.purchase.management.service.LeaseService;
+import com.example.purchase.management.service.ReportRunService;
 import com.example.purchase.management.service.DateRangeProvider;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.support.CronExpression;
 import org.springframework.stereotype.Component;
+
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
@@ -16,26 +23,67 @@ import java.time.LocalDateTime;
 @RequiredArgsConstructor
 public class ReportScheduler {
 
-    private final ReportService reportService;
-    private final SenderService emailSender;
+    static final String Daily_Cron = "0 0 1 * * *"; // Runs at 1 AM every day
+
+    private final ReportRunService reportRunService;
     private final DateRangeProvider dateProvider;
+    private final LeaseService leaseService;
+    private final ReportProperties reportProperties;
 
-    @Scheduled(cron = "0 0 1 * * *") // Runs at 1 AM every day
+    // Fires on every instance; the lease lets only one of them generate the report
+    @Scheduled(cron = Daily_Cron)
     public void sendScheduledReport() {
-        log.info("Starting daily report generation...");
+        LocalDate day = dateProvider.getYesterdayRange().getStart().toLocalDate();
         try {
+            // A failure propagates out of the task, so the run is not recorded as done and can be taken over
+            leaseService.runOnce("daily-report", day.toString(), lease -> {
+                log.info("Starting daily report generation...");
 
-            // Generate report for yesterday's purchases and refunds
-            var dateRange = dateProvider.getYesterdayRange();
-            String TransactionReport = reportService.generateReport(dateRange.getStart(), dateRange.getEnd());
+                // An instance that stalled past its lease leaves the report to the one that took over
+                if (!leaseService.isHeld(lease)) {
+                    log.warn("Lost the daily report lease (fencing token {}), not queueing the report", lease.getFencingToken());
+                    return;
+                }
 
-            emailSender.send(
-                    "Daily Transactions Report - " + dateRange.getStart(),
-                    TransactionReport);
-            log.info("Daily report sent successfully");
+                // Generate report for yesterday's purchases and refunds; delivery happens from the outbox
+                if (reportRunService.runDay(day, ReportRun.Trigger.SCHEDULED)) {
+                    log.info("Daily report queued for delivery");
+                }
+            });
         } catch (Exception e) {
-            log.error("Failed to send daily report: ", e);
+            log.error("Failed to generate daily report: ", e);
+        }
+    }
+
+    // Queues the reports of recent days that were missed while no instance was running
+    @EventListener(ApplicationReadyEvent.class)
+    public void catchUpMissedReports() {
+        int catchUpDays = reportProperties.getBackfill().getCatchUpDays();
+        if (catchUpDays <= 0) {
+            return;
+        }
+
+        // yesterday only counts as missed once its scheduled run time has passed
+        LocalDate today = LocalDate.now();
+        LocalDateTime todaysRun = CronExpression.parse(Daily_Cron).next(today.atStartOfDay().minusNanos(1));
+        LocalDate lastDue = LocalDateTime.now().isBefore(todaysRun) ? today.minusDays(2) : today.minusDays(1);
+        LocalDate firstDue = today.minusDays(catchUpDays);
+        if (firstDue.isAfter(lastDue)) {
+            return;
         }
+
+        Thread.ofVirtual().name("report-catch-up").start(() -> {
+            try {
+                leaseService.runOnce("report-catch-up", today.toString(), lease -> {
+                    BackfillResult result = reportRunService.backfill(firstDue, lastDue, ReportRun.Trigger.CATCH_UP);
+                    if (result.getFailed() > 0) {
+                        throw new IllegalStateException(result.getFailed() + " missed daily reports failed to queue");
+                    }
+                });
+            } catch (Exception e) {
+                log.error("Failed to catch up missed daily reports: ", e);
+            }
+        });
     }
 
 }
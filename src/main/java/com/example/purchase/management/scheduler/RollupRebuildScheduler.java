@@ -0,0 +1,32 @@
+package com.example.purchase.management.scheduler;
+
+import com.example.purchase.management.service.DateRangeProvider;
+import com.example.purchase.management.service.LeaseService;
+import com.example.purchase.management.service.RollupService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RollupRebuildScheduler {
+
+    private final RollupService rollupService;
+    private final DateRangeProvider dateProvider;
+    private final LeaseService leaseService;
+
+    // Reconciles yesterday's rollups with the raw rows before the daily report reads them
+    @Scheduled(cron = "0 30 0 * * *") // Runs at 12:30 AM every day
+    public void rebuildYesterday() {
+        var day = dateProvider.getYesterdayRange().getStart().toLocalDate();
+        try {
+            leaseService.runOnce("rollup-rebuild", day.toString(), lease -> rollupService.rebuild(day, day));
+        } catch (Exception e) {
+            log.error("Failed to rebuild transaction rollups: ", e);
+        }
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.example.purchase.management.scheduler;
+
+import com.example.purchase.management.service.DateRangeProvider;
+import com.example.purchase.management.service.LeaseService;
+import com.example.purchase.management.service.StatementService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StatementScheduler {
+
+    private final StatementService statementService;
+    private final DateRangeProvider dateProvider;
+    private final LeaseService leaseService;
+
+    // Sends each customer yesterday's statement, after the daily report is queued
+    @Scheduled(cron = "0 15 1 * * *") // Runs at 1:15 AM every day
+    public void sendDailyStatements() {
+        var dateRange = dateProvider.getYesterdayRange();
+        try {
+            leaseService.runOnce("customer-statements", dateRange.getStart().toLocalDate().toString(), lease -> {
+                log.info("Starting daily customer statements...");
+                statementService.sendStatements(dateRange.getStart(), dateRange.getEnd());
+            });
+        } catch (Exception e) {
+            log.error("Failed to send daily customer statements: ", e);
+        }
+    }
+
+}
@@ -2,10 +2,12 @@ package com.example.purchase.management.seeder;
 
 import com.example.purchase.management.entity.*;
 import com.example.purchase.management.repository.*;
+import com.example.purchase.management.service.RollupService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
@@ -18,6 +20,7 @@ public class DataSeeder implements CommandLineRunner {
     private final ProductRepository productRepository;
     private final PurchaseRepository purchaseRepository;
     private final RefundRepository refundRepository;
+    private final RollupService rollupService;
 
     @Override
     public void run(String... args) {
@@ -26,11 +29,13 @@ public class DataSeeder implements CommandLineRunner {
         customer1.setFirstName("Ahmad");
         customer1.setLastName("saad");
         customer1.setPhone("0912345678");
+        customer1.setEmail("ahmad.saad@example.com");
 
         Customer customer2 = new Customer();
         customer2.setFirstName("Hani");
         customer2.setLastName("saad");
         customer2.setPhone("0912345999");
+        customer2.setEmail("hani.saad@example.com");
 
         List<Customer> customers = customerRepository.saveAll(Arrays.asList(customer1, customer2));
 
@@ -68,5 +73,8 @@ public class DataSeeder implements CommandLineRunner {
         refund.setDate(LocalDateTime.now().minusDays(1));
 
         refundRepository.save(refund);
+
+        // Seed data bypasses the services, so derive its rollups from the raw rows
+        rollupService.rebuild(LocalDate.now().minusDays(1), LocalDate.now());
     }
 }
\ No newline at end of file
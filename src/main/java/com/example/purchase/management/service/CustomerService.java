@@ -1,6 +1,7 @@
 package com.example.purchase.management.service;
 
 import com.example.purchase.management.entity.Customer;
+import com.example.purchase.management.model.CursorPage;
 import java.util.List;
 
 public interface CustomerService {
@@ -13,4 +14,7 @@ public interface CustomerService {
 
     List<Customer> getAllCustomers();
 
+    // limit customers after the cursor, in id order; a null cursor starts from the first
+    CursorPage<Customer> getCustomers(String cursor, int limit);
+
 }
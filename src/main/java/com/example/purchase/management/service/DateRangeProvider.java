@@ -13,9 +13,13 @@ import java.time.LocalDate;
 public class DateRangeProvider {
 
     public DateRange getYesterdayRange() {
+        return getDayRange(LocalDate.now().minusDays(1));
+    }
+
+    public DateRange getDayRange(LocalDate day) {
         return new DateRange(
-            LocalDate.now().minusDays(1).atStartOfDay(),
-            LocalDate.now().atStartOfDay()
+            day.atStartOfDay(),
+            day.plusDays(1).atStartOfDay()
         );
     }
 
@@ -0,0 +1,12 @@
+package com.example.purchase.management.service;
+
+import com.example.purchase.management.report.ExportFormat;
+
+import java.io.OutputStream;
+import java.time.LocalDate;
+
+public interface ExportService {
+
+    // Streams every purchase, then every refund, dated from..to (inclusive) to the sink; returns the row count
+    long exportTransactions(LocalDate from, LocalDate to, ExportFormat format, OutputStream out);
+}
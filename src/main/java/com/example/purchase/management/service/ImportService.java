@@ -0,0 +1,12 @@
+package com.example.purchase.management.service;
+
+import com.example.purchase.management.model.ImportResult;
+
+import java.io.InputStream;
+
+public interface ImportService {
+
+    // Reads a UTF-8 CSV with a header row; invalid rows are reported in the result, not thrown
+    ImportResult importCustomers(InputStream csv);
+    ImportResult importProducts(InputStream csv);
+}
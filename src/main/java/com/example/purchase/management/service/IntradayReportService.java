@@ -0,0 +1,11 @@
+package com.example.purchase.management.service;
+
+import java.io.OutputStream;
+
+public interface IntradayReportService {
+
+    // Today's report so far; each call only reads the rows recorded since the previous one
+    String generateIntradayReport();
+
+    void generateIntradayReport(OutputStream out);
+}
@@ -0,0 +1,19 @@
+package com.example.purchase.management.service;
+
+import com.example.purchase.management.model.Lease;
+
+import java.util.function.Consumer;
+
+public interface LeaseService {
+
+    /**
+     * Runs the task on a single instance of the cluster, once per run key. Returns whether it ran here;
+     * if another instance holds the lease, this one stands by and takes over should the holder die.
+     * A task that throws does not count as run: the exception is rethrown after the lease is released,
+     * and an instance standing by takes the run over.
+     */
+    boolean runOnce(String name, String runKey, Consumer<Lease> task);
+
+    // Whether the lease is still this instance's, i.e. no other instance has taken it over since
+    boolean isHeld(Lease lease);
+}
@@ -0,0 +1,17 @@
+package com.example.purchase.management.service;
+
+import com.example.purchase.management.entity.OutboxMessage;
+import com.example.purchase.management.report.ReportContent;
+
+public interface OutboxService {
+
+    // Renders the report into the outbox and returns without waiting for SMTP.
+    // Returns false if a message with this key was already enqueued.
+    boolean enqueue(String idempotencyKey, String subject, ReportContent htmlContent, ReportContent summary);
+
+    // Claims due messages and hands them to the delivery workers; returns how many were claimed
+    int dispatchDue();
+
+    // Puts a DEAD message back in the queue with a fresh set of attempts
+    OutboxMessage retry(Long id);
+}
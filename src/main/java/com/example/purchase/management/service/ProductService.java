@@ -1,6 +1,8 @@
 package com.example.purchase.management.service;
 
 import com.example.purchase.management.entity.Product;
+import com.example.purchase.management.model.CursorPage;
+import com.example.purchase.management.model.ProductCatalog;
 import java.util.List;
 
 public interface ProductService {
@@ -13,4 +15,9 @@ public interface ProductService {
 
     List<Product> getAllProducts();
 
+    ProductCatalog getProductCatalog();
+
+    // limit products after the cursor, in id order; a null cursor starts from the first
+    CursorPage<Product> getProducts(String cursor, int limit);
+
 }
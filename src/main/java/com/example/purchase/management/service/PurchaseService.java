@@ -1,15 +1,26 @@
 package com.example.purchase.management.service;
 
 import com.example.purchase.management.entity.Purchase;
+import com.example.purchase.management.model.BatchResult;
+import com.example.purchase.management.model.CursorPage;
+import com.example.purchase.management.model.TransactionFilter;
 import java.util.List;
+import java.util.stream.Stream;
 import java.time.LocalDateTime;
 
 public interface PurchaseService {
 
     Purchase createPurchase(Purchase purchase);
+
+    // Validates every purchase like createPurchase and inserts the valid ones in JDBC batches;
+    // invalid ones are reported per item instead of failing the request
+    BatchResult createPurchases(List<Purchase> purchases);
     List<Purchase> getAllPurchases();
+    // limit matching purchases after the cursor, in date then id order; a null cursor starts from the first
+    CursorPage<Purchase> getPurchases(TransactionFilter filter, String cursor, int limit);
     List<Purchase> getYesterdayPurchases();
     List<Purchase> getPurchasesBetween(LocalDateTime start, LocalDateTime end);
+    Stream<Purchase> streamPurchasesBetween(LocalDateTime start, LocalDateTime end);
 
 
 }
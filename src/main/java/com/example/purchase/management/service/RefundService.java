@@ -1,12 +1,21 @@
 package com.example.purchase.management.service;
 
 import com.example.purchase.management.entity.Refund;
+import com.example.purchase.management.model.BatchResult;
+import com.example.purchase.management.model.CursorPage;
+import com.example.purchase.management.model.TransactionFilter;
 import java.util.List;
+import java.util.stream.Stream;
 import java.time.LocalDateTime;
 
 public interface RefundService {
     Refund createRefund(Refund refund);
+    // Rejected rows are reported in the result, not thrown
+    BatchResult createRefunds(List<Refund> refunds);
     List<Refund> getAllRefunds();
+    // limit matching refunds after the cursor, in date then id order; a null cursor starts from the first
+    CursorPage<Refund> getRefunds(TransactionFilter filter, String cursor, int limit);
     List<Refund> getYesterdayRefunds();
     List<Refund> getRefundBetween(LocalDateTime start, LocalDateTime end);
+    Stream<Refund> streamRefundsBetween(LocalDateTime start, LocalDateTime end);
 }
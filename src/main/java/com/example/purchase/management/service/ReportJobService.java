@@ -0,0 +1,21 @@
+package com.example.purchase.management.service;
+
+import com.example.purchase.management.model.ReportJobStatus;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+public interface ReportJobService {
+
+    // Queues the report and returns at once; throws RejectedExecutionException if the queue is full
+    ReportJobStatus submit(LocalDateTime start, LocalDateTime end);
+
+    // Throws EntityNotFoundException for unknown or expired jobs
+    ReportJobStatus getStatus(String id);
+
+    // The finished report, counted as a use for the store's LRU; throws IllegalStateException if not finished
+    Path getResult(String id);
+
+    // Deletes reports past their TTL, then the least recently used until the store fits its quota
+    int cleanUp();
+}
@@ -0,0 +1,20 @@
+package com.example.purchase.management.service;
+
+import com.example.purchase.management.entity.ReportRun;
+import com.example.purchase.management.model.BackfillResult;
+
+import java.time.LocalDate;
+
+public interface ReportRunService {
+
+    // Queues the day's report unless the ledger or the outbox already has it; returns whether it was queued now
+    boolean runDay(LocalDate day, ReportRun.Trigger trigger);
+
+    // Queues the report of every day from..to (inclusive) that the ledger does not have yet
+    // Days already in the outbox count as skipped, not queued
+    BackfillResult backfill(LocalDate from, LocalDate to, ReportRun.Trigger trigger);
+
+    // Checks the range, then runs the backfill in the background and returns at once;
+    // throws RejectedExecutionException while another backfill is running
+    void submitBackfill(LocalDate from, LocalDate to, ReportRun.Trigger trigger);
+}
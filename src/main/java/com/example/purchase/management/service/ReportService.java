@@ -1,9 +1,15 @@
 package com.example.purchase.management.service;
 
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 public interface ReportService {
     String generateReport(LocalDateTime start, LocalDateTime end);
 
+    void generateReport(LocalDateTime start, LocalDateTime end, OutputStream out);
+
+    // Just the daily summary section, as an HTML fragment
+    void generateSummary(LocalDateTime start, LocalDateTime end, OutputStream out);
+
 }
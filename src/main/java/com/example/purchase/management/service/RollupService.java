@@ -0,0 +1,26 @@
+package com.example.purchase.management.service;
+
+import com.example.purchase.management.entity.Purchase;
+import com.example.purchase.management.entity.Refund;
+import com.example.purchase.management.model.DailyProductSummary;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface RollupService {
+
+    // Called inside the transaction that saves the purchase or refund
+    void recordPurchase(Purchase purchase);
+    void recordRefund(Refund refund);
+
+    // Same as recordPurchase and recordRefund for a whole batch, with one update per day, product and customer
+    void recordPurchases(List<Purchase> purchases);
+    void recordRefunds(List<Refund> refunds);
+
+    // Replaces the rollups of every day from..to (inclusive) with totals recomputed from raw data
+    void rebuild(LocalDate from, LocalDate to);
+
+    // Per day and product totals for every day the range [start, end) touches
+    List<DailyProductSummary> getDailySummary(LocalDateTime start, LocalDateTime end);
+}
@@ -1,8 +1,21 @@
 package com.example.purchase.management.service;
 
 import com.example.purchase.management.exception.ContentSizeExceededException;
+import com.example.purchase.management.model.EmailMessage;
+import com.example.purchase.management.report.ReportContent;
+
+import java.util.List;
+import java.util.Set;
 
 public interface SenderService {
     void send(String subject, String htmlContent) throws ContentSizeExceededException;
-    
+
+    void send(String subject, ReportContent htmlContent) throws ContentSizeExceededException;
+
+    // Reports too large to show inline are attached compressed; the summary is shown inline instead
+    void send(String subject, ReportContent htmlContent, ReportContent summary) throws ContentSizeExceededException;
+
+    // Sends the messages over one connection; returns the positions of those that were not delivered
+    Set<Integer> sendAll(List<EmailMessage> messages);
+
 }
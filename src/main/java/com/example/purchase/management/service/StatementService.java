@@ -0,0 +1,11 @@
+package com.example.purchase.management.service;
+
+import com.example.purchase.management.model.StatementRunResult;
+
+import java.time.LocalDateTime;
+
+public interface StatementService {
+
+    // Emails every customer with activity in the range a statement of it
+    StatementRunResult sendStatements(LocalDateTime start, LocalDateTime end);
+}
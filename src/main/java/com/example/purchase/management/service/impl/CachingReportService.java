@@ -0,0 +1,204 @@
+package com.example.purchase.management.service.impl;
+
+import com.example.purchase.management.config.ReportProperties;
+import com.example.purchase.management.event.TransactionRecordedEvent;
+import com.example.purchase.management.service.ReportService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Serves reports of closed date ranges (ending before today) from memory.
+ * <p>
+ * Such a report only changes when a transaction is backdated into its range, so entries are
+ * dropped precisely then instead of expiring. Ranges that reach into today always go to
+ * {@link TransactionReportService}. Entries are weighed by their rendered size and evicted
+ * least-recently-used once {@code report.cache.max-size} is reached; hit, miss and eviction
+ * counts are published as the {@code cache.*} metrics tagged {@code cache=reports}.
+ */
+@Slf4j
+@Service
+public class CachingReportService implements ReportService {
+
+    private final TransactionReportService delegate;
+    private final Cache<ReportRange, byte[]> cache;
+    private final long maxBytes;
+
+    // Bumped by every invalidation that can touch a closed range, so a report rendered
+    // while such a write committed is not cached with the old rows
+    private long invalidations;
+    private final Object lock = new Object();
+
+    public CachingReportService(TransactionReportService delegate, ReportProperties reportProperties,
+                                MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.maxBytes = reportProperties.getCache().getMaxSize().toBytes();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((ReportRange range, byte[] report) -> report.length)
+                // evict on the calling thread; the work is tiny and keeps eviction deterministic
+                .executor(Runnable::run)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "reports");
+    }
+
+    @Override
+    public String generateReport(LocalDateTime start, LocalDateTime end) {
+        ReportRange range = ReportRange.of(start, end);
+        if (!range.isClosed()) {
+            return delegate.generateReport(start, end);
+        }
+
+        byte[] cached = cache.getIfPresent(range);
+        if (cached != null) {
+            return new String(cached, StandardCharsets.UTF_8);
+        }
+
+        long generation = currentGeneration();
+        String report = delegate.generateReport(start, end);
+        store(range, report.getBytes(StandardCharsets.UTF_8), generation);
+        return report;
+    }
+
+    @Override
+    public void generateReport(LocalDateTime start, LocalDateTime end, OutputStream out) {
+        ReportRange range = ReportRange.of(start, end);
+        if (!range.isClosed()) {
+            delegate.generateReport(start, end, out);
+            return;
+        }
+
+        byte[] cached = cache.getIfPresent(range);
+        if (cached != null) {
+            try {
+                out.write(cached);
+                out.flush();
+            } catch (IOException e) {
+                log.error("Failed to generate and send report: ", e);
+                throw new RuntimeException("Failed to generate and send report", e);
+            }
+            return;
+        }
+
+        long generation = currentGeneration();
+        CappedCopyOutputStream copy = new CappedCopyOutputStream(out, maxBytes);
+        delegate.generateReport(start, end, copy);
+        if (!copy.isOverflowed()) {
+            store(range, copy.toByteArray(), generation);
+        }
+    }
+
+    // Served straight from the rollups, so there is nothing worth caching
+    @Override
+    public void generateSummary(LocalDateTime start, LocalDateTime end, OutputStream out) {
+        delegate.generateSummary(start, end, out);
+    }
+
+    // Listens after commit: a rolled-back write changes nothing
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTransactionRecorded(TransactionRecordedEvent event) {
+        if (event.from().isAfter(LocalDate.now().atStartOfDay())) {
+            return;
+        }
+        synchronized (lock) {
+            invalidations++;
+            cache.asMap().keySet().removeIf(range -> range.overlaps(event.from(), event.to()));
+        }
+    }
+
+    private long currentGeneration() {
+        synchronized (lock) {
+            return invalidations;
+        }
+    }
+
+    private void store(ReportRange range, byte[] report, long generation) {
+        synchronized (lock) {
+            if (generation == invalidations) {
+                cache.put(range, report);
+            }
+        }
+    }
+
+    /**
+     * A report range with its bounds truncated to the database's timestamp precision, so ranges
+     * that select the same rows share one entry.
+     */
+    private record ReportRange(LocalDateTime start, LocalDateTime end) {
+
+        static ReportRange of(LocalDateTime start, LocalDateTime end) {
+            return new ReportRange(start.truncatedTo(ChronoUnit.MICROS), end.truncatedTo(ChronoUnit.MICROS));
+        }
+
+        // The report selects "between start and end", so a row stamped exactly at midnight
+        // today still belongs to a range ending then
+        boolean isClosed() {
+            return !end.isAfter(LocalDate.now().atStartOfDay());
+        }
+
+        // Whether any row stamped from..to, inclusive, can fall in this range
+        boolean overlaps(LocalDateTime from, LocalDateTime to) {
+            return !to.isBefore(start) && !from.isAfter(end);
+        }
+    }
+
+    /**
+     * Passes everything through to the sink and keeps a copy, until the copy would grow past
+     * the cache's whole budget; after that the report is only streamed.
+     */
+    private static final class CappedCopyOutputStream extends FilterOutputStream {
+
+        private final long limit;
+        private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+        CappedCopyOutputStream(OutputStream out, long limit) {
+            super(out);
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            if (keep(1)) {
+                copy.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            if (keep(len)) {
+                copy.write(b, off, len);
+            }
+        }
+
+        private boolean keep(int len) {
+            if (copy != null && copy.size() + (long) len > limit) {
+                copy = null;
+            }
+            return copy != null;
+        }
+
+        boolean isOverflowed() {
+            return copy == null;
+        }
+
+        byte[] toByteArray() {
+            return copy.toByteArray();
+        }
+    }
+}
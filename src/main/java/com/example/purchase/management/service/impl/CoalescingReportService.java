@@ -0,0 +1,226 @@
+package com.example.purchase.management.service.impl;
+
+import com.example.purchase.management.report.ReportContent;
+import com.example.purchase.management.service.ReportService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Lets concurrent requests for the same report share a single rendering.
+ * <p>
+ * The first caller for a range starts the rendering into a temporary file on its own virtual
+ * thread; callers arriving while it runs wait for that same file, and each copies it to its own
+ * sink. A failure reaches every waiting caller. A caller that is interrupted stops waiting, and
+ * the rendering is cancelled once no caller is left waiting for it. Nothing is kept after the
+ * last caller has its copy; reuse across time is {@link CachingReportService}'s job.
+ * Calls are counted as {@code report.singleflight.calls}, tagged {@code role=leader} for those that
+ * started a rendering and {@code role=follower} for those that joined one.
+ */
+@Slf4j
+@Primary
+@Service
+public class CoalescingReportService implements ReportService {
+
+    private final CachingReportService delegate;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Key, Flight> inFlight = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public CoalescingReportService(CachingReportService delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public String generateReport(LocalDateTime start, LocalDateTime end) {
+        return share(Key.of(Kind.REPORT, start, end), out -> delegate.generateReport(start, end, out),
+                spool -> Files.readString(spool, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void generateReport(LocalDateTime start, LocalDateTime end, OutputStream out) {
+        share(Key.of(Kind.REPORT, start, end), sink -> delegate.generateReport(start, end, sink),
+                spool -> copy(spool, out));
+    }
+
+    @Override
+    public void generateSummary(LocalDateTime start, LocalDateTime end, OutputStream out) {
+        share(Key.of(Kind.SUMMARY, start, end), sink -> delegate.generateSummary(start, end, sink),
+                spool -> copy(spool, out));
+    }
+
+    private <T> T share(Key key, ReportContent content, SpoolReader<T> reader) {
+        boolean[] leader = new boolean[1];
+        Flight flight = inFlight.compute(key, (k, current) -> {
+            // a cancelled flight may still be in the map for a moment; never join it
+            if (current != null && current.join()) {
+                return current;
+            }
+            leader[0] = true;
+            Flight started = new Flight();
+            started.join();
+            return started;
+        });
+        meterRegistry.counter("report.singleflight.calls", "role", leader[0] ? "leader" : "follower").increment();
+        if (!leader[0]) {
+            log.debug("Joining report already being rendered for {}", key);
+        }
+
+        try {
+            return reader.read(flight.start(() -> render(key, flight, content)).get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for report", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("Failed to generate and send report", e.getCause());
+        } catch (CancellationException e) {
+            throw new RuntimeException("Report generation was cancelled", e);
+        } catch (IOException e) {
+            log.error("Failed to generate and send report: ", e);
+            throw new RuntimeException("Failed to generate and send report", e);
+        } finally {
+            if (flight.leave()) {
+                inFlight.remove(key, flight);
+            }
+        }
+    }
+
+    private Path render(Key key, Flight flight, ReportContent content) throws IOException {
+        Path spool = null;
+        try {
+            spool = Files.createTempFile("report-shared-", ".html");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(spool))) {
+                content.writeTo(out);
+            }
+            return spool;
+        } catch (Exception e) {
+            deleteSpool(spool);
+            spool = null;
+            throw e;
+        } finally {
+            // later callers start afresh instead of reading a result that is already done
+            inFlight.remove(key, flight);
+            flight.finish(spool);
+        }
+    }
+
+    private static Void copy(Path spool, OutputStream out) throws IOException {
+        Files.copy(spool, out);
+        out.flush();
+        return null;
+    }
+
+    private static void deleteSpool(Path spool) {
+        if (spool == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(spool);
+        } catch (IOException e) {
+            log.warn("Could not delete report spool file {}", spool, e);
+        }
+    }
+
+    private enum Kind {
+        REPORT,
+        SUMMARY
+    }
+
+    /**
+     * What is rendered and for which range, with the bounds truncated to the database's
+     * timestamp precision so calls that select the same rows share one rendering.
+     */
+    private record Key(Kind kind, LocalDateTime start, LocalDateTime end) {
+
+        static Key of(Kind kind, LocalDateTime start, LocalDateTime end) {
+            return new Key(kind, start.truncatedTo(ChronoUnit.MICROS), end.truncatedTo(ChronoUnit.MICROS));
+        }
+    }
+
+    private interface SpoolReader<T> {
+        T read(Path spool) throws IOException;
+    }
+
+    /**
+     * One rendering and the callers waiting for it. The spool file is deleted by whoever is last:
+     * the rendering if every caller has left, otherwise the last caller to read it.
+     */
+    private final class Flight {
+
+        private Future<Path> rendering;
+        private int callers;
+        private boolean finished;
+        private boolean cancelled;
+        private Path spool;
+
+        synchronized boolean join() {
+            if (cancelled) {
+                return false;
+            }
+            callers++;
+            return true;
+        }
+
+        synchronized Future<Path> start(Callable<Path> task) {
+            if (rendering == null) {
+                rendering = executor.submit(task);
+            }
+            return rendering;
+        }
+
+        synchronized void finish(Path spool) {
+            this.finished = true;
+            this.spool = spool;
+            if (callers == 0) {
+                deleteSpool(spool);
+            }
+        }
+
+        // Returns true if this caller was the last one waiting and cancelled the rendering
+        synchronized boolean leave() {
+            if (--callers > 0) {
+                return false;
+            }
+            if (finished) {
+                deleteSpool(spool);
+                return false;
+            }
+            cancelled = true;
+            if (rendering == null) {
+                return true;
+            }
+            rendering.cancel(true);
+            log.info("Cancelled report rendering that no caller is waiting for");
+            return true;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.purchase.management.service.impl;
+
+import com.example.purchase.management.config.ImportProperties;
+import com.example.purchase.management.entity.Customer;
+import com.example.purchase.management.entity.Product;
+import com.example.purchase.management.event.ProductsChangedEvent;
+import com.example.purchase.management.model.ImportResult;
+import com.example.purchase.management.report.CsvRowReader;
+import com.example.purchase.management.service.ImportService;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Imports customers and products from CSV uploads.
+ * <p>
+ * The file is read one record at a time and each row is checked with the same rules as
+ * {@code createCustomer}/{@code createProduct}. Valid rows are inserted {@code import.chunk-size}
+ * at a time, each chunk in its own transaction and flushed as JDBC batches, so neither the
+ * file nor the persistence context is ever held whole. A chunk that fails to save rejects its
+ * rows and the import carries on; chunks already committed stay.
+ * <p>
+ * Columns are matched by header name, ignoring case, spaces, dashes and underscores, so
+ * {@code first_name} and {@code First Name} both fill {@code firstName}. Other columns are ignored.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CsvImportService implements ImportService {
+
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+    private final ImportProperties importProperties;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public ImportResult importCustomers(InputStream csv) {
+        return importRows(csv, "customers", List.of("firstname", "lastname"), row -> {
+            Customer customer = new Customer();
+            customer.setFirstName(row.get("firstname"));
+            customer.setLastName(row.get("lastname"));
+            customer.setPhone(row.get("phone"));
+            customer.setEmail(row.get("email"));
+            CustomerServiceImpl.validate(customer);
+            return customer;
+        });
+    }
+
+    @Override
+    public ImportResult importProducts(InputStream csv) {
+        try {
+            return importRows(csv, "products", List.of("name", "price"), row -> {
+                Product product = new Product();
+                product.setName(row.get("name"));
+                product.setPrice(parsePrice(row.get("price")));
+                ProductServiceImpl.validate(product);
+                return product;
+            });
+        } finally {
+            // chunks committed before a failure are in the catalog too
+            eventPublisher.publishEvent(new ProductsChangedEvent());
+        }
+    }
+
+    private <T> ImportResult importRows(InputStream csv, String kind, List<String> requiredColumns, Function<Row, T> parse) {
+        CsvRowReader reader = new CsvRowReader(new InputStreamReader(csv, StandardCharsets.UTF_8));
+        Progress progress = new Progress(importProperties.getMaxRejectedRows());
+        long startedAt = System.nanoTime();
+
+        try {
+            Map<String, Integer> columns = readHeader(reader, requiredColumns);
+
+            List<T> chunk = new ArrayList<>(importProperties.getChunkSize());
+            List<Long> chunkLines = new ArrayList<>(importProperties.getChunkSize());
+            while (true) {
+                List<String> values;
+                try {
+                    values = reader.next();
+                } catch (IllegalArgumentException e) {
+                    // an unterminated quote swallows the rest of the file, so there is nothing left to read
+                    progress.rows++;
+                    progress.reject(reader.getLine(), e.getMessage());
+                    break;
+                }
+                if (values == null) {
+                    break;
+                }
+
+                progress.rows++;
+                try {
+                    chunk.add(parse.apply(new Row(columns, values)));
+                    chunkLines.add(reader.getLine());
+                } catch (IllegalArgumentException e) {
+                    progress.reject(reader.getLine(), e.getMessage());
+                }
+
+                if (chunk.size() == importProperties.getChunkSize()) {
+                    writeChunk(kind, chunk, chunkLines, progress);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                writeChunk(kind, chunk, chunkLines, progress);
+            }
+
+        } catch (IOException e) {
+            // usually the client going away mid-upload; committed chunks stay
+            log.error("Failed to import {} after {} rows: ", kind, progress.rows, e);
+            throw new RuntimeException("Failed to import " + kind, e);
+        }
+
+        log.info("Imported {} of {} {} rows in {} chunks, {} rejected, in {} ms", progress.imported, progress.rows,
+                kind, progress.chunks, progress.rejected, (System.nanoTime() - startedAt) / 1_000_000);
+        return new ImportResult(progress.rows, progress.imported, progress.rejected, progress.chunks,
+                progress.rejectedRows);
+    }
+
+    private Map<String, Integer> readHeader(CsvRowReader reader, List<String> requiredColumns) throws IOException {
+        List<String> header = reader.next();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV file is empty");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.putIfAbsent(normalize(header.get(i)), i);
+        }
+        for (String column : requiredColumns) {
+            if (!columns.containsKey(column)) {
+                throw new IllegalArgumentException("Missing column " + column);
+            }
+        }
+        return columns;
+    }
+
+    private <T> void writeChunk(String kind, List<T> chunk, List<Long> lines, Progress progress) {
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                for (T entity : chunk) {
+                    entityManager.persist(entity);
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+            progress.imported += chunk.size();
+            progress.chunks++;
+            log.info("Imported {} {} so far, {} rejected", progress.imported, kind, progress.rejected);
+        } catch (RuntimeException e) {
+            log.error("Failed to save {} rows on lines {} to {}: ", kind, lines.get(0), lines.get(lines.size() - 1), e);
+            for (Long line : lines) {
+                progress.reject(line, "Failed to save row");
+            }
+        }
+        chunk.clear();
+        lines.clear();
+    }
+
+    private static Double parsePrice(String price) {
+        if (price == null) {
+            return null;
+        }
+        try {
+            return Double.valueOf(price);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valid price is required");
+        }
+    }
+
+    private static String normalize(String column) {
+        return column.replaceAll("[\\s_-]", "").toLowerCase(Locale.ROOT);
+    }
+
+    // A data row, read by normalized column name; blank cells read as null
+    private record Row(Map<String, Integer> columns, List<String> values) {
+
+        String get(String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= values.size()) {
+                return null;
+            }
+            String value = values.get(index).trim();
+            return value.isEmpty() ? null : value;
+        }
+    }
+
+    private static final class Progress {
+        private final int maxRejectedRows;
+        private final List<ImportResult.RejectedRow> rejectedRows = new ArrayList<>();
+        private long rows;
+        private long imported;
+        private long rejected;
+        private int chunks;
+
+        Progress(int maxRejectedRows) {
+            this.maxRejectedRows = maxRejectedRows;
+        }
+
+        void reject(long line, String error) {
+            rejected++;
+            if (rejectedRows.size() < maxRejectedRows) {
+                rejectedRows.add(new ImportResult.RejectedRow(line, error));
+            }
+        }
+    }
+}
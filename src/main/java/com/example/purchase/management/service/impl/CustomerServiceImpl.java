@@ -1,6 +1,7 @@
 package com.example.purchase.management.service.impl;
 
 import com.example.purchase.management.entity.Customer;
+import com.example.purchase.management.model.CursorPage;
 import com.example.purchase.management.repository.CustomerRepository;
 import com.example.purchase.management.service.CustomerService;
 
@@ -18,13 +19,7 @@ public class CustomerServiceImpl implements CustomerService {
 
     @Override
     public Customer createCustomer(Customer customer) {
-        // Validate customer data
-        if (customer.getFirstName() == null || customer.getFirstName().trim().isEmpty()) {
-            throw new IllegalArgumentException("First name is required");
-        }
-        if (customer.getLastName() == null || customer.getLastName().trim().isEmpty()) {
-            throw new IllegalArgumentException("Last name is required");
-        }
+        validate(customer);
         return customerRepository.save(customer);
     }
 
@@ -43,6 +38,7 @@ public class CustomerServiceImpl implements CustomerService {
                     existingCustomer.setFirstName(customer.getFirstName());
                     existingCustomer.setLastName(customer.getLastName());
                     existingCustomer.setPhone(customer.getPhone());
+                    existingCustomer.setEmail(customer.getEmail());
                     return customerRepository.save(existingCustomer);
                 })
                 .orElseThrow(() -> new EntityNotFoundException("Customer not found"));
@@ -66,4 +62,21 @@ public class CustomerServiceImpl implements CustomerService {
         return customerRepository.findAll();
     }
 
+    @Override
+    public CursorPage<Customer> getCustomers(String cursor, int limit) {
+        List<Customer> rows = customerRepository.findByIdGreaterThanOrderById(KeysetPage.decodeId(cursor),
+                KeysetPage.fetchLimit(limit));
+        return KeysetPage.of(rows, limit, customer -> KeysetPage.encodeId(customer.getId()));
+    }
+
+    // The checks a new customer must pass, shared with the CSV import
+    static void validate(Customer customer) {
+        if (customer.getFirstName() == null || customer.getFirstName().trim().isEmpty()) {
+            throw new IllegalArgumentException("First name is required");
+        }
+        if (customer.getLastName() == null || customer.getLastName().trim().isEmpty()) {
+            throw new IllegalArgumentException("Last name is required");
+        }
+    }
+
 }
@@ -0,0 +1,323 @@
+package com.example.purchase.management.service.impl;
+
+import com.example.purchase.management.config.ReportProperties;
+import com.example.purchase.management.entity.Customer;
+import com.example.purchase.management.entity.Purchase;
+import com.example.purchase.management.entity.Refund;
+import com.example.purchase.management.entity.StatementSend;
+import com.example.purchase.management.model.CustomerStatement;
+import com.example.purchase.management.model.EmailMessage;
+import com.example.purchase.management.model.StatementRunResult;
+import com.example.purchase.management.report.StatementGenerator;
+import com.example.purchase.management.repository.PurchaseRepository;
+import com.example.purchase.management.repository.RefundRepository;
+import com.example.purchase.management.repository.StatementSendRepository;
+import com.example.purchase.management.service.SenderService;
+import com.example.purchase.management.service.StatementService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+/**
+ * Sends each customer a statement of their purchases and refunds.
+ * <p>
+ * Both tables are streamed once, ordered by customer, and merged so every customer's rows
+ * arrive together. Statements are rendered on virtual threads, at most
+ * {@code report.statements.concurrency} at a time, and sent {@code report.statements.batch-size}
+ * per SMTP connection from a single sender thread; the next batch renders while the previous
+ * one is on the wire. Progress is logged per batch and published as the
+ * {@code report.statements.*} metrics.
+ * <p>
+ * Every customer whose statement the mail server accepted is recorded for the period's first
+ * day once its batch is out, and a later run for that day skips them, so a rerun after a lease
+ * take-over or a partial send only mails those not reached yet. A crash between a batch going
+ * out and its record being written can still repeat that one batch.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CustomerStatementService implements StatementService {
+
+    private final PurchaseRepository purchaseRepository;
+    private final RefundRepository refundRepository;
+    private final StatementSendRepository statementSendRepository;
+    private final StatementGenerator statementGenerator;
+    private final SenderService senderService;
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+    private final ReportProperties reportProperties;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public StatementRunResult sendStatements(LocalDateTime start, LocalDateTime end) {
+        Timer.Sample run = Timer.start(meterRegistry);
+        Run state = new Run(start, end);
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+
+        try (ExecutorService renderers = Executors.newVirtualThreadPerTaskExecutor();
+             ExecutorService sender = Executors.newSingleThreadExecutor()) {
+            state.renderers = renderers;
+            state.sender = sender;
+
+            transaction.executeWithoutResult(status -> {
+                try (Stream<Purchase> purchases = purchaseRepository.streamStatementRowsByDateBetween(start, end);
+                     Stream<Refund> refunds = refundRepository.streamStatementRowsByDateBetween(start, end);
+                     Stream<Long> alreadySent = statementSendRepository.streamCustomerIdsByDay(state.day)) {
+                    state.skipSent(alreadySent.iterator());
+                    mergeByCustomer(purchases.iterator(), refunds.iterator(), state);
+                }
+            });
+            state.flush();
+            state.awaitSending();
+
+        } catch (Exception e) {
+            log.error("Failed to send customer statements: ", e);
+            throw new RuntimeException("Failed to send customer statements", e);
+        } finally {
+            run.stop(meterRegistry.timer("report.statements.run"));
+        }
+
+        StatementRunResult result = new StatementRunResult(state.customers, state.sent, state.failed, state.skipped,
+                state.skippedAsSent);
+        log.info("Customer statements done in {} ms: {}", (System.nanoTime() - state.startedAt) / 1_000_000, result);
+        return result;
+    }
+
+    // Both iterators are ordered by customer id, so one pass over each yields every customer's rows together
+    private void mergeByCustomer(Iterator<Purchase> purchases, Iterator<Refund> refunds, Run state) {
+        Purchase purchase = next(purchases);
+        Refund refund = next(refunds);
+
+        while (purchase != null || refund != null) {
+            Customer customer = refund == null
+                    || (purchase != null && purchase.getCustomer().getId() <= refund.getCustomer().getId())
+                    ? purchase.getCustomer() : refund.getCustomer();
+
+            List<Purchase> customerPurchases = new ArrayList<>();
+            while (purchase != null && purchase.getCustomer().getId().equals(customer.getId())) {
+                customerPurchases.add(purchase);
+                purchase = next(purchases);
+            }
+            List<Refund> customerRefunds = new ArrayList<>();
+            while (refund != null && refund.getCustomer().getId().equals(customer.getId())) {
+                customerRefunds.add(refund);
+                refund = next(refunds);
+            }
+
+            state.add(new CustomerStatement(customer, state.start, state.end, customerPurchases, customerRefunds));
+        }
+    }
+
+    private static <T> T next(Iterator<T> rows) {
+        return rows.hasNext() ? rows.next() : null;
+    }
+
+    private EmailMessage render(CustomerStatement statement) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return new EmailMessage(statement.getCustomer().getEmail(),
+                    "Your Statement - " + statement.getStart().toLocalDate(),
+                    statementGenerator.generateStatement(statement));
+        } finally {
+            sample.stop(meterRegistry.timer("report.statements.render"));
+        }
+    }
+
+    private BatchOutcome sendBatch(LocalDate day, List<PendingStatement> batch) throws InterruptedException {
+        List<EmailMessage> messages = new ArrayList<>(batch.size());
+        List<Long> customerIds = new ArrayList<>(batch.size());
+        int failed = 0;
+        for (PendingStatement pending : batch) {
+            try {
+                messages.add(pending.message().get());
+                customerIds.add(pending.customerId());
+            } catch (ExecutionException e) {
+                log.warn("Failed to render customer statement: ", e.getCause());
+                failed++;
+            }
+        }
+
+        Set<Integer> rejected;
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            rejected = senderService.sendAll(messages);
+        } catch (RuntimeException e) {
+            log.error("Failed to send statement batch: ", e);
+            rejected = null;
+        } finally {
+            sample.stop(meterRegistry.timer("report.statements.batch"));
+        }
+
+        List<StatementSend> delivered = new ArrayList<>(messages.size());
+        if (rejected != null) {
+            for (int i = 0; i < customerIds.size(); i++) {
+                if (!rejected.contains(i)) {
+                    delivered.add(new StatementSend(day, customerIds.get(i)));
+                }
+            }
+        }
+        recordSent(delivered);
+
+        BatchOutcome outcome = new BatchOutcome(delivered.size(), failed + messages.size() - delivered.size());
+        meterRegistry.counter("report.statements.sent").increment(outcome.sent());
+        meterRegistry.counter("report.statements.failed").increment(outcome.failed());
+        return outcome;
+    }
+
+    // The statements are out, so a failure here is logged rather than counted; a rerun would repeat them
+    private void recordSent(List<StatementSend> delivered) {
+        if (delivered.isEmpty()) {
+            return;
+        }
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                    statementSendRepository.saveAll(delivered));
+        } catch (RuntimeException e) {
+            log.error("Failed to record {} sent customer statements: ", delivered.size(), e);
+        }
+    }
+
+    private record PendingStatement(Long customerId, Future<EmailMessage> message) {
+    }
+
+    private record BatchOutcome(int sent, int failed) {
+    }
+
+    /**
+     * The state of one fan-out, touched only by the reading thread. The render permits are
+     * released by the renderers; batch outcomes come back from the sender through futures.
+     */
+    private final class Run {
+
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        // the day sends are recorded under
+        private final LocalDate day;
+        private final Semaphore rendering = new Semaphore(reportProperties.getStatements().getConcurrency());
+        private final int batchSize = reportProperties.getStatements().getBatchSize();
+        private final long startedAt = System.nanoTime();
+
+        private ExecutorService renderers;
+        private ExecutorService sender;
+        private List<PendingStatement> batch = new ArrayList<>();
+        private Future<BatchOutcome> sending;
+        // customers already sent this day's statement, ascending, and the next of them not yet passed
+        private Iterator<Long> alreadySent;
+        private Long nextSent;
+
+        private int customers;
+        private int sent;
+        private int failed;
+        private int skipped;
+        private int skippedAsSent;
+
+        Run(LocalDateTime start, LocalDateTime end) {
+            this.start = start;
+            this.end = end;
+            this.day = start.toLocalDate();
+        }
+
+        void add(CustomerStatement statement) {
+            customers++;
+            if (wasSent(statement.getCustomer().getId())) {
+                skippedAsSent++;
+                meterRegistry.counter("report.statements.already-sent").increment();
+                return;
+            }
+
+            String email = statement.getCustomer().getEmail();
+            if (email == null || email.isBlank()) {
+                skipped++;
+                meterRegistry.counter("report.statements.skipped").increment();
+                return;
+            }
+
+            try {
+                // blocks the reader once enough statements are rendering, so rows aren't read ahead of them
+                rendering.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while sending customer statements", e);
+            }
+            batch.add(new PendingStatement(statement.getCustomer().getId(), renderers.submit(() -> {
+                try {
+                    return render(statement);
+                } finally {
+                    rendering.release();
+                }
+            })));
+
+            if (batch.size() >= batchSize) {
+                flush();
+                // the batch's rows are no longer needed by this session; its statements hold their own references
+                entityManager.clear();
+            }
+        }
+
+        void skipSent(Iterator<Long> customerIds) {
+            alreadySent = customerIds;
+            nextSent = next(customerIds);
+        }
+
+        // Customers arrive in ascending id order, as do the sent ones, so neither iterator goes back
+        private boolean wasSent(Long customerId) {
+            while (nextSent != null && nextSent < customerId) {
+                nextSent = next(alreadySent);
+            }
+            return customerId.equals(nextSent);
+        }
+
+        // Hands the batch to the sender once the previous one is out, so at most one batch waits in memory
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            awaitSending();
+            List<PendingStatement> ready = batch;
+            batch = new ArrayList<>();
+            sending = sender.submit(() -> sendBatch(day, ready));
+        }
+
+        void awaitSending() {
+            if (sending == null) {
+                return;
+            }
+            try {
+                BatchOutcome outcome = sending.get();
+                sent += outcome.sent();
+                failed += outcome.failed();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while sending customer statements", e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Failed to send statement batch", e.getCause());
+            } finally {
+                sending = null;
+            }
+
+            double seconds = Math.max(1, System.nanoTime() - startedAt) / 1e9;
+            log.info("Customer statements: {} sent, {} failed, {} skipped of {} customers so far ({} per second)",
+                    sent, failed, skipped, customers, String.format("%.1f", (sent + failed) / seconds));
+        }
+    }
+}
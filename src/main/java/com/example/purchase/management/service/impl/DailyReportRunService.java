@@ -0,0 +1,372 @@
+package com.example.purchase.management.service.impl;
+
+import com.example.purchase.management.config.ReportProperties;
+import com.example.purchase.management.entity.Purchase;
+import com.example.purchase.management.entity.Refund;
+import com.example.purchase.management.entity.ReportRun;
+import com.example.purchase.management.model.BackfillResult;
+import com.example.purchase.management.model.DailyProductSummary;
+import com.example.purchase.management.model.DateRange;
+import com.example.purchase.management.report.ReportContent;
+import com.example.purchase.management.report.ReportGenerator;
+import com.example.purchase.management.repository.PurchaseRepository;
+import com.example.purchase.management.repository.RefundRepository;
+import com.example.purchase.management.repository.ReportRunRepository;
+import com.example.purchase.management.service.DateRangeProvider;
+import com.example.purchase.management.service.OutboxService;
+import com.example.purchase.management.service.ReportRunService;
+import com.example.purchase.management.service.ReportService;
+import com.example.purchase.management.service.RollupService;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Queues daily reports into the outbox and keeps the {@code report_runs} ledger of the days done.
+ * <p>
+ * A backfill splits its missing days into windows spanning {@code report.backfill.window-days}. Each
+ * window's purchases and refunds are read with one range scan apiece, and every row is rendered into
+ * its day's spool file as it arrives, clearing the persistence context as the report does, so memory
+ * does not grow with the window's volume. The days are then assembled from their spools and queued
+ * on a pool of {@code report.backfill.parallelism} threads. Only the summary rows, one per day and
+ * product, are held in memory.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DailyReportRunService implements ReportRunService {
+
+    // Rows rendered into the spools before the persistence context is cleared
+    private static final int CLEAR_INTERVAL = 500;
+
+    private final ReportRunRepository runRepository;
+    private final ReportService reportService;
+    private final ReportGenerator reportGenerator;
+    private final OutboxService outboxService;
+    private final RollupService rollupService;
+    private final PurchaseRepository purchaseRepository;
+    private final RefundRepository refundRepository;
+    private final EntityManager entityManager;
+    private final DateRangeProvider dateProvider;
+    private final PlatformTransactionManager transactionManager;
+    private final ReportProperties reportProperties;
+
+    // One backfill at a time; another is rejected while it runs
+    private final ExecutorService backfills = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new SynchronousQueue<>(), runnable -> new Thread(runnable, "report-backfill"));
+
+    @Override
+    public boolean runDay(LocalDate day, ReportRun.Trigger trigger) {
+        if (runRepository.existsByDay(day)) {
+            log.info("Daily report of {} was already queued", day);
+            return false;
+        }
+        DateRange range = dateProvider.getDayRange(day);
+        boolean queued = queue(day,
+                out -> reportService.generateReport(range.getStart(), range.getEnd(), out),
+                out -> reportService.generateSummary(range.getStart(), range.getEnd(), out));
+        record(day, trigger);
+        return queued;
+    }
+
+    @Override
+    public void submitBackfill(LocalDate from, LocalDate to, ReportRun.Trigger trigger) {
+        checkBackfillRange(from, to);
+        backfills.execute(() -> {
+            try {
+                backfill(from, to, trigger);
+            } catch (Exception e) {
+                log.error("Failed to backfill daily reports from {} to {}: ", from, to, e);
+            }
+        });
+        log.info("Started backfill of daily reports from {} to {}", from, to);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        backfills.shutdownNow();
+    }
+
+    @Override
+    public BackfillResult backfill(LocalDate from, LocalDate to, ReportRun.Trigger trigger) {
+        checkBackfillRange(from, to);
+
+        Set<LocalDate> reported = new HashSet<>(runRepository.findDaysBetween(from, to));
+        List<LocalDate> missing = from.datesUntil(to.plusDays(1)).filter(day -> !reported.contains(day)).toList();
+        int days = (int) from.datesUntil(to.plusDays(1)).count();
+        log.info("Backfilling daily reports from {} to {}: {} of {} days missing", from, to, missing.size(), days);
+
+        int windowDays = Math.max(1, reportProperties.getBackfill().getWindowDays());
+        int queued = 0;
+        int alreadyQueued = 0;
+        int failed = 0;
+        try (ExecutorService executor = Executors.newFixedThreadPool(reportProperties.getBackfill().getParallelism())) {
+            for (List<LocalDate> window : windows(missing, windowDays)) {
+                try (WindowSpools spools = spoolWindow(window.get(0), window.get(window.size() - 1))) {
+                    List<Future<Boolean>> jobs = new ArrayList<>();
+                    for (LocalDate day : window) {
+                        jobs.add(executor.submit(() -> queueFromSpools(day, spools, trigger)));
+                    }
+                    for (int j = 0; j < jobs.size(); j++) {
+                        try {
+                            if (jobs.get(j).get()) {
+                                queued++;
+                            } else {
+                                alreadyQueued++;
+                            }
+                        } catch (ExecutionException e) {
+                            log.error("Failed to backfill daily report of {}: ", window.get(j), e.getCause());
+                            failed++;
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while backfilling daily reports", e);
+        }
+
+        BackfillResult result = new BackfillResult(days, queued, days - missing.size() + alreadyQueued, failed);
+        log.info("Backfill from {} to {} done: {}", from, to, result);
+        return result;
+    }
+
+    // Missing days grouped so that each group spans at most windowDays calendar days
+    private static List<List<LocalDate>> windows(List<LocalDate> days, int windowDays) {
+        List<List<LocalDate>> windows = new ArrayList<>();
+        List<LocalDate> window = new ArrayList<>();
+        for (LocalDate day : days) {
+            if (!window.isEmpty() && !day.isBefore(window.get(0).plusDays(windowDays))) {
+                windows.add(window);
+                window = new ArrayList<>();
+            }
+            window.add(day);
+        }
+        if (!window.isEmpty()) {
+            windows.add(window);
+        }
+        return windows;
+    }
+
+    // One scan per table for the whole window, instead of one query per day
+    private WindowSpools spoolWindow(LocalDate first, LocalDate last) {
+        LocalDateTime start = first.atStartOfDay();
+        LocalDateTime end = last.plusDays(1).atStartOfDay();
+
+        WindowSpools spools = new WindowSpools();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        try {
+            transaction.executeWithoutResult(status -> {
+                try (Stream<Purchase> rows = purchaseRepository.streamReportRowsByDateBetween(start, end)) {
+                    spoolByDay(rows, purchase -> purchase.getDate().toLocalDate(), spools.purchases,
+                            reportGenerator::writePurchaseRows);
+                    spools.purchases.finish();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                try (Stream<Refund> rows = refundRepository.streamReportRowsByDateBetween(start, end)) {
+                    spoolByDay(rows, refund -> refund.getDate().toLocalDate(), spools.refunds,
+                            reportGenerator::writeRefundRows);
+                    spools.refunds.finish();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                spools.summary = rollupService.getDailySummary(start, end).stream()
+                        .collect(Collectors.groupingBy(DailyProductSummary::getDay));
+            });
+            return spools;
+        } catch (RuntimeException e) {
+            spools.close();
+            throw e;
+        }
+    }
+
+    // Rows come in id order, so mostly day by day; each run of one day's rows is rendered into that day's spool
+    private <T> void spoolByDay(Stream<T> rows, Function<T, LocalDate> dayOf, DaySpools spools,
+                                RowWriter<T> writer) throws IOException {
+        List<T> run = new ArrayList<>();
+        LocalDate runDay = null;
+        int sinceClear = 0;
+        for (Iterator<T> it = rows.iterator(); it.hasNext(); ) {
+            T row = it.next();
+            LocalDate day = dayOf.apply(row);
+            if (!run.isEmpty() && (!day.equals(runDay) || run.size() == CLEAR_INTERVAL)) {
+                writer.write(run.stream(), spools.out(runDay));
+                sinceClear += run.size();
+                run.clear();
+                if (sinceClear >= CLEAR_INTERVAL) {
+                    entityManager.clear();
+                    sinceClear = 0;
+                }
+            }
+            runDay = day;
+            run.add(row);
+        }
+        if (!run.isEmpty()) {
+            writer.write(run.stream(), spools.out(runDay));
+        }
+    }
+
+    // Same sections, in the same order, as the scheduled report
+    private boolean queueFromSpools(LocalDate day, WindowSpools spools, ReportRun.Trigger trigger) {
+        List<DailyProductSummary> summary = spools.summary.getOrDefault(day, List.of());
+
+        boolean queued = queue(day,
+                out -> {
+                    reportGenerator.writeHeader(out);
+                    reportGenerator.writeSummary(summary, out);
+                    reportGenerator.writePurchasesStart(out);
+                    spools.purchases.copy(day, out);
+                    reportGenerator.writeTableEnd(out);
+                    reportGenerator.writeRefundsStart(out);
+                    spools.refunds.copy(day, out);
+                    reportGenerator.writeTableEnd(out);
+                    reportGenerator.writeFooter(out);
+                },
+                out -> reportGenerator.writeSummary(summary, out));
+        record(day, trigger);
+        return queued;
+    }
+
+    // False if the outbox already had the day's report, e.g. queued by a run that failed before recording it
+    private boolean queue(LocalDate day, ReportContent report, ReportContent summary) {
+        boolean queued = outboxService.enqueue(
+                "daily-report-" + day,
+                "Daily Transactions Report - " + dateProvider.getDayRange(day).getStart(),
+                report,
+                summary);
+        if (!queued) {
+            log.info("Daily report of {} was already in the outbox", day);
+        }
+        return queued;
+    }
+
+    private static void checkBackfillRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Backfill range starts after it ends");
+        }
+        if (!to.isBefore(LocalDate.now())) {
+            throw new IllegalArgumentException("Backfill must end before today");
+        }
+    }
+
+    // Another instance may record the same day at the same moment; the unique day keeps one entry
+    private void record(LocalDate day, ReportRun.Trigger trigger) {
+        try {
+            runRepository.save(new ReportRun(day, trigger));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Daily report of {} was recorded by another instance", day);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowWriter<T> {
+        void write(Stream<T> rows, OutputStream out) throws IOException;
+    }
+
+    /**
+     * One window's rendered rows: a spool file per day for each table, plus its summary rows.
+     */
+    private static final class WindowSpools implements AutoCloseable {
+
+        private final DaySpools purchases = new DaySpools("backfill-purchases-");
+        private final DaySpools refunds = new DaySpools("backfill-refunds-");
+        private Map<LocalDate, List<DailyProductSummary>> summary = Map.of();
+
+        @Override
+        public void close() {
+            purchases.delete();
+            refunds.delete();
+        }
+    }
+
+    /**
+     * Rendered table rows of one table, in a temp file per day, created on the day's first row.
+     */
+    private static final class DaySpools {
+
+        private final String prefix;
+        private final Map<LocalDate, Path> files = new HashMap<>();
+        private final Map<LocalDate, OutputStream> writers = new HashMap<>();
+
+        DaySpools(String prefix) {
+            this.prefix = prefix;
+        }
+
+        OutputStream out(LocalDate day) throws IOException {
+            OutputStream out = writers.get(day);
+            if (out == null) {
+                Path file = Files.createTempFile(prefix + day + "-", ".html");
+                files.put(day, file);
+                out = new BufferedOutputStream(Files.newOutputStream(file));
+                writers.put(day, out);
+            }
+            return out;
+        }
+
+        // Closes the writers once the scan is done, before any day is read back
+        void finish() throws IOException {
+            for (OutputStream out : writers.values()) {
+                out.close();
+            }
+            writers.clear();
+        }
+
+        // A day without rows has no file and an empty table
+        void copy(LocalDate day, OutputStream out) throws IOException {
+            Path file = files.get(day);
+            if (file != null) {
+                Files.copy(file, out);
+            }
+        }
+
+        void delete() {
+            for (OutputStream out : writers.values()) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    log.warn("Could not close backfill spool file", e);
+                }
+            }
+            for (Path file : files.values()) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    log.warn("Could not delete backfill spool file {}", file, e);
+                }
+            }
+        }
+    }
+}
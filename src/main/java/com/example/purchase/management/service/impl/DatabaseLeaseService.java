@@ -0,0 +1,188 @@
+package com.example.purchase.management.service.impl;
+
+import com.example.purchase.management.config.ReportProperties;
+import com.example.purchase.management.entity.SchedulerLease;
+import com.example.purchase.management.model.Lease;
+import com.example.purchase.management.repository.SchedulerLeaseRepository;
+import com.example.purchase.management.service.LeaseService;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Leases kept in the {@code scheduler_leases} table, so any database the application runs on
+ * can coordinate the cluster.
+ * <p>
+ * A lease is taken for {@code report.lease.ttl} and renewed every third of that by a heartbeat
+ * while the task runs. Releasing it after the task returns records the run key, so instances that
+ * stood by know the run is done; a task that throws releases it without, and a standing-by
+ * instance takes the run over. If the holder dies, its lease simply expires and a standing-by
+ * instance takes it over with the next fencing token. Instances give up standing by after {@code report.lease.standby}.
+ * Expiry is judged by each instance's own clock, so the TTL must comfortably exceed their skew.
+ */
+@Slf4j
+@Service
+public class DatabaseLeaseService implements LeaseService {
+
+    // Slack after the holder's expiry before taking over, so a heartbeat in flight can still land
+    private static final Duration Takeover_Margin = Duration.ofSeconds(1);
+
+    private final SchedulerLeaseRepository leaseRepository;
+    private final EntityManager entityManager;
+    private final ReportProperties.Lease properties;
+    private final TransactionTemplate transaction;
+    private final TransactionTemplate newTransaction;
+    private final String owner;
+
+    // Heartbeats and stand-by checks only; tasks themselves run on the scheduler's thread or a virtual one
+    private final ScheduledExecutorService timer;
+
+    public DatabaseLeaseService(SchedulerLeaseRepository leaseRepository, EntityManager entityManager,
+                                ReportProperties reportProperties, PlatformTransactionManager transactionManager) {
+        this.leaseRepository = leaseRepository;
+        this.entityManager = entityManager;
+        this.properties = reportProperties.getLease();
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // pid@host, plus a suffix so restarts with a reused pid don't inherit an old lease
+        this.owner = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID().toString().substring(0, 8);
+        this.timer = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("lease-timer").daemon().factory());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        // leases held now just expire, and a standing-by instance takes over
+        timer.shutdownNow();
+    }
+
+    @Override
+    public boolean runOnce(String name, String runKey, Consumer<Lease> task) {
+        return runOnce(name, runKey, task, LocalDateTime.now().plus(properties.getStandby()));
+    }
+
+    @Override
+    public boolean isHeld(Lease lease) {
+        return leaseRepository.existsByNameAndOwnerAndFencingTokenAndLockedUntilAfter(
+                lease.getName(), lease.getOwner(), lease.getFencingToken(), LocalDateTime.now());
+    }
+
+    private boolean runOnce(String name, String runKey, Consumer<Lease> task, LocalDateTime standbyUntil) {
+        Lease lease = acquire(name, runKey);
+        if (lease == null) {
+            standBy(name, runKey, task, standbyUntil);
+            return false;
+        }
+
+        long interval = Math.max(1, properties.getTtl().toMillis() / 3);
+        ScheduledFuture<?> heartbeat = timer.scheduleAtFixedRate(() -> extend(lease), interval, interval, TimeUnit.MILLISECONDS);
+        boolean completed = false;
+        try {
+            task.accept(lease);
+            completed = true;
+        } finally {
+            heartbeat.cancel(false);
+            release(lease, completed ? runKey : null);
+        }
+        return true;
+    }
+
+    private Lease acquire(String name, String runKey) {
+        createIfMissing(name);
+
+        LocalDateTime now = LocalDateTime.now();
+        return transaction.execute(status -> {
+            if (leaseRepository.acquire(name, runKey, owner, now, now.plus(properties.getTtl())) == 0) {
+                return null;
+            }
+            long token = leaseRepository.findById(name).orElseThrow().getFencingToken();
+            log.info("Took lease '{}' for run {} with fencing token {}", name, runKey, token);
+            return new Lease(name, owner, token);
+        });
+    }
+
+    // Every instance may try this at once; all but one lose on the primary key, which is fine
+    private void createIfMissing(String name) {
+        if (leaseRepository.existsById(name)) {
+            return;
+        }
+        try {
+            newTransaction.executeWithoutResult(status -> entityManager.persist(new SchedulerLease(name)));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Lease '{}' was created by another instance", name);
+        }
+    }
+
+    // Looks again just after the holder's lease would expire: a finished holder has recorded the run by then,
+    // a dead one has not, and this instance takes over
+    private void standBy(String name, String runKey, Consumer<Lease> task, LocalDateTime standbyUntil) {
+        SchedulerLease current = leaseRepository.findById(name).orElse(null);
+        if (current == null || runKey.equals(current.getLastRun())) {
+            log.debug("Run {} of '{}' is already done", runKey, name);
+            return;
+        }
+
+        LocalDateTime retryAt = (current.getLockedUntil() != null ? current.getLockedUntil() : LocalDateTime.now())
+                .plus(Takeover_Margin);
+        if (retryAt.isAfter(standbyUntil)) {
+            log.warn("Gave up waiting for lease '{}' held by {}; run {} may not have completed",
+                    name, current.getOwner(), runKey);
+            return;
+        }
+
+        log.info("Lease '{}' is held by {}; standing by to take over run {}", name, current.getOwner(), runKey);
+        long delay = Math.max(0, Duration.between(LocalDateTime.now(), retryAt).toMillis());
+        timer.schedule(() -> Thread.ofVirtual().name("lease-" + name).start(() -> {
+            try {
+                runOnce(name, runKey, task, standbyUntil);
+            } catch (Exception e) {
+                log.error("Failed to run '{}' after taking over its lease: ", name, e);
+            }
+        }), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void extend(Lease lease) {
+        try {
+            Integer extended = transaction.execute(status -> leaseRepository.extend(lease.getName(), lease.getOwner(),
+                    lease.getFencingToken(), LocalDateTime.now().plus(properties.getTtl())));
+            if (extended == null || extended == 0) {
+                log.warn("Lease '{}' with fencing token {} has been taken over by another instance",
+                        lease.getName(), lease.getFencingToken());
+            }
+        } catch (Exception e) {
+            // the next heartbeat tries again; the lease only lapses if none gets through before it expires
+            log.warn("Failed to renew lease '{}': {}", lease.getName(), e.toString());
+        }
+    }
+
+    // Without a run key the run failed: it is not recorded, so an instance standing by may retry it
+    private void release(Lease lease, String runKey) {
+        try {
+            transaction.executeWithoutResult(status -> {
+                if (runKey != null) {
+                    leaseRepository.release(lease.getName(), lease.getOwner(), lease.getFencingToken(), runKey);
+                } else {
+                    leaseRepository.abandon(lease.getName(), lease.getOwner(), lease.getFencingToken());
+                }
+            });
+        } catch (Exception e) {
+            // left to expire; the run still counts as not done, so another instance may repeat it
+            log.warn("Failed to release lease '{}': {}", lease.getName(), e.toString());
+        }
+    }
+}
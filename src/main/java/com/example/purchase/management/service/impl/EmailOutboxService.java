@@ -0,0 +1,381 @@
+package com.example.purchase.management.service.impl;
+
+import com.example.purchase.management.config.ReportProperties;
+import com.example.purchase.management.entity.OutboxChunk;
+import com.example.purchase.management.entity.OutboxMessage;
+import com.example.purchase.management.entity.OutboxMessage.Status;
+import com.example.purchase.management.exception.ContentSizeExceededException;
+import com.example.purchase.management.report.CountingOutputStream;
+import com.example.purchase.management.report.ReportContent;
+import com.example.purchase.management.repository.OutboxChunkRepository;
+import com.example.purchase.management.repository.OutboxMessageRepository;
+import com.example.purchase.management.service.OutboxService;
+import com.example.purchase.management.service.SenderService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Transactional outbox in front of {@link SenderService}.
+ * <p>
+ * {@link #enqueue} renders the report, gzipped, into the {@code email_outbox} tables and returns; a fixed pool of
+ * {@code report.outbox.workers} threads delivers due messages. A failed delivery is retried with
+ * exponential backoff until {@code report.outbox.max-attempts}, then the message is parked as DEAD.
+ * Messages are claimed with a conditional update, so each is sent by one worker even across instances.
+ * Each claim carries a new token, and a worker records SENT or a failure only while its token is still
+ * the message's, so one whose claim expired mid-send cannot undo the outcome of the worker that took over.
+ * Delivery is at least once: a worker that dies after SMTP accepted the mail but before it was marked
+ * SENT causes one resend once its claim expires.
+ * <p>
+ * Each stage is timed: {@code report.outbox.enqueue} covers rendering and storing a report,
+ * {@code report.outbox.delivery} covers sending it, tagged with the outcome.
+ */
+@Slf4j
+@Service
+public class EmailOutboxService implements OutboxService {
+
+    // Fits the summary column whatever the characters
+    private static final int Summary_Limit = 256 * 1024;
+
+    private static final int Chunk_Size = OutboxChunk.MAX_DATA_LENGTH;
+
+    private final OutboxMessageRepository outboxRepository;
+    private final OutboxChunkRepository chunkRepository;
+    private final EntityManager entityManager;
+    private final SenderService senderService;
+    private final ReportProperties.Outbox properties;
+    private final TransactionTemplate transaction;
+    private final MeterRegistry meterRegistry;
+
+    private final ExecutorService workers;
+    private final Semaphore freeWorkers;
+
+    public EmailOutboxService(OutboxMessageRepository outboxRepository, OutboxChunkRepository chunkRepository,
+                              EntityManager entityManager, SenderService senderService,
+                              ReportProperties reportProperties, PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.chunkRepository = chunkRepository;
+        this.entityManager = entityManager;
+        this.senderService = senderService;
+        this.properties = reportProperties.getOutbox();
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.workers = Executors.newFixedThreadPool(properties.getWorkers());
+        this.freeWorkers = new Semaphore(properties.getWorkers());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        // claimed messages left undelivered are picked up again once their claim expires
+        workers.shutdownNow();
+    }
+
+    @Override
+    public boolean enqueue(String idempotencyKey, String subject, ReportContent htmlContent, ReportContent summary) {
+        if (outboxRepository.existsByIdempotencyKey(idempotencyKey)) {
+            log.info("Report {} is already in the outbox, not enqueueing it again", idempotencyKey);
+            return false;
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Path spool = null;
+        try {
+            spool = Files.createTempFile("outbox-", ".html.gz");
+            try (OutputStream out = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(spool)))) {
+                htmlContent.writeTo(out);
+            }
+            String summaryHtml = render(summary);
+
+            Path content = spool;
+            transaction.executeWithoutResult(status -> {
+                OutboxMessage message = new OutboxMessage();
+                message.setIdempotencyKey(idempotencyKey);
+                message.setSubject(subject);
+                message.setSummary(summaryHtml);
+                message.setNextAttemptAt(LocalDateTime.now());
+                try {
+                    message.setContentLength(Files.size(content));
+                    outboxRepository.saveAndFlush(message);
+                    storeChunks(message, content);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Could not read the rendered report", e);
+                }
+            });
+            log.info("Report {} enqueued for delivery", idempotencyKey);
+            return true;
+        }
+        catch (DataIntegrityViolationException e) {
+            // lost a race with another enqueue of the same key
+            log.info("Report {} is already in the outbox, not enqueueing it again", idempotencyKey);
+            return false;
+        }
+        catch (Exception e) {
+            log.error("Failed to enqueue report: ", e);
+            throw new RuntimeException("Failed to enqueue report", e);
+        }
+        finally {
+            sample.stop(meterRegistry.timer("report.outbox.enqueue"));
+            deleteSpool(spool);
+        }
+    }
+
+    @Override
+    public int dispatchDue() {
+        LocalDateTime now = LocalDateTime.now();
+        Integer released = transaction.execute(status ->
+                outboxRepository.releaseExpiredClaims(Status.SENDING, Status.PENDING, Status.DEAD,
+                        properties.getMaxAttempts(), now));
+        if (released != null && released > 0) {
+            log.warn("Released {} outbox message(s) whose delivery did not finish in time", released);
+        }
+
+        int free = freeWorkers.availablePermits();
+        if (free == 0) {
+            return 0;
+        }
+
+        int claimed = 0;
+        for (Long id : outboxRepository.findDueIds(Status.PENDING, now, PageRequest.of(0, free))) {
+            if (!freeWorkers.tryAcquire()) {
+                break;
+            }
+            String token = UUID.randomUUID().toString();
+            Integer won = transaction.execute(status -> outboxRepository.claim(
+                    id, Status.PENDING, Status.SENDING, LocalDateTime.now().plus(properties.getClaimTimeout()), token));
+            if (won == null || won == 0) {
+                freeWorkers.release();
+                continue;
+            }
+
+            claimed++;
+            workers.execute(() -> {
+                try {
+                    deliver(id, token);
+                } finally {
+                    freeWorkers.release();
+                }
+            });
+        }
+        return claimed;
+    }
+
+    @Override
+    public OutboxMessage retry(Long id) {
+        return transaction.execute(status -> {
+            OutboxMessage message = outboxRepository.findById(id)
+                    .orElseThrow(() -> new EntityNotFoundException("Outbox message not found"));
+            if (message.getStatus() != Status.DEAD) {
+                throw new IllegalArgumentException("Only dead messages can be retried");
+            }
+            message.setStatus(Status.PENDING);
+            message.setAttempts(0);
+            message.setNextAttemptAt(LocalDateTime.now());
+            message.setLastError(null);
+            return message;
+        });
+    }
+
+    private void deliver(Long id, String token) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome;
+        Path spool = null;
+        try {
+            // Copy the report out in a short transaction so no connection is held during SMTP
+            spool = Files.createTempFile("outbox-", ".html.gz");
+            OutboxMessage message = copyContent(id, spool);
+
+            Path content = spool;
+            String summary = message.getSummary();
+            senderService.send(message.getSubject(),
+                    out -> {
+                        try (InputStream in = new GZIPInputStream(Files.newInputStream(content))) {
+                            in.transferTo(out);
+                        }
+                    },
+                    summary == null ? null : out -> out.write(summary.getBytes(StandardCharsets.UTF_8)));
+
+            if (markSent(id, token)) {
+                outcome = "sent";
+                log.info("Outbox message {} delivered", id);
+            } else {
+                outcome = "lost";
+                log.warn("Outbox message {} was delivered after its claim expired and it was claimed again", id);
+            }
+        }
+        catch (Exception e) {
+            outcome = markFailed(id, token, e);
+        }
+        finally {
+            deleteSpool(spool);
+        }
+        sample.stop(meterRegistry.timer("report.outbox.delivery", "outcome", outcome));
+    }
+
+    // Each chunk is flushed and dropped from the session before the next is read
+    private void storeChunks(OutboxMessage message, Path content) throws IOException {
+        byte[] buffer = new byte[Chunk_Size];
+        try (InputStream in = Files.newInputStream(content)) {
+            for (int seq = 0; ; seq++) {
+                int read = in.readNBytes(buffer, 0, Chunk_Size);
+                if (read == 0) {
+                    break;
+                }
+                OutboxChunk chunk = new OutboxChunk();
+                chunk.setMessage(message);
+                chunk.setSeq(seq);
+                chunk.setData(Arrays.copyOf(buffer, read));
+                entityManager.persist(chunk);
+                entityManager.flush();
+                entityManager.detach(chunk);
+            }
+        }
+    }
+
+    private OutboxMessage copyContent(Long id, Path target) {
+        return transaction.execute(status -> {
+            OutboxMessage message = outboxRepository.findById(id)
+                    .orElseThrow(() -> new EntityNotFoundException("Outbox message not found"));
+            try (Stream<byte[]> chunks = chunkRepository.streamData(id);
+                 OutputStream out = new BufferedOutputStream(Files.newOutputStream(target))) {
+                for (Iterator<byte[]> it = chunks.iterator(); it.hasNext(); ) {
+                    out.write(it.next());
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not read outbox message " + id, e);
+            }
+            return message;
+        });
+    }
+
+    // False if the claim was lost, in which case the current claim holder decides the message's status
+    private boolean markSent(Long id, String token) {
+        return Boolean.TRUE.equals(transaction.execute(status -> {
+            if (outboxRepository.markSent(id, token, Status.SENDING, Status.SENT, LocalDateTime.now()) == 0) {
+                return false;
+            }
+            // the report has been delivered; keep the row as a record, not its content
+            chunkRepository.deleteByMessageId(id);
+            return true;
+        }));
+    }
+
+    private String markFailed(Long id, String token, Exception failure) {
+        // an oversized report fails the same way every time, so don't keep retrying it
+        boolean permanent = causedBy(failure, ContentSizeExceededException.class);
+        String error = truncate(String.valueOf(rootCause(failure).getMessage()), 1000);
+
+        Failure recorded = transaction.execute(status -> outboxRepository.findById(id)
+                .filter(message -> message.getStatus() == Status.SENDING && token.equals(message.getClaimToken()))
+                .map(message -> {
+                    int attempts = message.getAttempts() + 1;
+                    Failure next = permanent || attempts >= properties.getMaxAttempts()
+                            ? new Failure(Status.DEAD, attempts, message.getNextAttemptAt())
+                            : new Failure(Status.PENDING, attempts, LocalDateTime.now().plus(backoff(attempts)));
+                    // still conditional on the claim, in case it expires between the read and the update
+                    int updated = outboxRepository.markFailed(id, token, Status.SENDING, next.status(),
+                            next.nextAttemptAt(), error);
+                    return updated == 0 ? null : next;
+                })
+                .orElse(null));
+
+        if (recorded == null) {
+            log.warn("Outbox message {} failed after its claim expired and it was claimed again, "
+                    + "leaving it to the current claim: {}", id, rootCause(failure).getMessage());
+            return "lost";
+        }
+        if (recorded.status() == Status.DEAD) {
+            log.error("Outbox message {} is dead after {} attempt(s): ", id, recorded.attempts(), failure);
+            return "dead";
+        }
+        log.warn("Outbox message {} failed (attempt {}), retrying at {}: {}",
+                id, recorded.attempts(), recorded.nextAttemptAt(), rootCause(failure).getMessage());
+        return "retry";
+    }
+
+    // initialBackoff, doubled for every earlier failed attempt, capped at maxBackoff
+    private Duration backoff(int attempts) {
+        Duration delay = properties.getInitialBackoff();
+        for (int i = 1; i < attempts && delay.compareTo(properties.getMaxBackoff()) < 0; i++) {
+            delay = delay.multipliedBy(2);
+        }
+        return delay.compareTo(properties.getMaxBackoff()) < 0 ? delay : properties.getMaxBackoff();
+    }
+
+    private String render(ReportContent summary) throws IOException {
+        if (summary == null) {
+            return null;
+        }
+        ByteArrayOutputStream html = new ByteArrayOutputStream();
+        try (OutputStream out = new CountingOutputStream(html, Summary_Limit)) {
+            summary.writeTo(out);
+        } catch (CountingOutputStream.LimitExceededException e) {
+            log.warn("Report summary is larger than {} bytes, enqueueing without it", Summary_Limit);
+            return null;
+        }
+        return html.toString(StandardCharsets.UTF_8);
+    }
+
+    private static boolean causedBy(Throwable failure, Class<? extends Throwable> type) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (type.isInstance(t)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Throwable rootCause(Throwable failure) {
+        Throwable root = failure;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root;
+    }
+
+    private static String truncate(String value, int length) {
+        return value.length() <= length ? value : value.substring(0, length);
+    }
+
+    private void deleteSpool(Path spool) {
+        if (spool == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(spool);
+        } catch (IOException e) {
+            log.warn("Could not delete outbox spool file {}", spool, e);
+        }
+    }
+
+    private record Failure(Status status, int attempts, LocalDateTime nextAttemptAt) {
+    }
+}
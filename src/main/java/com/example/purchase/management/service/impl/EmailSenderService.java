@@ -2,15 +2,38 @@ package com.example.purchase.management.service.impl;
 
 import com.example.purchase.management.config.EmailProperties;
 import com.example.purchase.management.exception.ContentSizeExceededException;
+import com.example.purchase.management.model.EmailMessage;
+import com.example.purchase.management.report.CountingOutputStream;
+import com.example.purchase.management.report.ReportContent;
 import com.example.purchase.management.service.SenderService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
+import jakarta.activation.DataHandler;
+import jakarta.activation.FileDataSource;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeBodyPart;
 import jakarta.mail.internet.MimeMessage;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.GZIPOutputStream;
+
 @Service
 @Slf4j
 @RequiredArgsConstructor
@@ -21,38 +44,257 @@ public class EmailSenderService implements SenderService {
 
      private static final int Size_Limit = 25 * 1024 * 1024;
 
-   
+    // The inline summary is meant to be a glance, not a second copy of the report
+    private static final int Summary_Limit = 1024 * 1024;
+
+    // Room for the message and part headers, MIME boundaries and the note above an attachment
+    private static final int Header_Allowance = 64 * 1024;
+
+    // The summary may go quoted-printable, which at worst triples it
+    private static final int Body_Allowance = Header_Allowance + 3 * Summary_Limit;
+
+    // Reports and attachments go base64 on the wire: every 57 bytes become a 76-character line and a CRLF
+    private static final int Inline_Limit = (Size_Limit - Header_Allowance) / 78 * 57;
+    private static final int Attachment_Limit = (Size_Limit - Body_Allowance) / 78 * 57;
+
+    // Beyond this many parts the report is rejected rather than flooding the inbox
+    private static final int Max_Parts = 10;
+
+    private static final String Attachment_Name = "report.html.gz";
 
     @Override
     public void send(String subject, String htmlContent)
             throws ContentSizeExceededException
+    {
+        send(subject, out -> out.write(htmlContent.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Override
+    public void send(String subject, ReportContent htmlContent)
+            throws ContentSizeExceededException
+    {
+        send(subject, htmlContent, null);
+    }
+
+    /**
+     * Renders the content into a temporary file while counting its bytes, then picks how to deliver it:
+     * <ul>
+     *   <li>up to {@code Inline_Limit}: the file is the HTML body, as before;</li>
+     *   <li>larger: the file is gzipped into a second temporary file and attached, under a short inline
+     *   body made of a note and the optional summary;</li>
+     *   <li>still too large compressed: the gzip file is split into numbered parts, one email each,
+     *   which rebuild the report when concatenated in order.</li>
+     * </ul>
+     * Every step streams between files and the MIME message, so the report never has to exist as a
+     * String or byte[] on the heap. The limits leave room for base64 and the headers, so no message
+     * on the wire exceeds {@code Size_Limit}.
+     */
+    @Override
+    public void send(String subject, ReportContent htmlContent, ReportContent summary)
+            throws ContentSizeExceededException
     {
         if (emailProperties.getFrom() == null) {
             throw new IllegalStateException("sender email address is not configured");
         }
 
-        if (htmlContent.getBytes().length > Size_Limit) {
-            throw new ContentSizeExceededException();
-        }
-
+        Path spool = null;
+        Path compressed = null;
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            
-            helper.setFrom(emailProperties.getFrom());
-            helper.setTo(emailProperties.getTo());
-            helper.setSubject(subject);
-            helper.setText(htmlContent, true);
+            spool = Files.createTempFile("report-", ".html");
+
+            long size;
+            try (CountingOutputStream out = new CountingOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(spool)))) {
+                htmlContent.writeTo(out);
+                size = out.getCount();
+            }
+
+            if (size <= Inline_Limit) {
+                sendInline(subject, spool);
+                return;
+            }
+
+            compressed = Files.createTempFile("report-", ".html.gz");
+            try (OutputStream out = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(compressed)))) {
+                Files.copy(spool, out);
+            }
+            long compressedSize = Files.size(compressed);
+
+            int parts = (int) ((compressedSize + Attachment_Limit - 1) / Attachment_Limit);
+            if (parts > Max_Parts) {
+                throw new ContentSizeExceededException("Email content exceeds the maximum size limit even compressed and split into "
+                        + Max_Parts + " parts");
+            }
 
-            mailSender.send(message);
-            log.info("Email sent successfully");
+            String summaryHtml = renderSummary(summary);
+            if (parts == 1) {
+                String note = "The full report (" + megabytes(size) + ") is too large to show here. "
+                        + "It is attached compressed as " + Attachment_Name + ".";
+                sendWithAttachment(subject, inlineBody(note, summaryHtml), compressed, Attachment_Name);
+            } else {
+                sendParts(subject, size, summaryHtml, compressed, parts);
+            }
+        }
+        catch (ContentSizeExceededException e) {
+            throw e;
         }
         catch (Exception e) {
             log.error("Failed to send email: ", e);
             throw new RuntimeException("Failed to send email", e);
         }
+        finally {
+            deleteSpool(spool);
+            deleteSpool(compressed);
+        }
+    }
+
+    /**
+     * Hands the whole batch to a single {@code send} call, which JavaMail delivers over one SMTP
+     * connection instead of a connect, EHLO and AUTH per message. A message the server rejects
+     * is counted and logged without failing the rest of the batch.
+     */
+    @Override
+    public Set<Integer> sendAll(List<EmailMessage> messages) {
+        if (messages.isEmpty()) {
+            return Set.of();
+        }
+        if (emailProperties.getFrom() == null) {
+            throw new IllegalStateException("sender email address is not configured");
+        }
+
+        MimeMessage[] mimeMessages = new MimeMessage[messages.size()];
+        try {
+            for (int i = 0; i < messages.size(); i++) {
+                EmailMessage message = messages.get(i);
+                MimeMessageHelper helper = new MimeMessageHelper(mailSender.createMimeMessage(), "UTF-8");
+                helper.setFrom(emailProperties.getFrom());
+                helper.setTo(message.getTo());
+                helper.setSubject(message.getSubject());
+                helper.setText(message.getHtml(), true);
+                mimeMessages[i] = helper.getMimeMessage();
+            }
+        } catch (MessagingException e) {
+            log.error("Failed to send email: ", e);
+            throw new RuntimeException("Failed to send email", e);
+        }
+
+        try {
+            mailSender.send(mimeMessages);
+            log.info("Sent {} emails in one batch", messages.size());
+            return Set.of();
+        } catch (MailSendException e) {
+            // without per-message detail the connection itself failed and nothing went out
+            Set<Integer> failed = new TreeSet<>();
+            for (int i = 0; i < mimeMessages.length; i++) {
+                if (e.getFailedMessages().isEmpty() || e.getFailedMessages().containsKey(mimeMessages[i])) {
+                    failed.add(i);
+                }
+            }
+            log.warn("{} of {} emails in batch were not sent: {}", failed.size(), messages.size(), e.getMessage());
+            return failed;
+        }
+    }
+
+    private void sendInline(String subject, Path html) throws MessagingException {
+        MimeMessageHelper helper = newMessage(subject);
+
+        MimeBodyPart body = new MimeBodyPart();
+        body.setDataHandler(new DataHandler(new FileDataSource(html.toFile())));
+        // set after the data handler, which resets the content headers; base64 keeps the
+        // encoded size predictable, where quoted-printable can triple it
+        body.setHeader("Content-Type", "text/html; charset=UTF-8");
+        body.setHeader("Content-Transfer-Encoding", "base64");
+        helper.getMimeMultipart().addBodyPart(body);
+
+        mailSender.send(helper.getMimeMessage());
+        log.info("Email sent successfully");
+    }
+
+    private void sendParts(String subject, long size, String summaryHtml, Path compressed, int parts)
+            throws IOException, MessagingException {
+        try (FileChannel source = FileChannel.open(compressed, StandardOpenOption.READ)) {
+            for (int part = 1; part <= parts; part++) {
+                String name = Attachment_Name + String.format(".%03d", part);
+                String note = "The full report (" + megabytes(size) + ") is too large for a single email, even compressed. "
+                        + "This is part " + part + " of " + parts + ". Save all parts and join them in order "
+                        + "(for example <code>cat " + Attachment_Name + ".* &gt; " + Attachment_Name + "</code>) to get it back.";
+
+                Path chunk = Files.createTempFile("report-", name);
+                try {
+                    try (FileChannel target = FileChannel.open(chunk, StandardOpenOption.WRITE)) {
+                        long position = (long) (part - 1) * Attachment_Limit;
+                        long length = Math.min(Attachment_Limit, source.size() - position);
+                        for (long sent = 0; sent < length; ) {
+                            sent += source.transferTo(position + sent, length - sent, target);
+                        }
+                    }
+                    // the summary goes with the first part only
+                    sendWithAttachment(subject + " (part " + part + "/" + parts + ")",
+                            inlineBody(note, part == 1 ? summaryHtml : ""), chunk, name);
+                } finally {
+                    deleteSpool(chunk);
+                }
+            }
+        }
+    }
+
+    private void sendWithAttachment(String subject, String html, Path file, String fileName) throws MessagingException {
+        MimeMessageHelper helper = newMessage(subject);
+        helper.setText(html, true);
+
+        // read from the file only while the message is being written out
+        helper.addAttachment(fileName, new FileSystemResource(file), "application/gzip");
+
+        mailSender.send(helper.getMimeMessage());
+        log.info("Email sent successfully with attachment {}", fileName);
+    }
+
+    private MimeMessageHelper newMessage(String subject) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+
+        helper.setFrom(emailProperties.getFrom());
+        helper.setTo(emailProperties.getTo());
+        helper.setSubject(subject);
+        return helper;
+    }
+
+    private String renderSummary(ReportContent summary) throws IOException {
+        if (summary == null) {
+            return "";
+        }
+        ByteArrayOutputStream html = new ByteArrayOutputStream();
+        try (OutputStream out = new CountingOutputStream(html, Summary_Limit)) {
+            summary.writeTo(out);
+        } catch (CountingOutputStream.LimitExceededException e) {
+            log.warn("Report summary is larger than {} bytes, sending without it", Summary_Limit);
+            return "";
+        }
+        return html.toString(StandardCharsets.UTF_8);
+    }
+
+    private String inlineBody(String note, String summaryHtml) {
+        return "<html><body style='font-family: Arial, sans-serif;'>"
+                + "<p>" + note + "</p>"
+                + summaryHtml
+                + "</body></html>";
     }
 
+    private static String megabytes(long bytes) {
+        return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+
+    private void deleteSpool(Path spool) {
+        if (spool == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(spool);
+        } catch (IOException e) {
+            log.warn("Could not delete report spool file {}", spool, e);
+        }
+    }
+
+
 
-    
-}
\ No newline at end of file
+}
@@ -0,0 +1,357 @@
+package com.example.purchase.management.service.impl;
+
+import com.example.purchase.management.config.ReportProperties;
+import com.example.purchase.management.entity.Purchase;
+import com.example.purchase.management.entity.Refund;
+import com.example.purchase.management.model.ReportJobStatus;
+import com.example.purchase.management.model.ReportJobStatus.State;
+import com.example.purchase.management.report.CountingOutputStream;
+import com.example.purchase.management.report.ReportGenerator;
+import com.example.purchase.management.service.PurchaseService;
+import com.example.purchase.management.service.RefundService;
+import com.example.purchase.management.service.ReportJobService;
+import com.example.purchase.management.service.RollupService;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Renders reports in the background into files under {@code report.jobs.directory}.
+ * <p>
+ * Jobs run on their own bounded pool, never on request threads, and a full queue rejects new
+ * jobs rather than piling them up. A report is rendered one day at a time, each day's rows in
+ * its own read-only transaction, so no transaction or section deadline grows with the range;
+ * progress is the share of those days done. Finished reports are dropped once unused for
+ * {@code report.jobs.ttl}, or least recently used first once the store, counting the reports still
+ * being written, outgrows {@code report.jobs.max-size}. Jobs are tracked in memory, so they are
+ * local to this instance.
+ */
+@Slf4j
+@Service
+public class FileReportJobService implements ReportJobService {
+
+    // Rows streamed before the persistence context is cleared
+    private static final int CLEAR_INTERVAL = 500;
+
+    // Finished reports and the ones being written, named after their job id
+    private static final String Job_Files = "*.{html,html.part}";
+
+    private final ReportGenerator reportGenerator;
+    private final PurchaseService purchaseService;
+    private final RefundService refundService;
+    private final RollupService rollupService;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transaction;
+    private final ReportProperties.Jobs properties;
+
+    private final Path directory;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    public FileReportJobService(ReportGenerator reportGenerator, PurchaseService purchaseService,
+                                RefundService refundService, RollupService rollupService, EntityManager entityManager,
+                                PlatformTransactionManager transactionManager, ReportProperties reportProperties)
+            throws IOException {
+        this.reportGenerator = reportGenerator;
+        this.purchaseService = purchaseService;
+        this.refundService = refundService;
+        this.rollupService = rollupService;
+        this.entityManager = entityManager;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.transaction.setReadOnly(true);
+        this.properties = reportProperties.getJobs();
+
+        this.directory = Files.createDirectories(Path.of(properties.getDirectory()));
+        // jobs don't survive a restart, so neither do their files; anything else in the directory is left alone
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(directory, Job_Files)) {
+            for (Path leftover : leftovers) {
+                Files.deleteIfExists(leftover);
+            }
+        }
+
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(properties.getWorkers(), properties.getWorkers(), 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                runnable -> new Thread(runnable, "report-job-" + threads.incrementAndGet()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public ReportJobStatus submit(LocalDateTime start, LocalDateTime end) {
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("Report range starts after it ends");
+        }
+
+        Job job = new Job(UUID.randomUUID().toString(), start, end);
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw e;
+        }
+        log.info("Queued report job {} for {} to {}", job.id, start, end);
+        return job.status();
+    }
+
+    @Override
+    public ReportJobStatus getStatus(String id) {
+        return find(id).status();
+    }
+
+    @Override
+    public Path getResult(String id) {
+        Job job = find(id);
+        if (job.state != State.COMPLETED) {
+            throw new IllegalStateException("Report job " + id + " is " + job.state);
+        }
+        job.lastUsedAt = LocalDateTime.now();
+        return job.result;
+    }
+
+    @Override
+    public synchronized int cleanUp() {
+        LocalDateTime expiredBefore = LocalDateTime.now().minus(properties.getTtl());
+        int removed = 0;
+        for (Job job : jobs.values()) {
+            if (job.isFinished() && job.lastUsedAt.isBefore(expiredBefore)) {
+                remove(job);
+                removed++;
+            }
+        }
+        return removed + enforceQuota();
+    }
+
+    private void run(Job job) {
+        job.state = State.RUNNING;
+        Path part = directory.resolve(job.id + ".html.part");
+        try {
+            long size;
+            try (CountingOutputStream out = new CountingOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(part)), properties.getMaxSize().toBytes())) {
+                job.output = out;
+                render(job, out);
+                size = out.getCount();
+            }
+
+            Path result = Files.move(part, directory.resolve(job.id + ".html"), StandardCopyOption.ATOMIC_MOVE);
+            job.complete(result, size);
+            log.info("Report job {} finished: {} bytes", job.id, size);
+            synchronized (this) {
+                enforceQuota();
+            }
+        } catch (Exception e) {
+            deleteQuietly(part);
+            job.fail(e instanceof CountingOutputStream.LimitExceededException
+                    ? "Report is larger than the job store's size limit" : e.toString());
+            log.error("Failed to run report job {}: ", job.id, e);
+        }
+    }
+
+    // Same sections as the synchronous report; purchases and refunds are read one day at a time
+    private void render(Job job, OutputStream out) throws IOException {
+        List<LocalDateTime[]> days = splitByDay(job.start, job.end);
+        job.totalSteps = 1 + 2 * days.size();
+
+        reportGenerator.writeHeader(out);
+        inTransaction(() -> reportGenerator.writeSummary(rollupService.getDailySummary(job.start, job.end), out));
+        job.stepsDone.incrementAndGet();
+
+        reportGenerator.writePurchasesStart(out);
+        for (LocalDateTime[] day : days) {
+            inTransaction(() -> {
+                try (Stream<Purchase> rows = clearingEvery(CLEAR_INTERVAL, purchaseService.streamPurchasesBetween(day[0], day[1]))) {
+                    reportGenerator.writePurchaseRows(rows, out);
+                }
+            });
+            job.stepsDone.incrementAndGet();
+        }
+        reportGenerator.writeTableEnd(out);
+
+        reportGenerator.writeRefundsStart(out);
+        for (LocalDateTime[] day : days) {
+            inTransaction(() -> {
+                try (Stream<Refund> rows = clearingEvery(CLEAR_INTERVAL, refundService.streamRefundsBetween(day[0], day[1]))) {
+                    reportGenerator.writeRefundRows(rows, out);
+                }
+            });
+            job.stepsDone.incrementAndGet();
+        }
+        reportGenerator.writeTableEnd(out);
+
+        reportGenerator.writeFooter(out);
+    }
+
+    // Slices [start, end] at each midnight. The queries include both bounds, so every slice but the
+    // last stops a microsecond (the database's precision) short of the next one.
+    private static List<LocalDateTime[]> splitByDay(LocalDateTime start, LocalDateTime end) {
+        List<LocalDateTime[]> days = new ArrayList<>();
+        LocalDateTime from = start;
+        while (true) {
+            LocalDateTime nextMidnight = from.toLocalDate().plusDays(1).atStartOfDay();
+            if (!nextMidnight.isBefore(end)) {
+                days.add(new LocalDateTime[] { from, end });
+                return days;
+            }
+            days.add(new LocalDateTime[] { from, nextMidnight.minusNanos(1000) });
+            from = nextMidnight;
+        }
+    }
+
+    private void inTransaction(SectionWriter writer) {
+        transaction.executeWithoutResult(status -> {
+            try {
+                writer.write();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private <T> Stream<T> clearingEvery(int interval, Stream<T> rows) {
+        AtomicLong count = new AtomicLong();
+        return rows.peek(row -> {
+            if (count.incrementAndGet() % interval == 0) {
+                entityManager.clear();
+            }
+        });
+    }
+
+    // Caller holds the lock. Reports being written take room too, but only finished ones can be evicted.
+    private int enforceQuota() {
+        List<Job> completed = new ArrayList<>(jobs.values().stream().filter(job -> job.state == State.COMPLETED).toList());
+        long total = completed.stream().mapToLong(job -> job.size).sum()
+                + jobs.values().stream().filter(job -> job.state == State.RUNNING).mapToLong(Job::written).sum();
+        completed.sort(Comparator.comparing(job -> job.lastUsedAt));
+
+        int removed = 0;
+        for (Job job : completed) {
+            if (total <= properties.getMaxSize().toBytes()) {
+                break;
+            }
+            total -= job.size;
+            remove(job);
+            removed++;
+        }
+        return removed;
+    }
+
+    private void remove(Job job) {
+        jobs.remove(job.id);
+        if (job.result != null) {
+            deleteQuietly(job.result);
+        }
+        log.info("Removed report job {}", job.id);
+    }
+
+    private Job find(String id) {
+        Job job = jobs.get(id);
+        if (job == null) {
+            throw new EntityNotFoundException("Report job not found with id: " + id);
+        }
+        return job;
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete report job file {}", file, e);
+        }
+    }
+
+    private interface SectionWriter {
+        void write() throws IOException;
+    }
+
+    /**
+     * A job's live state: written by its worker, read by status requests and the cleanup.
+     */
+    private static final class Job {
+
+        private final String id;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private final AtomicInteger stepsDone = new AtomicInteger();
+
+        private volatile State state = State.QUEUED;
+        private volatile int totalSteps;
+        private volatile CountingOutputStream output;
+        private volatile Path result;
+        private volatile long size;
+        private volatile LocalDateTime completedAt;
+        private volatile LocalDateTime lastUsedAt;
+        private volatile String error;
+
+        Job(String id, LocalDateTime start, LocalDateTime end) {
+            this.id = id;
+            this.start = start;
+            this.end = end;
+        }
+
+        void complete(Path result, long size) {
+            this.result = result;
+            this.size = size;
+            this.completedAt = LocalDateTime.now();
+            this.lastUsedAt = completedAt;
+            this.state = State.COMPLETED;
+        }
+
+        void fail(String error) {
+            this.error = error;
+            this.completedAt = LocalDateTime.now();
+            this.lastUsedAt = completedAt;
+            this.state = State.FAILED;
+        }
+
+        // Bytes of the report written so far; zero until the worker opens its file
+        long written() {
+            CountingOutputStream out = output;
+            return out != null ? out.getCount() : 0;
+        }
+
+        boolean isFinished() {
+            return state == State.COMPLETED || state == State.FAILED;
+        }
+
+        ReportJobStatus status() {
+            State current = state;
+            int progress = current == State.COMPLETED ? 100
+                    : totalSteps == 0 ? 0 : Math.min(99, stepsDone.get() * 100 / totalSteps);
+            long written = current == State.COMPLETED ? size : written();
+            return new ReportJobStatus(id, current, start, end, progress, written, createdAt, completedAt, error);
+        }
+    }
+}
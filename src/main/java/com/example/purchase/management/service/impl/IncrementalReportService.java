@@ -0,0 +1,220 @@
+package com.example.purchase.management.service.impl;
+
+import com.example.purchase.management.config.ReportProperties;
+import com.example.purchase.management.entity.Purchase;
+import com.example.purchase.management.entity.Refund;
+import com.example.purchase.management.report.ReportGenerator;
+import com.example.purchase.management.repository.PurchaseRepository;
+import com.example.purchase.management.repository.RefundRepository;
+import com.example.purchase.management.service.IntradayReportService;
+import com.example.purchase.management.service.RollupService;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Keeps today's report up to date incrementally.
+ * <p>
+ * The purchase and refund rows rendered so far are kept in two spool files, with a watermark of
+ * the highest id read from each table and the time of the last refresh. A refresh only reads
+ * rows past the watermark and appends them, so it costs O(new rows) rather than a rescan of the
+ * day. Rows dated within {@code report.intraday.overlap} of the last refresh are read again and
+ * skipped if already rendered, which catches transactions that committed after a higher id had
+ * been seen. The summary comes from the daily rollups, which are current already. Everything is
+ * dropped and rebuilt at midnight, or after a refresh fails halfway.
+ * <p>
+ * Ids are not in commit order: each instance inserts from its own pooled-lo block, and batch or
+ * import rows can be dated earlier in the day. A row whose id is below the watermark and whose
+ * date is before the overlap matches neither condition, so the refreshes never see it. To bound
+ * how long such a row stays missing, the day is also rebuilt from scratch once its rows are
+ * {@code report.intraday.rebuild-interval} old.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IncrementalReportService implements IntradayReportService {
+
+    // Rows streamed before the persistence context is cleared; only the first refresh of a day gets near it
+    private static final int CLEAR_INTERVAL = 500;
+
+    private final PurchaseRepository purchaseRepository;
+    private final RefundRepository refundRepository;
+    private final RollupService rollupService;
+    private final ReportGenerator reportGenerator;
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+    private final ReportProperties reportProperties;
+
+    // Guarded by this; refreshes and reads of the spools never overlap
+    private IntradayState state;
+
+    @PreDestroy
+    synchronized void shutdown() {
+        discardState();
+    }
+
+    @Override
+    public String generateIntradayReport() {
+        ByteArrayOutputStream htmlReport = new ByteArrayOutputStream();
+        generateIntradayReport(htmlReport);
+        return htmlReport.toString(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public synchronized void generateIntradayReport(OutputStream out) {
+        try {
+            refresh();
+
+            reportGenerator.writeHeader(out);
+            reportGenerator.writeSummary(rollupService.getDailySummary(state.day.atStartOfDay(), state.refreshedAt), out);
+            reportGenerator.writePurchasesStart(out);
+            Files.copy(state.purchases, out);
+            reportGenerator.writeTableEnd(out);
+            reportGenerator.writeRefundsStart(out);
+            Files.copy(state.refunds, out);
+            reportGenerator.writeTableEnd(out);
+            reportGenerator.writeFooter(out);
+            out.flush();
+
+        } catch (Exception e) {
+            // the spools may hold part of a refresh the watermark doesn't reflect; start over next time
+            discardState();
+            log.error("Failed to generate intraday report: ", e);
+            throw new RuntimeException("Failed to generate intraday report", e);
+        }
+    }
+
+    private void refresh() throws IOException {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate today = now.toLocalDate();
+        if (state == null || !state.day.equals(today)
+                || !now.isBefore(state.builtAt.plus(reportProperties.getIntraday().getRebuildInterval()))) {
+            discardState();
+            state = new IntradayState(today, now);
+        }
+
+        LocalDateTime start = today.atStartOfDay();
+        LocalDateTime end = today.plusDays(1).atStartOfDay();
+        LocalDateTime since = state.refreshedAt.minus(reportProperties.getIntraday().getOverlap());
+        LocalDateTime nextSince = now.minus(reportProperties.getIntraday().getOverlap());
+        IntradayState current = state;
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        transaction.executeWithoutResult(status -> {
+            try (Stream<Purchase> rows = purchaseRepository.streamReportRowsAfter(current.purchaseMark.lastId, since, start, end);
+                 OutputStream spool = append(current.purchases)) {
+                reportGenerator.writePurchaseRows(clearingEvery(CLEAR_INTERVAL, rows)
+                        .filter(purchase -> current.purchaseMark.accept(purchase.getId(), purchase.getDate(), nextSince)), spool);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            try (Stream<Refund> rows = refundRepository.streamReportRowsAfter(current.refundMark.lastId, since, start, end);
+                 OutputStream spool = append(current.refunds)) {
+                reportGenerator.writeRefundRows(clearingEvery(CLEAR_INTERVAL, rows)
+                        .filter(refund -> current.refundMark.accept(refund.getId(), refund.getDate(), nextSince)), spool);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        current.purchaseMark.forgetBefore(nextSince);
+        current.refundMark.forgetBefore(nextSince);
+        current.refreshedAt = now;
+    }
+
+    private OutputStream append(Path spool) throws IOException {
+        return new BufferedOutputStream(Files.newOutputStream(spool, StandardOpenOption.APPEND));
+    }
+
+    private <T> Stream<T> clearingEvery(int interval, Stream<T> rows) {
+        AtomicLong count = new AtomicLong();
+        return rows.peek(row -> {
+            if (count.incrementAndGet() % interval == 0) {
+                entityManager.clear();
+            }
+        });
+    }
+
+    private void discardState() {
+        if (state == null) {
+            return;
+        }
+        for (Path spool : new Path[] { state.purchases, state.refunds }) {
+            try {
+                Files.deleteIfExists(spool);
+            } catch (IOException e) {
+                log.warn("Could not delete intraday report spool file {}", spool, e);
+            }
+        }
+        state = null;
+    }
+
+    /**
+     * Rendered rows and watermarks of one day.
+     */
+    private static final class IntradayState {
+
+        private final LocalDate day;
+        private final Path purchases;
+        private final Path refunds;
+        private final Watermark purchaseMark = new Watermark();
+        private final Watermark refundMark = new Watermark();
+        // when the spools were started; they are rebuilt once this is rebuild-interval old
+        private final LocalDateTime builtAt;
+        private LocalDateTime refreshedAt;
+
+        IntradayState(LocalDate day, LocalDateTime builtAt) throws IOException {
+            this.day = day;
+            this.builtAt = builtAt;
+            this.purchases = Files.createTempFile("intraday-purchases-", ".html");
+            this.refunds = Files.createTempFile("intraday-refunds-", ".html");
+            this.refreshedAt = day.atStartOfDay();
+        }
+    }
+
+    /**
+     * Highest id read from a table, plus the ids of rendered rows still inside the overlap, so
+     * reading them again is a no-op.
+     */
+    private static final class Watermark {
+
+        private long lastId;
+        private final Map<Long, LocalDateTime> recent = new HashMap<>();
+
+        boolean accept(Long id, LocalDateTime date, LocalDateTime keepSince) {
+            if (recent.containsKey(id)) {
+                return false;
+            }
+            lastId = Math.max(lastId, id);
+            if (!date.isBefore(keepSince)) {
+                recent.put(id, date);
+            }
+            return true;
+        }
+
+        void forgetBefore(LocalDateTime keepSince) {
+            recent.values().removeIf(date -> date.isBefore(keepSince));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.purchase.management.service.impl;
+
+import com.example.purchase.management.model.CursorPage;
+import com.example.purchase.management.model.TransactionFilter;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Keyset pagination shared by the list endpoints. A page is the rows after the previous page's
+ * last key, never an offset, so every page is one index range scan however deep it is.
+ * Customers and products are keyed by id; purchases and refunds by date then id.
+ * <p>
+ * Cursors are the last key, base64url-encoded; clients must treat them as opaque.
+ */
+final class KeysetPage {
+
+    static final int MAX_LIMIT = 1000;
+
+    static final Sort BY_DATE_AND_ID = Sort.by("date", "id");
+
+    private KeysetPage() {
+    }
+
+    // One row more than asked for, to tell whether there is a next page without counting
+    static Limit fetchLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        return Limit.of(limit + 1);
+    }
+
+    static long decodeId(String cursor) {
+        if (cursor == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(decode(cursor));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    static String encodeId(long id) {
+        return encode(String.valueOf(id));
+    }
+
+    // Purchases and refunds after the cursor's (date, id) that match the filter, for a BY_DATE_AND_ID scan
+    static <T> Specification<T> transactionsAfter(TransactionFilter filter, String cursor) {
+        if (filter.getFrom() != null && filter.getTo() != null && filter.getFrom().isAfter(filter.getTo())) {
+            throw new IllegalArgumentException("From must not be after to");
+        }
+        DateKey after = cursor != null ? DateKey.decode(cursor) : null;
+        return (root, query, cb) -> {
+            Path<LocalDateTime> date = root.get("date");
+            List<Predicate> predicates = new ArrayList<>();
+            if (filter.getFrom() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(date, filter.getFrom().atStartOfDay()));
+            }
+            if (filter.getTo() != null) {
+                predicates.add(cb.lessThan(date, filter.getTo().plusDays(1).atStartOfDay()));
+            }
+            if (filter.getCustomerId() != null) {
+                predicates.add(cb.equal(root.get("customer").get("id"), filter.getCustomerId()));
+            }
+            if (filter.getProductId() != null) {
+                predicates.add(cb.equal(root.get("product").get("id"), filter.getProductId()));
+            }
+            if (after != null) {
+                // (date, id) > (after.date, after.id), with the date bound alone usable as an index range
+                predicates.add(cb.greaterThanOrEqualTo(date, after.date()));
+                predicates.add(cb.or(cb.greaterThan(date, after.date()), cb.greaterThan(root.get("id"), after.id())));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    static String encodeDateKey(LocalDateTime date, long id) {
+        return encode(date + "|" + id);
+    }
+
+    // Drops the extra row fetched by fetchLimit and turns the last row kept into the next cursor
+    static <T> CursorPage<T> of(List<T> rows, int limit, Function<T, String> cursorOf) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new CursorPage<>(List.copyOf(items), cursorOf.apply(items.get(limit - 1)));
+    }
+
+    private static String encode(String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    private record DateKey(LocalDateTime date, long id) {
+
+        static DateKey decode(String cursor) {
+            String key = KeysetPage.decode(cursor);
+            int separator = key.indexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            try {
+                return new DateKey(LocalDateTime.parse(key.substring(0, separator)), Long.parseLong(key.substring(separator + 1)));
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+    }
+}
@@ -1,29 +1,44 @@
 package com.example.purchase.management.service.impl;
 
+import com.example.purchase.management.config.CatalogProperties;
 import com.example.purchase.management.entity.Product;
+import com.example.purchase.management.event.ProductsChangedEvent;
+import com.example.purchase.management.model.CursorPage;
+import com.example.purchase.management.model.ProductCatalog;
 import com.example.purchase.management.repository.ProductRepository;
 import com.example.purchase.management.service.ProductService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class ProductServiceImpl implements ProductService {
     
     private final ProductRepository productRepository;
+    private final ObjectMapper objectMapper;
+    private final CatalogProperties catalogProperties;
+
+    // Moved past every product write on this instance; a catalog read at an older version is stale
+    private final AtomicLong catalogVersion = new AtomicLong();
+    private final AtomicReference<LoadedCatalog> catalog = new AtomicReference<>();
 
 
     @Override
     public Product createProduct(Product product) {
-        if (product.getName() == null || product.getName().trim().isEmpty()) {
-            throw new IllegalArgumentException("Product name is required");
-        }
-        if (product.getPrice() == null || product.getPrice() <= 0) {
-            throw new IllegalArgumentException("Valid price is required");
-        }
-        return productRepository.save(product);
+        validate(product);
+        Product saved = productRepository.save(product);
+        catalogVersion.incrementAndGet();
+        return saved;
     }
 
     @Override
@@ -38,7 +53,9 @@ public class ProductServiceImpl implements ProductService {
             .map(existingProduct -> {
                 existingProduct.setName(product.getName());
                 existingProduct.setPrice(product.getPrice());
-                return productRepository.save(existingProduct);
+                Product saved = productRepository.save(existingProduct);
+                catalogVersion.incrementAndGet();
+                return saved;
             })
             .orElseThrow(() -> new EntityNotFoundException("Product not found"));
     }
@@ -49,6 +66,7 @@ public class ProductServiceImpl implements ProductService {
             throw new EntityNotFoundException("Product not found");
         }
         productRepository.deleteById(id);
+        catalogVersion.incrementAndGet();
     }
 
     @Override
@@ -56,4 +74,59 @@ public class ProductServiceImpl implements ProductService {
         return productRepository.findAll();
     }
 
+    /**
+     * Serves the product list from memory while no product has been written since it was read,
+     * so polling it costs neither a query nor serialization. The version is read before the
+     * products, so a write racing the read leaves the catalog already stale and the next call
+     * reads it again. Writes made by other instances or straight in the database don't move the
+     * version, so the list is also read again once older than {@code catalog.cache.ttl}.
+     */
+    @Override
+    public ProductCatalog getProductCatalog() {
+        long version = catalogVersion.get();
+        LoadedCatalog cached = catalog.get();
+        if (cached != null && cached.catalog().getVersion() == version
+                && System.nanoTime() - cached.loadedAt() < catalogProperties.getCache().getTtl().toNanos()) {
+            return cached.catalog();
+        }
+
+        List<Product> products = productRepository.findAllByOrderByIdAsc();
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(products);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize product catalog: ", e);
+            throw new RuntimeException("Failed to serialize product catalog", e);
+        }
+        ProductCatalog loaded = new ProductCatalog(version, products.size(), DigestUtils.md5DigestAsHex(json), json);
+        // keep whichever of concurrent reads saw the latest version
+        catalog.accumulateAndGet(new LoadedCatalog(loaded, System.nanoTime()), (current, next) ->
+                current != null && current.catalog().getVersion() > next.catalog().getVersion() ? current : next);
+        return loaded;
+    }
+
+    @Override
+    public CursorPage<Product> getProducts(String cursor, int limit) {
+        List<Product> rows = productRepository.findByIdGreaterThanOrderById(KeysetPage.decodeId(cursor),
+                KeysetPage.fetchLimit(limit));
+        return KeysetPage.of(rows, limit, product -> KeysetPage.encodeId(product.getId()));
+    }
+
+    @EventListener
+    public void onProductsChanged(ProductsChangedEvent event) {
+        catalogVersion.incrementAndGet();
+    }
+
+    // The checks a new product must pass, shared with the CSV import
+    static void validate(Product product) {
+        if (product.getName() == null || product.getName().trim().isEmpty()) {
+            throw new IllegalArgumentException("Product name is required");
+        }
+        if (product.getPrice() == null || product.getPrice() <= 0) {
+            throw new IllegalArgumentException("Valid price is required");
+        }
+    }
+
+    private record LoadedCatalog(ProductCatalog catalog, long loadedAt) {
+    }
 }
@@ -1,27 +1,77 @@
 package com.example.purchase.management.service.impl;
 
+import com.example.purchase.management.entity.Customer;
+import com.example.purchase.management.entity.Product;
 import com.example.purchase.management.entity.Purchase;
+import com.example.purchase.management.model.BatchResult;
+import com.example.purchase.management.model.CursorPage;
+import com.example.purchase.management.model.TransactionFilter;
+import com.example.purchase.management.event.TransactionRecordedEvent;
 import com.example.purchase.management.repository.PurchaseRepository;
 import com.example.purchase.management.repository.CustomerRepository;
 import com.example.purchase.management.repository.ProductRepository;
 import com.example.purchase.management.service.PurchaseService;
+import com.example.purchase.management.service.RollupService;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.criteria.JoinType;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class PurchaseServiceImpl implements PurchaseService {
 
+    private static final int MAX_BATCH_SIZE = 10_000;
+
+    // Purchases inserted between flushes; matches hibernate.jdbc.batch_size, so each flush is one JDBC batch
+    private static final int FLUSH_INTERVAL = 500;
+
+    // Ids per IN query when looking up a batch's customers and products
+    private static final int LOOKUP_CHUNK = 1000;
+
+    // Foreign keys from purchases to their customer and product, named in Purchase
+    private static final List<String> Catalog_Keys = List.of("fk_purchases_customer", "fk_purchases_product");
+
     private final PurchaseRepository purchaseRepository;
     private final CustomerRepository customerRepository;
     private final ProductRepository productRepository;
+    private final RollupService rollupService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
 
+    /**
+     * Creates one purchase with a single insert. The customer and product are found by id, which
+     * the second-level cache serves without a select for hot ones; the insert only needs their ids.
+     * Should one have been deleted through another instance since it was cached, the foreign key
+     * rejects the insert, the stale entry is evicted and the purchase is still refused as not found.
+     */
     @Override
+    @Transactional
     public Purchase createPurchase(Purchase purchase) {
         // Validate and get complete customer
         var customer = customerRepository.findById(purchase.getCustomer().getId())
@@ -35,12 +85,101 @@ public class PurchaseServiceImpl implements PurchaseService {
         if (purchase.getAmount() == null || purchase.getAmount() <= 0) {
             throw new IllegalArgumentException("Valid amount is required");
         }
+        if (purchase.getDate() == null) {
+            throw new IllegalArgumentException("Date is required");
+        }
 
         // Set complete objects
         purchase.setCustomer(customer);
         purchase.setProduct(product);
 
-        return purchaseRepository.save(purchase);
+        Purchase saved;
+        try {
+            saved = purchaseRepository.save(purchase);
+            // flush now so a stale cache entry fails here, as a foreign key violation
+            purchaseRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            if (!violatesCatalogKey(e)) {
+                throw e;
+            }
+            log.warn("Purchase refused for customer {} and product {}: ", customer.getId(), product.getId(), e);
+            Cache cache = entityManager.getEntityManagerFactory().getCache();
+            cache.evict(Customer.class, customer.getId());
+            cache.evict(Product.class, product.getId());
+            throw new EntityNotFoundException("Customer or product not found");
+        }
+        rollupService.recordPurchase(saved);
+        eventPublisher.publishEvent(new TransactionRecordedEvent(saved.getDate()));
+        return saved;
+    }
+
+    /**
+     * Creates a batch of purchases in one transaction. Customers and products are loaded with one
+     * IN query per thousand ids instead of two lookups per purchase, and the rollups get one update
+     * per day, product and customer. Saved purchases are flushed and detached every
+     * {@code FLUSH_INTERVAL} rows, so the persistence context stays small however big the batch.
+     */
+    @Override
+    @Transactional
+    public BatchResult createPurchases(List<Purchase> purchases) {
+        if (purchases == null || purchases.isEmpty()) {
+            throw new IllegalArgumentException("At least one purchase is required");
+        }
+        if (purchases.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_SIZE + " purchases are allowed per batch");
+        }
+
+        Map<Long, Customer> customers = findAllById(customerRepository,
+                idsOf(purchases, purchase -> purchase.getCustomer() != null ? purchase.getCustomer().getId() : null),
+                Customer::getId);
+        Map<Long, Product> products = findAllById(productRepository,
+                idsOf(purchases, purchase -> purchase.getProduct() != null ? purchase.getProduct().getId() : null),
+                Product::getId);
+
+        BatchResult.Item[] items = new BatchResult.Item[purchases.size()];
+        List<Purchase> saved = new ArrayList<>(purchases.size());
+        for (int i = 0; i < purchases.size(); i++) {
+            Purchase purchase = purchases.get(i);
+            Customer customer = purchase.getCustomer() != null ? customers.get(purchase.getCustomer().getId()) : null;
+            Product product = purchase.getProduct() != null ? products.get(purchase.getProduct().getId()) : null;
+
+            if (customer == null) {
+                items[i] = BatchResult.Item.rejected(i, "Customer not found");
+            } else if (product == null) {
+                items[i] = BatchResult.Item.rejected(i, "Product not found");
+            } else if (purchase.getAmount() == null || purchase.getAmount() <= 0) {
+                items[i] = BatchResult.Item.rejected(i, "Valid amount is required");
+            } else if (purchase.getDate() == null) {
+                items[i] = BatchResult.Item.rejected(i, "Date is required");
+            } else {
+                purchase.setId(null);
+                purchase.setCustomer(customer);
+                purchase.setProduct(product);
+                // the id comes from the pooled sequence at persist, not from the insert
+                entityManager.persist(purchase);
+                items[i] = BatchResult.Item.created(i, purchase.getId());
+                saved.add(purchase);
+
+                if (saved.size() % FLUSH_INTERVAL == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        if (!saved.isEmpty()) {
+            rollupService.recordPurchases(saved);
+            // one event per day touched, spanning that day's first to last purchase
+            TransactionRecordedEvent.perDay(saved.stream().map(Purchase::getDate).toList())
+                    .forEach(eventPublisher::publishEvent);
+        }
+
+        BatchResult result = BatchResult.of(Arrays.asList(items));
+        log.info("Created {} of {} purchases in batch, {} rejected", result.getCreated(), result.getReceived(),
+                result.getRejected());
+        return result;
     }
 
     @Override
@@ -48,6 +187,16 @@ public class PurchaseServiceImpl implements PurchaseService {
         return purchaseRepository.findAll();
     }
 
+    @Override
+    public CursorPage<Purchase> getPurchases(TransactionFilter filter, String cursor, int limit) {
+        Limit fetchLimit = KeysetPage.fetchLimit(limit);
+        Specification<Purchase> page = KeysetPage.<Purchase>transactionsAfter(filter, cursor)
+                .and(withCustomerAndProduct());
+        List<Purchase> rows = purchaseRepository.findBy(page,
+                query -> query.sortBy(KeysetPage.BY_DATE_AND_ID).limit(fetchLimit.max()).all());
+        return KeysetPage.of(rows, limit, purchase -> KeysetPage.encodeDateKey(purchase.getDate(), purchase.getId()));
+    }
+
     @Override
     public List<Purchase> getYesterdayPurchases() {
         LocalDateTime start = LocalDate.now().minusDays(1).atStartOfDay();
@@ -60,5 +209,52 @@ public class PurchaseServiceImpl implements PurchaseService {
         return purchaseRepository.findAllByDateBetween(start, end);
 }
 
+    @Override
+    public Stream<Purchase> streamPurchasesBetween(LocalDateTime start, LocalDateTime end) {
+        return purchaseRepository.streamReportRowsByDateBetween(start, end);
+    }
+
+    // Only a violated customer or product key means either is gone; anything else is not the caller's 404
+    private static boolean violatesCatalogKey(DataIntegrityViolationException e) {
+        if (!(e.getCause() instanceof ConstraintViolationException violation)) {
+            return false;
+        }
+        // Hibernate leaves the name out for batched statements, but the driver's message has it on
+        // PostgreSQL and H2 alike, there upper-cased
+        return Stream.of(violation.getConstraintName(), violation.getSQLException().getMessage())
+                .filter(Objects::nonNull)
+                .map(text -> text.toLowerCase(Locale.ROOT))
+                .anyMatch(text -> Catalog_Keys.stream().anyMatch(text::contains));
+    }
+
+    // Customer and product in the page's own statement rather than one select each
+    private static Specification<Purchase> withCustomerAndProduct() {
+        return (root, query, cb) -> {
+            root.fetch("customer", JoinType.LEFT);
+            root.fetch("product", JoinType.LEFT);
+            return null;
+        };
+    }
+
+    private static Set<Long> idsOf(List<Purchase> purchases, Function<Purchase, Long> id) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (Purchase purchase : purchases) {
+            ids.add(id.apply(purchase));
+        }
+        ids.remove(null);
+        return ids;
+    }
+
+    private static <T> Map<Long, T> findAllById(JpaRepository<T, Long> repository, Set<Long> ids, Function<T, Long> id) {
+        Map<Long, T> found = new HashMap<>();
+        List<Long> remaining = new ArrayList<>(ids);
+        for (int from = 0; from < remaining.size(); from += LOOKUP_CHUNK) {
+            for (T entity : repository.findAllById(remaining.subList(from, Math.min(from + LOOKUP_CHUNK, remaining.size())))) {
+                found.put(id.apply(entity), entity);
+            }
+        }
+        return found;
+    }
+
     
 }
\ No newline at end of file
@@ -2,26 +2,69 @@ package com.example.purchase.management.service.impl;
 
 import com.example.purchase.management.entity.Purchase;
 import com.example.purchase.management.entity.Refund;
+import com.example.purchase.management.event.TransactionRecordedEvent;
+import com.example.purchase.management.model.BatchResult;
+import com.example.purchase.management.model.CursorPage;
+import com.example.purchase.management.model.TransactionFilter;
 import com.example.purchase.management.repository.RefundRepository;
 import com.example.purchase.management.repository.PurchaseRepository;
 import com.example.purchase.management.service.RefundService;
+import com.example.purchase.management.service.RollupService;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.criteria.Fetch;
+import jakarta.persistence.criteria.JoinType;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class RefundServiceImpl implements RefundService {
-    
+
+    private static final int MAX_BATCH_SIZE = 100_000;
+
+    // Refunds validated and written per transaction; also the size of each IN query
+    private static final int CHUNK_SIZE = 1000;
+
+    // Refunds inserted between flushes; matches hibernate.jdbc.batch_size, so each flush is one JDBC batch
+    private static final int FLUSH_INTERVAL = 500;
+
     private final RefundRepository refundRepository;
     private final PurchaseRepository purchaseRepository;
+    private final RollupService rollupService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
 
+    /**
+     * Creates one refund with a select and an insert. Unlike a purchase's customer and product, the
+     * purchase cannot be a bare reference: the refund is checked against its amount and takes its
+     * customer and product, so it is read, with both in the same statement; purchases are not in
+     * the second-level cache. WritePathStatementCountTest pins both write paths' statement counts.
+     */
     @Override
+    @Transactional
     public Refund createRefund(Refund refund) {
         // Validate and get complete purchase
         var purchase = purchaseRepository.findById(refund.getPurchase().getId())
@@ -32,13 +75,121 @@ public class RefundServiceImpl implements RefundService {
             refund.getAmount() > purchase.getAmount()) {
             throw new IllegalArgumentException("Invalid refund amount");
         }
+        if (refund.getDate() == null) {
+            throw new IllegalArgumentException("Date is required");
+        }
         
         // Set all details from purchase
         refund.setPurchase(purchase);  
         refund.setCustomer(purchase.getCustomer());
         refund.setProduct(purchase.getProduct());
         
-        return refundRepository.save(refund);
+        Refund saved = refundRepository.save(refund);
+        rollupService.recordRefund(saved);
+        eventPublisher.publishEvent(new TransactionRecordedEvent(saved.getDate()));
+        return saved;
+    }
+
+    /**
+     * Creates a batch of refunds, such as a payment provider's nightly file, one transaction per
+     * {@code CHUNK_SIZE} rows. Each chunk loads its purchases and their existing refunds with one
+     * query each and validates in memory; a purchase can be refunded once, so a second refund of
+     * it, in the batch or already stored, is rejected. A chunk that fails to save rejects its rows
+     * without undoing the chunks before it.
+     */
+    @Override
+    public BatchResult createRefunds(List<Refund> refunds) {
+        if (refunds == null || refunds.isEmpty()) {
+            throw new IllegalArgumentException("At least one refund is required");
+        }
+        if (refunds.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_SIZE + " refunds are allowed per batch");
+        }
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        BatchResult.Item[] items = new BatchResult.Item[refunds.size()];
+        Set<Long> refundedInBatch = new HashSet<>();
+        for (int from = 0; from < refunds.size(); from += CHUNK_SIZE) {
+            int start = from;
+            int end = Math.min(from + CHUNK_SIZE, refunds.size());
+            Set<Long> refundedInChunk = new HashSet<>();
+            List<Refund> saved;
+            try {
+                saved = transaction.execute(status ->
+                        createChunk(refunds, start, end, items, refundedInBatch, refundedInChunk));
+            } catch (RuntimeException e) {
+                log.error("Failed to save refunds {} to {} of batch", start, end - 1, e);
+                for (int i = start; i < end; i++) {
+                    if (items[i] == null || items[i].getError() == null) {
+                        items[i] = BatchResult.Item.rejected(i, "Failed to save refund");
+                    }
+                }
+                continue;
+            }
+            refundedInBatch.addAll(refundedInChunk);
+            // the chunk has committed, so its rows stay created whatever a listener does; one event
+            // per day touched, spanning that day's first to last refund
+            publishPerDay(saved);
+        }
+
+        BatchResult result = BatchResult.of(Arrays.asList(items));
+        log.info("Created {} of {} refunds in batch, {} rejected", result.getCreated(), result.getReceived(),
+                result.getRejected());
+        return result;
+    }
+
+    // Validates and writes refunds [start, end) inside the caller's transaction, returning the saved ones
+    private List<Refund> createChunk(List<Refund> refunds, int start, int end, BatchResult.Item[] items,
+                                     Set<Long> refundedInBatch, Set<Long> refundedInChunk) {
+        List<Refund> chunk = refunds.subList(start, end);
+        Set<Long> purchaseIds = chunk.stream()
+                .filter(refund -> refund.getPurchase() != null && refund.getPurchase().getId() != null)
+                .map(refund -> refund.getPurchase().getId())
+                .collect(Collectors.toSet());
+        Map<Long, Purchase> purchases = purchaseIds.isEmpty() ? Map.of()
+                : purchaseRepository.findAllWithCustomerAndProductByIdIn(purchaseIds).stream()
+                        .collect(Collectors.toMap(Purchase::getId, Function.identity()));
+        Set<Long> alreadyRefunded = purchaseIds.isEmpty() ? Set.of()
+                : new HashSet<>(refundRepository.findRefundedPurchaseIds(purchaseIds));
+
+        List<Refund> saved = new ArrayList<>(chunk.size());
+        for (int i = start; i < end; i++) {
+            Refund refund = refunds.get(i);
+            Purchase purchase = refund.getPurchase() != null ? purchases.get(refund.getPurchase().getId()) : null;
+
+            if (purchase == null) {
+                items[i] = BatchResult.Item.rejected(i, "Purchase not found");
+            } else if (alreadyRefunded.contains(purchase.getId())) {
+                items[i] = BatchResult.Item.rejected(i, "Purchase already refunded");
+            } else if (refundedInBatch.contains(purchase.getId()) || refundedInChunk.contains(purchase.getId())) {
+                items[i] = BatchResult.Item.rejected(i, "Duplicate refund in batch");
+            } else if (refund.getAmount() == null || refund.getAmount() <= 0
+                    || refund.getAmount() > purchase.getAmount()) {
+                items[i] = BatchResult.Item.rejected(i, "Invalid refund amount");
+            } else if (refund.getDate() == null) {
+                items[i] = BatchResult.Item.rejected(i, "Date is required");
+            } else {
+                refund.setId(null);
+                refund.setPurchase(purchase);
+                refund.setCustomer(purchase.getCustomer());
+                refund.setProduct(purchase.getProduct());
+                entityManager.persist(refund);
+                items[i] = BatchResult.Item.created(i, refund.getId());
+                refundedInChunk.add(purchase.getId());
+                saved.add(refund);
+
+                if (saved.size() % FLUSH_INTERVAL == 0) {
+                    entityManager.flush();
+                }
+            }
+        }
+
+        if (!saved.isEmpty()) {
+            rollupService.recordRefunds(saved);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return saved;
     }
 
     @Override
@@ -46,6 +197,16 @@ public class RefundServiceImpl implements RefundService {
         return refundRepository.findAll();
     }
 
+    @Override
+    public CursorPage<Refund> getRefunds(TransactionFilter filter, String cursor, int limit) {
+        Limit fetchLimit = KeysetPage.fetchLimit(limit);
+        Specification<Refund> page = KeysetPage.<Refund>transactionsAfter(filter, cursor)
+                .and(withAssociations());
+        List<Refund> rows = refundRepository.findBy(page,
+                query -> query.sortBy(KeysetPage.BY_DATE_AND_ID).limit(fetchLimit.max()).all());
+        return KeysetPage.of(rows, limit, refund -> KeysetPage.encodeDateKey(refund.getDate(), refund.getId()));
+    }
+
     @Override
     public List<Refund> getYesterdayRefunds() {
         LocalDateTime start = LocalDate.now().minusDays(1).atStartOfDay();
@@ -57,4 +218,32 @@ public class RefundServiceImpl implements RefundService {
     public List<Refund> getRefundBetween(LocalDateTime start, LocalDateTime end) {
         return refundRepository.findAllByDateBetween(start, end);
     }
+
+    @Override
+    public Stream<Refund> streamRefundsBetween(LocalDateTime start, LocalDateTime end) {
+        return refundRepository.streamReportRowsByDateBetween(start, end);
+    }
+
+    private void publishPerDay(List<Refund> saved) {
+        List<LocalDateTime> dates = saved.stream().map(Refund::getDate).toList();
+        for (TransactionRecordedEvent event : TransactionRecordedEvent.perDay(dates)) {
+            try {
+                eventPublisher.publishEvent(event);
+            } catch (RuntimeException e) {
+                log.error("Failed to publish {} for saved refunds: ", event, e);
+            }
+        }
+    }
+
+    // Every eager association, as in the report queries, so a page is one statement
+    private static Specification<Refund> withAssociations() {
+        return (root, query, cb) -> {
+            root.fetch("customer", JoinType.LEFT);
+            root.fetch("product", JoinType.LEFT);
+            Fetch<Refund, Purchase> purchase = root.fetch("purchase", JoinType.LEFT);
+            purchase.fetch("customer", JoinType.LEFT);
+            purchase.fetch("product", JoinType.LEFT);
+            return null;
+        };
+    }
 }
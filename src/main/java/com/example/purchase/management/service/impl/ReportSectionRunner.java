@@ -0,0 +1,147 @@
+package com.example.purchase.management.service.impl;
+
+import com.example.purchase.management.config.ReportProperties;
+import com.example.purchase.management.report.ReportSection;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Renders report sections concurrently, one virtual thread and one read-only transaction each,
+ * and writes them to the sink in their original order.
+ * <p>
+ * The first section streams straight into the sink; the others are spooled to temporary files
+ * so memory stays flat however large they get. If any section fails or runs past its timeout
+ * (or the overall report deadline), the remaining ones are cancelled and nothing outlives the call.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReportSectionRunner {
+
+    private final PlatformTransactionManager transactionManager;
+    private final ReportProperties reportProperties;
+
+    public void render(List<ReportSection> sections, OutputStream out) throws Exception {
+        Instant deadline = Instant.now().plus(reportProperties.getDeadline());
+        List<Path> spools = new ArrayList<>();
+        try {
+            for (int i = 1; i < sections.size(); i++) {
+                spools.add(Files.createTempFile("report-section-", ".html"));
+            }
+
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                CompletionService<Integer> completion = new ExecutorCompletionService<>(executor);
+                List<Future<Integer>> futures = new ArrayList<>();
+                Instant[] sectionDeadlines = new Instant[sections.size()];
+
+                for (int i = 0; i < sections.size(); i++) {
+                    int index = i;
+                    sectionDeadlines[i] = earliest(Instant.now().plus(reportProperties.getSectionTimeout()), deadline);
+                    futures.add(completion.submit(() -> {
+                        renderSection(sections.get(index), index == 0 ? out : null,
+                                index == 0 ? null : spools.get(index - 1), sectionDeadlines[index]);
+                        return index;
+                    }));
+                }
+
+                try {
+                    awaitAll(sections, completion, sectionDeadlines);
+                } catch (Exception e) {
+                    log.warn("Cancelling remaining report sections: {}", e.toString());
+                    futures.forEach(future -> future.cancel(true));
+                    throw e;
+                }
+            }
+
+            for (Path spool : spools) {
+                Files.copy(spool, out);
+            }
+            out.flush();
+        } finally {
+            for (Path spool : spools) {
+                Files.deleteIfExists(spool);
+            }
+        }
+    }
+
+    private void renderSection(ReportSection section, OutputStream direct, Path spool, Instant sectionDeadline)
+            throws IOException {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        // Spring turns the transaction timeout into a JDBC query timeout, so a slow query
+        // is cancelled in the database too, not just abandoned by this thread
+        transaction.setTimeout((int) Math.max(1, Duration.between(Instant.now(), sectionDeadline).toSeconds()));
+
+        if (direct != null) {
+            writeInTransaction(transaction, section, direct);
+            return;
+        }
+        try (OutputStream sink = new BufferedOutputStream(Files.newOutputStream(spool))) {
+            writeInTransaction(transaction, section, sink);
+        }
+    }
+
+    private void writeInTransaction(TransactionTemplate transaction, ReportSection section, OutputStream sink) {
+        transaction.executeWithoutResult(status -> {
+            try {
+                section.content().writeTo(sink);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void awaitAll(List<ReportSection> sections, CompletionService<Integer> completion,
+                          Instant[] sectionDeadlines) throws Exception {
+        boolean[] finished = new boolean[sections.size()];
+        for (int remaining = sections.size(); remaining > 0; remaining--) {
+            int nextDue = -1;
+            for (int i = 0; i < sections.size(); i++) {
+                if (!finished[i] && (nextDue < 0 || sectionDeadlines[i].isBefore(sectionDeadlines[nextDue]))) {
+                    nextDue = i;
+                }
+            }
+
+            long waitNanos = Math.max(0, Duration.between(Instant.now(), sectionDeadlines[nextDue]).toNanos());
+            Future<Integer> done = completion.poll(waitNanos, TimeUnit.NANOSECONDS);
+            if (done == null) {
+                throw new TimeoutException("Report section '" + sections.get(nextDue).name() + "' did not finish in time");
+            }
+
+            try {
+                finished[done.get()] = true;
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof Exception cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+    }
+
+    private static Instant earliest(Instant a, Instant b) {
+        return a.isBefore(b) ? a : b;
+    }
+}
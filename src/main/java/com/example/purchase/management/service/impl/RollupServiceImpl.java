@@ -0,0 +1,184 @@
+package com.example.purchase.management.service.impl;
+
+import com.example.purchase.management.entity.DailyTransactionRollup;
+import com.example.purchase.management.entity.Purchase;
+import com.example.purchase.management.entity.Refund;
+import com.example.purchase.management.model.DailyProductSummary;
+import com.example.purchase.management.model.DailyTotals;
+import com.example.purchase.management.repository.CustomerRepository;
+import com.example.purchase.management.repository.DailyTransactionRollupRepository;
+import com.example.purchase.management.repository.ProductRepository;
+import com.example.purchase.management.repository.PurchaseRepository;
+import com.example.purchase.management.repository.RefundRepository;
+import com.example.purchase.management.service.RollupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RollupServiceImpl implements RollupService {
+
+    private final DailyTransactionRollupRepository rollupRepository;
+    private final PurchaseRepository purchaseRepository;
+    private final RefundRepository refundRepository;
+    private final ProductRepository productRepository;
+    private final CustomerRepository customerRepository;
+
+    @Override
+    @Transactional
+    public void recordPurchase(Purchase purchase) {
+        LocalDate day = purchase.getDate().toLocalDate();
+        Long productId = purchase.getProduct().getId();
+        Long customerId = purchase.getCustomer().getId();
+
+        if (rollupRepository.addPurchase(day, productId, customerId, purchase.getAmount()) == 0) {
+            DailyTransactionRollup rollup = newRollup(new RollupKey(day, productId, customerId));
+            addPurchases(rollup, 1, purchase.getAmount());
+            if (!rollupRepository.insertIfAbsent(rollup)) {
+                // another transaction created the row since the update above
+                rollupRepository.addPurchase(day, productId, customerId, purchase.getAmount());
+            }
+        }
+    }
+
+    @Override
+    @Transactional
+    public void recordRefund(Refund refund) {
+        LocalDate day = refund.getDate().toLocalDate();
+        Long productId = refund.getPurchase().getProduct().getId();
+        Long customerId = refund.getPurchase().getCustomer().getId();
+
+        if (rollupRepository.addRefund(day, productId, customerId, refund.getAmount()) == 0) {
+            DailyTransactionRollup rollup = newRollup(new RollupKey(day, productId, customerId));
+            addRefunds(rollup, 1, refund.getAmount());
+            if (!rollupRepository.insertIfAbsent(rollup)) {
+                rollupRepository.addRefund(day, productId, customerId, refund.getAmount());
+            }
+        }
+    }
+
+    @Override
+    @Transactional
+    public void recordPurchases(List<Purchase> purchases) {
+        Map<RollupKey, Totals> totals = new LinkedHashMap<>();
+        for (Purchase purchase : purchases) {
+            RollupKey key = new RollupKey(purchase.getDate().toLocalDate(), purchase.getProduct().getId(),
+                    purchase.getCustomer().getId());
+            totals.computeIfAbsent(key, k -> new Totals()).add(purchase.getAmount());
+        }
+
+        for (Map.Entry<RollupKey, Totals> entry : totals.entrySet()) {
+            RollupKey key = entry.getKey();
+            Totals added = entry.getValue();
+            if (rollupRepository.addPurchases(key.day(), key.productId(), key.customerId(), added.count, added.amount) == 0) {
+                DailyTransactionRollup rollup = newRollup(key);
+                addPurchases(rollup, added.count, added.amount);
+                // losing the insert to a concurrent writer must not roll back the whole batch
+                if (!rollupRepository.insertIfAbsent(rollup)) {
+                    rollupRepository.addPurchases(key.day(), key.productId(), key.customerId(), added.count, added.amount);
+                }
+            }
+        }
+    }
+
+    @Override
+    @Transactional
+    public void recordRefunds(List<Refund> refunds) {
+        Map<RollupKey, Totals> totals = new LinkedHashMap<>();
+        for (Refund refund : refunds) {
+            RollupKey key = new RollupKey(refund.getDate().toLocalDate(), refund.getPurchase().getProduct().getId(),
+                    refund.getPurchase().getCustomer().getId());
+            totals.computeIfAbsent(key, k -> new Totals()).add(refund.getAmount());
+        }
+
+        for (Map.Entry<RollupKey, Totals> entry : totals.entrySet()) {
+            RollupKey key = entry.getKey();
+            Totals added = entry.getValue();
+            if (rollupRepository.addRefunds(key.day(), key.productId(), key.customerId(), added.count, added.amount) == 0) {
+                DailyTransactionRollup rollup = newRollup(key);
+                addRefunds(rollup, added.count, added.amount);
+                // losing the insert to a concurrent writer must not roll back the whole batch
+                if (!rollupRepository.insertIfAbsent(rollup)) {
+                    rollupRepository.addRefunds(key.day(), key.productId(), key.customerId(), added.count, added.amount);
+                }
+            }
+        }
+    }
+
+    @Override
+    @Transactional
+    public void rebuild(LocalDate from, LocalDate to) {
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+
+        int removed = rollupRepository.deleteByDayBetween(from, to);
+
+        // Both queries are already grouped in the database, so this map holds one entry per
+        // day, product and customer rather than one per transaction
+        Map<RollupKey, DailyTransactionRollup> rollups = new LinkedHashMap<>();
+        for (DailyTotals totals : purchaseRepository.sumDailyTotalsBetween(start, end)) {
+            addPurchases(rollups.computeIfAbsent(keyOf(totals), this::newRollup), totals.getCount(), totals.getAmount());
+        }
+        for (DailyTotals totals : refundRepository.sumDailyTotalsBetween(start, end)) {
+            addRefunds(rollups.computeIfAbsent(keyOf(totals), this::newRollup), totals.getCount(), totals.getAmount());
+        }
+
+        rollupRepository.saveAll(rollups.values());
+        log.info("Rebuilt transaction rollups for {} to {}: removed {}, wrote {}", from, to, removed, rollups.size());
+    }
+
+    @Override
+    public List<DailyProductSummary> getDailySummary(LocalDateTime start, LocalDateTime end) {
+        LocalDate lastDay = end.toLocalTime().equals(LocalTime.MIDNIGHT)
+                ? end.toLocalDate().minusDays(1)
+                : end.toLocalDate();
+        return rollupRepository.summarizeByDayAndProduct(start.toLocalDate(), lastDay);
+    }
+
+    private DailyTransactionRollup newRollup(RollupKey key) {
+        DailyTransactionRollup rollup = new DailyTransactionRollup();
+        rollup.setDay(key.day());
+        rollup.setProduct(productRepository.getReferenceById(key.productId()));
+        rollup.setCustomer(customerRepository.getReferenceById(key.customerId()));
+        return rollup;
+    }
+
+    private static void addPurchases(DailyTransactionRollup rollup, long count, double amount) {
+        rollup.setPurchaseCount(rollup.getPurchaseCount() + count);
+        rollup.setGrossAmount(rollup.getGrossAmount() + amount);
+        rollup.setNetAmount(rollup.getNetAmount() + amount);
+    }
+
+    private static void addRefunds(DailyTransactionRollup rollup, long count, double amount) {
+        rollup.setRefundCount(rollup.getRefundCount() + count);
+        rollup.setRefundedAmount(rollup.getRefundedAmount() + amount);
+        rollup.setNetAmount(rollup.getNetAmount() - amount);
+    }
+
+    private static RollupKey keyOf(DailyTotals totals) {
+        return new RollupKey(totals.getDay(), totals.getProductId(), totals.getCustomerId());
+    }
+
+    private record RollupKey(LocalDate day, Long productId, Long customerId) {
+    }
+
+    private static final class Totals {
+        private long count;
+        private double amount;
+
+        void add(double value) {
+            count++;
+            amount += value;
+        }
+    }
+}
@@ -1,41 +1,94 @@
 package com.example.purchase.management.service.impl;
 
+import com.example.purchase.management.entity.Purchase;
+import com.example.purchase.management.entity.Refund;
 import com.example.purchase.management.report.ReportGenerator;
+import com.example.purchase.management.report.ReportSection;
 import com.example.purchase.management.service.PurchaseService;
 import com.example.purchase.management.service.RefundService;
 import com.example.purchase.management.service.ReportService;
+import com.example.purchase.management.service.RollupService;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class TransactionReportService implements ReportService {
 
+    // Rows streamed before the persistence context is cleared, so loaded entities
+    // don't pile up in the session for the whole report.
+    private static final int CLEAR_INTERVAL = 500;
+
     private final ReportGenerator reportGenerator;
     private final PurchaseService purchaseService;
     private final RefundService refundService;
+    private final RollupService rollupService;
+    private final EntityManager entityManager;
+    private final ReportSectionRunner sectionRunner;
 
     @Override
     public String generateReport(LocalDateTime start, LocalDateTime end) {
-        try {
-
-            var purchases = purchaseService.getPurchasesBetween(start, end);
-            var refunds = refundService.getRefundBetween(start,end);
+        ByteArrayOutputStream htmlReport = new ByteArrayOutputStream();
+        generateReport(start, end, htmlReport);
+        return htmlReport.toString(StandardCharsets.UTF_8);
+    }
 
-            String htmlReport = reportGenerator.generateReport(purchases, refunds);
+    // Sections are loaded concurrently, each in its own read-only transaction.
+    // The summary comes from the daily rollups, so its cost doesn't grow with the number of transactions.
+    @Override
+    public void generateReport(LocalDateTime start, LocalDateTime end, OutputStream out) {
+        try {
+            reportGenerator.writeHeader(out);
+            sectionRunner.render(List.of(
+                    new ReportSection("summary", sink ->
+                            reportGenerator.writeSummary(rollupService.getDailySummary(start, end), sink)),
+                    new ReportSection("purchases", sink -> {
+                        try (Stream<Purchase> purchases = clearingEvery(CLEAR_INTERVAL, purchaseService.streamPurchasesBetween(start, end))) {
+                            reportGenerator.writePurchases(purchases, sink);
+                        }
+                    }),
+                    new ReportSection("refunds", sink -> {
+                        try (Stream<Refund> refunds = clearingEvery(CLEAR_INTERVAL, refundService.streamRefundsBetween(start, end))) {
+                            reportGenerator.writeRefunds(refunds, sink);
+                        }
+                    })
+            ), out);
+            reportGenerator.writeFooter(out);
 
-            return htmlReport;
-            
         } catch (Exception e) {
             log.error("Failed to generate and send report: ", e);
             throw new RuntimeException("Failed to generate and send report", e);
         }
     }
 
+    @Override
+    public void generateSummary(LocalDateTime start, LocalDateTime end, OutputStream out) {
+        try {
+            reportGenerator.writeSummary(rollupService.getDailySummary(start, end), out);
+        } catch (Exception e) {
+            log.error("Failed to generate report summary: ", e);
+            throw new RuntimeException("Failed to generate report summary", e);
+        }
+    }
+
+    private <T> Stream<T> clearingEvery(int interval, Stream<T> rows) {
+        AtomicLong count = new AtomicLong();
+        return rows.peek(row -> {
+            if (count.incrementAndGet() % interval == 0) {
+                entityManager.clear();
+            }
+        });
+    }
 
-    
-}
\ No newline at end of file
+}
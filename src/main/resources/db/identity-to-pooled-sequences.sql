@@ -0,0 +1,38 @@
+-- Moves an existing PostgreSQL schema from IDENTITY ids to the pooled-lo sequences the entities
+-- now use (see PooledLoSequenceGenerator). Run it once, with every instance of the application
+-- stopped, before starting the version that uses sequences:
+--
+--   psql -d taskdb -v ON_ERROR_STOP=1 -f identity-to-pooled-sequences.sql
+--
+-- Existing ids are kept. Each sequence starts after its table's highest id and increments by the
+-- allocation size, which must equal spring.jpa.properties.purchase-management.id.allocation-size.
+-- To change the allocation size later, stop the application and run
+--   ALTER SEQUENCE public.<table>_seq INCREMENT BY <new size>;
+-- for every sequence below before starting it with the new setting.
+
+BEGIN;
+
+DO $$
+DECLARE
+    allocation_size CONSTANT integer := 50;
+    table_name text;
+    next_id bigint;
+BEGIN
+    FOREACH table_name IN ARRAY ARRAY[
+            'customers', 'products', 'purchases', 'refunds', 'daily_transaction_rollups',
+            'report_runs', 'email_outbox', 'email_outbox_chunks']
+    LOOP
+        -- identity columns, and serial ones from before Hibernate 6
+        EXECUTE format('ALTER TABLE public.%I ALTER COLUMN id DROP IDENTITY IF EXISTS', table_name);
+        EXECUTE format('ALTER TABLE public.%I ALTER COLUMN id DROP DEFAULT', table_name);
+
+        EXECUTE format('SELECT coalesce(max(id), 0) + 1 FROM public.%I', table_name) INTO next_id;
+        EXECUTE format('CREATE SEQUENCE IF NOT EXISTS public.%I', table_name || '_seq');
+        EXECUTE format('ALTER SEQUENCE public.%I INCREMENT BY %s MINVALUE 1 RESTART WITH %s',
+                table_name || '_seq', allocation_size, next_id);
+
+        RAISE NOTICE '%: ids continue from %', table_name, next_id;
+    END LOOP;
+END $$;
+
+COMMIT;
@@ -0,0 +1,27 @@
+-- Indexes for the keyset-paginated GET /purchase and GET /refund, which page through rows in
+-- (created_date, id) order, optionally for a single customer or product. New schemas get them
+-- from the entities. On an existing PostgreSQL schema run this once before deploying the version
+-- that pages, as otherwise ddl-auto builds them at startup while blocking writes to the tables:
+--
+--   psql -d taskdb -v ON_ERROR_STOP=1 -f keyset-pagination-indexes.sql
+--
+-- CREATE INDEX CONCURRENTLY does not block writes but cannot run inside a transaction, so each
+-- statement commits on its own. If one fails it leaves an INVALID index behind; drop it and rerun.
+-- The (created_date, id) indexes replace the created_date ones: the reports' date range scans
+-- use them just as well.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_purchases_created_date_id
+    ON public.purchases (created_date, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_purchases_customer_created_date_id
+    ON public.purchases (customer_id, created_date, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_purchases_product_created_date_id
+    ON public.purchases (product_id, created_date, id);
+DROP INDEX CONCURRENTLY IF EXISTS public.idx_purchases_created_date;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_refunds_created_date_id
+    ON public.refunds (created_date, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_refunds_customer_created_date_id
+    ON public.refunds (customer_id, created_date, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_refunds_product_created_date_id
+    ON public.refunds (product_id, created_date, id);
+DROP INDEX CONCURRENTLY IF EXISTS public.idx_refunds_created_date;
@@ -0,0 +1,41 @@
+-- The email outbox's report chunks (see OutboxChunk) hold up to 1 MB each in email_outbox_chunks.data,
+-- which must be bytea on PostgreSQL: a plain byte column that goes with its row, not a large object
+-- (oid), and not varbinary-sized. New schemas get it from the entity. On a PostgreSQL schema that
+-- ddl-auto does not manage, run this once before deploying the version with the email outbox:
+--
+--   psql -d taskdb -v ON_ERROR_STOP=1 -f outbox-chunk-data.sql
+--
+-- It creates the table if missing, after email_outbox, and otherwise turns a data column of another
+-- type into bytea, which it can only do while the table is empty.
+-- The sequence increments by the allocation size, as in identity-to-pooled-sequences.sql.
+
+BEGIN;
+
+CREATE SEQUENCE IF NOT EXISTS public.email_outbox_chunks_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS public.email_outbox_chunks (
+    id          bigint  PRIMARY KEY,
+    message_id  bigint  NOT NULL REFERENCES public.email_outbox (id),
+    seq         integer NOT NULL,
+    data        bytea   NOT NULL,
+    UNIQUE (message_id, seq)
+);
+
+DO $$
+DECLARE
+    column_type text;
+BEGIN
+    SELECT c.data_type INTO column_type FROM information_schema.columns c
+    WHERE c.table_schema = 'public' AND c.table_name = 'email_outbox_chunks' AND c.column_name = 'data';
+    IF column_type <> 'bytea' THEN
+        -- there is no faithful conversion from large object oids; let the outbox drain first
+        IF EXISTS (SELECT 1 FROM public.email_outbox_chunks) THEN
+            RAISE EXCEPTION 'email_outbox_chunks.data is %, not bytea, and holds rows; rerun once the outbox is empty',
+                column_type;
+        END IF;
+        ALTER TABLE public.email_outbox_chunks ALTER COLUMN data TYPE bytea USING NULL;
+    END IF;
+END
+$$;
+
+COMMIT;
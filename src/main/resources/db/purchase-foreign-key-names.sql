@@ -0,0 +1,29 @@
+-- Gives the purchases table's foreign keys the names the entities now declare, which the purchase
+-- service looks for to tell a deleted customer or product from any other refused insert. New
+-- schemas get them from the entities. On an existing PostgreSQL schema, whose keys still carry
+-- Hibernate's generated names, run this once before deploying that version:
+--
+--   psql -d taskdb -v ON_ERROR_STOP=1 -f purchase-foreign-key-names.sql
+--
+-- Renaming a constraint only updates the catalog; it neither rechecks rows nor blocks for long.
+
+DO $$
+DECLARE
+    key record;
+BEGIN
+    FOR key IN
+        SELECT c.conname, a.attname
+        FROM pg_constraint c
+        JOIN pg_attribute a ON a.attrelid = c.conrelid AND a.attnum = c.conkey[1]
+        WHERE c.conrelid = 'public.purchases'::regclass
+          AND c.contype = 'f'
+          AND a.attname IN ('customer_id', 'product_id')
+    LOOP
+        IF key.attname = 'customer_id' AND key.conname <> 'fk_purchases_customer' THEN
+            EXECUTE format('ALTER TABLE public.purchases RENAME CONSTRAINT %I TO fk_purchases_customer', key.conname);
+        ELSIF key.attname = 'product_id' AND key.conname <> 'fk_purchases_product' THEN
+            EXECUTE format('ALTER TABLE public.purchases RENAME CONSTRAINT %I TO fk_purchases_product', key.conname);
+        END IF;
+    END LOOP;
+END
+$$;
@@ -0,0 +1,21 @@
+-- The statement_sends ledger (see StatementSend), which records the customers each day's
+-- statement reached so a rerun skips them. New schemas get it from the entity. On a PostgreSQL
+-- schema that ddl-auto does not manage, run this once before deploying the version that uses it:
+--
+--   psql -d taskdb -v ON_ERROR_STOP=1 -f statement-sends.sql
+--
+-- The sequence increments by the allocation size, as in identity-to-pooled-sequences.sql.
+
+BEGIN;
+
+CREATE SEQUENCE IF NOT EXISTS public.statement_sends_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS public.statement_sends (
+    id             bigint    PRIMARY KEY,
+    statement_day  date      NOT NULL,
+    customer_id    bigint    NOT NULL,
+    created_date   timestamp NOT NULL,
+    CONSTRAINT uk_statement_sends_day_customer UNIQUE (statement_day, customer_id)
+);
+
+COMMIT;
@@ -1,6 +1,7 @@
 package com.example.purchase.management.controller;
 
 import com.example.purchase.management.entity.Customer;
+import com.example.purchase.management.model.CursorPage;
 import com.example.purchase.management.service.CustomerService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -94,13 +95,13 @@ public class CustomerControllerTest {
     }
 
     /**
-     * Test getting all customers
-     * Expected: Should return 200 OK and list of customers
+     * Test getting all customers without cursor or limit
+     * Expected: Should return 200 OK and the whole list of customers, read as one page of up to 1000
      */
     @Test
     void getAllCustomers_ShouldReturnList() throws Exception {
         List<Customer> customers = Arrays.asList(testCustomer);
-        when(customerService.getAllCustomers()).thenReturn(customers);
+        when(customerService.getCustomers(null, 1000)).thenReturn(new CursorPage<>(customers, null));
 
         mockMvc.perform(get("/customer")
                .with(httpBasic("test", "test")))
@@ -108,9 +109,10 @@ public class CustomerControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(jsonPath("$[0].firstName").value(testCustomer.getFirstName()))
-                .andExpect(jsonPath("$[0].lastName").value(testCustomer.getLastName()));
+                .andExpect(jsonPath("$[0].lastName").value(testCustomer.getLastName()))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
 
-        verify(customerService, times(1)).getAllCustomers();
+        verify(customerService, times(1)).getCustomers(null, 1000);
     }
 
     /**
@@ -120,7 +122,7 @@ public class CustomerControllerTest {
     @Test
     void getAllCustomers_WhenEmpty_ShouldReturnEmptyList() throws Exception {
         // Arrange
-        when(customerService.getAllCustomers()).thenReturn(Arrays.asList());
+        when(customerService.getCustomers(null, 1000)).thenReturn(new CursorPage<>(Arrays.asList(), null));
 
         mockMvc.perform(get("/customer")
                 .with(httpBasic("test", "test")))
@@ -128,7 +130,77 @@ public class CustomerControllerTest {
                 .andExpect(jsonPath("$", hasSize(0)))
                 .andExpect(jsonPath("$").isArray());
 
-        verify(customerService, times(1)).getAllCustomers();
+        verify(customerService, times(1)).getCustomers(null, 1000);
+    }
+
+    /**
+     * Test getting a page of customers when more follow
+     * Expected: Should return 200 OK, the page, and the next page's cursor and link
+     */
+    @Test
+    void getAllCustomers_WithMorePages_ShouldReturnNextCursor() throws Exception {
+        // Arrange
+        when(customerService.getCustomers("MQ", 1)).thenReturn(new CursorPage<>(List.of(testCustomer), "Mg"));
+
+        // Act & Assert
+        mockMvc.perform(get("/customer?cursor=MQ&limit=1")
+                .with(httpBasic("test", "test")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(header().string("X-Next-Cursor", "Mg"))
+                .andExpect(header().string("Link", "<http://localhost/customer?limit=1&cursor=Mg>; rel=\"next\""));
+    }
+
+    /**
+     * Test getting customers with a cursor but no limit
+     * Expected: Should return a page of the default size
+     */
+    @Test
+    void getAllCustomers_WithCursorOnly_ShouldUseDefaultLimit() throws Exception {
+        // Arrange
+        when(customerService.getCustomers("MQ", 100)).thenReturn(new CursorPage<>(List.of(testCustomer), null));
+
+        // Act & Assert
+        mockMvc.perform(get("/customer?cursor=MQ")
+                .with(httpBasic("test", "test")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+
+        verify(customerService, times(1)).getCustomers("MQ", 100);
+    }
+
+    /**
+     * Test getting all customers without cursor or limit when there are more than 1000
+     * Expected: Should return the first 1000 with the next page's cursor, and a link keeping that page size
+     */
+    @Test
+    void getAllCustomers_WithoutLimitOverMaximum_ShouldReturnFirstPageAndNextCursor() throws Exception {
+        // Arrange
+        when(customerService.getCustomers(null, 1000)).thenReturn(new CursorPage<>(List.of(testCustomer), "Mg"));
+
+        // Act & Assert
+        mockMvc.perform(get("/customer")
+                .with(httpBasic("test", "test")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(header().string("X-Next-Cursor", "Mg"))
+                .andExpect(header().string("Link", "<http://localhost/customer?limit=1000&cursor=Mg>; rel=\"next\""));
+    }
+
+    /**
+     * Test getting customers with a page size over the maximum
+     * Expected: Should return 400 Bad Request
+     */
+    @Test
+    void getAllCustomers_WithTooLargeLimit_ShouldReturnBadRequest() throws Exception {
+        // Arrange
+        when(customerService.getCustomers(null, 5000)).thenThrow(new IllegalArgumentException("Limit must be between 1 and 1000"));
+
+        // Act & Assert
+        mockMvc.perform(get("/customer")
+                .param("limit", "5000")
+                .with(httpBasic("test", "test")))
+                .andExpect(status().isBadRequest());
     }
 
     /**
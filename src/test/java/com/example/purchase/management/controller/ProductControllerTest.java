@@ -1,6 +1,8 @@
 package com.example.purchase.management.controller;
 
 import com.example.purchase.management.entity.Product;
+import com.example.purchase.management.model.CursorPage;
+import com.example.purchase.management.model.ProductCatalog;
 import com.example.purchase.management.service.ProductService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.EntityNotFoundException;
@@ -9,11 +11,13 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.util.DigestUtils;
 
 import java.util.Arrays;
 import java.util.List;
@@ -158,7 +162,7 @@ public class ProductControllerTest {
     @WithMockUser
     public void getAllProducts_ShouldReturnAllProducts() throws Exception {
         // Arrange
-        when(productService.getAllProducts()).thenReturn(products);
+        when(productService.getProductCatalog()).thenReturn(catalogOf(products));
 
         // Act
         ResultActions response = mockMvc.perform(get("/product")
@@ -178,6 +182,90 @@ public class ProductControllerTest {
                 .andExpect(jsonPath("$[1].price").value(product2.getPrice()));
     }
 
+    @Test
+    @WithMockUser
+    public void getAllProducts_WithCurrentETag_ShouldReturnNotModified() throws Exception {
+        // Arrange
+        ProductCatalog catalog = catalogOf(products);
+        when(productService.getProductCatalog()).thenReturn(catalog);
+
+        // Act
+        ResultActions response = mockMvc.perform(get("/product")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"" + catalog.getEtag() + "\""));
+
+        // Assert
+        response.andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + catalog.getEtag() + "\""))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    @WithMockUser
+    public void getAllProducts_WithStaleETag_ShouldReturnProductsAndNewETag() throws Exception {
+        // Arrange
+        ProductCatalog catalog = catalogOf(products);
+        when(productService.getProductCatalog()).thenReturn(catalog);
+
+        // Act
+        ResultActions response = mockMvc.perform(get("/product")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"stale\""));
+
+        // Assert
+        response.andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + catalog.getEtag() + "\""))
+                .andExpect(jsonPath("$", hasSize(2)));
+    }
+
+    @Test
+    @WithMockUser
+    public void getAllProducts_WithLimit_ShouldReturnPageAndNextCursor() throws Exception {
+        // Arrange
+        when(productService.getProducts(null, 2)).thenReturn(new CursorPage<>(products, "Mg"));
+
+        // Act
+        ResultActions response = mockMvc.perform(get("/product?limit=2"));
+
+        // Assert
+        response.andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(header().string("X-Next-Cursor", "Mg"))
+                .andExpect(header().string(HttpHeaders.LINK, "<http://localhost/product?limit=2&cursor=Mg>; rel=\"next\""))
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+        verify(productService, never()).getProductCatalog();
+    }
+
+    @Test
+    @WithMockUser
+    public void getAllProducts_WhenCatalogOverMaximum_ShouldReturnFirstPageAndNextCursor() throws Exception {
+        // Arrange
+        byte[] json = objectMapper.writeValueAsBytes(products);
+        when(productService.getProductCatalog()).thenReturn(new ProductCatalog(1, 1001, "etag", json));
+        when(productService.getProducts(null, 1000)).thenReturn(new CursorPage<>(products, "Mg"));
+
+        // Act
+        ResultActions response = mockMvc.perform(get("/product"));
+
+        // Assert
+        response.andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(header().string("X-Next-Cursor", "Mg"))
+                .andExpect(header().string(HttpHeaders.LINK, "<http://localhost/product?limit=1000&cursor=Mg>; rel=\"next\""))
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+    }
+
+    @Test
+    @WithMockUser
+    public void getAllProducts_WithInvalidCursor_ShouldReturnBadRequest() throws Exception {
+        // Arrange
+        when(productService.getProducts("bad", 100)).thenThrow(new IllegalArgumentException("Invalid cursor"));
+
+        // Act
+        ResultActions response = mockMvc.perform(get("/product").param("cursor", "bad"));
+
+        // Assert
+        response.andExpect(status().isBadRequest());
+    }
+
     @Test
     @WithMockUser
     public void updateProduct_WithValidProduct_ShouldUpdateProduct() throws Exception {
@@ -285,4 +373,9 @@ public class ProductControllerTest {
         verify(productService, times(1))
                 .deleteProduct(productId);
     }
-}
\ No newline at end of file
+
+    private ProductCatalog catalogOf(List<Product> products) throws Exception {
+        byte[] json = objectMapper.writeValueAsBytes(products);
+        return new ProductCatalog(1, products.size(), DigestUtils.md5DigestAsHex(json), json);
+    }
+}
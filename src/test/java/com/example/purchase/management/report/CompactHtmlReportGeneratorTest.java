@@ -0,0 +1,162 @@
+package com.example.purchase.management.report;
+
+import com.example.purchase.management.entity.Customer;
+import com.example.purchase.management.entity.Product;
+import com.example.purchase.management.entity.Purchase;
+import com.example.purchase.management.entity.Refund;
+import com.example.purchase.management.model.DailyProductSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactHtmlReportGeneratorTest {
+
+    private static final Pattern Text = Pattern.compile("<(h1|h2|th|td)[^>]*>(.*?)</\\1>");
+
+    private final HtmlReportGenerator htmlReportGenerator = new HtmlReportGenerator();
+    private final CompactHtmlReportGenerator compactReportGenerator = new CompactHtmlReportGenerator();
+
+    private Customer customer;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        customer = new Customer();
+        customer.setFirstName("Ahmad");
+        customer.setLastName("Saad");
+        customer.setPhone("0912345678");
+
+        product = new Product();
+        product.setName("Laptop");
+    }
+
+    /**
+     * Test rendering the same purchases and refunds with both generators
+     * Expected: Should produce the same headings and cells in the same order
+     */
+    @Test
+    void generateReport_ShouldMatchHtmlReportGenerator() {
+        // Arrange
+        customer.setLastName("Saad-Müller");
+        List<Purchase> purchases = List.of(
+                purchase(1L, 1200.0, LocalDateTime.of(2024, 3, 1, 9, 5, 7)),
+                purchase(2L, 12.05, LocalDateTime.of(2024, 3, 1, 23, 59, 59)),
+                purchase(3L, 0.5, LocalDateTime.of(999, 1, 2, 0, 0)));
+        List<Refund> refunds = List.of(refund(10L, purchases.get(0), 99.99, LocalDateTime.of(2024, 3, 2, 12, 0)));
+
+        // Act
+        String html = htmlReportGenerator.generateReport(purchases, refunds);
+        String compact = compactReportGenerator.generateReport(purchases, refunds);
+
+        // Assert
+        assertEquals(texts(html), texts(compact));
+    }
+
+    /**
+     * Test rendering summaries with amounts that Double.toString prints in different ways
+     * Expected: Should print every amount exactly as the inline-styled generator does
+     */
+    @Test
+    void writeSummary_ShouldFormatAmountsLikeHtmlReportGenerator() throws Exception {
+        // Arrange
+        double[] amounts = { 0.0, -0.0, 1.0, 0.1, 0.01, 0.001, 12.3, 12.34, -12.34, 9999999.99, 1.0E7, 123456789.0, 1.005, 1.0 / 3 };
+        List<DailyProductSummary> summary = new ArrayList<>();
+        for (double amount : amounts) {
+            summary.add(new DailyProductSummary(LocalDate.of(2024, 3, 1), "Laptop", 1L, amount, 0L, -amount, amount * 2));
+        }
+
+        // Act
+        ByteArrayOutputStream html = new ByteArrayOutputStream();
+        htmlReportGenerator.writeSummary(summary, html);
+        ByteArrayOutputStream compact = new ByteArrayOutputStream();
+        compactReportGenerator.writeSummary(summary, compact);
+
+        // Assert
+        assertEquals(texts(html.toString(StandardCharsets.UTF_8)), texts(compact.toString(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Test names containing markup
+     * Expected: Should escape them, so they show as text
+     */
+    @Test
+    void generateReport_WithMarkupInNames_ShouldEscape() {
+        // Arrange
+        customer.setFirstName("<b>Tom & \"Jerry\"</b>");
+
+        // Act
+        String compact = compactReportGenerator.generateReport(List.of(purchase(1L, 10.0, LocalDateTime.now())), List.of());
+
+        // Assert
+        assertTrue(compact.contains("&lt;b&gt;Tom &amp; &quot;Jerry&quot;&lt;/b&gt;"));
+        assertFalse(compact.contains("<b>"));
+    }
+
+    /**
+     * Test the size of a report of many purchases
+     * Expected: Should take a fraction of the bytes per row of the inline-styled generator
+     */
+    @Test
+    void writePurchaseRows_ShouldBeSeveralTimesSmaller() throws Exception {
+        // Arrange
+        int rows = 10_000;
+        LocalDateTime date = LocalDateTime.of(2024, 3, 1, 9, 0);
+        List<Purchase> purchases = IntStream.range(0, rows)
+                .mapToObj(i -> purchase((long) i, 100.0 + i % 1000 / 100.0, date.plusSeconds(i)))
+                .toList();
+
+        // Act
+        ByteArrayOutputStream html = new ByteArrayOutputStream();
+        htmlReportGenerator.writePurchaseRows(purchases.stream(), html);
+        ByteArrayOutputStream compact = new ByteArrayOutputStream();
+        compactReportGenerator.writePurchaseRows(purchases.stream(), compact);
+
+        // Assert
+        double htmlBytesPerRow = (double) html.size() / rows;
+        double compactBytesPerRow = (double) compact.size() / rows;
+        System.out.printf("Bytes per purchase row: html %.1f, compact %.1f%n", htmlBytesPerRow, compactBytesPerRow);
+        assertTrue(compactBytesPerRow * 3 < htmlBytesPerRow);
+    }
+
+    private Purchase purchase(Long id, Double amount, LocalDateTime date) {
+        Purchase purchase = new Purchase();
+        purchase.setId(id);
+        purchase.setCustomer(customer);
+        purchase.setProduct(product);
+        purchase.setAmount(amount);
+        purchase.setDate(date);
+        return purchase;
+    }
+
+    private Refund refund(Long id, Purchase purchase, Double amount, LocalDateTime date) {
+        Refund refund = new Refund();
+        refund.setId(id);
+        refund.setCustomer(customer);
+        refund.setPurchase(purchase);
+        refund.setProduct(product);
+        refund.setAmount(amount);
+        refund.setDate(date);
+        return refund;
+    }
+
+    // The visible text of headings and cells, in document order
+    private static List<String> texts(String html) {
+        List<String> texts = new ArrayList<>();
+        Matcher matcher = Text.matcher(html);
+        while (matcher.find()) {
+            texts.add(matcher.group(2));
+        }
+        return texts;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.purchase.management.report;
+
+import com.example.purchase.management.model.TransactionExportRow;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvRowReaderTest {
+
+    /**
+     * Test quoted fields holding commas, quotes and line breaks, with CRLF line endings
+     * Expected: Should return each record's fields unquoted, with the line it started on
+     */
+    @Test
+    void next_WithQuotedFields_ShouldUnquoteThem() throws Exception {
+        // Arrange
+        CsvRowReader reader = new CsvRowReader(new StringReader(
+                "name,price\r\n\"Desk, oak\",120\r\n\"Lamp \"\"Arc\"\"\nwhite\",35.5\r\nChair,\r\n"));
+
+        // Act
+        List<String> header = reader.next();
+        List<String> desk = reader.next();
+        List<String> lamp = reader.next();
+        long lampLine = reader.getLine();
+        List<String> chair = reader.next();
+        long chairLine = reader.getLine();
+
+        // Assert
+        assertEquals(List.of("name", "price"), header);
+        assertEquals(List.of("Desk, oak", "120"), desk);
+        assertEquals(List.of("Lamp \"Arc\"\nwhite", "35.5"), lamp);
+        assertEquals(List.of("Chair", ""), chair);
+        assertEquals(3, lampLine);
+        assertEquals(5, chairLine);
+        assertNull(reader.next());
+    }
+
+    /**
+     * Test blank lines, a byte order mark and a last line without a line break
+     * Expected: Should skip the blank lines and the mark and still return the last record
+     */
+    @Test
+    void next_WithBlankLinesAndBom_ShouldSkipThem() throws Exception {
+        // Arrange
+        CsvRowReader reader = new CsvRowReader(new StringReader("\uFEFFa,b\n\n1,2\n\n3,4"));
+
+        // Act & Assert
+        assertEquals(List.of("a", "b"), reader.next());
+        assertEquals(List.of("1", "2"), reader.next());
+        assertEquals(3, reader.getLine());
+        assertEquals(List.of("3", "4"), reader.next());
+        assertEquals(5, reader.getLine());
+        assertNull(reader.next());
+    }
+
+    /**
+     * Test a quoted field that is never closed
+     * Expected: Should throw IllegalArgumentException naming the line it started on
+     */
+    @Test
+    void next_WithUnterminatedQuote_ShouldThrowException() throws Exception {
+        // Arrange
+        CsvRowReader reader = new CsvRowReader(new StringReader("a,b\n1,\"open\n2,3\n"));
+        reader.next();
+
+        // Act & Assert
+        var exp = assertThrows(IllegalArgumentException.class, reader::next);
+        assertEquals("Unterminated quoted field starting on line 2", exp.getMessage());
+    }
+
+    /**
+     * Test reading back what the export writer wrote
+     * Expected: Should return the same values
+     */
+    @Test
+    void next_ShouldReadWhatCsvExportRowWriterWrites() throws Exception {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CsvExportRowWriter writer = new CsvExportRowWriter(out);
+        writer.writeHeader();
+        writer.write(new TransactionExportRow("purchase", 1L,
+                LocalDateTime.of(2024, 3, 1, 9, 0), 2L, "Tom, \"TJ\"", "Line\r\nBreak", "Laptop", 12.5, null));
+        writer.flush();
+        CsvRowReader reader = new CsvRowReader(new StringReader(out.toString(StandardCharsets.UTF_8)));
+
+        // Act
+        reader.next();
+        List<String> row = reader.next();
+
+        // Assert
+        assertEquals("Tom, \"TJ\"", row.get(4));
+        assertEquals("Line\r\nBreak", row.get(5));
+        assertEquals("12.5", row.get(7));
+        assertEquals("", row.get(8));
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.purchase.management.repository;
+
+import com.example.purchase.management.config.CaffeineRegionFactory;
+import com.example.purchase.management.entity.Customer;
+import com.example.purchase.management.entity.Product;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.cache.CacheManager;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Every repository call commits on its own, as in the services, so the cache sees each write
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.purchase-management.cache.products.max-entries=500",
+        "spring.jpa.properties.purchase-management.cache.products.ttl=5m"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CaffeineRegionFactoryTest {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        customerRepository.deleteAll();
+        productRepository.deleteAll();
+    }
+
+    /**
+     * Test loading the same customer twice
+     * Expected: Should read it from the database once, then from the customers region
+     */
+    @Test
+    void findById_Twice_ShouldHitTheCacheTheSecondTime() {
+        // Arrange
+        Long id = customerRepository.save(customer("Ahmad")).getId();
+        // saving already cached it; start cold, as after a restart
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+
+        // Act
+        customerRepository.findById(id);
+        customerRepository.findById(id);
+
+        // Assert
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getDomainDataRegionStatistics("customers").getHitCount());
+    }
+
+    /**
+     * Test loading a product after updating it through the repository
+     * Expected: Should return the new price, from the cache
+     */
+    @Test
+    void findById_AfterUpdate_ShouldReturnTheUpdatedRow() {
+        // Arrange
+        Product product = productRepository.save(product("Laptop", 1200.0));
+        product.setPrice(999.0);
+        productRepository.save(product);
+        statistics.clear();
+
+        // Act
+        Product found = productRepository.findById(product.getId()).orElseThrow();
+
+        // Assert
+        assertEquals(999.0, found.getPrice());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    /**
+     * Test reading the catalog twice, then again after a product is added
+     * Expected: Should query only the first time and once the products have changed
+     */
+    @Test
+    void findAllByOrderByIdAsc_ShouldBeServedFromTheQueryCacheUntilProductsChange() {
+        // Arrange
+        productRepository.save(product("Laptop", 1200.0));
+        productRepository.save(product("Mouse", 25.0));
+        statistics.clear();
+
+        // Act
+        productRepository.findAllByOrderByIdAsc();
+        List<Product> cached = productRepository.findAllByOrderByIdAsc();
+        productRepository.save(product("Desk", 300.0));
+        List<Product> reread = productRepository.findAllByOrderByIdAsc();
+
+        // Assert
+        assertEquals(2, cached.size());
+        assertEquals(3, reread.size());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+        assertEquals(2, statistics.getQueryExecutionCount());
+    }
+
+    /**
+     * Test the regions' configuration
+     * Expected: Should size and expire them from the settings, and never evict the update timestamps
+     */
+    @Test
+    void regions_ShouldBeConfiguredFromSettings() {
+        // Arrange
+        CacheManager cacheManager = ((CaffeineRegionFactory) entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getCache().getRegionFactory()).getCacheManager();
+
+        // Act
+        CaffeineConfiguration<?, ?> products = cacheManager.getCache("products").getConfiguration(CaffeineConfiguration.class);
+        CaffeineConfiguration<?, ?> customers = cacheManager.getCache("customers").getConfiguration(CaffeineConfiguration.class);
+        CaffeineConfiguration<?, ?> timestamps = cacheManager.getCache("default-update-timestamps-region")
+                .getConfiguration(CaffeineConfiguration.class);
+
+        // Assert
+        assertEquals(500, products.getMaximumSize().getAsLong());
+        assertEquals(TimeUnit.MINUTES.toNanos(5), products.getExpireAfterWrite().getAsLong());
+        assertTrue(products.isNativeStatisticsEnabled());
+        assertEquals(100_000, customers.getMaximumSize().getAsLong());
+        assertTrue(timestamps.getMaximumSize().isEmpty());
+        assertTrue(timestamps.getExpireAfterWrite().isEmpty());
+    }
+
+    private static Customer customer(String firstName) {
+        Customer customer = new Customer();
+        customer.setFirstName(firstName);
+        customer.setLastName("Safi");
+        return customer;
+    }
+
+    private static Product product(String name, Double price) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(price);
+        return product;
+    }
+}
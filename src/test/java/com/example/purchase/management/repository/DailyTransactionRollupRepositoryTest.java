@@ -0,0 +1,221 @@
+package com.example.purchase.management.repository;
+
+import com.example.purchase.management.entity.Customer;
+import com.example.purchase.management.entity.DailyTransactionRollup;
+import com.example.purchase.management.entity.Product;
+import com.example.purchase.management.entity.Purchase;
+import com.example.purchase.management.entity.Refund;
+import com.example.purchase.management.model.DailyProductSummary;
+import com.example.purchase.management.service.impl.RollupServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(RollupServiceImpl.class)
+class DailyTransactionRollupRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private DailyTransactionRollupRepository rollupRepository;
+
+    @Autowired
+    private RollupServiceImpl rollupService;
+
+    private LocalDate day;
+    private Customer customer;
+    private Product laptop;
+    private Product phone;
+
+    @BeforeEach
+    void setUp() {
+        day = LocalDate.now().minusDays(1);
+
+        customer = new Customer();
+        customer.setFirstName("ahmad");
+        customer.setLastName("Safi");
+        customer.setPhone("0933336666");
+        entityManager.persist(customer);
+
+        laptop = new Product();
+        laptop.setName("Laptop");
+        laptop.setPrice(1000.0);
+        entityManager.persist(laptop);
+
+        phone = new Product();
+        phone.setName("Phone");
+        phone.setPrice(500.0);
+        entityManager.persist(phone);
+    }
+
+    /**
+     * Test incrementing a rollup row that does not exist yet
+     * Expected: Should update nothing so the caller knows to insert
+     */
+    @Test
+    void addPurchase_WithoutRollup_ShouldUpdateNothing() {
+        // Act
+        int updated = rollupRepository.addPurchase(day, laptop.getId(), customer.getId(), 10.0);
+
+        // Assert
+        assertEquals(0, updated);
+    }
+
+    /**
+     * Test inserting a rollup that another transaction has already created
+     * Expected: Should insert nothing and leave the transaction usable for the increment
+     */
+    @Test
+    void insertIfAbsent_WithExistingRollup_ShouldReturnFalseAndKeepTransaction() {
+        // Arrange
+        Purchase purchase = persistPurchase(laptop, 10.0);
+        rollupService.recordPurchase(purchase);
+
+        DailyTransactionRollup duplicate = new DailyTransactionRollup();
+        duplicate.setDay(day);
+        duplicate.setProduct(laptop);
+        duplicate.setCustomer(customer);
+        duplicate.setPurchaseCount(1);
+
+        // Act
+        boolean inserted = rollupRepository.insertIfAbsent(duplicate);
+        int updated = rollupRepository.addPurchase(day, laptop.getId(), customer.getId(), 5.0);
+        entityManager.clear();
+
+        // Assert
+        assertFalse(inserted);
+        assertEquals(1, updated);
+        List<DailyTransactionRollup> rollups = rollupRepository.findAll();
+        assertEquals(1, rollups.size());
+        assertEquals(2, rollups.get(0).getPurchaseCount());
+        assertEquals(15.0, rollups.get(0).getGrossAmount());
+        assertNotNull(entityManager.find(Purchase.class, purchase.getId()));
+    }
+
+    /**
+     * Test recording purchases and a refund incrementally
+     * Expected: Should keep one row per day, product and customer with running totals
+     */
+    @Test
+    void recordTransactions_ShouldAccumulateIntoOneRow() {
+        // Arrange
+        Purchase first = persistPurchase(laptop, 10.0);
+        Purchase second = persistPurchase(laptop, 5.0);
+        Refund refund = persistRefund(first, 4.0);
+
+        // Act
+        rollupService.recordPurchase(first);
+        rollupService.recordPurchase(second);
+        rollupService.recordRefund(refund);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Assert
+        List<DailyTransactionRollup> rollups = rollupRepository.findAll();
+        assertEquals(1, rollups.size());
+        assertEquals(2, rollups.get(0).getPurchaseCount());
+        assertEquals(15.0, rollups.get(0).getGrossAmount());
+        assertEquals(1, rollups.get(0).getRefundCount());
+        assertEquals(4.0, rollups.get(0).getRefundedAmount());
+        assertEquals(11.0, rollups.get(0).getNetAmount());
+    }
+
+    /**
+     * Test rebuilding rollups from the raw tables
+     * Expected: Should produce the same totals as incremental maintenance
+     */
+    @Test
+    void rebuild_ShouldMatchIncrementalTotals() {
+        // Arrange
+        Purchase first = persistPurchase(laptop, 10.0);
+        Purchase second = persistPurchase(phone, 7.0);
+        Refund refund = persistRefund(first, 4.0);
+        rollupService.recordPurchase(first);
+        rollupService.recordPurchase(second);
+        rollupService.recordRefund(refund);
+        entityManager.flush();
+        entityManager.clear();
+        List<DailyTransactionRollup> incremental = sortedRollups();
+
+        // Act
+        rollupService.rebuild(day, day);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Assert
+        List<DailyTransactionRollup> rebuilt = sortedRollups();
+        assertEquals(incremental.size(), rebuilt.size());
+        for (int i = 0; i < rebuilt.size(); i++) {
+            assertEquals(incremental.get(i).getPurchaseCount(), rebuilt.get(i).getPurchaseCount());
+            assertEquals(incremental.get(i).getRefundCount(), rebuilt.get(i).getRefundCount());
+            assertEquals(incremental.get(i).getNetAmount(), rebuilt.get(i).getNetAmount());
+        }
+    }
+
+    /**
+     * Test the report summary query
+     * Expected: Should return one row per day and product, ordered by product name
+     */
+    @Test
+    void summarizeByDayAndProduct_ShouldGroupAcrossCustomers() {
+        // Arrange
+        Customer other = new Customer();
+        other.setFirstName("Hani");
+        other.setLastName("saad");
+        other.setPhone("0912345999");
+        entityManager.persist(other);
+
+        rollupService.recordPurchase(persistPurchase(phone, 3.0));
+        Purchase otherPurchase = persistPurchase(phone, 2.0);
+        otherPurchase.setCustomer(other);
+        rollupService.recordPurchase(otherPurchase);
+        rollupService.recordPurchase(persistPurchase(laptop, 10.0));
+        entityManager.flush();
+
+        // Act
+        List<DailyProductSummary> summary = rollupRepository.summarizeByDayAndProduct(day, day);
+
+        // Assert
+        assertEquals(2, summary.size());
+        assertEquals("Laptop", summary.get(0).getProductName());
+        assertEquals("Phone", summary.get(1).getProductName());
+        assertEquals(2L, summary.get(1).getPurchaseCount());
+        assertEquals(5.0, summary.get(1).getNetAmount());
+    }
+
+    private List<DailyTransactionRollup> sortedRollups() {
+        return rollupRepository.findAll().stream()
+                .sorted(Comparator.comparing(rollup -> rollup.getProduct().getId()))
+                .toList();
+    }
+
+    private Purchase persistPurchase(Product product, double amount) {
+        Purchase purchase = new Purchase();
+        purchase.setCustomer(customer);
+        purchase.setProduct(product);
+        purchase.setAmount(amount);
+        purchase.setDate(day.atTime(12, 0));
+        return entityManager.persist(purchase);
+    }
+
+    private Refund persistRefund(Purchase purchase, double amount) {
+        Refund refund = new Refund();
+        refund.setPurchase(purchase);
+        refund.setCustomer(purchase.getCustomer());
+        refund.setProduct(purchase.getProduct());
+        refund.setAmount(amount);
+        refund.setDate(day.atTime(18, 0));
+        return entityManager.persist(refund);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.purchase.management.repository;
+
+import com.example.purchase.management.entity.Customer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.purchase-management.id.allocation-size=10")
+class PooledLoSequenceGeneratorTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    /**
+     * Test saving more customers than one allocation holds
+     * Expected: Should hand out consecutive ids across the allocation boundary
+     */
+    @Test
+    void save_ShouldHandOutConsecutiveIds() {
+        // Arrange
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            Customer customer = new Customer();
+            customer.setFirstName("Customer");
+            customer.setLastName(String.valueOf(i));
+            customers.add(customer);
+        }
+
+        // Act
+        List<Customer> saved = customerRepository.saveAll(customers);
+
+        // Assert
+        for (int i = 1; i < saved.size(); i++) {
+            assertEquals(saved.get(i - 1).getId() + 1, saved.get(i).getId());
+        }
+    }
+
+    /**
+     * Test the sequence created for the schema
+     * Expected: Should increment by the configured allocation size
+     */
+    @Test
+    void schema_ShouldCreateSequenceIncrementingByAllocationSize() {
+        // Act
+        Object increment = entityManager.getEntityManager()
+                .createNativeQuery("select increment from information_schema.sequences where sequence_name = 'CUSTOMERS_SEQ'")
+                .getSingleResult();
+
+        // Assert
+        assertEquals(10L, ((Number) increment).longValue());
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.purchase.management.repository;
+
+import com.example.purchase.management.entity.Customer;
+import com.example.purchase.management.entity.Product;
+import com.example.purchase.management.entity.Purchase;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class PurchaseRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private PurchaseRepository purchaseRepository;
+
+    private Statistics statistics;
+
+    private LocalDateTime start;
+    private LocalDateTime end;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+
+        start = LocalDateTime.now().minusDays(1);
+        end = LocalDateTime.now().plusDays(1);
+    }
+
+    /**
+     * Test the report query with a single purchase
+     * Expected: Should load the purchase with customer and product in one statement
+     */
+    @Test
+    void streamReportRows_WithOnePurchase_ShouldUseSingleStatement() {
+        // Arrange
+        persistPurchases(1);
+
+        // Act
+        List<Purchase> rows = readReportRows();
+
+        // Assert
+        assertEquals(1, rows.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    /**
+     * Test the report query with many purchases of different customers and products
+     * Expected: Statement count should not grow with the number of rows
+     */
+    @Test
+    void streamReportRows_WithManyPurchases_ShouldStillUseSingleStatement() {
+        // Arrange
+        persistPurchases(25);
+
+        // Act
+        List<Purchase> rows = readReportRows();
+
+        // Assert
+        assertEquals(25, rows.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    /**
+     * Test that report rows are loaded without dirty-checking snapshots
+     * Expected: Should return read-only entities ordered by id
+     */
+    @Test
+    void streamReportRows_ShouldReturnReadOnlyEntitiesInIdOrder() {
+        // Arrange
+        persistPurchases(3);
+        Session session = entityManager.getEntityManager().unwrap(Session.class);
+
+        try (Stream<Purchase> rows = purchaseRepository.streamReportRowsByDateBetween(start, end)) {
+            // Act
+            List<Purchase> purchases = rows.toList();
+
+            // Assert
+            assertTrue(purchases.stream().allMatch(session::isReadOnly));
+            assertTrue(purchases.get(0).getId() < purchases.get(1).getId());
+            assertTrue(purchases.get(1).getId() < purchases.get(2).getId());
+        }
+    }
+
+    /**
+     * Test the statement query with purchases of two customers made in turns
+     * Expected: Should group each customer's purchases together, in id order, in one statement
+     */
+    @Test
+    void streamStatementRows_ShouldOrderByCustomerThenId() {
+        // Arrange
+        Customer second = persistCustomer("Second");
+        Customer first = persistCustomer("First");
+        Product product = new Product();
+        product.setName("Laptop");
+        product.setPrice(10.0);
+        entityManager.persist(product);
+        for (Customer customer : List.of(first, second, first, second)) {
+            Purchase purchase = new Purchase();
+            purchase.setCustomer(customer);
+            purchase.setProduct(product);
+            purchase.setAmount(1.0);
+            entityManager.persist(purchase);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        try (Stream<Purchase> rows = purchaseRepository.streamStatementRowsByDateBetween(start, end)) {
+            // Act
+            List<Long> customerIds = rows.map(purchase -> purchase.getCustomer().getId()).toList();
+
+            // Assert
+            assertEquals(List.of(second.getId(), second.getId(), first.getId(), first.getId()), customerIds);
+            assertEquals(1, statistics.getPrepareStatementCount());
+        }
+    }
+
+    private Customer persistCustomer(String firstName) {
+        Customer customer = new Customer();
+        customer.setFirstName(firstName);
+        customer.setLastName("Safi");
+        customer.setPhone("0933333333");
+        customer.setEmail(firstName.toLowerCase() + "@example.com");
+        entityManager.persist(customer);
+        return customer;
+    }
+
+    private List<Purchase> readReportRows() {
+        try (Stream<Purchase> rows = purchaseRepository.streamReportRowsByDateBetween(start, end)) {
+            return rows
+                    .peek(purchase -> {
+                        // touch everything the report renders
+                        purchase.getCustomer().getPhone();
+                        purchase.getProduct().getName();
+                    })
+                    .toList();
+        }
+    }
+
+    /**
+     * Test saving a purchase whose customer and product are detached copies, as the catalog cache hands out
+     * Expected: Should insert it without loading either of them
+     */
+    @Test
+    void save_WithDetachedCustomerAndProduct_ShouldOnlyInsert() {
+        // Arrange
+        persistPurchases(1);
+        Purchase existing = purchaseRepository.findAll().get(0);
+        statistics.clear();
+
+        Customer customer = new Customer();
+        customer.setId(existing.getCustomer().getId());
+        Product product = new Product();
+        product.setId(existing.getProduct().getId());
+
+        Purchase purchase = new Purchase();
+        purchase.setCustomer(customer);
+        purchase.setProduct(product);
+        purchase.setAmount(5.0);
+
+        // Act
+        purchaseRepository.save(purchase);
+        purchaseRepository.flush();
+
+        // Assert
+        assertEquals(1, statistics.getEntityInsertCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    /**
+     * Test saving a purchase that references a customer that does not exist
+     * Expected: Should be refused on flush by the named customer foreign key
+     */
+    @Test
+    void save_WithUnknownCustomer_ShouldViolateForeignKey() {
+        // Arrange
+        persistPurchases(1);
+        Purchase existing = purchaseRepository.findAll().get(0);
+
+        Customer customer = new Customer();
+        customer.setId(existing.getCustomer().getId() + 1000);
+
+        Purchase purchase = new Purchase();
+        purchase.setCustomer(customer);
+        purchase.setProduct(existing.getProduct());
+        purchase.setAmount(5.0);
+
+        // Act & Assert
+        purchaseRepository.save(purchase);
+        DataIntegrityViolationException exception = assertThrows(DataIntegrityViolationException.class,
+                () -> purchaseRepository.flush());
+        ConstraintViolationException violation = assertInstanceOf(ConstraintViolationException.class, exception.getCause());
+        // what the purchase service tells a deleted customer by
+        assertTrue(violation.getSQLException().getMessage().toLowerCase(Locale.ROOT).contains("fk_purchases_customer"));
+    }
+
+    private void persistPurchases(int count) {
+        for (int i = 0; i < count; i++) {
+            Customer customer = new Customer();
+            customer.setFirstName("Customer" + i);
+            customer.setLastName("Safi");
+            customer.setPhone("09333333" + i);
+            entityManager.persist(customer);
+
+            Product product = new Product();
+            product.setName("Product" + i);
+            product.setPrice(10.0 + i);
+            entityManager.persist(product);
+
+            Purchase purchase = new Purchase();
+            purchase.setCustomer(customer);
+            purchase.setProduct(product);
+            purchase.setAmount(1.0 + i);
+            entityManager.persist(purchase);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.purchase.management.repository;
+
+import com.example.purchase.management.entity.Customer;
+import com.example.purchase.management.entity.Product;
+import com.example.purchase.management.entity.Purchase;
+import com.example.purchase.management.entity.Refund;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class RefundRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private RefundRepository refundRepository;
+
+    private Statistics statistics;
+
+    private LocalDateTime start;
+    private LocalDateTime end;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+
+        start = LocalDateTime.now().minusDays(1);
+        end = LocalDateTime.now().plusDays(1);
+    }
+
+    /**
+     * Test the report query with a single refund
+     * Expected: Should load refund, purchase, customer and product in one statement
+     */
+    @Test
+    void streamReportRows_WithOneRefund_ShouldUseSingleStatement() {
+        // Arrange
+        persistRefunds(1);
+
+        // Act
+        List<Refund> rows = readReportRows();
+
+        // Assert
+        assertEquals(1, rows.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    /**
+     * Test the report query with many refunds of different purchases
+     * Expected: Statement count should not grow with the number of rows
+     */
+    @Test
+    void streamReportRows_WithManyRefunds_ShouldStillUseSingleStatement() {
+        // Arrange
+        persistRefunds(25);
+
+        // Act
+        List<Refund> rows = readReportRows();
+
+        // Assert
+        assertEquals(25, rows.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    /**
+     * Test the statement query with many refunds of different customers
+     * Expected: Should load every refund with its product and its purchase's customer and product in one statement
+     */
+    @Test
+    void streamStatementRows_WithManyRefunds_ShouldUseSingleStatement() {
+        // Arrange
+        persistRefunds(25);
+
+        // Act
+        List<Refund> rows;
+        try (Stream<Refund> statementRows = refundRepository.streamStatementRowsByDateBetween(start, end)) {
+            rows = statementRows
+                    .peek(refund -> {
+                        // touch everything a statement renders
+                        refund.getProduct().getName();
+                        refund.getPurchase().getCustomer().getPhone();
+                        refund.getPurchase().getProduct().getName();
+                    })
+                    .toList();
+        }
+
+        // Assert
+        assertEquals(25, rows.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    private List<Refund> readReportRows() {
+        try (Stream<Refund> rows = refundRepository.streamReportRowsByDateBetween(start, end)) {
+            return rows
+                    .peek(refund -> {
+                        // touch everything the report renders
+                        refund.getCustomer().getPhone();
+                        refund.getPurchase().getId();
+                    })
+                    .toList();
+        }
+    }
+
+    private void persistRefunds(int count) {
+        for (int i = 0; i < count; i++) {
+            Customer customer = new Customer();
+            customer.setFirstName("Customer" + i);
+            customer.setLastName("Safi");
+            customer.setPhone("09333333" + i);
+            entityManager.persist(customer);
+
+            Product product = new Product();
+            product.setName("Product" + i);
+            product.setPrice(10.0 + i);
+            entityManager.persist(product);
+
+            Purchase purchase = new Purchase();
+            purchase.setCustomer(customer);
+            purchase.setProduct(product);
+            purchase.setAmount(10.0 + i);
+            entityManager.persist(purchase);
+
+            Refund refund = new Refund();
+            refund.setPurchase(purchase);
+            refund.setCustomer(customer);
+            refund.setProduct(product);
+            refund.setAmount(1.0 + i);
+            entityManager.persist(refund);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+    }
+}
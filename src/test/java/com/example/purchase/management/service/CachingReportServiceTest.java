@@ -0,0 +1,200 @@
+package com.example.purchase.management.service;
+
+import com.example.purchase.management.config.ReportProperties;
+import com.example.purchase.management.event.TransactionRecordedEvent;
+import com.example.purchase.management.service.impl.CachingReportService;
+import com.example.purchase.management.service.impl.TransactionReportService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingReportServiceTest {
+
+    @Mock
+    private TransactionReportService transactionReportService;
+
+    private ReportProperties reportProperties;
+    private SimpleMeterRegistry meterRegistry;
+    private CachingReportService reportService;
+
+    private LocalDateTime start;
+    private LocalDateTime end;
+
+    @BeforeEach
+    void setUp() {
+        reportProperties = new ReportProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        reportService = new CachingReportService(transactionReportService, reportProperties, meterRegistry);
+
+        start = LocalDate.now().minusDays(2).atStartOfDay();
+        end = LocalDate.now().minusDays(1).atStartOfDay();
+    }
+
+    /**
+     * Test requesting the same closed range twice
+     * Expected: Second request should be served from the cache
+     */
+    @Test
+    void generateReport_WithClosedRange_ShouldRenderOnce() {
+        // Arrange
+        when(transactionReportService.generateReport(start, end)).thenReturn("<html>Report</html>");
+
+        // Act
+        String first = reportService.generateReport(start, end);
+        String second = reportService.generateReport(start, end);
+
+        // Assert
+        assertEquals(first, second);
+        verify(transactionReportService, times(1)).generateReport(start, end);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "reports").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "reports").tag("result", "miss").functionCounter().count());
+    }
+
+    /**
+     * Test a range that reaches into today
+     * Expected: Should always be rendered from the database
+     */
+    @Test
+    void generateReport_WithOpenRange_ShouldNotCache() {
+        // Arrange
+        LocalDateTime now = LocalDateTime.now().plusMinutes(1);
+        when(transactionReportService.generateReport(start, now)).thenReturn("<html>Report</html>");
+
+        // Act
+        reportService.generateReport(start, now);
+        reportService.generateReport(start, now);
+
+        // Assert
+        verify(transactionReportService, times(2)).generateReport(start, now);
+    }
+
+    /**
+     * Test the streaming overload
+     * Expected: Should stream the first render through and replay it from the cache
+     */
+    @Test
+    void generateReport_ToOutputStream_ShouldReplayCachedBytes() {
+        // Arrange
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(2);
+            out.write("<html>Report</html>".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(transactionReportService).generateReport(eq(start), eq(end), any(OutputStream.class));
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+
+        // Act
+        reportService.generateReport(start, end, first);
+        reportService.generateReport(start, end, second);
+
+        // Assert
+        assertEquals("<html>Report</html>", first.toString(StandardCharsets.UTF_8));
+        assertEquals("<html>Report</html>", second.toString(StandardCharsets.UTF_8));
+        verify(transactionReportService, times(1)).generateReport(eq(start), eq(end), any(OutputStream.class));
+    }
+
+    /**
+     * Test a backdated transaction
+     * Expected: Should drop only the cached ranges containing its date
+     */
+    @Test
+    void onTransactionRecorded_ShouldInvalidateOnlyAffectedRanges() {
+        // Arrange
+        LocalDateTime olderStart = start.minusDays(5);
+        LocalDateTime olderEnd = start.minusDays(4);
+        when(transactionReportService.generateReport(any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn("<html>Report</html>");
+        reportService.generateReport(start, end);
+        reportService.generateReport(olderStart, olderEnd);
+
+        // Act
+        reportService.onTransactionRecorded(new TransactionRecordedEvent(start.plusHours(3)));
+        reportService.generateReport(start, end);
+        reportService.generateReport(olderStart, olderEnd);
+
+        // Assert
+        verify(transactionReportService, times(2)).generateReport(start, end);
+        verify(transactionReportService, times(1)).generateReport(olderStart, olderEnd);
+    }
+
+    /**
+     * Test a backdated batch whose rows lie on both sides of a cached range's start
+     * Expected: Should drop the range the batch's span overlaps, though neither end lies in it
+     */
+    @Test
+    void onTransactionRecorded_WithSpan_ShouldInvalidateOverlappingRanges() {
+        // Arrange
+        LocalDateTime noon = start.plusHours(12);
+        LocalDateTime evening = start.plusHours(18);
+        LocalDateTime night = start.plusHours(20);
+        when(transactionReportService.generateReport(any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn("<html>Report</html>");
+        reportService.generateReport(noon, evening);
+        reportService.generateReport(night, end);
+
+        // Act
+        reportService.onTransactionRecorded(new TransactionRecordedEvent(start.plusHours(9), start.plusHours(19)));
+        reportService.generateReport(noon, evening);
+        reportService.generateReport(night, end);
+
+        // Assert
+        verify(transactionReportService, times(2)).generateReport(noon, evening);
+        verify(transactionReportService, times(1)).generateReport(night, end);
+    }
+
+    /**
+     * Test a transaction recorded while the report was being rendered
+     * Expected: The possibly stale report should not be cached
+     */
+    @Test
+    void generateReport_WhenInvalidatedDuringRender_ShouldNotCache() {
+        // Arrange
+        when(transactionReportService.generateReport(start, end)).thenAnswer(invocation -> {
+            reportService.onTransactionRecorded(new TransactionRecordedEvent(start.plusHours(3)));
+            return "<html>Report</html>";
+        }).thenReturn("<html>Report</html>");
+
+        // Act
+        reportService.generateReport(start, end);
+        reportService.generateReport(start, end);
+
+        // Assert
+        verify(transactionReportService, times(2)).generateReport(start, end);
+    }
+
+    /**
+     * Test the byte budget
+     * Expected: Should evict older reports once their total size passes the budget
+     */
+    @Test
+    void generateReport_WhenBudgetExceeded_ShouldEvict() {
+        // Arrange
+        reportProperties.getCache().setMaxSize(DataSize.ofBytes(100));
+        meterRegistry = new SimpleMeterRegistry();
+        reportService = new CachingReportService(transactionReportService, reportProperties, meterRegistry);
+        when(transactionReportService.generateReport(any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn("x".repeat(60));
+
+        // Act
+        reportService.generateReport(start, end);
+        reportService.generateReport(start.minusDays(1), end.minusDays(1));
+
+        // Assert
+        assertEquals(1.0, meterRegistry.get("cache.evictions").tag("cache", "reports").functionCounter().count());
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.purchase.management.service;
+
+import com.example.purchase.management.service.impl.CachingReportService;
+import com.example.purchase.management.service.impl.CoalescingReportService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CoalescingReportServiceTest {
+
+    private static final int CALLERS = 5;
+
+    @Mock
+    private CachingReportService cachingReportService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CoalescingReportService reportService;
+    private ExecutorService callers;
+
+    private LocalDateTime start;
+    private LocalDateTime end;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        reportService = new CoalescingReportService(cachingReportService, meterRegistry);
+        callers = Executors.newFixedThreadPool(CALLERS);
+
+        start = LocalDate.now().minusDays(30).atStartOfDay();
+        end = LocalDate.now().atStartOfDay();
+    }
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        reportService.shutdown();
+    }
+
+    /**
+     * Test many concurrent requests for the same range
+     * Expected: Should render once and give every caller the full report
+     */
+    @Test
+    void generateReport_ConcurrentSameRange_ShouldRenderOnce() throws Exception {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            invocation.<OutputStream>getArgument(2).write("<html>Report</html>".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(cachingReportService).generateReport(eq(start), eq(end), any(OutputStream.class));
+
+        // Act
+        List<Future<String>> reports = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            reports.add(callers.submit(() -> reportService.generateReport(start, end)));
+        }
+        await().atMost(Duration.ofSeconds(5)).until(() -> followers() == CALLERS - 1);
+        release.countDown();
+
+        // Assert
+        for (Future<String> report : reports) {
+            assertEquals("<html>Report</html>", report.get(5, TimeUnit.SECONDS));
+        }
+        verify(cachingReportService, times(1)).generateReport(eq(start), eq(end), any(OutputStream.class));
+        assertEquals(1.0, meterRegistry.get("report.singleflight.calls").tag("role", "leader").counter().count());
+    }
+
+    /**
+     * Test a rendering that fails while several callers wait for it
+     * Expected: Every caller should get the same failure
+     */
+    @Test
+    void generateReport_WhenRenderingFails_ShouldFailEveryCaller() throws Exception {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            throw new RuntimeException("Failed to generate and send report");
+        }).when(cachingReportService).generateReport(eq(start), eq(end), any(OutputStream.class));
+
+        // Act
+        List<Future<String>> reports = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            reports.add(callers.submit(() -> reportService.generateReport(start, end)));
+        }
+        await().atMost(Duration.ofSeconds(5)).until(() -> followers() == CALLERS - 1);
+        release.countDown();
+
+        // Assert
+        for (Future<String> report : reports) {
+            Exception e = assertThrows(Exception.class, () -> report.get(5, TimeUnit.SECONDS));
+            assertEquals("Failed to generate and send report", e.getCause().getMessage());
+        }
+        verify(cachingReportService, times(1)).generateReport(eq(start), eq(end), any(OutputStream.class));
+    }
+
+    /**
+     * Test the only waiting caller giving up
+     * Expected: Should cancel the rendering, and the next call should render again
+     */
+    @Test
+    void generateReport_WhenLastCallerIsInterrupted_ShouldCancelRendering() throws Exception {
+        // Arrange
+        CountDownLatch rendering = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        doAnswer(invocation -> {
+            rendering.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+                throw e;
+            }
+            return null;
+        }).doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(2).write("<html>Report</html>".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(cachingReportService).generateReport(eq(start), eq(end), any(OutputStream.class));
+
+        // Act
+        Future<String> abandoned = callers.submit(() -> reportService.generateReport(start, end));
+        assertTrue(rendering.await(5, TimeUnit.SECONDS));
+        abandoned.cancel(true);
+
+        // Assert
+        await().atMost(Duration.ofSeconds(5)).untilTrue(interrupted);
+        assertEquals("<html>Report</html>", reportService.generateReport(start, end));
+    }
+
+    /**
+     * Test the same range asked for as a string and as a stream, one after the other
+     * Expected: Should render each time, as nothing is kept once a call is answered
+     */
+    @Test
+    void generateReport_Sequential_ShouldNotReuseFinishedRendering() {
+        // Arrange
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(2).write("<html>Report</html>".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(cachingReportService).generateReport(eq(start), eq(end), any(OutputStream.class));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        String first = reportService.generateReport(start, end);
+        reportService.generateReport(start, end, out);
+
+        // Assert
+        assertEquals(first, out.toString(StandardCharsets.UTF_8));
+        verify(cachingReportService, times(2)).generateReport(eq(start), eq(end), any(OutputStream.class));
+        assertEquals(0.0, followers());
+    }
+
+    private double followers() {
+        return meterRegistry.find("report.singleflight.calls").tag("role", "follower").counters().stream()
+                .mapToDouble(counter -> counter.count()).sum();
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.purchase.management.service;
+
+import com.example.purchase.management.config.ImportProperties;
+import com.example.purchase.management.entity.Customer;
+import com.example.purchase.management.entity.Product;
+import com.example.purchase.management.event.ProductsChangedEvent;
+import com.example.purchase.management.model.ImportResult;
+import com.example.purchase.management.service.impl.CsvImportService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CsvImportServiceTest {
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private ImportProperties importProperties;
+    private CsvImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        importProperties = new ImportProperties();
+        importProperties.setChunkSize(2);
+        importService = new CsvImportService(entityManager, transactionManager, importProperties, eventPublisher);
+    }
+
+    /**
+     * Test importing customers with headers in another case and order, and rows missing a name
+     * Expected: Should import the valid rows and reject the others by line, with the createCustomer messages
+     */
+    @Test
+    void importCustomers_ShouldImportValidRowsAndRejectInvalidOnes() {
+        // Arrange
+        InputStream csv = csv("Email,Last Name,first_name,phone\n"
+                + "ahmad@example.com,Safi,Ahmad,0933336666\n"
+                + ",Saad,,\n"
+                + "\"omar@example.com\",\"Al Homsi\",Omar,\n"
+                + ",   ,Lina,\n");
+
+        // Act
+        ImportResult result = importService.importCustomers(csv);
+
+        // Assert
+        assertEquals(4, result.getRows());
+        assertEquals(2, result.getImported());
+        assertEquals(2, result.getRejected());
+        assertEquals(List.of(new ImportResult.RejectedRow(3, "First name is required"),
+                new ImportResult.RejectedRow(5, "Last name is required")), result.getRejectedRows());
+
+        ArgumentCaptor<Customer> persisted = ArgumentCaptor.forClass(Customer.class);
+        verify(entityManager, times(2)).persist(persisted.capture());
+        assertEquals("Ahmad", persisted.getAllValues().get(0).getFirstName());
+        assertEquals("0933336666", persisted.getAllValues().get(0).getPhone());
+        assertEquals("Al Homsi", persisted.getAllValues().get(1).getLastName());
+        assertNull(persisted.getAllValues().get(1).getPhone());
+    }
+
+    /**
+     * Test importing more products than fit in one chunk
+     * Expected: Should commit one transaction per chunk, the last one partial
+     */
+    @Test
+    void importProducts_ShouldCommitEachChunk() {
+        // Arrange
+        InputStream csv = csv("name,price\nLaptop,1200\nMouse,25.5\nDesk,300\nBroken,abc\nChair,-1\n");
+
+        // Act
+        ImportResult result = importService.importProducts(csv);
+
+        // Assert
+        assertEquals(3, result.getImported());
+        assertEquals(2, result.getChunks());
+        assertEquals(List.of(new ImportResult.RejectedRow(5, "Valid price is required"),
+                new ImportResult.RejectedRow(6, "Valid price is required")), result.getRejectedRows());
+        verify(entityManager, times(3)).persist(any(Product.class));
+        verify(transactionManager, times(2)).commit(any());
+        verify(entityManager, times(2)).flush();
+        verify(eventPublisher).publishEvent(new ProductsChangedEvent());
+    }
+
+    /**
+     * Test a chunk whose insert fails
+     * Expected: Should reject that chunk's rows and still import the next chunk
+     */
+    @Test
+    void importProducts_WhenChunkFails_ShouldRejectItsRowsAndContinue() {
+        // Arrange
+        doThrow(new RuntimeException("duplicate key")).doNothing().when(entityManager).flush();
+        InputStream csv = csv("name,price\nLaptop,1200\nMouse,25.5\nDesk,300\n");
+
+        // Act
+        ImportResult result = importService.importProducts(csv);
+
+        // Assert
+        assertEquals(1, result.getImported());
+        assertEquals(2, result.getRejected());
+        assertEquals(List.of(new ImportResult.RejectedRow(2, "Failed to save row"),
+                new ImportResult.RejectedRow(3, "Failed to save row")), result.getRejectedRows());
+        verify(transactionManager, times(1)).rollback(any());
+    }
+
+    /**
+     * Test more rejected rows than the result describes
+     * Expected: Should count them all but describe only the first ones
+     */
+    @Test
+    void importProducts_WithManyRejectedRows_ShouldCapTheirDetails() {
+        // Arrange
+        importProperties.setMaxRejectedRows(1);
+        InputStream csv = csv("name,price\n,1\n,2\n,3\n");
+
+        // Act
+        ImportResult result = importService.importProducts(csv);
+
+        // Assert
+        assertEquals(3, result.getRejected());
+        assertEquals(List.of(new ImportResult.RejectedRow(2, "Product name is required")), result.getRejectedRows());
+        verifyNoInteractions(entityManager);
+    }
+
+    /**
+     * Test a file without one of the required columns
+     * Expected: Should throw IllegalArgumentException before importing anything
+     */
+    @Test
+    void importProducts_WithMissingColumn_ShouldThrowException() {
+        // Act & Assert
+        var exp = assertThrows(IllegalArgumentException.class, () -> importService.importProducts(csv("name\nLaptop\n")));
+        assertEquals("Missing column price", exp.getMessage());
+        verifyNoInteractions(entityManager, transactionManager);
+    }
+
+    private static InputStream csv(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,305 @@
+package com.example.purchase.management.service;
+
+import com.example.purchase.management.config.ReportProperties;
+import com.example.purchase.management.entity.Customer;
+import com.example.purchase.management.entity.Purchase;
+import com.example.purchase.management.entity.Refund;
+import com.example.purchase.management.entity.StatementSend;
+import com.example.purchase.management.model.CustomerStatement;
+import com.example.purchase.management.model.EmailMessage;
+import com.example.purchase.management.model.StatementRunResult;
+import com.example.purchase.management.report.StatementGenerator;
+import com.example.purchase.management.repository.PurchaseRepository;
+import com.example.purchase.management.repository.RefundRepository;
+import com.example.purchase.management.repository.StatementSendRepository;
+import com.example.purchase.management.service.impl.CustomerStatementService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerStatementServiceTest {
+
+    @Mock
+    private PurchaseRepository purchaseRepository;
+
+    @Mock
+    private RefundRepository refundRepository;
+
+    @Mock
+    private StatementSendRepository statementSendRepository;
+
+    @Mock
+    private StatementGenerator statementGenerator;
+
+    @Mock
+    private SenderService senderService;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ReportProperties reportProperties;
+    private SimpleMeterRegistry meterRegistry;
+    private CustomerStatementService statementService;
+
+    private LocalDateTime start;
+    private LocalDateTime end;
+
+    @BeforeEach
+    void setUp() {
+        reportProperties = new ReportProperties();
+        reportProperties.getStatements().setConcurrency(2);
+        reportProperties.getStatements().setBatchSize(2);
+        meterRegistry = new SimpleMeterRegistry();
+        statementService = new CustomerStatementService(purchaseRepository, refundRepository, statementSendRepository, statementGenerator,
+                senderService, entityManager, transactionManager, reportProperties, meterRegistry);
+
+        start = LocalDateTime.of(2024, 3, 10, 0, 0);
+        end = start.plusDays(1);
+    }
+
+    /**
+     * Test the fan-out with purchases and refunds of three customers
+     * Expected: Should build one statement per customer holding all of their rows
+     */
+    @Test
+    void sendStatements_ShouldGroupPurchasesAndRefundsByCustomer() {
+        // Arrange
+        Customer ahmad = customer(1L, "ahmad@example.com");
+        Customer hani = customer(2L, "hani@example.com");
+        Customer safi = customer(3L, "safi@example.com");
+        stubRows(List.of(purchase(1L, ahmad), purchase(2L, ahmad), purchase(3L, safi)),
+                List.of(refund(1L, ahmad), refund(2L, hani)));
+        List<CustomerStatement> rendered = new CopyOnWriteArrayList<>();
+        when(statementGenerator.generateStatement(any())).thenAnswer(invocation -> {
+            rendered.add(invocation.getArgument(0));
+            return "<html/>";
+        });
+
+        // Act
+        StatementRunResult result = statementService.sendStatements(start, end);
+
+        // Assert
+        assertEquals(new StatementRunResult(3, 3, 0, 0, 0), result);
+        assertEquals(3, rendered.size());
+        CustomerStatement first = statementOf(rendered, 1L);
+        assertEquals(2, first.getPurchases().size());
+        assertEquals(1, first.getRefunds().size());
+        assertEquals(0, statementOf(rendered, 2L).getPurchases().size());
+        assertEquals(1, statementOf(rendered, 2L).getRefunds().size());
+        assertEquals(1, statementOf(rendered, 3L).getPurchases().size());
+    }
+
+    /**
+     * Test the fan-out with more statements than fit one batch
+     * Expected: Should send them in batches of the configured size, in customer order
+     */
+    @Test
+    void sendStatements_ShouldSendInBatches() {
+        // Arrange
+        List<Purchase> purchases = new ArrayList<>();
+        for (long id = 1; id <= 5; id++) {
+            purchases.add(purchase(id, customer(id, "customer" + id + "@example.com")));
+        }
+        stubRows(purchases, List.of());
+        when(statementGenerator.generateStatement(any())).thenReturn("<html/>");
+
+        // Act
+        StatementRunResult result = statementService.sendStatements(start, end);
+
+        // Assert
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<EmailMessage>> batches = ArgumentCaptor.forClass(List.class);
+        verify(senderService, times(3)).sendAll(batches.capture());
+        assertEquals(List.of(2, 2, 1), batches.getAllValues().stream().map(List::size).toList());
+        assertEquals("customer1@example.com", batches.getAllValues().get(0).get(0).getTo());
+        assertEquals("customer5@example.com", batches.getAllValues().get(2).get(0).getTo());
+        assertEquals(5, result.getSent());
+        assertEquals(5.0, meterRegistry.counter("report.statements.sent").count());
+    }
+
+    /**
+     * Test the fan-out with a customer that has no email address
+     * Expected: Should skip that customer without rendering a statement
+     */
+    @Test
+    void sendStatements_WithCustomerWithoutEmail_ShouldSkipIt() {
+        // Arrange
+        stubRows(List.of(purchase(1L, customer(1L, null)), purchase(2L, customer(2L, "hani@example.com"))), List.of());
+        when(statementGenerator.generateStatement(any())).thenReturn("<html/>");
+
+        // Act
+        StatementRunResult result = statementService.sendStatements(start, end);
+
+        // Assert
+        assertEquals(new StatementRunResult(2, 1, 0, 1, 0), result);
+        verify(statementGenerator, times(1)).generateStatement(any());
+        assertEquals(1.0, meterRegistry.counter("report.statements.skipped").count());
+    }
+
+    /**
+     * Test the fan-out when the mail server rejects part of a batch
+     * Expected: Should count the rejected statements as failed and keep going
+     */
+    @Test
+    void sendStatements_WhenBatchPartlyRejected_ShouldCountFailures() {
+        // Arrange
+        List<Purchase> purchases = new ArrayList<>();
+        for (long id = 1; id <= 4; id++) {
+            purchases.add(purchase(id, customer(id, "customer" + id + "@example.com")));
+        }
+        stubRows(purchases, List.of());
+        when(statementGenerator.generateStatement(any())).thenReturn("<html/>");
+        when(senderService.sendAll(any())).thenReturn(Set.of(1)).thenThrow(new RuntimeException("connection lost"));
+
+        // Act
+        StatementRunResult result = statementService.sendStatements(start, end);
+
+        // Assert
+        assertEquals(new StatementRunResult(4, 1, 3, 0, 0), result);
+        assertEquals(3.0, meterRegistry.counter("report.statements.failed").count());
+    }
+
+    /**
+     * Test a rerun of a day some customers were already sent
+     * Expected: Should skip those customers without rendering their statements, and send the rest
+     */
+    @Test
+    void sendStatements_WithCustomersAlreadySent_ShouldSkipThem() {
+        // Arrange
+        List<Purchase> purchases = new ArrayList<>();
+        for (long id = 1; id <= 4; id++) {
+            purchases.add(purchase(id, customer(id, "customer" + id + "@example.com")));
+        }
+        stubRows(purchases, List.of());
+        // customer 9 was sent earlier but has no rows in this run
+        when(statementSendRepository.streamCustomerIdsByDay(start.toLocalDate())).thenReturn(Stream.of(2L, 4L, 9L));
+        when(statementGenerator.generateStatement(any())).thenReturn("<html/>");
+
+        // Act
+        StatementRunResult result = statementService.sendStatements(start, end);
+
+        // Assert
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<EmailMessage>> batches = ArgumentCaptor.forClass(List.class);
+        verify(senderService, times(1)).sendAll(batches.capture());
+        assertEquals(List.of("customer1@example.com", "customer3@example.com"),
+                batches.getValue().stream().map(EmailMessage::getTo).toList());
+        assertEquals(new StatementRunResult(4, 2, 0, 0, 2), result);
+        assertEquals(2.0, meterRegistry.counter("report.statements.already-sent").count());
+    }
+
+    /**
+     * Test a batch the mail server partly rejects
+     * Expected: Should record only the delivered customers as sent, under the period's first day
+     */
+    @Test
+    void sendStatements_ShouldRecordOnlyDeliveredCustomers() {
+        // Arrange
+        stubRows(List.of(purchase(1L, customer(1L, "ahmad@example.com")), purchase(2L, customer(2L, "hani@example.com"))),
+                List.of());
+        when(statementGenerator.generateStatement(any())).thenReturn("<html/>");
+        when(senderService.sendAll(any())).thenReturn(Set.of(1));
+
+        // Act
+        statementService.sendStatements(start, end);
+
+        // Assert
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<StatementSend>> recorded = ArgumentCaptor.forClass(List.class);
+        verify(statementSendRepository, times(1)).saveAll(recorded.capture());
+        assertEquals(1, recorded.getValue().size());
+        assertEquals(1L, recorded.getValue().get(0).getCustomerId());
+        assertEquals(LocalDate.of(2024, 3, 10), recorded.getValue().get(0).getDay());
+    }
+
+    /**
+     * Test the fan-out with many customers and slow rendering
+     * Expected: Should never render more statements at once than the configured concurrency
+     */
+    @Test
+    void sendStatements_ShouldBoundRenderingConcurrency() {
+        // Arrange
+        List<Purchase> purchases = new ArrayList<>();
+        for (long id = 1; id <= 12; id++) {
+            purchases.add(purchase(id, customer(id, "customer" + id + "@example.com")));
+        }
+        stubRows(purchases, List.of());
+        AtomicInteger rendering = new AtomicInteger();
+        AtomicInteger maxRendering = new AtomicInteger();
+        when(statementGenerator.generateStatement(any())).thenAnswer(invocation -> {
+            maxRendering.accumulateAndGet(rendering.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            rendering.decrementAndGet();
+            return "<html/>";
+        });
+
+        // Act
+        StatementRunResult result = statementService.sendStatements(start, end);
+
+        // Assert
+        assertEquals(12, result.getSent());
+        assertTrue(maxRendering.get() <= 2, "rendered " + maxRendering.get() + " statements at once");
+    }
+
+    private void stubRows(List<Purchase> purchases, List<Refund> refunds) {
+        when(purchaseRepository.streamStatementRowsByDateBetween(start, end)).thenReturn(purchases.stream());
+        when(refundRepository.streamStatementRowsByDateBetween(start, end)).thenReturn(refunds.stream());
+    }
+
+    private CustomerStatement statementOf(List<CustomerStatement> statements, Long customerId) {
+        return statements.stream()
+                .filter(statement -> statement.getCustomer().getId().equals(customerId))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private Customer customer(Long id, String email) {
+        Customer customer = new Customer();
+        customer.setId(id);
+        customer.setFirstName("Customer" + id);
+        customer.setLastName("Safi");
+        customer.setEmail(email);
+        return customer;
+    }
+
+    private Purchase purchase(Long id, Customer customer) {
+        Purchase purchase = new Purchase();
+        purchase.setId(id);
+        purchase.setCustomer(customer);
+        purchase.setAmount(10.0);
+        purchase.setDate(start.plusHours(1));
+        return purchase;
+    }
+
+    private Refund refund(Long id, Customer customer) {
+        Refund refund = new Refund();
+        refund.setId(id);
+        refund.setCustomer(customer);
+        refund.setAmount(5.0);
+        refund.setDate(start.plusHours(2));
+        return refund;
+    }
+}
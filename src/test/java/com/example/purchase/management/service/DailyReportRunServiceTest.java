@@ -0,0 +1,268 @@
+package com.example.purchase.management.service;
+
+import com.example.purchase.management.config.ReportProperties;
+import com.example.purchase.management.entity.Customer;
+import com.example.purchase.management.entity.Product;
+import com.example.purchase.management.entity.Purchase;
+import com.example.purchase.management.entity.ReportRun;
+import com.example.purchase.management.model.BackfillResult;
+import com.example.purchase.management.report.HtmlReportGenerator;
+import com.example.purchase.management.report.ReportContent;
+import com.example.purchase.management.repository.PurchaseRepository;
+import com.example.purchase.management.repository.RefundRepository;
+import com.example.purchase.management.repository.ReportRunRepository;
+import com.example.purchase.management.service.impl.DailyReportRunService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class DailyReportRunServiceTest {
+
+    @Mock
+    private ReportRunRepository runRepository;
+
+    @Mock
+    private ReportService reportService;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private RollupService rollupService;
+
+    @Mock
+    private PurchaseRepository purchaseRepository;
+
+    @Mock
+    private RefundRepository refundRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ReportProperties reportProperties;
+    private DailyReportRunService reportRunService;
+
+    // idempotency key -> rendered report
+    private Map<String, String> queued;
+
+    private LocalDate from;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        reportProperties = new ReportProperties();
+        reportProperties.getBackfill().setParallelism(2);
+        reportRunService = new DailyReportRunService(runRepository, reportService, new HtmlReportGenerator(),
+                outboxService, rollupService, purchaseRepository, refundRepository, entityManager,
+                new DateRangeProvider(), transactionManager, reportProperties);
+
+        from = LocalDate.now().minusDays(10);
+        queued = new ConcurrentHashMap<>();
+        when(outboxService.enqueue(anyString(), anyString(), any(), any())).thenAnswer(invocation -> {
+            ByteArrayOutputStream html = new ByteArrayOutputStream();
+            invocation.<ReportContent>getArgument(2).writeTo(html);
+            queued.put(invocation.getArgument(0), html.toString(StandardCharsets.UTF_8));
+            return true;
+        });
+        when(purchaseRepository.streamReportRowsByDateBetween(any(), any())).thenAnswer(invocation -> Stream.empty());
+        when(refundRepository.streamReportRowsByDateBetween(any(), any())).thenAnswer(invocation -> Stream.empty());
+    }
+
+    /**
+     * Test running a day the ledger already has
+     * Expected: Should not queue the report again
+     */
+    @Test
+    void runDay_WhenAlreadyReported_ShouldSkip() {
+        // Arrange
+        when(runRepository.existsByDay(from)).thenReturn(true);
+
+        // Act
+        boolean ran = reportRunService.runDay(from, ReportRun.Trigger.SCHEDULED);
+
+        // Assert
+        assertFalse(ran);
+        verifyNoInteractions(outboxService);
+        verify(runRepository, never()).save(any());
+    }
+
+    /**
+     * Test running a day that was not reported yet
+     * Expected: Should queue the report under the day's key and record it in the ledger
+     */
+    @Test
+    void runDay_WhenNotReported_ShouldQueueAndRecord() {
+        // Act
+        boolean ran = reportRunService.runDay(from, ReportRun.Trigger.SCHEDULED);
+
+        // Assert
+        assertTrue(ran);
+        assertTrue(queued.containsKey("daily-report-" + from));
+        ArgumentCaptor<ReportRun> run = ArgumentCaptor.forClass(ReportRun.class);
+        verify(runRepository).save(run.capture());
+        assertEquals(from, run.getValue().getDay());
+        assertEquals(ReportRun.Trigger.SCHEDULED, run.getValue().getTrigger());
+    }
+
+    /**
+     * Test a backfill over days of which one was already reported
+     * Expected: Should queue only the missing days, loading them with a single scan per table
+     */
+    @Test
+    void backfill_ShouldQueueMissingDaysFromOneScan() {
+        // Arrange
+        LocalDate to = from.plusDays(4);
+        when(runRepository.findDaysBetween(from, to)).thenReturn(List.of(from.plusDays(1)));
+
+        // Act
+        BackfillResult result = reportRunService.backfill(from, to, ReportRun.Trigger.BACKFILL);
+
+        // Assert
+        assertEquals(new BackfillResult(5, 4, 1, 0), result);
+        assertEquals(4, queued.size());
+        assertFalse(queued.containsKey("daily-report-" + from.plusDays(1)));
+        verify(purchaseRepository, times(1)).streamReportRowsByDateBetween(from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+        verify(refundRepository, times(1)).streamReportRowsByDateBetween(from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+        verify(runRepository, times(4)).save(any(ReportRun.class));
+    }
+
+    /**
+     * Test a backfill over a day the ledger misses but the outbox already has, as after a run that failed before recording it
+     * Expected: Should count that day as skipped rather than queued, and still record it
+     */
+    @Test
+    void backfill_WhenOutboxAlreadyHasDay_ShouldCountItAsSkipped() {
+        // Arrange
+        LocalDate to = from.plusDays(2);
+        when(outboxService.enqueue(eq("daily-report-" + from.plusDays(1)), anyString(), any(), any())).thenReturn(false);
+
+        // Act
+        BackfillResult result = reportRunService.backfill(from, to, ReportRun.Trigger.BACKFILL);
+
+        // Assert
+        assertEquals(new BackfillResult(3, 2, 1, 0), result);
+        verify(runRepository, times(3)).save(any(ReportRun.class));
+    }
+
+    /**
+     * Test a backfill longer than one window
+     * Expected: Should scan once per window of the configured number of days
+     */
+    @Test
+    void backfill_WithLongRange_ShouldScanOncePerWindow() {
+        // Arrange
+        reportProperties.getBackfill().setWindowDays(2);
+
+        // Act
+        BackfillResult result = reportRunService.backfill(from, from.plusDays(4), ReportRun.Trigger.BACKFILL);
+
+        // Assert
+        assertEquals(5, result.getQueued());
+        verify(purchaseRepository, times(3)).streamReportRowsByDateBetween(any(), any());
+    }
+
+    /**
+     * Test a backfill over days with purchases
+     * Expected: Each day's report should hold that day's purchases only
+     */
+    @Test
+    void backfill_ShouldSplitRowsByDay() {
+        // Arrange
+        when(purchaseRepository.streamReportRowsByDateBetween(any(), any())).thenAnswer(invocation -> Stream.of(
+                purchase(1L, "Laptop", from), purchase(2L, "Tablet", from.plusDays(1))));
+
+        // Act
+        reportRunService.backfill(from, from.plusDays(1), ReportRun.Trigger.BACKFILL);
+
+        // Assert
+        String first = queued.get("daily-report-" + from);
+        String second = queued.get("daily-report-" + from.plusDays(1));
+        assertTrue(first.contains("Laptop") && !first.contains("Tablet"));
+        assertTrue(second.contains("Tablet") && !second.contains("Laptop"));
+    }
+
+    /**
+     * Test a backfill whose scan returns the days' rows interleaved, as late-dated purchases do
+     * Expected: Each day's report should hold all of that day's purchases in scan order
+     */
+    @Test
+    void backfill_WithInterleavedDays_ShouldSpoolEveryRowIntoItsDay() {
+        // Arrange
+        when(purchaseRepository.streamReportRowsByDateBetween(any(), any())).thenAnswer(invocation -> Stream.of(
+                purchase(1L, "Laptop", from), purchase(2L, "Tablet", from.plusDays(1)),
+                purchase(3L, "Monitor", from)));
+
+        // Act
+        BackfillResult result = reportRunService.backfill(from, from.plusDays(1), ReportRun.Trigger.BACKFILL);
+
+        // Assert
+        assertEquals(2, result.getQueued());
+        String first = queued.get("daily-report-" + from);
+        String second = queued.get("daily-report-" + from.plusDays(1));
+        assertTrue(first.indexOf("Laptop") < first.indexOf("Monitor") && !first.contains("Tablet"));
+        assertTrue(second.contains("Tablet") && !second.contains("Monitor"));
+    }
+
+    /**
+     * Test a backfill reaching into today
+     * Expected: Should throw IllegalArgumentException, as today is not over yet
+     */
+    @Test
+    void backfill_EndingToday_ShouldThrowIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> reportRunService.backfill(from, LocalDate.now(), ReportRun.Trigger.BACKFILL));
+    }
+
+    /**
+     * Test submitting a backfill with a reversed range
+     * Expected: Should throw IllegalArgumentException before anything runs in the background
+     */
+    @Test
+    void submitBackfill_WithReversedRange_ShouldThrowIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> reportRunService.submitBackfill(from, from.minusDays(1), ReportRun.Trigger.BACKFILL));
+        verifyNoInteractions(runRepository, outboxService);
+    }
+
+    private Purchase purchase(Long id, String productName, LocalDate day) {
+        Customer customer = new Customer();
+        customer.setFirstName("Ahmad");
+        customer.setLastName("Saad");
+
+        Product product = new Product();
+        product.setName(productName);
+
+        Purchase purchase = new Purchase();
+        purchase.setId(id);
+        purchase.setCustomer(customer);
+        purchase.setProduct(product);
+        purchase.setAmount(10.0);
+        purchase.setDate(day.atTime(12, 0));
+        return purchase;
+    }
+}
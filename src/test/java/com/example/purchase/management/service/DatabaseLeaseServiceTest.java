@@ -0,0 +1,231 @@
+package com.example.purchase.management.service;
+
+import com.example.purchase.management.config.ReportProperties;
+import com.example.purchase.management.entity.SchedulerLease;
+import com.example.purchase.management.model.Lease;
+import com.example.purchase.management.repository.SchedulerLeaseRepository;
+import com.example.purchase.management.service.impl.DatabaseLeaseService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Plays several cluster instances against one database: each {@link DatabaseLeaseService} is an
+ * instance with its own owner id. Test methods are not wrapped in a transaction, because leases
+ * are renewed and taken over from the service's own threads.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DatabaseLeaseServiceTest {
+
+    @Autowired
+    private SchedulerLeaseRepository leaseRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private ReportProperties reportProperties;
+    private DatabaseLeaseService first;
+    private DatabaseLeaseService second;
+
+    @BeforeEach
+    void setUp() {
+        reportProperties = new ReportProperties();
+        reportProperties.getLease().setTtl(Duration.ofMillis(600));
+        reportProperties.getLease().setStandby(Duration.ofSeconds(10));
+        first = newInstance();
+        second = newInstance();
+    }
+
+    @AfterEach
+    void tearDown() {
+        leaseRepository.deleteAllInBatch();
+    }
+
+    /**
+     * Test running a job twice for the same run
+     * Expected: Should run it the first time only, under the first fencing token
+     */
+    @Test
+    void runOnce_WithSameRunKey_ShouldRunOnlyOnce() {
+        // Arrange
+        List<Lease> leases = new CopyOnWriteArrayList<>();
+
+        // Act
+        boolean ranFirst = first.runOnce("daily-report", "2024-03-10", leases::add);
+        boolean ranSecond = second.runOnce("daily-report", "2024-03-10", leases::add);
+
+        // Assert
+        assertTrue(ranFirst);
+        assertFalse(ranSecond);
+        assertEquals(1, leases.size());
+        assertEquals(1, leases.get(0).getFencingToken());
+        assertEquals("2024-03-10", leaseRepository.findById("daily-report").orElseThrow().getLastRun());
+    }
+
+    /**
+     * Test the next run after a finished one
+     * Expected: Should take the lease again with a higher fencing token
+     */
+    @Test
+    void runOnce_WithNextRunKey_ShouldRunWithHigherToken() {
+        // Arrange
+        List<Lease> leases = new CopyOnWriteArrayList<>();
+        first.runOnce("daily-report", "2024-03-10", leases::add);
+
+        // Act
+        boolean ran = second.runOnce("daily-report", "2024-03-11", leases::add);
+
+        // Assert
+        assertTrue(ran);
+        assertEquals(2, leases.get(1).getFencingToken());
+    }
+
+    /**
+     * Test a job that fails
+     * Expected: Should rethrow, free the lease without recording the run, and let the run be retried
+     */
+    @Test
+    void runOnce_WhenTaskThrows_ShouldNotRecordRunAndAllowRetry() {
+        // Arrange
+        first.runOnce("daily-report", "2024-03-09", lease -> { });
+        List<Lease> leases = new CopyOnWriteArrayList<>();
+
+        // Act
+        assertThrows(IllegalStateException.class, () -> first.runOnce("daily-report", "2024-03-10", lease -> {
+            throw new IllegalStateException("mail server down");
+        }));
+        SchedulerLease afterFailure = leaseRepository.findById("daily-report").orElseThrow();
+        boolean retried = second.runOnce("daily-report", "2024-03-10", leases::add);
+
+        // Assert
+        assertEquals("2024-03-09", afterFailure.getLastRun());
+        assertNull(afterFailure.getLockedUntil());
+        assertTrue(retried);
+        assertEquals(3, leases.get(0).getFencingToken());
+        assertEquals("2024-03-10", leaseRepository.findById("daily-report").orElseThrow().getLastRun());
+    }
+
+    /**
+     * Test another instance firing while the job runs
+     * Expected: Should not run it there, and not take it over once the holder finishes
+     */
+    @Test
+    void runOnce_WhileHeldByAnotherInstance_ShouldNotRun() throws Exception {
+        // Arrange
+        AtomicBoolean ranOnSecond = new AtomicBoolean();
+
+        // Act
+        first.runOnce("daily-report", "2024-03-10", lease ->
+                assertFalse(second.runOnce("daily-report", "2024-03-10", other -> ranOnSecond.set(true))));
+        // past the point where the second instance looks again
+        Thread.sleep(reportProperties.getLease().getTtl().plusSeconds(2).toMillis());
+
+        // Assert
+        assertFalse(ranOnSecond.get());
+    }
+
+    /**
+     * Test a job that runs longer than the lease
+     * Expected: Heartbeats should keep the lease held for the whole run
+     */
+    @Test
+    void runOnce_WithLongTask_ShouldKeepLeaseAlive() {
+        // Arrange
+        AtomicBoolean heldAtEnd = new AtomicBoolean();
+
+        // Act
+        first.runOnce("daily-report", "2024-03-10", lease -> {
+            sleep(reportProperties.getLease().getTtl().multipliedBy(3));
+            heldAtEnd.set(first.isHeld(lease));
+        });
+
+        // Assert
+        assertTrue(heldAtEnd.get());
+    }
+
+    /**
+     * Test a holder that died mid-run without releasing its lease
+     * Expected: A standing-by instance should take over once the lease expires, with the next fencing token
+     */
+    @Test
+    void runOnce_WhenHolderDies_ShouldBeTakenOverByStandingByInstance() {
+        // Arrange
+        SchedulerLease dead = new SchedulerLease("daily-report");
+        dead.setOwner("dead-instance");
+        dead.setFencingToken(5);
+        dead.setLockedUntil(LocalDateTime.now().plus(reportProperties.getLease().getTtl()));
+        leaseRepository.save(dead);
+        List<Lease> leases = new CopyOnWriteArrayList<>();
+
+        // Act
+        boolean ranNow = second.runOnce("daily-report", "2024-03-10", leases::add);
+
+        // Assert
+        assertFalse(ranNow);
+        await().atMost(Duration.ofSeconds(5)).until(() -> !leases.isEmpty());
+        assertEquals(6, leases.get(0).getFencingToken());
+        await().atMost(Duration.ofSeconds(5)).until(() ->
+                "2024-03-10".equals(leaseRepository.findById("daily-report").orElseThrow().getLastRun()));
+    }
+
+    /**
+     * Test a holder that stalled past its expiry while another instance took over
+     * Expected: The stalled holder's fencing token should no longer count as held
+     */
+    @Test
+    void isHeld_AfterTakeOver_ShouldFenceOffStalledHolder() {
+        // Arrange
+        // long enough that no heartbeat renews the lease while the test expires it
+        reportProperties.getLease().setTtl(Duration.ofMinutes(1));
+        AtomicBoolean firstHeld = new AtomicBoolean(true);
+        AtomicBoolean secondHeld = new AtomicBoolean();
+
+        // Act
+        first.runOnce("daily-report", "2024-03-10", stalled -> {
+            // the lease lapses, as if this instance had stopped renewing it
+            SchedulerLease lease = leaseRepository.findById("daily-report").orElseThrow();
+            lease.setLockedUntil(LocalDateTime.now().minusSeconds(1));
+            leaseRepository.save(lease);
+
+            second.runOnce("daily-report", "2024-03-10", current -> {
+                firstHeld.set(first.isHeld(stalled));
+                secondHeld.set(second.isHeld(current));
+            });
+        });
+
+        // Assert
+        assertFalse(firstHeld.get());
+        assertTrue(secondHeld.get());
+    }
+
+    private DatabaseLeaseService newInstance() {
+        return new DatabaseLeaseService(leaseRepository, entityManager, reportProperties, transactionManager);
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
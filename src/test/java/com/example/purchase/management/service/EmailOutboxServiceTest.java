@@ -0,0 +1,316 @@
+package com.example.purchase.management.service;
+
+import com.example.purchase.management.config.EmailProperties;
+import com.example.purchase.management.config.ReportProperties;
+import com.example.purchase.management.entity.OutboxMessage;
+import com.example.purchase.management.entity.OutboxMessage.Status;
+import com.example.purchase.management.repository.OutboxChunkRepository;
+import com.example.purchase.management.repository.OutboxMessageRepository;
+import com.example.purchase.management.service.impl.EmailOutboxService;
+import com.example.purchase.management.service.impl.EmailSenderService;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.Multipart;
+import jakarta.mail.Part;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the outbox against an in-memory SMTP server. Test methods are not wrapped in a transaction,
+ * because delivery happens on the outbox's own worker threads.
+ */
+@DataJpaTest
+@Import({EmailOutboxService.class, EmailSenderService.class, EmailOutboxServiceTest.OutboxTestConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EmailOutboxServiceTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private OutboxMessageRepository outboxRepository;
+
+    @Autowired
+    private OutboxChunkRepository chunkRepository;
+
+    @Autowired
+    private ReportProperties reportProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @TestConfiguration
+    static class OutboxTestConfig {
+
+        @Bean
+        JavaMailSenderImpl mailSender() {
+            JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+            mailSender.setHost("localhost");
+            mailSender.setPort(ServerSetupTest.SMTP.getPort());
+            return mailSender;
+        }
+
+        @Bean
+        EmailProperties emailProperties() {
+            EmailProperties emailProperties = new EmailProperties();
+            emailProperties.setFrom("reports@test.me");
+            emailProperties.setTo("owner@test.me");
+            return emailProperties;
+        }
+
+        @Bean
+        ReportProperties reportProperties() {
+            return new ReportProperties();
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        reportProperties.getOutbox().setMaxAttempts(8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        chunkRepository.deleteAllInBatch();
+        outboxRepository.deleteAllInBatch();
+    }
+
+    /**
+     * Test the happy path from enqueue to SMTP
+     * Expected: Report should be delivered and the message marked SENT
+     */
+    @Test
+    void dispatchDue_WithEnqueuedReport_ShouldDeliverIt() throws Exception {
+        // Arrange
+        long enqueuedBefore = meterRegistry.timer("report.outbox.enqueue").count();
+        long sentBefore = meterRegistry.timer("report.outbox.delivery", "outcome", "sent").count();
+        outboxService.enqueue("daily-report-2024-03-10", "Daily Transactions Report",
+                out -> out.write("<h1>report data</h1>".getBytes(StandardCharsets.UTF_8)), null);
+
+        // Act
+        int claimed = outboxService.dispatchDue();
+
+        // Assert
+        assertEquals(1, claimed);
+        assertTrue(greenMail.waitForIncomingEmail(5000, 1));
+        MimeMessage received = greenMail.getReceivedMessages()[0];
+        assertEquals("Daily Transactions Report", received.getSubject());
+        assertTrue(text(received).contains("report data"));
+
+        OutboxMessage message = awaitStatus("daily-report-2024-03-10", Status.SENT);
+        assertEquals(1, message.getAttempts());
+        assertNotNull(message.getSentAt());
+        assertEquals(0, chunkRepository.count());
+        assertEquals(enqueuedBefore + 1, meterRegistry.timer("report.outbox.enqueue").count());
+        assertEquals(sentBefore + 1, meterRegistry.timer("report.outbox.delivery", "outcome", "sent").count());
+    }
+
+    /**
+     * Test enqueueing the same report twice
+     * Expected: Second enqueue should be ignored and only one email sent
+     */
+    @Test
+    void enqueue_WithSameKeyTwice_ShouldKeepOneMessage() {
+        // Act
+        boolean first = outboxService.enqueue("daily-report-2024-03-11", "Report",
+                out -> out.write("<h1>first</h1>".getBytes(StandardCharsets.UTF_8)), null);
+        boolean second = outboxService.enqueue("daily-report-2024-03-11", "Report",
+                out -> out.write("<h1>second</h1>".getBytes(StandardCharsets.UTF_8)), null);
+
+        // Assert
+        assertTrue(first);
+        assertFalse(second);
+        assertEquals(1, outboxRepository.count());
+    }
+
+    /**
+     * Test delivery while the SMTP server is down
+     * Expected: Message should go back to PENDING with its next attempt pushed out
+     */
+    @Test
+    void dispatchDue_WhenSmtpUnavailable_ShouldScheduleRetryWithBackoff() {
+        // Arrange
+        outboxService.enqueue("daily-report-2024-03-12", "Report",
+                out -> out.write("<h1>report data</h1>".getBytes(StandardCharsets.UTF_8)), null);
+        greenMail.stop();
+
+        // Act
+        outboxService.dispatchDue();
+
+        // Assert
+        OutboxMessage message = await().atMost(Duration.ofSeconds(10))
+                .until(() -> find("daily-report-2024-03-12"),
+                        m -> m.getStatus() == Status.PENDING && m.getAttempts() == 1);
+        assertNotNull(message.getLastError());
+        assertTrue(message.getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(30)));
+        assertEquals(0, outboxService.dispatchDue());
+    }
+
+    /**
+     * Test a message failing its last attempt, then being retried by hand
+     * Expected: Message should become DEAD, and be delivered once retried
+     */
+    @Test
+    void retry_WithDeadMessage_ShouldDeliverItAgain() throws Exception {
+        // Arrange
+        reportProperties.getOutbox().setMaxAttempts(1);
+        outboxService.enqueue("daily-report-2024-03-13", "Report",
+                out -> out.write("<h1>report data</h1>".getBytes(StandardCharsets.UTF_8)), null);
+        greenMail.stop();
+        outboxService.dispatchDue();
+        OutboxMessage dead = awaitStatus("daily-report-2024-03-13", Status.DEAD);
+        greenMail.start();
+
+        // Act
+        outboxService.retry(dead.getId());
+        outboxService.dispatchDue();
+
+        // Assert
+        assertTrue(greenMail.waitForIncomingEmail(5000, 1));
+        awaitStatus("daily-report-2024-03-13", Status.SENT);
+    }
+
+    /**
+     * Test retrying a message that is not dead
+     * Expected: Should throw IllegalArgumentException
+     */
+    @Test
+    void retry_WithPendingMessage_ShouldThrowException() {
+        // Arrange
+        outboxService.enqueue("daily-report-2024-03-14", "Report",
+                out -> out.write("<h1>report data</h1>".getBytes(StandardCharsets.UTF_8)), null);
+        Long id = find("daily-report-2024-03-14").getId();
+
+        // Act & Assert
+        var exp = assertThrows(IllegalArgumentException.class, () -> outboxService.retry(id));
+        assertEquals("Only dead messages can be retried", exp.getMessage());
+    }
+
+    /**
+     * Test claims that keep expiring, as when the message takes its worker down every time
+     * Expected: Message should go back to PENDING until its last attempt, then be parked as DEAD
+     */
+    @Test
+    void dispatchDue_WithClaimExpiredOnLastAttempt_ShouldParkMessageAsDead() {
+        // Arrange
+        reportProperties.getOutbox().setMaxAttempts(2);
+        outboxService.enqueue("daily-report-2024-03-16", "Report",
+                out -> out.write("<h1>report data</h1>".getBytes(StandardCharsets.UTF_8)), null);
+        Long id = find("daily-report-2024-03-16").getId();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        // Act
+        List<Status> afterRelease = new ArrayList<>();
+        for (int attempt = 0; attempt < 2; attempt++) {
+            LocalDateTime now = LocalDateTime.now();
+            transaction.executeWithoutResult(status -> {
+                outboxRepository.claim(id, Status.PENDING, Status.SENDING, now.minusSeconds(1), "crashed");
+                outboxRepository.releaseExpiredClaims(Status.SENDING, Status.PENDING, Status.DEAD,
+                        reportProperties.getOutbox().getMaxAttempts(), now);
+            });
+            afterRelease.add(find("daily-report-2024-03-16").getStatus());
+        }
+
+        // Assert
+        assertEquals(List.of(Status.PENDING, Status.DEAD), afterRelease);
+        OutboxMessage message = find("daily-report-2024-03-16");
+        assertEquals(2, message.getAttempts());
+        assertNull(message.getClaimedUntil());
+        assertEquals(0, outboxService.dispatchDue());
+    }
+
+    /**
+     * Test a worker whose claim expired mid-send recording its outcome after another worker claimed and sent the message
+     * Expected: Neither SENT nor a failure should be recorded for the stale claim, leaving the message SENT once
+     */
+    @Test
+    void markOutcome_AfterClaimWasTakenOver_ShouldNotOverwriteCurrentClaim() {
+        // Arrange
+        outboxService.enqueue("daily-report-2024-03-15", "Report",
+                out -> out.write("<h1>report data</h1>".getBytes(StandardCharsets.UTF_8)), null);
+        Long id = find("daily-report-2024-03-15").getId();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        LocalDateTime now = LocalDateTime.now();
+
+        transaction.executeWithoutResult(status -> {
+            // the first worker's claim expires and is released, then a second worker claims and sends the message
+            outboxRepository.claim(id, Status.PENDING, Status.SENDING, now.minusSeconds(1), "stale");
+            outboxRepository.releaseExpiredClaims(Status.SENDING, Status.PENDING, Status.DEAD, 8, now);
+            outboxRepository.claim(id, Status.PENDING, Status.SENDING, now.plusMinutes(15), "current");
+            outboxRepository.markSent(id, "current", Status.SENDING, Status.SENT, now);
+        });
+
+        // Act
+        Integer failed = transaction.execute(status -> outboxRepository.markFailed(
+                id, "stale", Status.SENDING, Status.PENDING, now.plusMinutes(1), "Connection timed out"));
+        Integer sent = transaction.execute(status -> outboxRepository.markSent(
+                id, "stale", Status.SENDING, Status.SENT, now));
+
+        // Assert
+        assertEquals(0, failed);
+        assertEquals(0, sent);
+        OutboxMessage message = find("daily-report-2024-03-15");
+        assertEquals(Status.SENT, message.getStatus());
+        assertEquals(2, message.getAttempts());
+        assertNull(message.getClaimToken());
+    }
+
+    // Decoded text of every part, as the body goes on the wire base64-encoded
+    private String text(Part part) throws Exception {
+        if (part.getContent() instanceof Multipart multipart) {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < multipart.getCount(); i++) {
+                text.append(text(multipart.getBodyPart(i)));
+            }
+            return text.toString();
+        }
+        return part.getContent() instanceof String content ? content : "";
+    }
+
+    private OutboxMessage awaitStatus(String key, Status status) {
+        return await().atMost(Duration.ofSeconds(10))
+                .until(() -> find(key), message -> message.getStatus() == status);
+    }
+
+    private OutboxMessage find(String key) {
+        return outboxRepository.findAll().stream()
+                .filter(message -> message.getIdempotencyKey().equals(key))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -2,19 +2,42 @@ package com.example.purchase.management.service;
 
 import com.example.purchase.management.config.EmailProperties;
 import com.example.purchase.management.exception.ContentSizeExceededException;
+import com.example.purchase.management.model.EmailMessage;
+import com.example.purchase.management.report.CountingOutputStream;
 import com.example.purchase.management.service.impl.EmailSenderService;
+import jakarta.mail.BodyPart;
 import jakarta.mail.MessagingException;
+import jakarta.mail.Multipart;
+import jakarta.mail.Part;
+import jakarta.mail.Session;
 import jakarta.mail.internet.MimeMessage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 class EmailServiceImplTest {
@@ -97,24 +120,224 @@ class EmailServiceImplTest {
     }
 
     @Test
-    public void sendEmail_WhenContentSizeExceeded_ShouldThrowContentSizeExceededException(){
+    public void sendEmail_WhenContentSizeExceeded_ShouldAttachCompressedReport() throws Exception {
         // Arrange
         String subject = "Test Subject";
+        String htmlContent = "<tr><td>a</td></tr>".repeat(2 * 1024 * 1024);
+        List<SentMessage> sent = captureSentMessages();
+
+        // Mock
+        when(emailProperties.getFrom()).thenReturn("any@test.com");
+        when(emailProperties.getTo()).thenReturn("any@test.com");
+
+        // Act
+        emailService.send(subject, htmlContent);
+
+        // Assert
+        assertEquals(1, sent.size());
+        assertEquals(subject, sent.get(0).subject());
+        assertEquals(List.of("report.html.gz"), List.copyOf(sent.get(0).attachments().keySet()));
+        assertEquals(htmlContent, new String(gunzip(sent.get(0).attachments().get("report.html.gz")), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void sendStreamingEmail_WithValidProperties_ShouldSendReport() throws ContentSizeExceededException {
+        // Arrange
+        String subject = "report";
+        String mailAddress = "baylasan@test.me";
+
+        when(emailProperties.getFrom()).thenReturn(mailAddress);
+        when(emailProperties.getTo()).thenReturn(mailAddress);
+
+        // Act
+        emailService.send(subject, out -> out.write("<h1>report data</h1>".getBytes(StandardCharsets.UTF_8)));
+
+        // Assert
+        verify(mailSender, times(1)).send(mimeMsg);
+    }
+
+    @Test
+    public void sendStreamingEmail_WhenContentSizeExceeded_ShouldSendSummaryInlineAndReportAttached() throws Exception {
+        // Arrange
+        byte[] chunk = "<tr><td>report row</td></tr>".repeat(40_000).getBytes(StandardCharsets.UTF_8);
+        List<SentMessage> sent = captureSentMessages();
+
+        when(emailProperties.getFrom()).thenReturn("any@test.com");
+        when(emailProperties.getTo()).thenReturn("any@test.com");
+
+        // Act
+        emailService.send("Test Subject",
+                out -> {
+                    for (int i = 0; i < 30; i++) {
+                        out.write(chunk);
+                    }
+                },
+                out -> out.write("<h2>Daily Summary</h2>".getBytes(StandardCharsets.UTF_8)));
+
+        // Assert
+        assertEquals(1, sent.size());
+        assertTrue(sent.get(0).html().contains("<h2>Daily Summary</h2>"));
+        assertTrue(sent.get(0).html().contains("report.html.gz"));
+        assertEquals(30L * chunk.length, gunzip(sent.get(0).attachments().get("report.html.gz")).length);
+    }
+
+    @Test
+    public void sendStreamingEmail_WhenCompressedReportStillTooLarge_ShouldSplitIntoNumberedParts() throws Exception {
+        // Arrange
+        byte[] chunk = new byte[1024 * 1024];
+        Random random = new Random(42);
+        CRC32 written = new CRC32();
+        List<SentMessage> sent = captureSentMessages();
+
+        when(emailProperties.getFrom()).thenReturn("any@test.com");
+        when(emailProperties.getTo()).thenReturn("any@test.com");
+
+        // Act: random bytes barely compress, so 45 MB needs three parts of under 17 MB
+        emailService.send("Test Subject", out -> {
+            for (int i = 0; i < 45; i++) {
+                random.nextBytes(chunk);
+                written.update(chunk);
+                out.write(chunk);
+            }
+        });
 
-        StringBuilder largeContent = new StringBuilder();
-        for (int i = 0; i < 100 * 1024 * 1024; i++) {
-            largeContent.append("a");
+        // Assert
+        assertEquals(3, sent.size());
+        ByteArrayOutputStream joined = new ByteArrayOutputStream();
+        for (int part = 1; part <= 3; part++) {
+            SentMessage message = sent.get(part - 1);
+            assertEquals("Test Subject (part " + part + "/3)", message.subject());
+            joined.write(message.attachments().get(String.format("report.html.gz.%03d", part)));
         }
-        String htmlContent = largeContent.toString();
+        CRC32 received = new CRC32();
+        received.update(gunzip(joined.toByteArray()));
+        assertEquals(written.getValue(), received.getValue());
+    }
+
+    /**
+     * Test sending reports just under the inline limit and split into parts, with the largest summary allowed
+     * Expected: Every message, encoded as it goes on the wire, should fit in 25 MB
+     */
+    @Test
+    public void sendStreamingEmail_WithLargestContent_EveryMessageShouldFitSizeLimit() throws Exception {
+        // Arrange
+        byte[] chunk = new byte[1024 * 1024];
+        Random random = new Random(7);
+        // non-ASCII text, as a summary of product names in any language can be
+        byte[] summary = "\u00e9".repeat(512 * 1024 - 1).getBytes(StandardCharsets.UTF_8);
+        List<SentMessage> sent = captureSentMessages();
 
-        // Mock
         when(emailProperties.getFrom()).thenReturn("any@test.com");
         when(emailProperties.getTo()).thenReturn("any@test.com");
 
-        // Act & Assert
-        assertThrows(
-                ContentSizeExceededException.class,
-                () -> emailService.send(subject, htmlContent)
-        );
+        // Act
+        emailService.send("Test Subject", out -> {
+            // just under the inline limit, on one long line
+            byte[] row = "<tr><td>\u00e9</td></tr>".repeat(18 * 1024 * 1024 / 20).getBytes(StandardCharsets.UTF_8);
+            out.write(row);
+        });
+        emailService.send("Test Subject", out -> {
+            for (int i = 0; i < 45; i++) {
+                random.nextBytes(chunk);
+                out.write(chunk);
+            }
+        }, out -> out.write(summary));
+
+        // Assert
+        assertEquals(4, sent.size());
+        assertTrue(sent.get(0).attachments().isEmpty());
+        for (SentMessage message : sent) {
+            assertTrue(message.size() <= 25 * 1024 * 1024, message.subject() + " is " + message.size() + " bytes");
+        }
+    }
+
+    private record SentMessage(String subject, String html, Map<String, byte[]> attachments, long size) {
+    }
+
+    // Real messages, read as they are sent, since the spooled files are gone afterwards
+    /**
+     * Test sending a batch of statements
+     * Expected: Should hand all messages to the mail sender in a single call, sharing one connection
+     */
+    @Test
+    public void sendAll_WithBatch_ShouldSendAllMessagesInOneCall() throws Exception {
+        // Arrange
+        when(mailSender.createMimeMessage()).thenAnswer(invocation -> new MimeMessage((Session) null));
+        when(emailProperties.getFrom()).thenReturn("reports@test.me");
+        List<EmailMessage> messages = List.of(
+                new EmailMessage("ahmad@test.me", "statement", "<p>one</p>"),
+                new EmailMessage("hani@test.me", "statement", "<p>two</p>"));
+
+        // Act
+        Set<Integer> failed = emailService.sendAll(messages);
+
+        // Assert
+        ArgumentCaptor<MimeMessage[]> sent = ArgumentCaptor.forClass(MimeMessage[].class);
+        verify(mailSender, times(1)).send(sent.capture());
+        assertEquals(Set.of(), failed);
+        assertEquals(2, sent.getValue().length);
+        assertEquals("hani@test.me", sent.getValue()[1].getAllRecipients()[0].toString());
+    }
+
+    /**
+     * Test sending a batch the mail server partly rejects
+     * Expected: Should return the positions of the rejected messages instead of throwing
+     */
+    @Test
+    public void sendAll_WhenSomeMessagesRejected_ShouldReturnFailedPositions() {
+        // Arrange
+        when(mailSender.createMimeMessage()).thenAnswer(invocation -> new MimeMessage((Session) null));
+        when(emailProperties.getFrom()).thenReturn("reports@test.me");
+        List<EmailMessage> messages = List.of(
+                new EmailMessage("ahmad@test.me", "statement", "<p>one</p>"),
+                new EmailMessage("hani@test.me", "statement", "<p>two</p>"));
+        doAnswer(invocation -> {
+            // the second recipient's mailbox is unavailable
+            Object[] batch = invocation.getArguments();
+            throw new MailSendException(Map.of(batch[1], new MessagingException("mailbox unavailable")));
+        }).when(mailSender).send(any(MimeMessage[].class));
+
+        // Act
+        Set<Integer> failed = emailService.sendAll(messages);
+
+        // Assert
+        assertEquals(Set.of(1), failed);
+    }
+
+    private List<SentMessage> captureSentMessages() {
+        List<SentMessage> sent = new ArrayList<>();
+        when(mailSender.createMimeMessage()).thenAnswer(invocation -> new MimeMessage((Session) null));
+        doAnswer(invocation -> {
+            MimeMessage message = invocation.getArgument(0);
+            StringBuilder html = new StringBuilder();
+            Map<String, byte[]> attachments = new LinkedHashMap<>();
+            collectParts((Multipart) message.getContent(), html, attachments);
+            CountingOutputStream wire = new CountingOutputStream(OutputStream.nullOutputStream());
+            message.writeTo(wire);
+            sent.add(new SentMessage(message.getSubject(), html.toString(), attachments, wire.getCount()));
+            return null;
+        }).when(mailSender).send(any(MimeMessage.class));
+        return sent;
+    }
+
+    private void collectParts(Multipart multipart, StringBuilder html, Map<String, byte[]> attachments) throws Exception {
+        for (int i = 0; i < multipart.getCount(); i++) {
+            BodyPart part = multipart.getBodyPart(i);
+            if (part.getContent() instanceof Multipart nested) {
+                collectParts(nested, html, attachments);
+            } else if (Part.ATTACHMENT.equalsIgnoreCase(part.getDisposition())) {
+                try (InputStream in = part.getInputStream()) {
+                    attachments.put(part.getFileName(), in.readAllBytes());
+                }
+            } else {
+                html.append(part.getContent());
+            }
+        }
+    }
+
+    private byte[] gunzip(byte[] compressed) throws Exception {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,275 @@
+package com.example.purchase.management.service;
+
+import com.example.purchase.management.config.ReportProperties;
+import com.example.purchase.management.model.ReportJobStatus;
+import com.example.purchase.management.model.ReportJobStatus.State;
+import com.example.purchase.management.report.HtmlReportGenerator;
+import com.example.purchase.management.service.impl.FileReportJobService;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FileReportJobServiceTest {
+
+    @Mock
+    private PurchaseService purchaseService;
+
+    @Mock
+    private RefundService refundService;
+
+    @Mock
+    private RollupService rollupService;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    private Path directory;
+
+    private ReportProperties reportProperties;
+    private FileReportJobService reportJobService;
+
+    private final LocalDateTime start = LocalDate.of(2024, 3, 1).atStartOfDay();
+    private final LocalDateTime end = LocalDate.of(2024, 3, 4).atStartOfDay();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        reportProperties = new ReportProperties();
+        reportProperties.getJobs().setDirectory(directory.toString());
+        reportProperties.getJobs().setWorkers(1);
+        reportProperties.getJobs().setQueueCapacity(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (reportJobService != null) {
+            reportJobService.shutdown();
+        }
+    }
+
+    /**
+     * Test running a report job over three days
+     * Expected: Should read purchases and refunds one day at a time and complete with the report on disk
+     */
+    @Test
+    void submit_ShouldRenderReportDayByDay() throws Exception {
+        // Arrange
+        reportJobService = newService();
+
+        // Act
+        ReportJobStatus queued = reportJobService.submit(start, end);
+        ReportJobStatus done = awaitFinished(queued.getId());
+
+        // Assert
+        assertEquals(State.COMPLETED, done.getState());
+        assertEquals(100, done.getProgress());
+        Path result = reportJobService.getResult(queued.getId());
+        assertEquals(done.getSize(), Files.size(result));
+        assertTrue(Files.readString(result).contains("</html>"));
+
+        verify(purchaseService, times(3)).streamPurchasesBetween(any(), any());
+        verify(purchaseService).streamPurchasesBetween(start, start.plusDays(1).minusNanos(1000));
+        verify(purchaseService).streamPurchasesBetween(start.plusDays(2), end);
+        verify(refundService, times(3)).streamRefundsBetween(any(), any());
+    }
+
+    /**
+     * Test submitting more jobs than the workers and queue can hold
+     * Expected: Should reject the extra job and report the queued one as not finished
+     */
+    @Test
+    void submit_WhenQueueIsFull_ShouldReject() throws Exception {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        when(rollupService.getDailySummary(any(), any())).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return List.of();
+        });
+        reportJobService = newService();
+        ReportJobStatus running = reportJobService.submit(start, end);
+        ReportJobStatus queued = reportJobService.submit(start, end);
+
+        // Act & Assert
+        assertThrows(RejectedExecutionException.class, () -> reportJobService.submit(start, end));
+        assertEquals(State.QUEUED, reportJobService.getStatus(queued.getId()).getState());
+        assertThrows(IllegalStateException.class, () -> reportJobService.getResult(queued.getId()));
+
+        release.countDown();
+        assertEquals(State.COMPLETED, awaitFinished(running.getId()).getState());
+        assertEquals(State.COMPLETED, awaitFinished(queued.getId()).getState());
+    }
+
+    /**
+     * Test a report larger than the whole store
+     * Expected: Should fail the job and leave no file behind
+     */
+    @Test
+    void submit_WhenReportExceedsMaxSize_ShouldFail() throws Exception {
+        // Arrange
+        reportProperties.getJobs().setMaxSize(DataSize.ofBytes(10));
+        reportJobService = newService();
+
+        // Act
+        ReportJobStatus done = awaitFinished(reportJobService.submit(start, end).getId());
+
+        // Assert
+        assertEquals(State.FAILED, done.getState());
+        assertNotNull(done.getError());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    /**
+     * Test the cleanup once the store is over its size quota
+     * Expected: Should delete the least recently downloaded report only
+     */
+    @Test
+    void cleanUp_WhenOverQuota_ShouldEvictLeastRecentlyUsed() throws Exception {
+        // Arrange
+        reportJobService = newService();
+        String first = awaitFinished(reportJobService.submit(start, end).getId()).getId();
+        String second = awaitFinished(reportJobService.submit(start, end).getId()).getId();
+        ReportJobStatus third = awaitFinished(reportJobService.submit(start, end).getId());
+        reportJobService.getResult(first);
+        reportProperties.getJobs().setMaxSize(DataSize.ofBytes(third.getSize() * 2));
+
+        // Act
+        int removed = reportJobService.cleanUp();
+
+        // Assert
+        assertEquals(1, removed);
+        assertThrows(EntityNotFoundException.class, () -> reportJobService.getStatus(second));
+        assertTrue(Files.exists(reportJobService.getResult(first)));
+        assertTrue(Files.exists(reportJobService.getResult(third.getId())));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    /**
+     * Test the cleanup while a report is still being written
+     * Expected: Should count the report being written against the quota and evict a finished one to make room
+     */
+    @Test
+    void cleanUp_WithJobRunning_ShouldCountItsOutput() throws Exception {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        when(rollupService.getDailySummary(any(), any())).thenReturn(List.of()).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return List.of();
+        });
+        reportJobService = newService();
+        ReportJobStatus finished = awaitFinished(reportJobService.submit(start, end).getId());
+        reportProperties.getJobs().setMaxSize(DataSize.ofBytes(finished.getSize() + 1));
+        String running = reportJobService.submit(start, end).getId();
+        // the header is written before the summary is read
+        await().atMost(Duration.ofSeconds(10)).until(() -> reportJobService.getStatus(running).getSize() > 1);
+
+        // Act
+        int removed = reportJobService.cleanUp();
+
+        // Assert
+        assertEquals(1, removed);
+        assertThrows(EntityNotFoundException.class, () -> reportJobService.getStatus(finished.getId()));
+        release.countDown();
+        assertEquals(State.COMPLETED, awaitFinished(running).getState());
+    }
+
+    /**
+     * Test the cleanup of reports unused for longer than the TTL
+     * Expected: Should delete the job and its file
+     */
+    @Test
+    void cleanUp_AfterTtl_ShouldRemoveJob() throws Exception {
+        // Arrange
+        reportProperties.getJobs().setTtl(Duration.ZERO);
+        reportJobService = newService();
+        String id = awaitFinished(reportJobService.submit(start, end).getId()).getId();
+
+        // Act
+        await().atMost(Duration.ofSeconds(5)).until(() -> reportJobService.cleanUp() == 1);
+
+        // Assert
+        assertThrows(EntityNotFoundException.class, () -> reportJobService.getStatus(id));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    /**
+     * Test starting up with files of jobs lost in a restart next to files that are not job output
+     * Expected: Should delete the reports and partial reports only
+     */
+    @Test
+    void newService_ShouldDeleteLeftoverJobFilesOnly() throws Exception {
+        // Arrange
+        Files.writeString(directory.resolve("lost.html"), "<html>");
+        Files.writeString(directory.resolve("lost.html.part"), "<ht");
+        Files.writeString(directory.resolve("notes.txt"), "keep");
+
+        // Act
+        reportJobService = newService();
+
+        // Assert
+        assertFalse(Files.exists(directory.resolve("lost.html")));
+        assertFalse(Files.exists(directory.resolve("lost.html.part")));
+        assertTrue(Files.exists(directory.resolve("notes.txt")));
+    }
+
+    /**
+     * Test a job id that was never issued
+     * Expected: Should throw EntityNotFoundException
+     */
+    @Test
+    void getStatus_WithUnknownId_ShouldThrowException() throws Exception {
+        // Arrange
+        reportJobService = newService();
+
+        // Act & Assert
+        assertThrows(EntityNotFoundException.class, () -> reportJobService.getStatus("missing"));
+    }
+
+    private FileReportJobService newService() throws Exception {
+        return new FileReportJobService(new HtmlReportGenerator(), purchaseService, refundService, rollupService,
+                entityManager, transactionManager, reportProperties);
+    }
+
+    private ReportJobStatus awaitFinished(String id) {
+        await().atMost(Duration.ofSeconds(10)).until(() -> {
+            State state = reportJobService.getStatus(id).getState();
+            return state == State.COMPLETED || state == State.FAILED;
+        });
+        return reportJobService.getStatus(id);
+    }
+}
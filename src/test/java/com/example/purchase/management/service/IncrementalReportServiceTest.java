@@ -0,0 +1,171 @@
+package com.example.purchase.management.service;
+
+import com.example.purchase.management.config.ReportProperties;
+import com.example.purchase.management.entity.Customer;
+import com.example.purchase.management.entity.Product;
+import com.example.purchase.management.entity.Purchase;
+import com.example.purchase.management.report.HtmlReportGenerator;
+import com.example.purchase.management.repository.PurchaseRepository;
+import com.example.purchase.management.repository.RefundRepository;
+import com.example.purchase.management.service.impl.IncrementalReportService;
+import com.example.purchase.management.service.impl.RollupServiceImpl;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(RollupServiceImpl.class)
+class IncrementalReportServiceTest {
+
+    @Autowired
+    private PurchaseRepository purchaseRepository;
+
+    @Autowired
+    private RefundRepository refundRepository;
+
+    @Autowired
+    private RollupService rollupService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private ReportProperties reportProperties;
+    private IntradayReportService intradayReportService;
+    private Statistics statistics;
+    private Customer customer;
+
+    @BeforeEach
+    void setUp() {
+        // a fresh service per test, as it keeps the day's rows between calls
+        reportProperties = new ReportProperties();
+        intradayReportService = new IncrementalReportService(purchaseRepository, refundRepository, rollupService,
+                new HtmlReportGenerator(), entityManager.getEntityManager(), transactionManager, reportProperties);
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+
+        customer = new Customer();
+        customer.setFirstName("Ahmad");
+        customer.setLastName("Saad");
+        customer.setPhone("0912345678");
+        entityManager.persist(customer);
+    }
+
+    /**
+     * Test refreshing the report after a new purchase
+     * Expected: Should show old and new rows, while reading only the new one
+     */
+    @Test
+    void generateIntradayReport_AfterNewPurchase_ShouldReadOnlyNewRows() {
+        // Arrange
+        reportProperties.getIntraday().setOverlap(Duration.ZERO);
+        persistPurchase("Laptop", LocalDate.now().atStartOfDay());
+        intradayReportService.generateIntradayReport();
+        persistPurchase("Tablet", LocalDateTime.now());
+        statistics.clear();
+
+        // Act
+        String report = intradayReportService.generateIntradayReport();
+
+        // Assert
+        assertTrue(report.contains("Laptop"));
+        assertTrue(report.contains("Tablet"));
+        assertEquals(1, statistics.getEntityStatistics(Purchase.class.getName()).getLoadCount());
+    }
+
+    /**
+     * Test refreshing twice while the rows are still inside the overlap
+     * Expected: Should re-read them but render each row only once
+     */
+    @Test
+    void generateIntradayReport_WithinOverlap_ShouldNotDuplicateRows() {
+        // Arrange
+        persistPurchase("Laptop", LocalDateTime.now());
+        intradayReportService.generateIntradayReport();
+
+        // Act
+        String report = intradayReportService.generateIntradayReport();
+
+        // Assert
+        assertEquals(1, report.split("Laptop", -1).length - 1);
+    }
+
+    /**
+     * Test the report with purchases from yesterday and today
+     * Expected: Should only show today's purchases
+     */
+    @Test
+    void generateIntradayReport_ShouldOnlyShowToday() {
+        // Arrange
+        persistPurchase("Laptop", LocalDateTime.now());
+        persistPurchase("Tablet", LocalDateTime.now().minusDays(1));
+
+        // Act
+        String report = intradayReportService.generateIntradayReport();
+
+        // Assert
+        assertTrue(report.contains("Laptop"));
+        assertFalse(report.contains("Tablet"));
+    }
+
+    /**
+     * Test a row showing up with a lower id than one already read and a date before the overlap,
+     * as from another instance's id block
+     * Expected: Should miss it until the rebuild interval has passed, then show it
+     */
+    @Test
+    void generateIntradayReport_AfterRebuildInterval_ShouldShowRowsBelowWatermark() {
+        // Arrange
+        reportProperties.getIntraday().setOverlap(Duration.ZERO);
+        Purchase late = persistPurchase("Tablet", LocalDateTime.now().minusDays(1));
+        persistPurchase("Laptop", LocalDateTime.now());
+        intradayReportService.generateIntradayReport();
+        entityManager.getEntityManager()
+                .createNativeQuery("update public.purchases set created_date = :date where id = :id")
+                .setParameter("date", LocalDate.now().atStartOfDay())
+                .setParameter("id", late.getId())
+                .executeUpdate();
+
+        // Act
+        String refreshed = intradayReportService.generateIntradayReport();
+        reportProperties.getIntraday().setRebuildInterval(Duration.ZERO);
+        String rebuilt = intradayReportService.generateIntradayReport();
+
+        // Assert
+        assertFalse(refreshed.contains("Tablet"));
+        assertTrue(rebuilt.contains("Tablet"));
+        assertEquals(1, rebuilt.split("Laptop", -1).length - 1);
+    }
+
+    private Purchase persistPurchase(String productName, LocalDateTime date) {
+        Product product = new Product();
+        product.setName(productName);
+        product.setPrice(10.0);
+        entityManager.persist(product);
+
+        Purchase purchase = new Purchase();
+        purchase.setCustomer(customer);
+        purchase.setProduct(product);
+        purchase.setAmount(10.0);
+        purchase.setDate(date);
+        entityManager.persist(purchase);
+        entityManager.flush();
+        entityManager.clear();
+        return purchase;
+    }
+}
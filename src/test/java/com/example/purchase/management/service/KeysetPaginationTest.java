@@ -0,0 +1,237 @@
+package com.example.purchase.management.service;
+
+import com.example.purchase.management.entity.Customer;
+import com.example.purchase.management.entity.Product;
+import com.example.purchase.management.entity.Purchase;
+import com.example.purchase.management.entity.Refund;
+import com.example.purchase.management.model.CursorPage;
+import com.example.purchase.management.model.TransactionFilter;
+import com.example.purchase.management.repository.CustomerRepository;
+import com.example.purchase.management.repository.ProductRepository;
+import com.example.purchase.management.repository.PurchaseRepository;
+import com.example.purchase.management.repository.RefundRepository;
+import com.example.purchase.management.service.impl.CustomerServiceImpl;
+import com.example.purchase.management.service.impl.PurchaseServiceImpl;
+import com.example.purchase.management.service.impl.RefundServiceImpl;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class KeysetPaginationTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PurchaseRepository purchaseRepository;
+
+    @Autowired
+    private RefundRepository refundRepository;
+
+    private PurchaseService purchaseService;
+    private RefundService refundService;
+    private CustomerService customerService;
+
+    private Statistics statistics;
+
+    private LocalDateTime day;
+    private Customer customer;
+    private Customer otherCustomer;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        purchaseService = new PurchaseServiceImpl(purchaseRepository, customerRepository, productRepository,
+                mock(RollupService.class), mock(ApplicationEventPublisher.class), entityManager.getEntityManager());
+        refundService = new RefundServiceImpl(refundRepository, purchaseRepository, mock(RollupService.class),
+                mock(ApplicationEventPublisher.class), entityManager.getEntityManager(),
+                mock(PlatformTransactionManager.class));
+        customerService = new CustomerServiceImpl(customerRepository);
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+
+        day = LocalDate.of(2024, 3, 10).atStartOfDay();
+        customer = persistCustomer("Ahmad");
+        otherCustomer = persistCustomer("Sara");
+        product = new Product();
+        product.setName("Laptop");
+        product.setPrice(1000.0);
+        entityManager.persist(product);
+    }
+
+    /**
+     * Test walking every purchase page by page, several of them sharing a date
+     * Expected: Should return each purchase exactly once, in (date, id) order, and no cursor after the last page
+     */
+    @Test
+    void getPurchases_PageByPage_ShouldReturnEveryPurchaseOnceInOrder() {
+        // Arrange
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            // pairs of purchases made at the same moment, so pages split ties on date
+            expected.add(persistPurchase(customer, day.plusHours(i / 2), 10.0 + i).getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        // Act
+        List<Long> seen = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<Purchase> page = purchaseService.getPurchases(TransactionFilter.none(), cursor, 3);
+            page.getItems().forEach(purchase -> seen.add(purchase.getId()));
+            pageSizes.add(page.getItems().size());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        // Assert
+        assertEquals(expected, seen);
+        assertEquals(List.of(3, 3, 1), pageSizes);
+    }
+
+    /**
+     * Test a page of purchases filtered by customer and date
+     * Expected: Should return only that customer's purchases on those days, with customer and product in one statement
+     */
+    @Test
+    void getPurchases_WithFilter_ShouldReturnOnlyMatchingPurchasesInOneStatement() {
+        // Arrange
+        Purchase inRange = persistPurchase(customer, day.plusHours(23), 10.0);
+        persistPurchase(customer, day.plusDays(1), 20.0);
+        persistPurchase(otherCustomer, day.plusHours(1), 30.0);
+        persistPurchase(customer, day.minusSeconds(1), 40.0);
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        TransactionFilter filter = new TransactionFilter(day.toLocalDate(), day.toLocalDate(), customer.getId(), null);
+
+        // Act
+        CursorPage<Purchase> page = purchaseService.getPurchases(filter, null, 10);
+
+        // Assert
+        assertEquals(List.of(inRange.getId()), page.getItems().stream().map(Purchase::getId).toList());
+        assertEquals("Ahmad", page.getItems().get(0).getCustomer().getFirstName());
+        assertEquals("Laptop", page.getItems().get(0).getProduct().getName());
+        assertNull(page.getNextCursor());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    /**
+     * Test paging refunds filtered by product
+     * Expected: Should page through that product's refunds with their purchases loaded
+     */
+    @Test
+    void getRefunds_PageByPage_ShouldReturnEveryRefundOnce() {
+        // Arrange
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Purchase purchase = persistPurchase(customer, day.plusHours(i), 100.0);
+            Refund refund = new Refund();
+            refund.setPurchase(purchase);
+            refund.setCustomer(customer);
+            refund.setProduct(product);
+            refund.setAmount(50.0);
+            refund.setDate(day.plusHours(i).plusMinutes(5));
+            entityManager.persist(refund);
+            expected.add(refund.getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        TransactionFilter filter = new TransactionFilter(null, null, null, product.getId());
+
+        // Act
+        CursorPage<Refund> first = refundService.getRefunds(filter, null, 2);
+        CursorPage<Refund> second = refundService.getRefunds(filter, first.getNextCursor(), 2);
+
+        // Assert
+        assertEquals(expected.subList(0, 2), first.getItems().stream().map(Refund::getId).toList());
+        assertEquals(expected.subList(2, 3), second.getItems().stream().map(Refund::getId).toList());
+        assertNull(second.getNextCursor());
+        assertEquals(100.0, second.getItems().get(0).getPurchase().getAmount());
+    }
+
+    /**
+     * Test paging customers by id
+     * Expected: Should continue after the previous page's last customer
+     */
+    @Test
+    void getCustomers_PageByPage_ShouldContinueAfterLastId() {
+        // Arrange
+        Customer third = persistCustomer("Omar");
+        entityManager.flush();
+        entityManager.clear();
+
+        // Act
+        CursorPage<Customer> first = customerService.getCustomers(null, 2);
+        CursorPage<Customer> second = customerService.getCustomers(first.getNextCursor(), 2);
+
+        // Assert
+        assertEquals(List.of(customer.getId(), otherCustomer.getId()),
+                first.getItems().stream().map(Customer::getId).toList());
+        assertEquals(List.of(third.getId()), second.getItems().stream().map(Customer::getId).toList());
+        assertNull(second.getNextCursor());
+    }
+
+    /**
+     * Test asking for a page with an unreadable cursor, too large a limit or a reversed date range
+     * Expected: Should throw IllegalArgumentException
+     */
+    @Test
+    void getPurchases_WithInvalidArguments_ShouldThrowException() {
+        // Arrange
+        TransactionFilter reversed = new TransactionFilter(day.toLocalDate(), day.toLocalDate().minusDays(1), null, null);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> purchaseService.getPurchases(TransactionFilter.none(), "not a cursor", 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> purchaseService.getPurchases(TransactionFilter.none(), null, 1001));
+        assertThrows(IllegalArgumentException.class,
+                () -> purchaseService.getPurchases(reversed, null, 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> customerService.getCustomers("@@@", 10));
+    }
+
+    private Customer persistCustomer(String firstName) {
+        Customer customer = new Customer();
+        customer.setFirstName(firstName);
+        customer.setLastName("Safi");
+        entityManager.persist(customer);
+        return customer;
+    }
+
+    private Purchase persistPurchase(Customer customer, LocalDateTime date, Double amount) {
+        Purchase purchase = new Purchase();
+        purchase.setCustomer(customer);
+        purchase.setProduct(product);
+        purchase.setAmount(amount);
+        purchase.setDate(date);
+        entityManager.persist(purchase);
+        return purchase;
+    }
+}
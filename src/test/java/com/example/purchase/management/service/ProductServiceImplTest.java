@@ -1,15 +1,21 @@
 package com.example.purchase.management.service;
 
+import com.example.purchase.management.config.CatalogProperties;
 import com.example.purchase.management.entity.Product;
+import com.example.purchase.management.event.ProductsChangedEvent;
+import com.example.purchase.management.model.ProductCatalog;
 import com.example.purchase.management.repository.ProductRepository;
 import com.example.purchase.management.service.impl.ProductServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -23,6 +29,10 @@ class ProductServiceImplTest {
     private ProductServiceImpl productService;
     @Mock
     private ProductRepository productRepository;
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+    @Spy
+    private CatalogProperties catalogProperties = new CatalogProperties();
     private Product validProduct;
 
     @BeforeEach
@@ -248,4 +258,72 @@ class ProductServiceImplTest {
         // Assert
         assertTrue(returnedList.isEmpty());
     }
+
+    @Test
+    public void getProductCatalog_Twice_ShouldReadAndSerializeOnce() throws Exception {
+        // Arrange
+        validProduct.setId(1L);
+        when(productRepository.findAllByOrderByIdAsc()).thenReturn(List.of(validProduct));
+
+        // Act
+        ProductCatalog first = productService.getProductCatalog();
+        ProductCatalog second = productService.getProductCatalog();
+
+        // Assert
+        assertSame(first, second);
+        assertEquals("[{\"id\":1,\"name\":\"Laptop\",\"price\":1000.0}]", new String(second.getJson()));
+        verify(productRepository, times(1)).findAllByOrderByIdAsc();
+        verify(objectMapper, times(1)).writeValueAsBytes(any());
+    }
+
+    @Test
+    public void getProductCatalog_AfterUpdate_ShouldReadAgainWithNewETag() {
+        // Arrange
+        validProduct.setId(1L);
+        when(productRepository.findAllByOrderByIdAsc()).thenReturn(List.of(validProduct));
+        when(productRepository.findById(1L)).thenReturn(Optional.of(validProduct));
+        when(productRepository.save(validProduct)).thenReturn(validProduct);
+        ProductCatalog before = productService.getProductCatalog();
+
+        Product update = new Product();
+        update.setName("Laptop");
+        update.setPrice(900.0);
+
+        // Act
+        productService.updateProduct(1L, update);
+        ProductCatalog after = productService.getProductCatalog();
+
+        // Assert
+        assertTrue(after.getVersion() > before.getVersion());
+        assertNotEquals(before.getEtag(), after.getEtag());
+        verify(productRepository, times(2)).findAllByOrderByIdAsc();
+    }
+
+    @Test
+    public void getProductCatalog_AfterImport_ShouldReadAgain() {
+        // Arrange
+        when(productRepository.findAllByOrderByIdAsc()).thenReturn(List.of());
+        productService.getProductCatalog();
+
+        // Act
+        productService.onProductsChanged(new ProductsChangedEvent());
+        productService.getProductCatalog();
+
+        // Assert
+        verify(productRepository, times(2)).findAllByOrderByIdAsc();
+    }
+
+    @Test
+    public void getProductCatalog_AfterTtl_ShouldReadAgainWithoutLocalWrite() {
+        // Arrange
+        catalogProperties.getCache().setTtl(Duration.ZERO);
+        when(productRepository.findAllByOrderByIdAsc()).thenReturn(List.of());
+        productService.getProductCatalog();
+
+        // Act
+        productService.getProductCatalog();
+
+        // Assert
+        verify(productRepository, times(2)).findAllByOrderByIdAsc();
+    }
 }
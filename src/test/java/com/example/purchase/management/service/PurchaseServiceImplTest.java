@@ -4,22 +4,30 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 import com.example.purchase.management.entity.Purchase;
+import com.example.purchase.management.event.TransactionRecordedEvent;
 import com.example.purchase.management.entity.Customer;
 import com.example.purchase.management.entity.Product;
+import com.example.purchase.management.model.BatchResult;
 import com.example.purchase.management.repository.PurchaseRepository;
 import com.example.purchase.management.repository.CustomerRepository;
 import com.example.purchase.management.repository.ProductRepository;
 import com.example.purchase.management.service.impl.PurchaseServiceImpl;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.springframework.context.ApplicationEventPublisher;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -37,7 +45,15 @@ public class PurchaseServiceImplTest {
     @Mock
     private ProductRepository productRepository;
 
-    @InjectMocks
+    @Mock
+    private RollupService rollupService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private EntityManager entityManager;
+
     private PurchaseServiceImpl purchaseService;
 
     private Purchase testPurchase;
@@ -49,6 +65,9 @@ public class PurchaseServiceImplTest {
      */
     @BeforeEach
     void setUp() {
+        purchaseService = new PurchaseServiceImpl(purchaseRepository, customerRepository, productRepository,
+                rollupService, eventPublisher, entityManager);
+
         // Setup test customer
         testCustomer = new Customer();
         testCustomer.setId(1L);
@@ -93,6 +112,8 @@ public class PurchaseServiceImplTest {
         assertEquals(testCustomer.getId(), created.getCustomer().getId());
         assertEquals(testProduct.getId(), created.getProduct().getId());
         verify(purchaseRepository, times(1)).save(any(Purchase.class));
+        verify(rollupService).recordPurchase(testPurchase);
+        verify(eventPublisher).publishEvent(new TransactionRecordedEvent(testPurchase.getDate()));
     }
 
     /**
@@ -110,6 +131,7 @@ public class PurchaseServiceImplTest {
 
         assertEquals("Customer not found", exception.getMessage());
         verify(purchaseRepository, never()).save(any(Purchase.class));
+        verify(rollupService, never()).recordPurchase(any());
     }
 
     /**
@@ -149,6 +171,68 @@ public class PurchaseServiceImplTest {
         verify(purchaseRepository, never()).save(any(Purchase.class));
     }
 
+    /**
+     * Test creating a purchase without a date
+     * Expected: Should throw IllegalArgumentException before saving or publishing anything
+     */
+    @Test
+    void createPurchase_WithoutDate_ShouldThrowException() {
+        // Arrange
+        testPurchase.setDate(null);
+        when(customerRepository.findById(1L)).thenReturn(Optional.of(testCustomer));
+        when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
+
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> purchaseService.createPurchase(testPurchase));
+
+        assertEquals("Date is required", exception.getMessage());
+        verify(purchaseRepository, never()).save(any(Purchase.class));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    /**
+     * Test creating a purchase whose customer was deleted after it was cached
+     * Expected: Should throw EntityNotFoundException and evict both from the second-level cache
+     */
+    @Test
+    void createPurchase_WhenForeignKeyIsViolated_ShouldThrowExceptionAndEvict() {
+        // Arrange
+        Cache secondLevelCache = mockSecondLevelCache();
+        when(customerRepository.findById(1L)).thenReturn(Optional.of(testCustomer));
+        when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
+        when(purchaseRepository.save(any(Purchase.class))).thenReturn(testPurchase);
+        doThrow(violation("FK_PURCHASES_CUSTOMER: PUBLIC.PURCHASES FOREIGN KEY(CUSTOMER_ID)"))
+                .when(purchaseRepository).flush();
+
+        // Act & Assert
+        EntityNotFoundException exception = assertThrows(EntityNotFoundException.class,
+                () -> purchaseService.createPurchase(testPurchase));
+        assertEquals("Customer or product not found", exception.getMessage());
+        verify(rollupService, never()).recordPurchase(any());
+        verify(secondLevelCache).evict(Customer.class, 1L);
+        verify(secondLevelCache).evict(Product.class, 1L);
+    }
+
+    /**
+     * Test creating a purchase refused by a constraint other than the customer and product keys
+     * Expected: Should rethrow the violation as it is, without evicting the cached customer and product
+     */
+    @Test
+    void createPurchase_WhenOtherConstraintIsViolated_ShouldRethrow() {
+        // Arrange
+        when(customerRepository.findById(1L)).thenReturn(Optional.of(testCustomer));
+        when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
+        when(purchaseRepository.save(any(Purchase.class))).thenReturn(testPurchase);
+        DataIntegrityViolationException violation = violation("purchases_amount_check");
+        doThrow(violation).when(purchaseRepository).flush();
+
+        // Act & Assert
+        assertSame(violation, assertThrows(DataIntegrityViolationException.class,
+                () -> purchaseService.createPurchase(testPurchase)));
+        verify(entityManager, never()).getEntityManagerFactory();
+    }
+
     // GET ALL PURCHASES TESTS
 
     /**
@@ -253,4 +337,117 @@ public class PurchaseServiceImplTest {
         verify(purchaseRepository, times(1)).findAllByDateBetween(any(), any());
     }
 
+    /**
+     * Test creating a batch with a valid purchase, an unknown customer, a missing amount and a missing date
+     * Expected: Should save only the valid one and report the others by their position
+     */
+    @Test
+    void createPurchases_WithInvalidItems_ShouldRejectThemAndSaveTheRest() {
+        // Arrange
+        Customer unknownCustomer = new Customer();
+        unknownCustomer.setId(99L);
+
+        Purchase unknown = new Purchase();
+        unknown.setCustomer(unknownCustomer);
+        unknown.setProduct(testProduct);
+        unknown.setAmount(5.0);
+        unknown.setDate(LocalDateTime.now());
+
+        Purchase noAmount = new Purchase();
+        noAmount.setCustomer(testCustomer);
+        noAmount.setProduct(testProduct);
+        noAmount.setDate(LocalDateTime.now());
+
+        Purchase noDate = new Purchase();
+        noDate.setCustomer(testCustomer);
+        noDate.setProduct(testProduct);
+        noDate.setAmount(5.0);
+        noDate.setDate(null);
+
+        when(customerRepository.findAllById(anyIterable())).thenReturn(List.of(testCustomer));
+        when(productRepository.findAllById(anyIterable())).thenReturn(List.of(testProduct));
+        doAnswer(invocation -> {
+            invocation.<Purchase>getArgument(0).setId(10L);
+            return null;
+        }).when(entityManager).persist(testPurchase);
+
+        // Act
+        BatchResult result = purchaseService.createPurchases(List.of(unknown, testPurchase, noAmount, noDate));
+
+        // Assert
+        assertEquals(4, result.getReceived());
+        assertEquals(1, result.getCreated());
+        assertEquals(3, result.getRejected());
+        assertEquals("Customer not found", result.getItems().get(0).getError());
+        assertEquals(10L, result.getItems().get(1).getId());
+        assertEquals("Valid amount is required", result.getItems().get(2).getError());
+        assertEquals("Date is required", result.getItems().get(3).getError());
+        verify(entityManager, times(1)).persist(any());
+        verify(rollupService).recordPurchases(List.of(testPurchase));
+        verify(eventPublisher).publishEvent(new TransactionRecordedEvent(testPurchase.getDate()));
+        verify(purchaseRepository, never()).save(any());
+    }
+
+    /**
+     * Test creating a batch of purchases of the same customer and product
+     * Expected: Should look both up once rather than once per purchase, and publish one event per day
+     * spanning that day's first to last purchase
+     */
+    @Test
+    void createPurchases_ShouldLookUpCustomersAndProductsOnce() {
+        // Arrange
+        List<Purchase> purchases = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            Purchase purchase = new Purchase();
+            purchase.setCustomer(testCustomer);
+            purchase.setProduct(testProduct);
+            purchase.setAmount(1.0);
+            // a different time each, over two days
+            purchase.setDate(LocalDateTime.of(2024, 3, 1, 9, 0).plusMinutes(i));
+            purchases.add(purchase);
+        }
+        when(customerRepository.findAllById(anyIterable())).thenReturn(List.of(testCustomer));
+        when(productRepository.findAllById(anyIterable())).thenReturn(List.of(testProduct));
+
+        // Act
+        BatchResult result = purchaseService.createPurchases(purchases);
+
+        // Assert
+        assertEquals(1200, result.getCreated());
+        verify(customerRepository, times(1)).findAllById(anyIterable());
+        verify(productRepository, times(1)).findAllById(anyIterable());
+        verify(customerRepository, never()).findById(any());
+        // two full flushes of 500, then the rest
+        verify(entityManager, times(3)).flush();
+        verify(eventPublisher, times(2)).publishEvent(any(TransactionRecordedEvent.class));
+        verify(eventPublisher).publishEvent(new TransactionRecordedEvent(
+                LocalDateTime.of(2024, 3, 1, 9, 0), LocalDateTime.of(2024, 3, 1, 23, 59)));
+        verify(eventPublisher).publishEvent(new TransactionRecordedEvent(
+                LocalDateTime.of(2024, 3, 2, 0, 0), LocalDateTime.of(2024, 3, 2, 4, 59)));
+    }
+
+    /**
+     * Test creating an empty batch
+     * Expected: Should throw IllegalArgumentException
+     */
+    @Test
+    void createPurchases_WithEmptyBatch_ShouldThrowException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> purchaseService.createPurchases(List.of()));
+        verifyNoInteractions(entityManager, rollupService);
+    }
+
+    // As Spring translates Hibernate's exception for a violated constraint
+    private DataIntegrityViolationException violation(String constraintName) {
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", new SQLException(), constraintName));
+    }
+
+    private Cache mockSecondLevelCache() {
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        Cache cache = mock(Cache.class);
+        when(entityManager.getEntityManagerFactory()).thenReturn(entityManagerFactory);
+        when(entityManagerFactory.getCache()).thenReturn(cache);
+        return cache;
+    }
 }
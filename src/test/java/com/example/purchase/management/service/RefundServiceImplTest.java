@@ -1,20 +1,26 @@
 package com.example.purchase.management.service;
 
 import com.example.purchase.management.entity.Purchase;
+import com.example.purchase.management.event.TransactionRecordedEvent;
 import com.example.purchase.management.entity.Refund;
+import com.example.purchase.management.model.BatchResult;
 import com.example.purchase.management.repository.PurchaseRepository;
 import com.example.purchase.management.repository.RefundRepository;
 import com.example.purchase.management.service.impl.RefundServiceImpl;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.mockito.MockitoAnnotations;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -32,6 +38,18 @@ class RefundServiceImplTest {
     @Mock
     private PurchaseRepository purchaseRepository;
 
+    @Mock
+    private RollupService rollupService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     private Refund validRefund;
     private Purchase validPurchase;
 
@@ -61,6 +79,8 @@ class RefundServiceImplTest {
         assertNotNull(actualRefund);
         assertEquals(validRefund.getAmount(), actualRefund.getAmount());
         verify(refundRepository, times(1)).save(validRefund);
+        verify(rollupService).recordRefund(validRefund);
+        verify(eventPublisher).publishEvent(new TransactionRecordedEvent(validRefund.getDate()));
     }
 
     @Test
@@ -90,6 +110,7 @@ class RefundServiceImplTest {
         );
         assertEquals("Invalid refund amount", exp.getMessage());
         verify(refundRepository, never()).save(validRefund);
+        verify(rollupService, never()).recordRefund(any());
     }
 
     @Test
@@ -158,4 +179,141 @@ class RefundServiceImplTest {
         assertEquals(refunds.size(), returnedList.size());
         assertEquals(refunds, returnedList);
     }
+
+    @Test
+    public void createRefunds_ShouldRejectMissingRefundedAndDuplicatePurchases() {
+        // Arrange
+        Purchase refundedPurchase = new Purchase();
+        refundedPurchase.setId(2L);
+        refundedPurchase.setAmount(50.00);
+
+        Refund duplicate = refundOf(1L, 100.00);
+        Refund missing = refundOf(3L, 10.00);
+        Refund alreadyRefunded = refundOf(2L, 10.00);
+        Refund tooMuch = refundOf(2L, 60.00);
+
+        when(purchaseRepository.findAllWithCustomerAndProductByIdIn(anyCollection()))
+                .thenReturn(List.of(validPurchase, refundedPurchase));
+        when(refundRepository.findRefundedPurchaseIds(anyCollection())).thenReturn(List.of(2L));
+        doAnswer(invocation -> {
+            invocation.<Refund>getArgument(0).setId(7L);
+            return null;
+        }).when(entityManager).persist(validRefund);
+
+        // Act
+        BatchResult result = refundService.createRefunds(List.of(validRefund, duplicate, missing, alreadyRefunded, tooMuch));
+
+        // Assert
+        assertEquals(1, result.getCreated());
+        assertEquals(4, result.getRejected());
+        assertEquals(7L, result.getItems().get(0).getId());
+        assertEquals("Duplicate refund in batch", result.getItems().get(1).getError());
+        assertEquals("Purchase not found", result.getItems().get(2).getError());
+        assertEquals("Purchase already refunded", result.getItems().get(3).getError());
+        assertEquals("Purchase already refunded", result.getItems().get(4).getError());
+        verify(entityManager, times(1)).persist(any());
+        verify(rollupService).recordRefunds(List.of(validRefund));
+        verify(refundRepository, never()).save(any());
+    }
+
+    @Test
+    public void createRefunds_ShouldWriteEachChunkInItsOwnTransaction() {
+        // Arrange
+        List<Purchase> purchases = new ArrayList<>();
+        List<Refund> refunds = new ArrayList<>();
+        for (long id = 1; id <= 2500; id++) {
+            Purchase purchase = new Purchase();
+            purchase.setId(id);
+            purchase.setAmount(100.00);
+            purchases.add(purchase);
+            Refund refund = refundOf(id, 10.00);
+            refund.setDate(LocalDateTime.of(2024, 3, 1, 9, 0).plusSeconds(id));
+            refunds.add(refund);
+        }
+        when(purchaseRepository.findAllWithCustomerAndProductByIdIn(anyCollection())).thenAnswer(invocation ->
+                purchases.stream().filter(purchase -> invocation.<Collection<Long>>getArgument(0).contains(purchase.getId())).toList());
+
+        // Act
+        BatchResult result = refundService.createRefunds(refunds);
+
+        // Assert
+        assertEquals(2500, result.getCreated());
+        verify(transactionManager, times(3)).getTransaction(any());
+        verify(transactionManager, times(3)).commit(any());
+        verify(purchaseRepository, times(3)).findAllWithCustomerAndProductByIdIn(anyCollection());
+        verify(purchaseRepository, never()).findById(any());
+        verify(rollupService, times(3)).recordRefunds(anyList());
+        // one day per chunk, however many timestamps, spanning the chunk's first to last refund
+        verify(eventPublisher, times(3)).publishEvent(any(TransactionRecordedEvent.class));
+        verify(eventPublisher).publishEvent(new TransactionRecordedEvent(
+                LocalDateTime.of(2024, 3, 1, 9, 0, 1), LocalDateTime.of(2024, 3, 1, 9, 16, 40)));
+    }
+
+    @Test
+    public void createRefunds_WhenListenerFailsAfterCommit_ShouldKeepRowsCreated() {
+        // Arrange
+        Purchase otherPurchase = new Purchase();
+        otherPurchase.setId(4L);
+        otherPurchase.setAmount(100.00);
+        Refund noDate = refundOf(4L, 10.00);
+        noDate.setDate(null);
+
+        when(purchaseRepository.findAllWithCustomerAndProductByIdIn(anyCollection()))
+                .thenReturn(List.of(validPurchase, otherPurchase));
+        doAnswer(invocation -> {
+            invocation.<Refund>getArgument(0).setId(7L);
+            return null;
+        }).when(entityManager).persist(validRefund);
+        doThrow(new IllegalStateException("listener failed")).when(eventPublisher).publishEvent(any());
+
+        // Act
+        BatchResult result = refundService.createRefunds(List.of(validRefund, noDate));
+
+        // Assert
+        assertEquals(1, result.getCreated());
+        assertEquals(7L, result.getItems().get(0).getId());
+        assertEquals("Date is required", result.getItems().get(1).getError());
+        verify(transactionManager, times(1)).commit(any());
+        verify(eventPublisher).publishEvent(new TransactionRecordedEvent(validRefund.getDate()));
+    }
+
+    @Test
+    public void createRefunds_WhenChunkFails_ShouldRejectItsRowsOnly() {
+        // Arrange
+        List<Refund> refunds = new ArrayList<>();
+        for (int i = 0; i < 1001; i++) {
+            refunds.add(refundOf(1L + i, 10.00));
+        }
+        Purchase last = new Purchase();
+        last.setId(1001L);
+        last.setAmount(100.00);
+        when(purchaseRepository.findAllWithCustomerAndProductByIdIn(anyCollection()))
+                .thenThrow(new RuntimeException("connection reset"))
+                .thenReturn(List.of(last));
+
+        // Act
+        BatchResult result = refundService.createRefunds(refunds);
+
+        // Assert
+        assertEquals(1, result.getCreated());
+        assertEquals(1000, result.getRejected());
+        assertEquals("Failed to save refund", result.getItems().get(0).getError());
+        verify(transactionManager, times(1)).rollback(any());
+    }
+
+    @Test
+    public void createRefunds_WithEmptyBatch_ShouldThrowIllegalArgumentException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> refundService.createRefunds(List.of()));
+        verifyNoInteractions(transactionManager, entityManager);
+    }
+
+    private Refund refundOf(Long purchaseId, Double amount) {
+        Purchase purchase = new Purchase();
+        purchase.setId(purchaseId);
+        Refund refund = new Refund();
+        refund.setPurchase(purchase);
+        refund.setAmount(amount);
+        return refund;
+    }
 }
@@ -0,0 +1,161 @@
+package com.example.purchase.management.service;
+
+import com.example.purchase.management.config.ReportProperties;
+import com.example.purchase.management.report.ReportSection;
+import com.example.purchase.management.service.impl.ReportSectionRunner;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class ReportSectionRunnerTest {
+
+    private ReportProperties reportProperties;
+    private ReportSectionRunner sectionRunner;
+
+    @BeforeEach
+    void setUp() {
+        reportProperties = new ReportProperties();
+        sectionRunner = new ReportSectionRunner(mock(PlatformTransactionManager.class), reportProperties);
+    }
+
+    /**
+     * Test that sections are stitched together in declaration order
+     * Expected: Output should follow section order even when a later section finishes first
+     */
+    @Test
+    void render_WhenLaterSectionFinishesFirst_ShouldKeepSectionOrder() throws Exception {
+        // Arrange
+        CountDownLatch secondDone = new CountDownLatch(1);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        sectionRunner.render(List.of(
+                new ReportSection("first", sink -> {
+                    awaitQuietly(secondDone);
+                    sink.write("first;".getBytes(StandardCharsets.UTF_8));
+                }),
+                new ReportSection("second", sink -> {
+                    sink.write("second;".getBytes(StandardCharsets.UTF_8));
+                    secondDone.countDown();
+                })
+        ), out);
+
+        // Assert
+        assertEquals("first;second;", out.toString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Test that sections run concurrently
+     * Expected: Two sections waiting on each other should both complete
+     */
+    @Test
+    void render_ShouldRunSectionsConcurrently() throws Exception {
+        // Arrange
+        CountDownLatch bothStarted = new CountDownLatch(2);
+
+        // Act & Assert
+        assertDoesNotThrow(() -> sectionRunner.render(List.of(
+                new ReportSection("purchases", sink -> awaitBoth(bothStarted)),
+                new ReportSection("refunds", sink -> awaitBoth(bothStarted))
+        ), new ByteArrayOutputStream()));
+    }
+
+    /**
+     * Test that a failing section cancels the others
+     * Expected: Should rethrow the failure and interrupt the slow section
+     */
+    @Test
+    void render_WhenSectionFails_ShouldCancelOtherSections() {
+        // Arrange
+        AtomicBoolean slowSectionInterrupted = new AtomicBoolean();
+
+        // Act & Assert
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> sectionRunner.render(List.of(
+                new ReportSection("slow", sink -> {
+                    try {
+                        Thread.sleep(Duration.ofSeconds(30));
+                    } catch (InterruptedException e) {
+                        slowSectionInterrupted.set(true);
+                    }
+                }),
+                new ReportSection("failing", sink -> {
+                    throw new IllegalStateException("Refund query failed");
+                })
+        ), new ByteArrayOutputStream()));
+
+        assertEquals("Refund query failed", exception.getMessage());
+        assertTrue(slowSectionInterrupted.get());
+    }
+
+    /**
+     * Test a section running past its timeout
+     * Expected: Should throw TimeoutException naming the section
+     */
+    @Test
+    void render_WhenSectionExceedsTimeout_ShouldThrowTimeoutException() {
+        // Arrange
+        reportProperties.setSectionTimeout(Duration.ofMillis(100));
+
+        // Act & Assert
+        TimeoutException exception = assertThrows(TimeoutException.class, () -> sectionRunner.render(List.of(
+                new ReportSection("purchases", sink -> { }),
+                new ReportSection("refunds", sink -> sleepQuietly(Duration.ofSeconds(30)))
+        ), new ByteArrayOutputStream()));
+
+        assertEquals("Report section 'refunds' did not finish in time", exception.getMessage());
+    }
+
+    /**
+     * Test the overall report deadline
+     * Expected: Deadline should win over a longer section timeout
+     */
+    @Test
+    void render_WhenReportDeadlinePasses_ShouldThrowTimeoutException() {
+        // Arrange
+        reportProperties.setDeadline(Duration.ofMillis(100));
+
+        // Act & Assert
+        assertThrows(TimeoutException.class, () -> sectionRunner.render(List.of(
+                new ReportSection("purchases", sink -> sleepQuietly(Duration.ofSeconds(30)))
+        ), new ByteArrayOutputStream()));
+    }
+
+    private static void awaitBoth(CountDownLatch bothStarted) {
+        bothStarted.countDown();
+        try {
+            if (!bothStarted.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("sections did not run concurrently");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleepQuietly(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
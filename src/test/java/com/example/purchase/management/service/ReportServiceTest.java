@@ -1,22 +1,32 @@
 package com.example.purchase.management.service;
 
+import com.example.purchase.management.config.ReportProperties;
 import com.example.purchase.management.entity.Purchase;
 import com.example.purchase.management.entity.Refund;
 import com.example.purchase.management.exception.ContentSizeExceededException;
+import com.example.purchase.management.model.DailyProductSummary;
+import com.example.purchase.management.service.impl.ReportSectionRunner;
 import com.example.purchase.management.service.impl.TransactionReportService;
 import com.example.purchase.management.report.ReportGenerator;
 
+import jakarta.persistence.EntityManager;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.io.ByteArrayOutputStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -40,6 +50,16 @@ public class ReportServiceTest {
     @Mock
     private SenderService emailService;
 
+    @Mock
+    private RollupService rollupService;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private ReportSectionRunner sectionRunner =
+            new ReportSectionRunner(mock(PlatformTransactionManager.class), new ReportProperties());
+
     private List<Purchase> testPurchases;
     private List<Refund> testRefunds;
     private String testHtmlReport;
@@ -67,18 +87,103 @@ public class ReportServiceTest {
      * Expected: Report should be generated and sent successfully
      */
     @Test
-    void generateReport_ShouldSucceed() {
+    void generateReport_ShouldSucceed() throws Exception {
         // Arrange
-        when(purchaseService.getPurchasesBetween(start, end)).thenReturn(testPurchases);
-        when(refundService.getRefundBetween(start, end)).thenReturn(testRefunds);
-        when(reportGenerator.generateReport(testPurchases, testRefunds)).thenReturn(testHtmlReport);
+        when(purchaseService.streamPurchasesBetween(start, end)).thenReturn(testPurchases.stream());
+        when(refundService.streamRefundsBetween(start, end)).thenReturn(testRefunds.stream());
 
         reportService.generateReport(start, end);
 
          // Assert
-         verify(purchaseService).getPurchasesBetween(start, end);
-         verify(refundService).getRefundBetween(start, end);
-         verify(reportGenerator).generateReport(testPurchases, testRefunds);
+         verify(purchaseService).streamPurchasesBetween(start, end);
+         verify(refundService).streamRefundsBetween(start, end);
+         verify(reportGenerator).writePurchases(any(Stream.class), any());
+         verify(reportGenerator).writeRefunds(any(Stream.class), any());
+         verify(purchaseService, never()).getPurchasesBetween(any(), any());
+    }
+
+    /**
+     * Test rendering only the summary, as used for the inline part of large report emails
+     * Expected: Should write the summary section without touching raw transactions
+     */
+    @Test
+    void generateSummary_ShouldWriteOnlySummarySection() throws Exception {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        when(rollupService.getDailySummary(start, end)).thenReturn(List.of());
+
+        // Act
+        reportService.generateSummary(start, end, out);
+
+        // Assert
+        verify(reportGenerator).writeSummary(List.of(), out);
+        verify(reportGenerator, never()).writeHeader(any());
+        verify(purchaseService, never()).streamPurchasesBetween(any(), any());
+    }
+
+    /**
+     * Test that the summary section is served from the rollups
+     * Expected: Summary rows should be passed to the generator unchanged
+     */
+    @Test
+    void generateReport_ShouldWriteSummaryFromRollups() throws Exception {
+        // Arrange
+        List<DailyProductSummary> summary = List.of(
+                new DailyProductSummary(LocalDate.now().minusDays(1), "Laptop", 2L, 20.0, 1L, 7.0, 13.0));
+        when(rollupService.getDailySummary(start, end)).thenReturn(summary);
+        when(purchaseService.streamPurchasesBetween(start, end)).thenReturn(Stream.empty());
+        when(refundService.streamRefundsBetween(start, end)).thenReturn(Stream.empty());
+
+        // Act
+        reportService.generateReport(start, end, new ByteArrayOutputStream());
+
+        // Assert
+        verify(reportGenerator).writeSummary(eq(summary), any());
+    }
+
+    /**
+     * Test streaming report generation into a sink
+     * Expected: Generator should write straight to the given stream
+     */
+    @Test
+    void generateReport_ToOutputStream_ShouldStreamIntoSink() throws Exception {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        when(purchaseService.streamPurchasesBetween(start, end)).thenReturn(testPurchases.stream());
+        when(refundService.streamRefundsBetween(start, end)).thenReturn(testRefunds.stream());
+
+        // Act
+        reportService.generateReport(start, end, out);
+
+        // Assert
+        verify(reportGenerator).writeHeader(out);
+        verify(reportGenerator).writeSummary(anyList(), eq(out));
+        verify(reportGenerator).writePurchases(any(Stream.class), any());
+        verify(reportGenerator).writeFooter(out);
+        verify(reportGenerator, never()).generateReport(anyList(), anyList());
+    }
+
+    /**
+     * Test that a large streamed report doesn't keep every row in the persistence context
+     * Expected: Persistence context should be cleared periodically while rows are consumed
+     */
+    @Test
+    void generateReport_WithManyRows_ShouldClearPersistenceContextPeriodically() throws Exception {
+        // Arrange
+        when(purchaseService.streamPurchasesBetween(start, end))
+                .thenReturn(IntStream.range(0, 1200).mapToObj(i -> new Purchase()));
+        when(refundService.streamRefundsBetween(start, end)).thenReturn(Stream.empty());
+        doAnswer(invocation -> {
+            Stream<?> purchases = invocation.getArgument(0);
+            purchases.forEach(purchase -> { });
+            return null;
+        }).when(reportGenerator).writePurchases(any(Stream.class), any());
+
+        // Act
+        reportService.generateReport(start, end, new ByteArrayOutputStream());
+
+        // Assert
+        verify(entityManager, times(2)).clear();
     }
 
     /**
@@ -88,7 +193,7 @@ public class ReportServiceTest {
     @Test
     void generateReport_WhenPurchaseServiceFails_ShouldThrowException() throws ContentSizeExceededException {
         // Arrange
-        when(purchaseService.getPurchasesBetween(start, end))
+        when(purchaseService.streamPurchasesBetween(start, end))
             .thenThrow(new RuntimeException("Purchase service failed"));
 
         // Act & Assert
@@ -0,0 +1,305 @@
+package com.example.purchase.management.service;
+
+import com.example.purchase.management.entity.Customer;
+import com.example.purchase.management.entity.DailyTransactionRollup;
+import com.example.purchase.management.entity.Product;
+import com.example.purchase.management.entity.Purchase;
+import com.example.purchase.management.entity.Refund;
+import com.example.purchase.management.model.DailyTotals;
+import com.example.purchase.management.repository.CustomerRepository;
+import com.example.purchase.management.repository.DailyTransactionRollupRepository;
+import com.example.purchase.management.repository.ProductRepository;
+import com.example.purchase.management.repository.PurchaseRepository;
+import com.example.purchase.management.repository.RefundRepository;
+import com.example.purchase.management.service.impl.RollupServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RollupServiceImplTest {
+
+    @Mock
+    private DailyTransactionRollupRepository rollupRepository;
+
+    @Mock
+    private PurchaseRepository purchaseRepository;
+
+    @Mock
+    private RefundRepository refundRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @InjectMocks
+    private RollupServiceImpl rollupService;
+
+    private LocalDate day;
+    private Purchase testPurchase;
+
+    @BeforeEach
+    void setUp() {
+        day = LocalDate.of(2024, 3, 10);
+
+        Customer customer = new Customer();
+        customer.setId(1L);
+
+        Product product = new Product();
+        product.setId(2L);
+
+        testPurchase = new Purchase();
+        testPurchase.setId(3L);
+        testPurchase.setCustomer(customer);
+        testPurchase.setProduct(product);
+        testPurchase.setAmount(10.0);
+        testPurchase.setDate(day.atTime(14, 30));
+    }
+
+    /**
+     * Test recording a purchase when the day already has a rollup row
+     * Expected: Should only increment the existing row
+     */
+    @Test
+    void recordPurchase_WithExistingRollup_ShouldIncrementInPlace() {
+        // Arrange
+        when(rollupRepository.addPurchase(day, 2L, 1L, 10.0)).thenReturn(1);
+
+        // Act
+        rollupService.recordPurchase(testPurchase);
+
+        // Assert
+        verify(rollupRepository, never()).save(any());
+    }
+
+    /**
+     * Test recording the first purchase of a day
+     * Expected: Should create the rollup row with the purchase totals
+     */
+    @Test
+    void recordPurchase_WithoutRollup_ShouldCreateIt() {
+        // Arrange
+        when(rollupRepository.addPurchase(day, 2L, 1L, 10.0)).thenReturn(0);
+        when(rollupRepository.insertIfAbsent(any())).thenReturn(true);
+
+        // Act
+        rollupService.recordPurchase(testPurchase);
+
+        // Assert
+        ArgumentCaptor<DailyTransactionRollup> saved = ArgumentCaptor.forClass(DailyTransactionRollup.class);
+        verify(rollupRepository).insertIfAbsent(saved.capture());
+        verify(rollupRepository, times(1)).addPurchase(day, 2L, 1L, 10.0);
+        assertEquals(day, saved.getValue().getDay());
+        assertEquals(1, saved.getValue().getPurchaseCount());
+        assertEquals(10.0, saved.getValue().getGrossAmount());
+        assertEquals(10.0, saved.getValue().getNetAmount());
+    }
+
+    /**
+     * Test recording the first purchase of a day while another transaction creates the same rollup
+     * Expected: Should add the purchase to the row the other transaction created
+     */
+    @Test
+    void recordPurchase_WhenRollupCreatedConcurrently_ShouldIncrementItInstead() {
+        // Arrange
+        when(rollupRepository.addPurchase(day, 2L, 1L, 10.0)).thenReturn(0, 1);
+        when(rollupRepository.insertIfAbsent(any())).thenReturn(false);
+
+        // Act
+        rollupService.recordPurchase(testPurchase);
+
+        // Assert
+        verify(rollupRepository, times(2)).addPurchase(day, 2L, 1L, 10.0);
+        verify(rollupRepository, never()).save(any());
+    }
+
+    /**
+     * Test recording several purchases of the same day, product and customer, one of another day
+     * Expected: Should update each rollup once with the summed totals, creating the missing one
+     */
+    @Test
+    void recordPurchases_ShouldUpdateEachRollupOnce() {
+        // Arrange
+        Purchase second = new Purchase();
+        second.setCustomer(testPurchase.getCustomer());
+        second.setProduct(testPurchase.getProduct());
+        second.setAmount(5.5);
+        second.setDate(day.atTime(18, 0));
+
+        Purchase nextDay = new Purchase();
+        nextDay.setCustomer(testPurchase.getCustomer());
+        nextDay.setProduct(testPurchase.getProduct());
+        nextDay.setAmount(7.0);
+        nextDay.setDate(day.plusDays(1).atTime(9, 0));
+
+        when(rollupRepository.addPurchases(day, 2L, 1L, 2, 15.5)).thenReturn(1);
+        when(rollupRepository.addPurchases(day.plusDays(1), 2L, 1L, 1, 7.0)).thenReturn(0);
+        when(rollupRepository.insertIfAbsent(any())).thenReturn(true);
+
+        // Act
+        rollupService.recordPurchases(List.of(testPurchase, second, nextDay));
+
+        // Assert
+        ArgumentCaptor<DailyTransactionRollup> saved = ArgumentCaptor.forClass(DailyTransactionRollup.class);
+        verify(rollupRepository).insertIfAbsent(saved.capture());
+        assertEquals(day.plusDays(1), saved.getValue().getDay());
+        assertEquals(1, saved.getValue().getPurchaseCount());
+        assertEquals(7.0, saved.getValue().getGrossAmount());
+        verify(rollupRepository, never()).addPurchase(any(), any(), any(), anyDouble());
+    }
+
+    /**
+     * Test recording a batch whose new rollup is created by another transaction at the same time
+     * Expected: Should add the batch's totals to that row rather than fail the batch
+     */
+    @Test
+    void recordPurchases_WhenRollupCreatedConcurrently_ShouldIncrementItInstead() {
+        // Arrange
+        when(rollupRepository.addPurchases(day, 2L, 1L, 1, 10.0)).thenReturn(0, 1);
+        when(rollupRepository.insertIfAbsent(any())).thenReturn(false);
+
+        // Act
+        rollupService.recordPurchases(List.of(testPurchase));
+
+        // Assert
+        verify(rollupRepository, times(2)).addPurchases(day, 2L, 1L, 1, 10.0);
+        verify(rollupRepository, never()).save(any());
+    }
+
+    /**
+     * Test recording two refunds of purchases of the same day, product and customer
+     * Expected: Should update the rollup once with both refunds
+     */
+    @Test
+    void recordRefunds_ShouldUpdateEachRollupOnce() {
+        // Arrange
+        Refund first = new Refund();
+        first.setPurchase(testPurchase);
+        first.setAmount(4.0);
+        first.setDate(day.atTime(15, 0));
+
+        Refund second = new Refund();
+        second.setPurchase(testPurchase);
+        second.setAmount(2.5);
+        second.setDate(day.atTime(16, 0));
+
+        when(rollupRepository.addRefunds(day, 2L, 1L, 2, 6.5)).thenReturn(1);
+
+        // Act
+        rollupService.recordRefunds(List.of(first, second));
+
+        // Assert
+        verify(rollupRepository).addRefunds(day, 2L, 1L, 2, 6.5);
+        verify(rollupRepository, never()).save(any());
+    }
+
+    /**
+     * Test recording a batch of refunds whose new rollup is created by another transaction at the same time
+     * Expected: Should add the refunds to that row rather than fail the batch
+     */
+    @Test
+    void recordRefunds_WhenRollupCreatedConcurrently_ShouldIncrementItInstead() {
+        // Arrange
+        Refund refund = new Refund();
+        refund.setPurchase(testPurchase);
+        refund.setAmount(4.0);
+        refund.setDate(day.atTime(15, 0));
+
+        when(rollupRepository.addRefunds(day, 2L, 1L, 1, 4.0)).thenReturn(0, 1);
+        when(rollupRepository.insertIfAbsent(any())).thenReturn(false);
+
+        // Act
+        rollupService.recordRefunds(List.of(refund));
+
+        // Assert
+        ArgumentCaptor<DailyTransactionRollup> inserted = ArgumentCaptor.forClass(DailyTransactionRollup.class);
+        verify(rollupRepository).insertIfAbsent(inserted.capture());
+        assertEquals(-4.0, inserted.getValue().getNetAmount());
+        verify(rollupRepository, times(2)).addRefunds(day, 2L, 1L, 1, 4.0);
+        verify(rollupRepository, never()).save(any());
+    }
+
+    /**
+     * Test recording the first refund of a day
+     * Expected: Should key the rollup on the refunded purchase and subtract from net
+     */
+    @Test
+    void recordRefund_WithoutRollup_ShouldCreateItWithNegativeNet() {
+        // Arrange
+        Refund refund = new Refund();
+        refund.setPurchase(testPurchase);
+        refund.setAmount(4.0);
+        refund.setDate(day.plusDays(1).atTime(9, 0));
+        when(rollupRepository.addRefund(day.plusDays(1), 2L, 1L, 4.0)).thenReturn(0);
+        when(rollupRepository.insertIfAbsent(any())).thenReturn(true);
+
+        // Act
+        rollupService.recordRefund(refund);
+
+        // Assert
+        ArgumentCaptor<DailyTransactionRollup> saved = ArgumentCaptor.forClass(DailyTransactionRollup.class);
+        verify(rollupRepository).insertIfAbsent(saved.capture());
+        assertEquals(1, saved.getValue().getRefundCount());
+        assertEquals(4.0, saved.getValue().getRefundedAmount());
+        assertEquals(-4.0, saved.getValue().getNetAmount());
+    }
+
+    /**
+     * Test rebuilding rollups from raw totals
+     * Expected: Should replace the range and merge purchase and refund totals per key
+     */
+    @Test
+    void rebuild_ShouldReplaceRangeWithMergedTotals() {
+        // Arrange
+        LocalDateTime start = day.atStartOfDay();
+        LocalDateTime end = day.plusDays(1).atStartOfDay();
+        when(purchaseRepository.sumDailyTotalsBetween(start, end)).thenReturn(List.of(
+                new DailyTotals(day, 2L, 1L, 3L, 30.0),
+                new DailyTotals(day, 5L, 1L, 1L, 8.0)));
+        when(refundRepository.sumDailyTotalsBetween(start, end)).thenReturn(List.of(
+                new DailyTotals(day, 2L, 1L, 1L, 12.0)));
+
+        // Act
+        rollupService.rebuild(day, day);
+
+        // Assert
+        verify(rollupRepository).deleteByDayBetween(day, day);
+        ArgumentCaptor<Iterable<DailyTransactionRollup>> saved = ArgumentCaptor.forClass(Iterable.class);
+        verify(rollupRepository).saveAll(saved.capture());
+        List<DailyTransactionRollup> rollups = new ArrayList<>();
+        saved.getValue().forEach(rollups::add);
+
+        assertEquals(2, rollups.size());
+        assertEquals(3, rollups.get(0).getPurchaseCount());
+        assertEquals(1, rollups.get(0).getRefundCount());
+        assertEquals(18.0, rollups.get(0).getNetAmount());
+        assertEquals(8.0, rollups.get(1).getNetAmount());
+    }
+
+    /**
+     * Test the summary range for a report ending at midnight
+     * Expected: Should not include the day that starts at the end boundary
+     */
+    @Test
+    void getDailySummary_WithMidnightEnd_ShouldExcludeEndDay() {
+        // Act
+        rollupService.getDailySummary(day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+
+        // Assert
+        verify(rollupRepository).summarizeByDayAndProduct(day, day);
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.purchase.management.service;
+
+import com.example.purchase.management.config.ReportProperties;
+import com.example.purchase.management.entity.Customer;
+import com.example.purchase.management.entity.Product;
+import com.example.purchase.management.entity.Purchase;
+import com.example.purchase.management.entity.Refund;
+import com.example.purchase.management.report.ExportFormat;
+import com.example.purchase.management.service.impl.TransactionExportService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({TransactionExportService.class, TransactionExportServiceTest.ExportTestConfig.class})
+class TransactionExportServiceTest {
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private ReportProperties reportProperties;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private LocalDate day;
+    private Customer customer;
+    private Product product;
+
+    @TestConfiguration
+    static class ExportTestConfig {
+
+        @Bean
+        ReportProperties reportProperties() {
+            return new ReportProperties();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        day = LocalDate.of(2024, 3, 10);
+        reportProperties.getExport().setFlushRows(1000);
+
+        customer = new Customer();
+        customer.setFirstName("Ahmad");
+        customer.setLastName("Saad, Jr.");
+        customer.setPhone("0912345678");
+        entityManager.persist(customer);
+
+        product = new Product();
+        product.setName("Laptop");
+        product.setPrice(1000.0);
+        entityManager.persist(product);
+    }
+
+    /**
+     * Test exporting a purchase and its refund as CSV
+     * Expected: Should write a header and one line per row, quoting fields that contain commas
+     */
+    @Test
+    void exportTransactions_AsCsv_ShouldWriteHeaderAndRows() {
+        // Arrange
+        Purchase purchase = persistPurchase(day, 1000.0);
+        persistRefund(purchase, 400.0);
+
+        // Act
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = exportService.exportTransactions(day, day, ExportFormat.CSV, out);
+
+        // Assert
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(2, rows);
+        assertEquals(3, lines.length);
+        assertEquals("type,id,date,customer_id,first_name,last_name,product,amount,purchase_id", lines[0]);
+        assertTrue(lines[1].startsWith("purchase," + purchase.getId() + ","));
+        assertTrue(lines[1].contains(",Ahmad,\"Saad, Jr.\",Laptop,1000.0,"));
+        assertTrue(lines[1].endsWith(","));
+        assertTrue(lines[2].startsWith("refund,"));
+        assertTrue(lines[2].endsWith(",400.0," + purchase.getId()));
+    }
+
+    /**
+     * Test exporting as NDJSON
+     * Expected: Should write one JSON object per line
+     */
+    @Test
+    void exportTransactions_AsNdjson_ShouldWriteOneObjectPerLine() throws Exception {
+        // Arrange
+        Purchase purchase = persistPurchase(day, 1000.0);
+        persistRefund(purchase, 400.0);
+
+        // Act
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportTransactions(day, day, ExportFormat.NDJSON, out);
+
+        // Assert
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        ObjectMapper mapper = new ObjectMapper();
+        assertEquals(2, lines.length);
+        JsonNode first = mapper.readTree(lines[0]);
+        assertEquals("purchase", first.get("type").asText());
+        assertEquals("Saad, Jr.", first.get("lastName").asText());
+        assertTrue(first.get("purchaseId").isNull());
+        JsonNode second = mapper.readTree(lines[1]);
+        assertEquals(purchase.getId().longValue(), second.get("purchaseId").asLong());
+        assertEquals(400.0, second.get("amount").asDouble());
+    }
+
+    /**
+     * Test exporting a range with rows on either side of it
+     * Expected: Should include whole days from..to and nothing else
+     */
+    @Test
+    void exportTransactions_ShouldOnlyIncludeRange() {
+        // Arrange
+        persistPurchase(day.minusDays(1), 1.0);
+        persistPurchase(day, 2.0);
+        persistPurchase(day.plusDays(1), 3.0);
+
+        // Act
+        long rows = exportService.exportTransactions(day, day, ExportFormat.CSV, new ByteArrayOutputStream());
+
+        // Assert
+        assertEquals(1, rows);
+    }
+
+    /**
+     * Test exporting more rows than one chunk
+     * Expected: Should flush the header at once and then every chunk
+     */
+    @Test
+    void exportTransactions_ShouldFlushInChunks() {
+        // Arrange
+        reportProperties.getExport().setFlushRows(2);
+        for (int i = 0; i < 5; i++) {
+            persistPurchase(day, 10.0 + i);
+        }
+        AtomicInteger flushes = new AtomicInteger();
+        FilterOutputStream out = new FilterOutputStream(new ByteArrayOutputStream()) {
+            @Override
+            public void flush() throws IOException {
+                flushes.incrementAndGet();
+                super.flush();
+            }
+        };
+
+        // Act
+        exportService.exportTransactions(day, day, ExportFormat.CSV, out);
+
+        // Assert
+        // header, two full chunks, and the final flush
+        assertEquals(4, flushes.get());
+    }
+
+    private Purchase persistPurchase(LocalDate date, double amount) {
+        Purchase purchase = new Purchase();
+        purchase.setCustomer(customer);
+        purchase.setProduct(product);
+        purchase.setAmount(amount);
+        purchase.setDate(date.atTime(10, 0));
+        return entityManager.persistFlushFind(purchase);
+    }
+
+    private void persistRefund(Purchase purchase, double amount) {
+        Refund refund = new Refund();
+        refund.setPurchase(purchase);
+        refund.setCustomer(customer);
+        refund.setProduct(product);
+        refund.setAmount(amount);
+        refund.setDate(purchase.getDate().plusHours(1));
+        entityManager.persistAndFlush(refund);
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.purchase.management.service;
+
+import com.example.purchase.management.entity.Customer;
+import com.example.purchase.management.entity.Product;
+import com.example.purchase.management.entity.Purchase;
+import com.example.purchase.management.entity.Refund;
+import com.example.purchase.management.repository.CustomerRepository;
+import com.example.purchase.management.repository.ProductRepository;
+import com.example.purchase.management.repository.PurchaseRepository;
+import com.example.purchase.management.repository.RefundRepository;
+import com.example.purchase.management.service.impl.PurchaseServiceImpl;
+import com.example.purchase.management.service.impl.RefundServiceImpl;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The write paths against the real mapping and second-level cache, counting the statements each write
+// sends besides the rollups. Every call commits on its own, as in the app, so the cache sees each write.
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({PurchaseServiceImpl.class, RefundServiceImpl.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class WritePathStatementCountTest {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PurchaseRepository purchaseRepository;
+
+    @Autowired
+    private RefundRepository refundRepository;
+
+    @Autowired
+    private PurchaseService purchaseService;
+
+    @Autowired
+    private RefundService refundService;
+
+    @MockBean
+    private RollupService rollupService;
+
+    private Statistics statistics;
+
+    private Customer customer;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        customer = new Customer();
+        customer.setFirstName("Ahmad");
+        customer.setLastName("Safi");
+        customer = customerRepository.save(customer);
+        product = new Product();
+        product.setName("Laptop");
+        product.setPrice(1000.0);
+        product = productRepository.save(product);
+
+        // warm: saving cached customer and product; one write each fetches the sequences' current blocks
+        refundService.createRefund(refundOf(purchaseService.createPurchase(purchaseOf(customer, product))));
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        refundRepository.deleteAll();
+        purchaseRepository.deleteAll();
+        customerRepository.deleteAll();
+        productRepository.deleteAll();
+    }
+
+    /**
+     * Test creating a purchase of a cached customer and product
+     * Expected: Should send the insert only, both lookups served by the second-level cache
+     */
+    @Test
+    void createPurchase_WithWarmCache_ShouldSendOneStatement() {
+        // Act
+        Purchase saved = purchaseService.createPurchase(purchaseOf(customer, product));
+
+        // Assert
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getEntityInsertCount());
+        assertEquals("Ahmad", saved.getCustomer().getFirstName());
+        assertEquals("Laptop", saved.getProduct().getName());
+    }
+
+    /**
+     * Test refunding a purchase of a cached customer and product
+     * Expected: Should send one select, for the purchase's amount, and the insert
+     */
+    @Test
+    void createRefund_WithWarmCache_ShouldSendTwoStatements() {
+        // Arrange
+        Purchase purchase = purchaseService.createPurchase(purchaseOf(customer, product));
+        statistics.clear();
+
+        // Act
+        Refund saved = refundService.createRefund(refundOf(purchase));
+
+        // Assert
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getEntityInsertCount());
+        assertEquals(customer.getId(), saved.getCustomer().getId());
+        assertEquals(product.getId(), saved.getProduct().getId());
+    }
+
+    private static Purchase purchaseOf(Customer customer, Product product) {
+        Customer customerRef = new Customer();
+        customerRef.setId(customer.getId());
+        Product productRef = new Product();
+        productRef.setId(product.getId());
+        Purchase purchase = new Purchase();
+        purchase.setCustomer(customerRef);
+        purchase.setProduct(productRef);
+        purchase.setAmount(100.0);
+        purchase.setDate(LocalDateTime.of(2024, 3, 10, 9, 0));
+        return purchase;
+    }
+
+    private static Refund refundOf(Purchase purchase) {
+        Purchase purchaseRef = new Purchase();
+        purchaseRef.setId(purchase.getId());
+        Refund refund = new Refund();
+        refund.setPurchase(purchaseRef);
+        refund.setAmount(10.0);
+        refund.setDate(LocalDateTime.of(2024, 3, 10, 10, 0));
+        return refund;
+    }
+}